@@ -0,0 +1,42 @@
+package deors.core.sensible;
+
+public class BenchmarkRowObject
+    extends SensibleObject {
+
+    private static final long serialVersionUID = 4476209712873215610L;
+
+    public BenchmarkRowObject() {
+
+        super();
+
+        SensibleInteger id = new SensibleInteger(0, 10000);
+        SensibleString name = new SensibleString(100);
+        SensibleString phone = new SensibleString(100);
+        SensibleString email = new SensibleString(100);
+
+        id.setKey(true);
+        name.setKey(true);
+
+        id.setRequired(true);
+        name.setRequired(true);
+
+        fields = new SensibleDataType[] {id, name, phone, email};
+        fieldNames = new String[] {"id", "name", "phone", "email"};
+
+        // the object listens itself
+        addListeners();
+    }
+
+    public static BenchmarkRowObject of(int row, int distinct) {
+
+        int value = row % distinct;
+
+        BenchmarkRowObject object = new BenchmarkRowObject();
+        object.setField(0, Integer.toString(value % 10000));
+        object.setField(1, "name" + value);
+        object.setField(2, "phone" + value);
+        object.setField(3, "mail" + value + "@example.com");
+
+        return object;
+    }
+}
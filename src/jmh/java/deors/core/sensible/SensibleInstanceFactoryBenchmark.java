@@ -0,0 +1,79 @@
+package deors.core.sensible;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SensibleInstanceFactoryBenchmark {
+
+    private final SensibleDataType field = new SensibleString(100);
+
+    private final SensibleObject row = new BenchmarkRowObject();
+
+    private final SensibleObject registeredRow = new RegisteredRowObject();
+
+    @Setup
+    public void register() {
+
+        SensibleInstanceFactory.register(RegisteredRowObject.class, RegisteredRowObject::new);
+    }
+
+    @TearDown
+    public void unregister() {
+
+        SensibleInstanceFactory.unregister(RegisteredRowObject.class);
+    }
+
+    // the path returnNew() followed before the factory
+    @Benchmark
+    public Object fieldReflective() throws ReflectiveOperationException {
+
+        return field.getClass().getConstructor().newInstance();
+    }
+
+    @Benchmark
+    public Object fieldReturnNew() {
+
+        return field.returnNew();
+    }
+
+    @Benchmark
+    public Object rowReflective() throws ReflectiveOperationException {
+
+        return row.getClass().getConstructor().newInstance();
+    }
+
+    @Benchmark
+    public Object rowReturnNew() {
+
+        return row.returnNew();
+    }
+
+    @Benchmark
+    public Object rowReturnNewRegistered() {
+
+        return registeredRow.returnNew();
+    }
+
+    public static class RegisteredRowObject
+        extends BenchmarkRowObject {
+
+        private static final long serialVersionUID = -2384950517243358215L;
+    }
+}
@@ -0,0 +1,147 @@
+package deors.core.sensible;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class SensibleObjectHashBenchmark {
+
+    private static final int DEDUP_ROWS = 1000000;
+
+    private static final int DEDUP_DISTINCT = 250000;
+
+    private static final int SORT_ROWS = 300000;
+
+    @State(Scope.Benchmark)
+    public static class Rows {
+
+        List<BenchmarkRowObject> rows = new ArrayList<BenchmarkRowObject>(DEDUP_ROWS);
+
+        boolean hashCodeCached;
+
+        @Setup
+        public void fill() {
+
+            for (int i = 0; i < DEDUP_ROWS; i++) {
+                BenchmarkRowObject row = BenchmarkRowObject.of(i, DEDUP_DISTINCT);
+                row.setHashCodeCached(hashCodeCached);
+                rows.add(row);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedRows
+        extends Rows {
+
+        public CachedRows() {
+
+            super();
+
+            hashCodeCached = true;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SortRows {
+
+        List<BenchmarkRowObject> rows = new ArrayList<BenchmarkRowObject>(SORT_ROWS);
+
+        @Setup
+        public void fill() {
+
+            for (int i = 0; i < SORT_ROWS; i++) {
+                rows.add(BenchmarkRowObject.of(i, SORT_ROWS));
+            }
+
+            Collections.shuffle(rows, new Random(0));
+        }
+    }
+
+    // the hash code hashCode() returned before it hashed the field values
+    static final class InternedHash {
+
+        private final SensibleObject object;
+
+        InternedHash(SensibleObject object) {
+
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object target) {
+
+            return target instanceof InternedHash && object.equals(((InternedHash) target).object);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return object.toString().intern().hashCode();
+        }
+    }
+
+    @Benchmark
+    public int dedupInternedString(Rows state) {
+
+        Set<InternedHash> distinct = new HashSet<InternedHash>();
+
+        for (BenchmarkRowObject row : state.rows) {
+            distinct.add(new InternedHash(row));
+        }
+
+        return distinct.size();
+    }
+
+    @Benchmark
+    public int dedup(Rows state) {
+
+        return new HashSet<SensibleObject>(state.rows).size();
+    }
+
+    @Benchmark
+    public int dedupCachedHash(CachedRows state) {
+
+        return new HashSet<SensibleObject>(state.rows).size();
+    }
+
+    // the order compareTo() used before it compared the key fields
+    @Benchmark
+    public Object sortBySortString(SortRows state) {
+
+        List<BenchmarkRowObject> rows = new ArrayList<BenchmarkRowObject>(state.rows);
+        rows.sort(Comparator.comparing(SensibleObject::toStringForSort));
+
+        return rows;
+    }
+
+    @Benchmark
+    public Object sort(SortRows state) {
+
+        List<BenchmarkRowObject> rows = new ArrayList<BenchmarkRowObject>(state.rows);
+        Collections.sort(rows);
+
+        return rows;
+    }
+}
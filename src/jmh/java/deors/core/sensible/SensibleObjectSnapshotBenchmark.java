@@ -0,0 +1,63 @@
+package deors.core.sensible;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// run with -prof gc to get the bytes allocated per row in gc.alloc.rate.norm
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SensibleObjectSnapshotBenchmark {
+
+    private final BenchmarkRowObject row = BenchmarkRowObject.of(1234, 10000);
+
+    private final BenchmarkRowObject target = new BenchmarkRowObject();
+
+    private final SensibleObjectSnapshot<BenchmarkRowObject> snapshot =
+        SensibleObjectSnapshot.of(row);
+
+    private final SensibleObjectSnapshot<BenchmarkRowObject> otherSnapshot =
+        SensibleObjectSnapshot.of(BenchmarkRowObject.of(4321, 10000));
+
+    private boolean other;
+
+    @Benchmark
+    public Object liveRow() {
+
+        return BenchmarkRowObject.of(1234, 10000);
+    }
+
+    @Benchmark
+    public Object snapshot() {
+
+        return SensibleObjectSnapshot.of(row);
+    }
+
+    @Benchmark
+    public Object thaw() {
+
+        return snapshot.thaw();
+    }
+
+    @Benchmark
+    public Object thawInto() {
+
+        // alternates the values, so every field of the target changes
+        other = !other;
+        (other ? otherSnapshot : snapshot).thaw(target);
+
+        return target;
+    }
+}
@@ -2,20 +2,51 @@ package deors.core.sensible;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
- * Implements common property change support methods.
+ * Implements common property change support methods.<br>
+ *
+ * The listeners are kept in an immutable registry, created when the first listener is added and
+ * replaced atomically when the listeners change, so no lock is taken to add, remove or notify
+ * them, and firing an event without listeners does not create the event.<br>
+ *
+ * Besides the property change listeners, typed listeners can be added for the boolean, integer,
+ * long integer and object properties. They are notified with the values as they are, without
+ * boxing them nor creating the property change event.<br>
  *
  * @author deors
  * @version 1.0
+ *
+ * @see SensibleListenerRegistry
+ * @see BooleanPropertyListener
+ * @see IntValueListener
+ * @see LongValueListener
+ * @see ValueListener
  */
 public class BasicPropertyChangeSupport {
 
     /**
-     * Property change support property.
+     * The listeners registry, or <code>null</code> if there are no listeners.
+     */
+    private transient volatile SensibleListenerRegistry listeners;
+
+    /**
+     * The dispatcher where the property changes are posted, or <code>null</code> if they are
+     * notified when they happen.
+     *
+     * @see BasicPropertyChangeSupport#getEventDispatcher()
+     * @see BasicPropertyChangeSupport#setEventDispatcher(SensibleEventDispatcher)
+     */
+    private transient volatile SensibleEventDispatcher dispatcher;
+
+    /**
+     * Updater used to replace the listeners registry atomically.
      */
-    protected transient java.beans.PropertyChangeSupport propertyChange = new java.beans.PropertyChangeSupport(this);
+    private static final AtomicReferenceFieldUpdater<BasicPropertyChangeSupport,
+                                                     SensibleListenerRegistry> LISTENERS =
+        AtomicReferenceFieldUpdater.newUpdater(
+            BasicPropertyChangeSupport.class, SensibleListenerRegistry.class, "listeners"); //$NON-NLS-1$
 
     /**
      * Default constructor. This class is not designed to be
@@ -27,6 +58,45 @@ public class BasicPropertyChangeSupport {
         super();
     }
 
+    /**
+     * Adds a listener of the changes in the given boolean property, or in all the boolean
+     * properties if the property name is <code>null</code>.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the boolean properties
+     * @param listener the listener
+     */
+    public void addBooleanPropertyListener(String propertyName,
+                                           BooleanPropertyListener listener) {
+
+        addListener(propertyName, listener);
+    }
+
+    /**
+     * Adds a listener of the changes in the given integer property.
+     *
+     * @param propertyName the property name
+     * @param listener the listener
+     */
+    public void addIntValueListener(String propertyName, IntValueListener listener) {
+
+        if (propertyName != null) {
+            addListener(propertyName, listener);
+        }
+    }
+
+    /**
+     * Adds a listener of the changes in the given long integer property.
+     *
+     * @param propertyName the property name
+     * @param listener the listener
+     */
+    public void addLongValueListener(String propertyName, LongValueListener listener) {
+
+        if (propertyName != null) {
+            addListener(propertyName, listener);
+        }
+    }
+
     /**
      * Adds a property change listener.
      *
@@ -34,9 +104,7 @@ public class BasicPropertyChangeSupport {
      */
     public void addPropertyChangeListener(PropertyChangeListener listener) {
 
-        synchronized (propertyChange) {
-            getPropertyChange().addPropertyChangeListener(listener);
-        }
+        addListener(null, listener);
     }
 
     /**
@@ -47,8 +115,43 @@ public class BasicPropertyChangeSupport {
      */
     public void addPropertyChangeListener(String propertyName,
                                           PropertyChangeListener listener) {
-        synchronized (propertyChange) {
-            getPropertyChange().addPropertyChangeListener(propertyName, listener);
+
+        if (propertyName != null) {
+            addListener(propertyName, listener);
+        }
+    }
+
+    /**
+     * Adds a listener to the registry.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the properties
+     * @param listener the listener
+     */
+    private void addListener(String propertyName, Object listener) {
+
+        if (listener == null) {
+            return;
+        }
+
+        SensibleListenerRegistry current;
+
+        do {
+            current = listeners;
+        } while (!LISTENERS.compareAndSet(this, current,
+            SensibleListenerRegistry.add(current, propertyName, listener)));
+    }
+
+    /**
+     * Adds a listener of the changes in the given object property.
+     *
+     * @param <T> the type of the property values
+     * @param propertyName the property name
+     * @param listener the listener
+     */
+    public <T> void addValueListener(String propertyName, ValueListener<T> listener) {
+
+        if (propertyName != null) {
+            addListener(propertyName, listener);
         }
     }
 
@@ -59,7 +162,18 @@ public class BasicPropertyChangeSupport {
      */
     public void firePropertyChange(PropertyChangeEvent event) {
 
-        getPropertyChange().firePropertyChange(event);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(event);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_OBJECT,
+                    event.getPropertyName(), event.getOldValue(), event.getNewValue());
+            }
+        }
     }
 
     /**
@@ -71,7 +185,18 @@ public class BasicPropertyChangeSupport {
      */
     public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
 
-        getPropertyChange().firePropertyChange(propertyName, oldValue, newValue);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null && oldValue != newValue) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_BOOLEAN, propertyName,
+                    Boolean.valueOf(oldValue), Boolean.valueOf(newValue));
+            }
+        }
     }
 
     /**
@@ -83,7 +208,41 @@ public class BasicPropertyChangeSupport {
      */
     public void firePropertyChange(String propertyName, int oldValue, int newValue) {
 
-        getPropertyChange().firePropertyChange(propertyName, oldValue, newValue);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null && oldValue != newValue) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, oldValue, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_INT, propertyName,
+                    Integer.valueOf(oldValue), Integer.valueOf(newValue));
+            }
+        }
+    }
+
+    /**
+     * Fires a property change event linked to the given property.
+     *
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    public void firePropertyChange(String propertyName, long oldValue, long newValue) {
+
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null && oldValue != newValue) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, oldValue, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_LONG, propertyName,
+                    Long.valueOf(oldValue), Long.valueOf(newValue));
+            }
+        }
     }
 
     /**
@@ -95,17 +254,67 @@ public class BasicPropertyChangeSupport {
      */
     public void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
 
-        getPropertyChange().firePropertyChange(propertyName, oldValue, newValue);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, oldValue, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_OBJECT, propertyName,
+                    oldValue, newValue);
+            }
+        }
     }
 
     /**
-     * Returns the <code>propertyChange</code> property value.
+     * Notifies a property change posted to the dispatcher to the listeners.
+     *
+     * @param kind the change kind
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     *
+     * @see SensibleEventDispatcher#deliver()
+     */
+    final void dispatchPropertyChange(byte kind, String propertyName,
+                                      Object oldValue, Object newValue) {
+
+        SensibleListenerRegistry current = listeners;
+
+        if (current == null) {
+            return;
+        }
+
+        switch (kind) {
+            case SensibleEventDispatcher.KIND_BOOLEAN:
+                current.fire(this, propertyName, ((Boolean) newValue).booleanValue());
+                break;
+            case SensibleEventDispatcher.KIND_INT:
+                current.fire(this, propertyName,
+                    ((Integer) oldValue).intValue(), ((Integer) newValue).intValue());
+                break;
+            case SensibleEventDispatcher.KIND_LONG:
+                current.fire(this, propertyName,
+                    ((Long) oldValue).longValue(), ((Long) newValue).longValue());
+                break;
+            default:
+                current.fire(this, propertyName, oldValue, newValue);
+                break;
+        }
+    }
+
+    /**
+     * Returns the <code>eventDispatcher</code> property value.
      *
      * @return the property value
+     *
+     * @see BasicPropertyChangeSupport#setEventDispatcher(SensibleEventDispatcher)
      */
-    protected PropertyChangeSupport getPropertyChange() {
+    public SensibleEventDispatcher getEventDispatcher() {
 
-        return propertyChange;
+        return dispatcher;
     }
 
     /**
@@ -117,11 +326,66 @@ public class BasicPropertyChangeSupport {
      */
     public boolean hasListeners(String propertyName) {
 
-        synchronized (propertyChange) {
-            return getPropertyChange().hasListeners(propertyName);
+        SensibleListenerRegistry current = listeners;
+
+        return current != null && current.hasListeners(propertyName);
+    }
+
+    /**
+     * Removes a listener of the changes in the given boolean property, or in all the boolean
+     * properties if the property name is <code>null</code>.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the boolean properties
+     * @param listener the listener
+     */
+    public void removeBooleanPropertyListener(String propertyName,
+                                              BooleanPropertyListener listener) {
+
+        removeListener(propertyName, listener);
+    }
+
+    /**
+     * Removes a listener of the changes in the given integer property.
+     *
+     * @param propertyName the property name
+     * @param listener the listener
+     */
+    public void removeIntValueListener(String propertyName, IntValueListener listener) {
+
+        if (propertyName != null) {
+            removeListener(propertyName, listener);
+        }
+    }
+
+    /**
+     * Removes a listener of the changes in the given long integer property.
+     *
+     * @param propertyName the property name
+     * @param listener the listener
+     */
+    public void removeLongValueListener(String propertyName, LongValueListener listener) {
+
+        if (propertyName != null) {
+            removeListener(propertyName, listener);
         }
     }
 
+    /**
+     * Sets the <code>eventDispatcher</code> property value. When set, the property changes are
+     * posted to the dispatcher, which coalesces them and notifies them to the listeners in the
+     * event dispatch thread once per frame, instead of notifying them when they happen.
+     *
+     * @param newValue the property new value, or <code>null</code> to notify the changes when
+     *                 they happen
+     *
+     * @see BasicPropertyChangeSupport#getEventDispatcher()
+     * @see SensibleEventDispatcher
+     */
+    public void setEventDispatcher(SensibleEventDispatcher newValue) {
+
+        dispatcher = newValue;
+    }
+
     /**
      * Removes a property change listener.
      *
@@ -129,9 +393,7 @@ public class BasicPropertyChangeSupport {
      */
     public void removePropertyChangeListener(PropertyChangeListener listener) {
 
-        synchronized (propertyChange) {
-            getPropertyChange().removePropertyChangeListener(listener);
-        }
+        removeListener(null, listener);
     }
 
     /**
@@ -141,9 +403,41 @@ public class BasicPropertyChangeSupport {
      * @param listener the listener
      */
     public void removePropertyChangeListener(String propertyName,
-                                                          PropertyChangeListener listener) {
-        synchronized (propertyChange) {
-            getPropertyChange().removePropertyChangeListener(propertyName, listener);
+                                             PropertyChangeListener listener) {
+
+        if (propertyName != null) {
+            removeListener(propertyName, listener);
+        }
+    }
+
+    /**
+     * Removes a listener from the registry.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the properties
+     * @param listener the listener
+     */
+    private void removeListener(String propertyName, Object listener) {
+
+        SensibleListenerRegistry current;
+        SensibleListenerRegistry updated;
+
+        do {
+            current = listeners;
+            updated = SensibleListenerRegistry.remove(current, propertyName, listener);
+        } while (updated != current && !LISTENERS.compareAndSet(this, current, updated));
+    }
+
+    /**
+     * Removes a listener of the changes in the given object property.
+     *
+     * @param <T> the type of the property values
+     * @param propertyName the property name
+     * @param listener the listener
+     */
+    public <T> void removeValueListener(String propertyName, ValueListener<T> listener) {
+
+        if (propertyName != null) {
+            removeListener(propertyName, listener);
         }
     }
 }
@@ -0,0 +1,32 @@
+package deors.core.sensible;
+
+import java.util.EventListener;
+
+/**
+ * Definition for the listeners of the changes in the boolean properties of a bean, like the
+ * <code>valid</code>, <code>required</code>, <code>key</code> and <code>readOnly</code>
+ * properties of the data types or the <code>dataComplete</code> property of the objects.<br>
+ *
+ * The listeners are notified with the primitive value, without boxing it nor creating a
+ * property change event, so wiring the properties of the fields of a form allocates nothing.
+ * As the property is boolean, the old value is the negation of the new value.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see BasicPropertyChangeSupport#addBooleanPropertyListener(String, BooleanPropertyListener)
+ * @see SensibleObject#addBooleanPropertyListener(String, BooleanPropertyListener)
+ */
+@FunctionalInterface
+public interface BooleanPropertyListener
+    extends EventListener {
+
+    /**
+     * Notifies a change in a boolean property.
+     *
+     * @param source the bean whose property changed
+     * @param propertyName the property name
+     * @param newValue the property new value
+     */
+    void propertyChanged(Object source, String propertyName, boolean newValue);
+}
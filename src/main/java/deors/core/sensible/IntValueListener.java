@@ -0,0 +1,31 @@
+package deors.core.sensible;
+
+import java.util.EventListener;
+
+/**
+ * Definition for the listeners of the changes in an integer property of a bean, like the
+ * <code>number</code>, <code>minValue</code> and <code>maxValue</code> properties of the
+ * <code>SensibleInteger</code> data type.<br>
+ *
+ * The listeners are notified with the primitive values, without boxing them nor creating a
+ * property change event.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see BasicPropertyChangeSupport#addIntValueListener(String, IntValueListener)
+ * @see SensibleInteger
+ */
+@FunctionalInterface
+public interface IntValueListener
+    extends EventListener {
+
+    /**
+     * Notifies a change in an integer property.
+     *
+     * @param source the bean whose property changed
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void valueChanged(Object source, int oldValue, int newValue);
+}
@@ -0,0 +1,31 @@
+package deors.core.sensible;
+
+import java.util.EventListener;
+
+/**
+ * Definition for the listeners of the changes in a long integer property of a bean, like the
+ * <code>number</code>, <code>minValue</code> and <code>maxValue</code> properties of the
+ * <code>SensibleLong</code> data type.<br>
+ *
+ * The listeners are notified with the primitive values, without boxing them nor creating a
+ * property change event.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see BasicPropertyChangeSupport#addLongValueListener(String, LongValueListener)
+ * @see SensibleLong
+ */
+@FunctionalInterface
+public interface LongValueListener
+    extends EventListener {
+
+    /**
+     * Notifies a change in a long integer property.
+     *
+     * @param source the bean whose property changed
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void valueChanged(Object source, long oldValue, long newValue);
+}
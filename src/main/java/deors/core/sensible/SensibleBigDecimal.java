@@ -746,18 +746,14 @@ public final class SensibleBigDecimal
         String oldValue = value;
         boolean newValid = valid;
 
-        BigDecimal checkedValue = checkFormat(newValue);
+        SensibleParseResult result = new SensibleParseResult();
 
-        if (checkedValue == null) {
-            if (valueChangingInSet) {
-                valueChangingInSet = false;
-            }
-
-            throw new IllegalArgumentException(
-                SensibleContext.getMessage("BIGD_ERR_INVALID_STRING")); //$NON-NLS-1$
+        if (tryParse(newValue, result) != SensibleParseResult.VALID) {
+            valueChangingInSet = false;
+            throw new IllegalArgumentException(result.getMessage());
         }
 
-        number = checkedValue;
+        number = (BigDecimal) result.getValue();
         value = newValue;
         newValid = true;
 
@@ -916,6 +912,19 @@ public final class SensibleBigDecimal
         }
     }
 
+    /**
+     * Returns the immutable state of the data value, where the parsed value is the number.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleDataType#createState()
+     */
+    @Override
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid, value.length() > 0, number, null);
+    }
+
     /**
      * Compares this <code>SensibleBigDecimal</code> object with the given
      * <code>java.math.BigDecimal</code> object and returns whether both objects represent the
@@ -1097,7 +1106,18 @@ public final class SensibleBigDecimal
      */
     public int hashCode() {
 
-        return value.intern().hashCode();
+        return value.hashCode();
+    }
+
+    /**
+     * Returns whether the data value is the number formatted with the current format, so setting
+     * the number again gives the same data value.
+     *
+     * @return whether the data value is the number formatted
+     */
+    boolean isFormatted() {
+
+        return value.equals(formatNumber(number));
     }
 
     /**
@@ -1496,4 +1516,31 @@ public final class SensibleBigDecimal
 
         return toString();
     }
+
+    /**
+     * Checks whether the given string is a valid big decimal value with the current format and
+     * precision, without changing the data value and without throwing exceptions, and stores the
+     * result code and the <code>java.math.BigDecimal</code> object in the given result object.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleBigDecimal#checkFormat(String)
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        BigDecimal checkedValue = checkFormat(source.toString());
+
+        if (checkedValue == null) {
+            return SensibleParseResult.complete(result, SensibleParseResult.INVALID_FORMAT,
+                "BIGD_ERR_INVALID_STRING", 0, null); //$NON-NLS-1$
+        }
+
+        return SensibleParseResult.complete(
+            result, SensibleParseResult.VALID, null, 0, checkedValue);
+    }
 }
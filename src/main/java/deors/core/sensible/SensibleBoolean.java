@@ -235,16 +235,15 @@ public final class SensibleBoolean
         boolean oldFlag = flag;
         String oldValue = value;
 
-        if (newValue.equalsIgnoreCase(BOOLEAN_TRUE_AS_STRING)) {
-            flag = true;
-        } else if (newValue.equalsIgnoreCase(BOOLEAN_FALSE_AS_STRING)) {
-            flag = false;
-        } else {
+        SensibleParseResult result = new SensibleParseResult();
+
+        if (tryParse(newValue, result) != SensibleParseResult.VALID) {
             valueChangingInSet = false;
-            throw new IllegalArgumentException(
-                SensibleContext.getMessage("BOOL_ERR_INVALID_STRING")); //$NON-NLS-1$
+            throw new IllegalArgumentException(result.getMessage());
         }
 
+        flag = result.getNumber() != 0;
+
         value = Boolean.toString(flag);
 
         if (oldFlag != flag) {
@@ -283,6 +282,19 @@ public final class SensibleBoolean
         setFlag(false);
     }
 
+    /**
+     * Returns the immutable state of the data value, where the parsed value is the flag.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleDataType#createState()
+     */
+    @Override
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid, value.length() > 0, Boolean.valueOf(flag), null);
+    }
+
     /**
      * Compares this <code>SensibleBoolean</code> object with the given boolean value and returns
      * whether both represent the same boolean value.
@@ -526,14 +538,13 @@ public final class SensibleBoolean
      */
     public void setFlag(String newValue) {
 
-        if (newValue.equalsIgnoreCase(BOOLEAN_TRUE_AS_STRING)) {
-            setValue(true);
-        } else if (newValue.equalsIgnoreCase(BOOLEAN_FALSE_AS_STRING)) {
-            setValue(false);
-        } else {
-            throw new IllegalArgumentException(
-                SensibleContext.getMessage("BOOL_ERR_INVALID_STRING")); //$NON-NLS-1$
+        SensibleParseResult result = new SensibleParseResult();
+
+        if (tryParse(newValue, result) != SensibleParseResult.VALID) {
+            throw new IllegalArgumentException(result.getMessage());
         }
+
+        setValue(result.getNumber() != 0);
     }
 
     /**
@@ -611,4 +622,65 @@ public final class SensibleBoolean
 
         return value;
     }
+
+    /**
+     * Checks whether the given string is a valid boolean value, without changing the data value
+     * and without throwing exceptions, and stores the result code, the number one or zero and the
+     * <code>Boolean</code> object in the given result object. The string comparision is performed
+     * ignoring the case and no objects are created while the string is checked.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleBoolean#BOOLEAN_TRUE_AS_STRING
+     * @see SensibleBoolean#BOOLEAN_FALSE_AS_STRING
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        if (matchesIgnoreCase(BOOLEAN_TRUE_AS_STRING, source)) {
+            return SensibleParseResult.complete(
+                result, SensibleParseResult.VALID, null, 1, Boolean.TRUE);
+        } else if (matchesIgnoreCase(BOOLEAN_FALSE_AS_STRING, source)) {
+            return SensibleParseResult.complete(
+                result, SensibleParseResult.VALID, null, 0, Boolean.FALSE);
+        }
+
+        return SensibleParseResult.complete(result, SensibleParseResult.INVALID_FORMAT,
+            "BOOL_ERR_INVALID_STRING", 0, null); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns whether the given string is equal to the expected string ignoring the case, with
+     * the same comparision as the <code>String.equalsIgnoreCase(String)</code> method.
+     *
+     * @param expected the expected string
+     * @param source the string to be compared
+     *
+     * @return whether both strings are equal ignoring the case
+     */
+    private static boolean matchesIgnoreCase(String expected, CharSequence source) {
+
+        int length = expected.length();
+
+        if (source.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c1 = expected.charAt(i);
+            char c2 = source.charAt(i);
+
+            if (c1 != c2
+                && Character.toUpperCase(c1) != Character.toUpperCase(c2)
+                && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
@@ -0,0 +1,240 @@
+package deors.core.sensible;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe holder of a data type, whose value can be changed from any thread and read as an
+ * immutable state without locks.<br>
+ *
+ * The data types are plain mutable objects: their value, its validation state and the scratch
+ * fields used while parsing it are changed in several steps, so a data type must not be changed
+ * in one thread while it is read in another one. A concurrent value owns a data type and changes
+ * it one thread at a time, holding its monitor, and after each change it publishes the state of
+ * the data value, taken at once from the data type, through a volatile field. The readers get the
+ * last state published without locks, and the state is always consistent: its data value, valid
+ * and complete flags, parsed value and components belong to the same change.<br>
+ *
+ * The listeners of the <code>state</code> property are notified of the new states in the executor
+ * given, one notification at a time and in order. The states published while a notification is
+ * pending are coalesced, so the listeners get the last state published. By default they are
+ * notified in the thread that changed the value, and with the <code>SwingUtilities</code>
+ * <code>invokeLater</code> method as the executor they are notified in the event dispatch thread,
+ * where the state can be copied into the data types bound to the components:
+ *
+ * <pre>
+ * SensibleConcurrentValue&lt;SensibleInteger&gt; price =
+ *     new SensibleConcurrentValue&lt;SensibleInteger&gt;(
+ *         new SensibleInteger(), SwingUtilities::invokeLater);
+ * price.addValueListener("state", (source, oldState, newState) -&gt;
+ *     priceField.setNumber((Integer) newState.getParsedValue()));
+ * </pre>
+ *
+ * The data type is owned by the concurrent value once it is created, so it must not be changed
+ * nor read elsewhere, and its own listeners, if any, are notified in the thread that changed it
+ * while its monitor is held.<br>
+ *
+ * @param <T> a SensibleDataType type whose values are changed concurrently
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleDataState
+ * @see SensibleDataType
+ */
+public final class SensibleConcurrentValue<T extends SensibleDataType>
+    extends BasicPropertyChangeSupport {
+
+    /**
+     * The data type.
+     */
+    private final T data;
+
+    /**
+     * The executor where the listeners are notified.
+     */
+    private final Executor executor;
+
+    /**
+     * The last state published.
+     *
+     * @see SensibleConcurrentValue#getState()
+     */
+    private volatile SensibleDataState state;
+
+    /**
+     * The last state notified to the listeners. Used only by the notification in progress.
+     */
+    private SensibleDataState notifiedState;
+
+    /**
+     * The number of states published and not yet notified. A notification is submitted to the
+     * executor only when it changes from zero.
+     */
+    private final AtomicInteger pendingNotifications = new AtomicInteger();
+
+    /**
+     * The "state" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_STATE = "state"; //$NON-NLS-1$
+
+    /**
+     * Constructor that sets the data type. The listeners are notified in the thread that changed
+     * the value.
+     *
+     * @param data the data type
+     */
+    public SensibleConcurrentValue(T data) {
+
+        this(data, Runnable::run);
+    }
+
+    /**
+     * Constructor that sets the data type and the executor where the listeners are notified.
+     *
+     * @param data the data type
+     * @param executor the executor where the listeners are notified
+     */
+    public SensibleConcurrentValue(T data, Executor executor) {
+
+        super();
+
+        this.data = data;
+        this.executor = executor;
+
+        synchronized (data) {
+            state = data.createState();
+        }
+
+        notifiedState = state;
+    }
+
+    /**
+     * Clears the data value.
+     *
+     * @see SensibleDataType#clear()
+     */
+    public void clear() {
+
+        update(SensibleDataType::clear);
+    }
+
+    /**
+     * Returns a copy of the data type, taken while no other thread changes it.
+     *
+     * @return a copy of the data type
+     *
+     * @see SensibleDataType#returnCopy()
+     */
+    @SuppressWarnings("unchecked")
+    public T copy() {
+
+        return read(target -> (T) target.returnCopy());
+    }
+
+    /**
+     * Returns the executor where the listeners are notified.
+     *
+     * @return the executor
+     */
+    public Executor getExecutor() {
+
+        return executor;
+    }
+
+    /**
+     * Returns the last state published. The state is read without locks.
+     *
+     * @return the last state published
+     */
+    public SensibleDataState getState() {
+
+        return state;
+    }
+
+    /**
+     * Notifies the states published to the listeners, until there are no states pending.
+     */
+    private void notifyStates() {
+
+        int missed = 1;
+
+        do {
+            SensibleDataState oldState = notifiedState;
+            SensibleDataState newState = state;
+            notifiedState = newState;
+
+            try {
+                firePropertyChange(JAVA_BEAN_PROPERTY_STATE, oldState, newState);
+            } catch (RuntimeException re) {
+                // the next state published submits the notification again
+                pendingNotifications.set(0);
+                throw re;
+            }
+
+            missed = pendingNotifications.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Returns the result of the given query on the data type, applied while no other thread
+     * changes it. The query must not keep the data type nor change it.
+     *
+     * @param <R> the type of the result
+     * @param query the query
+     *
+     * @return the result of the query
+     */
+    public <R> R read(Function<? super T, ? extends R> query) {
+
+        synchronized (data) {
+            return query.apply(data);
+        }
+    }
+
+    /**
+     * Changes the data value using the given string.
+     *
+     * @param newValue the data new value as a string
+     *
+     * @see SensibleDataType#setValue(String)
+     */
+    public void setValue(String newValue) {
+
+        update(target -> target.setValue(newValue));
+    }
+
+    /**
+     * Applies the given change to the data type while no other thread changes it, publishes the
+     * new state and notifies it to the listeners. The state is published also when the change
+     * throws an exception, so the changes already made are not hidden. The change must not keep
+     * the data type.
+     *
+     * @param change the change
+     */
+    public void update(Consumer<? super T> change) {
+
+        try {
+            synchronized (data) {
+                try {
+                    change.accept(data);
+                } finally {
+                    state = data.createState();
+                }
+            }
+        } finally {
+            if (pendingNotifications.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::notifyStates);
+                } catch (RejectedExecutionException ree) {
+                    // the next state published submits the notification again
+                    pendingNotifications.set(0);
+                    throw ree;
+                }
+            }
+        }
+    }
+}
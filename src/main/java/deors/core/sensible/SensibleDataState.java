@@ -0,0 +1,169 @@
+package deors.core.sensible;
+
+/**
+ * Immutable state of the data value of a <code>SensibleDataType</code> object.<br>
+ *
+ * A state holds the data value as a string together with the state derived from it when it was
+ * parsed: whether it is valid and complete, the parsed value and, for the date and time types,
+ * its components. All of them are taken at once from the data type, so a state is always
+ * consistent and it can be read from any thread without locks.<br>
+ *
+ * The parsed value is an <code>Integer</code>, <code>Long</code>, <code>BigDecimal</code>,
+ * <code>Boolean</code> or <code>String</code> object for the numeric, boolean and string types,
+ * and it is <code>null</code> for the date and time types, whose components are the year, month
+ * and day of the date and the hour, minute and second of the time, in this order.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleDataType
+ * @see SensibleConcurrentValue
+ */
+public final class SensibleDataState {
+
+    /**
+     * The data value as a string.
+     */
+    private final String value;
+
+    /**
+     * Whether the data value is valid.
+     */
+    private final boolean valid;
+
+    /**
+     * Whether the data value is complete.
+     */
+    private final boolean complete;
+
+    /**
+     * The parsed data value, or <code>null</code> if the data type has components.
+     */
+    private final Object parsedValue;
+
+    /**
+     * The components of the data value, or <code>null</code> if the data type has none.
+     */
+    private final int[] components;
+
+    /**
+     * Constructor that sets the state properties. The components array is kept and not copied.
+     *
+     * @param value the data value as a string
+     * @param valid whether the data value is valid
+     * @param complete whether the data value is complete
+     * @param parsedValue the parsed data value
+     * @param components the components of the data value
+     */
+    SensibleDataState(String value, boolean valid, boolean complete,
+                      Object parsedValue, int[] components) {
+
+        super();
+
+        this.value = value;
+        this.valid = valid;
+        this.complete = complete;
+        this.parsedValue = parsedValue;
+        this.components = components;
+    }
+
+    /**
+     * Compares this state with the given object and returns whether both are states with the same
+     * data value and validation state.
+     *
+     * @param target the target object
+     *
+     * @return whether the given object is a state with the same data value and validation state
+     *
+     * @see java.lang.Object#equals(Object)
+     */
+    public boolean equals(Object target) {
+
+        if (this == target) {
+            return true;
+        }
+
+        if (!(target instanceof SensibleDataState)) {
+            return false;
+        }
+
+        SensibleDataState state = (SensibleDataState) target;
+
+        return valid == state.valid && complete == state.complete && value.equals(state.value);
+    }
+
+    /**
+     * Returns a copy of the components of the data value, or <code>null</code> if the data type
+     * has no components.
+     *
+     * @return the components of the data value
+     */
+    public int[] getComponents() {
+
+        return components == null ? null : components.clone();
+    }
+
+    /**
+     * Returns the parsed data value, or <code>null</code> if the data type has components.
+     *
+     * @return the parsed data value
+     */
+    public Object getParsedValue() {
+
+        return parsedValue;
+    }
+
+    /**
+     * Returns the data value as a string.
+     *
+     * @return the data value as a string
+     */
+    public String getValue() {
+
+        return value;
+    }
+
+    /**
+     * Returns a hash code value for the state. It is the hash code of the data value.
+     *
+     * @return a hash code value for this state
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+
+        return value.hashCode();
+    }
+
+    /**
+     * Returns whether the data value is complete. The value of the date and time types is complete
+     * when all its components are informed, and the value of the other types when it is not an
+     * empty string.
+     *
+     * @return whether the data value is complete
+     */
+    public boolean isComplete() {
+
+        return complete;
+    }
+
+    /**
+     * Returns whether the data value is valid.
+     *
+     * @return whether the data value is valid
+     */
+    public boolean isValid() {
+
+        return valid;
+    }
+
+    /**
+     * Returns a string representation of the state. Actually it returns the data value.
+     *
+     * @return a string representation of the state
+     */
+    public String toString() {
+
+        return value;
+    }
+}
@@ -1,7 +1,6 @@
 package deors.core.sensible;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 
 /**
  * Definition for an abstract data type.<br>
@@ -242,6 +241,20 @@ public abstract class SensibleDataType
         return 1;
     }
 
+    /**
+     * Returns the immutable state of the data value. The value is complete if it is not an empty
+     * string and the parsed value is the data value itself. Subtypes override this method to add
+     * their parsed value or its components.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleConcurrentValue
+     */
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid, value.length() > 0, value, null);
+    }
+
     /**
      * Compares the <code>value</code> property with the given object and returns whether the
      * <code>value</code> property and the given object represent the same value.
@@ -286,18 +299,17 @@ public abstract class SensibleDataType
     /**
      * Returns a hash code value for the object.
      *
-     * Actually the method returns the hash code of the <code>value</code> property using the
-     * <code>intern()</code> method to ensure hash code equality in strings.
+     * Actually the method returns the hash code of the <code>value</code> property, which is
+     * computed from the string contents and cached by the string, so it is not interned.
      *
      * @return a hash code value for this object
      *
      * @see java.lang.Object#hashCode()
-     * @see java.lang.String#intern()
      * @see SensibleDataType#value
      */
     public int hashCode() {
 
-        return value.intern().hashCode();
+        return value.hashCode();
     }
 
     /**
@@ -441,18 +453,16 @@ public abstract class SensibleDataType
 
     /**
      * Returns a new object of this class or <code>null</code> if an exception is thrown while
-     * creating the new instance.
+     * creating the new instance. The instance is created by the factory registered for the class
+     * or by its no-argument constructor, resolved only once for each class.
      *
      * @return a new instance of this object class or <code>null</code> if the new instance could not be created
+     *
+     * @see SensibleInstanceFactory
      */
     public SensibleDataType returnNew() {
 
-        try {
-            return getClass().getConstructor().newInstance();
-        } catch (InstantiationException | IllegalAccessException
-                 | InvocationTargetException | NoSuchMethodException e) {
-            return null;
-        }
+        return SensibleInstanceFactory.newInstance(getClass());
     }
 
     /**
@@ -538,8 +548,13 @@ public abstract class SensibleDataType
     protected final void setValue(String newValue) {
 
         valueChangingInSet = true;
-        changeValue(newValue);
-        valueChangingInSet = false;
+
+        try {
+            changeValue(newValue);
+        } finally {
+            // the flag is reset also when the new value is rejected
+            valueChangingInSet = false;
+        }
     }
 
     /**
@@ -582,4 +597,40 @@ public abstract class SensibleDataType
      * @return a string representation valid for sql language operations
      */
     public abstract String toStringForSQL();
+
+    /**
+     * Checks whether the given string is a valid data value, without changing the data value and
+     * without throwing exceptions, and stores the result code and the parsed value in the given
+     * result object. The string is valid if it represents a data value, which must be in range
+     * for the numeric types; the <code>required</code> property is not considered. This
+     * implementation accepts any string, which is the parsed object. Subtypes override this
+     * method to check their format and range.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleParseResult
+     */
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        return SensibleParseResult.complete(result, SensibleParseResult.VALID, null, 0, source);
+    }
+
+    /**
+     * Checks whether the given string is a valid data value, without changing the data value and
+     * without throwing exceptions, and returns the result code.
+     *
+     * @param source the string to be checked
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleParseResult#VALID
+     */
+    public final int validate(CharSequence source) {
+
+        return tryParse(source, null);
+    }
 }
@@ -625,6 +625,40 @@ public final class SensibleDate
         setValue(SensibleContext.BLANK);
     }
 
+    /**
+     * Compares this <code>SensibleDate</code> object with the given object and returns an
+     * integer value as established in the <code>Comparable</code> interface. The method compares
+     * the year, month and day if the target object is a <code>SensibleDate</code> object, in the
+     * same order as the <code>toStringForSort()</code> string representation but without
+     * building it, while other target objects are compared in the super class.
+     *
+     * @param target the target object
+     *
+     * @return a negative integer value if this object is less than the given object, zero if both
+     *         objects represent the same value, and a positive integer value if this object is
+     *         greater than the given object
+     *
+     * @see SensibleDataType#compareTo(Object)
+     */
+    public int compareTo(Object target) {
+
+        if (target instanceof SensibleDate) {
+            SensibleDate date = (SensibleDate) target;
+
+            int result = Integer.compare(year, date.year);
+            if (result == 0) {
+                result = Integer.compare(month, date.month);
+            }
+            if (result == 0) {
+                result = Integer.compare(day, date.day);
+            }
+
+            return result;
+        }
+
+        return super.compareTo(target);
+    }
+
     /**
      * Returns the date value as a <code>java.util.Date</code> object.
      *
@@ -649,6 +683,20 @@ public final class SensibleDate
         proposedDay = 0;
     }
 
+    /**
+     * Returns the immutable state of the data value, where the components are the year, month
+     * and day.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleDataType#createState()
+     */
+    @Override
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid, complete, null, getDate());
+    }
+
     /**
      * Compares this <code>SensibleDate</code> object with the given integer values and returns
      * whether both object and values represent the same date.
@@ -876,6 +924,17 @@ public final class SensibleDate
         return year * month * day;
     }
 
+    /**
+     * Returns whether the data value is a complete date formatted with the current format, so
+     * setting the date again gives the same data value.
+     *
+     * @return whether the data value is a complete date formatted
+     */
+    boolean isFormatted() {
+
+        return complete && value.equals(formatDate(year, month, day));
+    }
+
     /**
      * Returns <code>true</code> if the data value is clear. Actually it checks that the year,
      * month and day are all equal to zero.
@@ -1259,4 +1318,43 @@ public final class SensibleDate
 
         return '\'' + toString() + '\'';
     }
+
+    /**
+     * Checks whether the given string is a valid and complete date value, as the setter methods
+     * require it, without changing the data value and without throwing exceptions, and stores the
+     * result code and the year, month and day in the given result object. The string is parsed with the
+     * same parser used by the setter methods.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleDate#checkDate(String)
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        final int itemCount = 3;
+
+        String s = source.toString();
+
+        if (s.length() == 0) {
+            return SensibleParseResult.complete(result, SensibleParseResult.VALID, null,
+                itemCount, 0, 0, 0, 0, 0, 0);
+        }
+
+        // the parsed values are left in the proposed values, which are emptied afterwards
+        int code = checkDate(s) && proposedValid
+            ? SensibleParseResult.VALID : SensibleParseResult.INVALID_FORMAT;
+
+        SensibleParseResult.complete(result, code, "DATE_ERR_INVALID_DATE_FORMAT", //$NON-NLS-1$
+            itemCount, proposedYear, proposedMonth, proposedDay,
+            0, 0, 0);
+
+        emptyProposed();
+
+        return code;
+    }
 }
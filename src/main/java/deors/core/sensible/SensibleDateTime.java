@@ -1159,6 +1159,49 @@ public final class SensibleDateTime
         setValue(SensibleContext.BLANK);
     }
 
+    /**
+     * Compares this <code>SensibleDateTime</code> object with the given object and returns an
+     * integer value as established in the <code>Comparable</code> interface. The method compares
+     * the date and time fields if the target object is a <code>SensibleDateTime</code> object, in
+     * the same order as the <code>toStringForSort()</code> string representation but without
+     * building it, while other target objects are compared in the super class.
+     *
+     * @param target the target object
+     *
+     * @return a negative integer value if this object is less than the given object, zero if both
+     *         objects represent the same value, and a positive integer value if this object is
+     *         greater than the given object
+     *
+     * @see SensibleDataType#compareTo(Object)
+     */
+    public int compareTo(Object target) {
+
+        if (target instanceof SensibleDateTime) {
+            SensibleDateTime dateTime = (SensibleDateTime) target;
+
+            int result = Integer.compare(year, dateTime.year);
+            if (result == 0) {
+                result = Integer.compare(month, dateTime.month);
+            }
+            if (result == 0) {
+                result = Integer.compare(day, dateTime.day);
+            }
+            if (result == 0) {
+                result = Integer.compare(hour, dateTime.hour);
+            }
+            if (result == 0) {
+                result = Integer.compare(minute, dateTime.minute);
+            }
+            if (result == 0) {
+                result = Integer.compare(second, dateTime.second);
+            }
+
+            return result;
+        }
+
+        return super.compareTo(target);
+    }
+
     /**
      * Returns the date/time value as a <code>java.util.Date</code> object.
      *
@@ -1186,6 +1229,20 @@ public final class SensibleDateTime
         proposedSecond = 0;
     }
 
+    /**
+     * Returns the immutable state of the data value, where the components are the year, month,
+     * day, hour, minute and second.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleDataType#createState()
+     */
+    @Override
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid, complete, null, getDateTime());
+    }
+
     /**
      * Compares this <code>SensibleDateTime</code> object with the given integer values and
      * returns whether both object and values represent the same date/time.
@@ -1528,6 +1585,17 @@ public final class SensibleDateTime
         return year * month * day * hour * minute * second;
     }
 
+    /**
+     * Returns whether the data value is a complete date/time formatted with the current format, so
+     * setting the date/time again gives the same data value.
+     *
+     * @return whether the data value is a complete date/time formatted
+     */
+    boolean isFormatted() {
+
+        return complete && value.equals(formatDateTime(year, month, day, hour, minute, second));
+    }
+
     /**
      * Returns <code>true</code> if the data value is clear. Actually it checks that the year,
      * month, day, hour, minute and second are all equal to zero.
@@ -2100,4 +2168,43 @@ public final class SensibleDateTime
 
         return '\'' + toString() + '\'';
     }
+
+    /**
+     * Checks whether the given string is a valid and complete date/time value, as the setter methods
+     * require it, without changing the data value and without throwing exceptions, and stores the
+     * result code and the year, month, day, hour, minute and second in the given result object. The string is parsed with the
+     * same parser used by the setter methods.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleDateTime#checkDateTime(String)
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        final int itemCount = 6;
+
+        String s = source.toString();
+
+        if (s.length() == 0) {
+            return SensibleParseResult.complete(result, SensibleParseResult.VALID, null,
+                itemCount, 0, 0, 0, 0, 0, 0);
+        }
+
+        // the parsed values are left in the proposed values, which are emptied afterwards
+        int code = checkDateTime(s) && proposedValid
+            ? SensibleParseResult.VALID : SensibleParseResult.INVALID_FORMAT;
+
+        SensibleParseResult.complete(result, code, "DTTM_ERR_INVALID_DTTM_FORMAT", //$NON-NLS-1$
+            itemCount, proposedYear, proposedMonth, proposedDay,
+            proposedHour, proposedMinute, proposedSecond);
+
+        emptyProposed();
+
+        return code;
+    }
 }
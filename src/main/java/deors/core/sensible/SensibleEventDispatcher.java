@@ -0,0 +1,444 @@
+package deors.core.sensible;
+
+import static deors.core.sensible.SensibleContext.getConfigurationProperty;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Dispatcher that delivers the property change notifications of data types and objects in the
+ * event dispatch thread, coalescing the changes of the same property.<br>
+ *
+ * When a dispatcher is set in a data type or an object, its property changes are not notified
+ * to the listeners when they happen. Instead, they are posted to the dispatcher, which keeps one
+ * pending change for each bean and property, with the old value of the first change and the new
+ * value of the last one, and delivers the pending changes to the listeners in the event dispatch
+ * thread, in the order the properties first changed, at most once per frame. This way, a data
+ * source updating the values thousands of times per second from a background thread does not
+ * flood the listeners nor the components bound to the values, which repaint once per frame with
+ * the latest value. A change that restores the value of the last change delivered is not
+ * notified at all.<br>
+ *
+ * The changes are posted without locks, so they can be posted from any thread, and they are
+ * delivered at most after the maximum latency, which is the frame time. The listeners of a bean
+ * with a dispatcher, including the object the field belongs to, are notified in the event
+ * dispatch thread and later than the change, so the dispatchers are meant for the data types
+ * and objects shown in a form, and not for the fields whose changes must be seen at once.<br>
+ *
+ * The counters of the changes posted, delivered and coalesced are kept to monitor the
+ * dispatcher.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see BasicPropertyChangeSupport#setEventDispatcher(SensibleEventDispatcher)
+ * @see SensibleObject#setEventDispatcher(SensibleEventDispatcher)
+ */
+public final class SensibleEventDispatcher {
+
+    /**
+     * The default maximum latency, in milliseconds. Configurable in the properties file using
+     * the key <code>dispatcher.maxLatency</code>. Default value is <code>16</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, int)
+     */
+    public static final int DEFAULT_MAX_LATENCY =
+        getConfigurationProperty("dispatcher.maxLatency", 16); //$NON-NLS-1$
+
+    /**
+     * Kind of the changes of object properties.
+     */
+    static final byte KIND_OBJECT = 0;
+
+    /**
+     * Kind of the changes of boolean properties.
+     */
+    static final byte KIND_BOOLEAN = 1;
+
+    /**
+     * Kind of the changes of integer properties.
+     */
+    static final byte KIND_INT = 2;
+
+    /**
+     * Kind of the changes of long integer properties.
+     */
+    static final byte KIND_LONG = 3;
+
+    /**
+     * The pending changes, by bean and property.
+     */
+    private final ConcurrentHashMap<PendingChange, PendingChange> pending =
+        new ConcurrentHashMap<PendingChange, PendingChange>();
+
+    /**
+     * The pending changes, in the order the properties first changed.
+     */
+    private final Queue<PendingChange> queue = new ConcurrentLinkedQueue<PendingChange>();
+
+    /**
+     * Whether the delivery of the pending changes is scheduled.
+     */
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+
+    /**
+     * The timer that delivers the pending changes after the maximum latency, or
+     * <code>null</code> if they are delivered as soon as possible.
+     */
+    private final Timer timer;
+
+    /**
+     * The maximum latency, in milliseconds.
+     */
+    private final int maxLatency;
+
+    /**
+     * The number of changes posted.
+     */
+    private final LongAdder postedCount = new LongAdder();
+
+    /**
+     * The number of changes delivered.
+     */
+    private final LongAdder deliveredCount = new LongAdder();
+
+    /**
+     * The number of changes coalesced with a later change and not delivered.
+     */
+    private final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * Default constructor. The dispatcher has the default maximum latency.
+     *
+     * @see SensibleEventDispatcher#DEFAULT_MAX_LATENCY
+     */
+    public SensibleEventDispatcher() {
+
+        this(DEFAULT_MAX_LATENCY);
+    }
+
+    /**
+     * Constructor that sets the maximum latency. With a maximum latency of zero, the changes are
+     * delivered as soon as the event dispatch thread is free.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the maximum latency is
+     * negative.
+     *
+     * @param maxLatency the maximum latency, in milliseconds
+     */
+    public SensibleEventDispatcher(int maxLatency) {
+
+        super();
+
+        if (maxLatency < 0) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DISPATCHER_ERR_INVALID_LATENCY", Integer.toString(maxLatency))); //$NON-NLS-1$
+        }
+
+        this.maxLatency = maxLatency;
+
+        if (maxLatency == 0) {
+            timer = null;
+        } else {
+            timer = new Timer(maxLatency, e -> deliver());
+            timer.setRepeats(false);
+        }
+    }
+
+    /**
+     * Delivers the pending changes to the listeners of their beans. This method is invoked in the
+     * event dispatch thread once per frame while there are changes pending, and it can be
+     * invoked to deliver them at once, also in the event dispatch thread.
+     */
+    public void deliver() {
+
+        deliveryScheduled.set(false);
+
+        PendingChange change;
+
+        while ((change = queue.poll()) != null) {
+            removePending(change);
+
+            Object newValue = change.close();
+
+            if (change.kind == KIND_OBJECT
+                || !change.oldValue.equals(newValue)) {
+                deliveredCount.increment();
+                dispatch(change.source, change.kind, change.propertyName,
+                    change.oldValue, newValue);
+            } else {
+                // the primitive value was restored, so there is no change to notify
+                coalescedCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Notifies a change to the listeners of its bean.
+     *
+     * @param source the bean
+     * @param kind the change kind
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    private static void dispatch(Object source, byte kind, String propertyName,
+                                 Object oldValue, Object newValue) {
+
+        if (source instanceof SensibleObject) {
+            ((SensibleObject) source).dispatchPropertyChange(
+                kind, propertyName, oldValue, newValue);
+        } else {
+            ((BasicPropertyChangeSupport) source).dispatchPropertyChange(
+                kind, propertyName, oldValue, newValue);
+        }
+    }
+
+    /**
+     * Returns the number of changes coalesced with a later change of the same property, and
+     * therefore not delivered.
+     *
+     * @return the number of changes coalesced
+     */
+    public long getCoalescedCount() {
+
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Returns the number of changes delivered to the listeners.
+     *
+     * @return the number of changes delivered
+     */
+    public long getDeliveredCount() {
+
+        return deliveredCount.sum();
+    }
+
+    /**
+     * Returns the maximum latency, in milliseconds.
+     *
+     * @return the maximum latency
+     */
+    public int getMaxLatency() {
+
+        return maxLatency;
+    }
+
+    /**
+     * Returns the number of changes pending.
+     *
+     * @return the number of changes pending
+     */
+    public int getPendingCount() {
+
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of changes posted.
+     *
+     * @return the number of changes posted
+     */
+    public long getPostedCount() {
+
+        return postedCount.sum();
+    }
+
+    /**
+     * Posts a change, coalescing it with the pending change of the same bean and property if
+     * there is one, and schedules the delivery.
+     *
+     * @param source the bean
+     * @param kind the change kind
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void post(Object source, byte kind, String propertyName, Object oldValue, Object newValue) {
+
+        postedCount.increment();
+
+        PendingChange change = new PendingChange(source, kind, propertyName, oldValue, newValue);
+
+        while (true) {
+            PendingChange existing = pending.putIfAbsent(change, change);
+
+            if (existing == null) {
+                queue.add(change);
+                break;
+            }
+
+            // a change already delivered is closed, and it is replaced by this one
+            if (existing.offer(newValue)) {
+                coalescedCount.increment();
+                return;
+            }
+
+            removePending(existing);
+        }
+
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            if (timer == null) {
+                SwingUtilities.invokeLater(this::deliver);
+            } else {
+                timer.restart();
+            }
+        }
+    }
+
+    /**
+     * Removes a change from the pending changes if it is still the pending change of its bean and
+     * property. The changes are equal when their bean and property are, so a newer change posted
+     * after this one was delivered must not be removed in its place.
+     *
+     * @param change the change to remove
+     */
+    private void removePending(PendingChange change) {
+
+        pending.computeIfPresent(change, (key, value) -> value == change ? null : value);
+    }
+
+    /**
+     * Resets the counters of the changes posted, delivered and coalesced.
+     */
+    public void resetCounters() {
+
+        postedCount.reset();
+        deliveredCount.reset();
+        coalescedCount.reset();
+    }
+
+    /**
+     * A change pending to be delivered, identified by its bean and property.
+     */
+    private static final class PendingChange {
+
+        /**
+         * Marker of the changes already delivered.
+         */
+        private static final Object CLOSED = new Object();
+
+        /**
+         * Updater used to replace the new value atomically.
+         */
+        private static final AtomicReferenceFieldUpdater<PendingChange, Object> NEW_VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(
+                PendingChange.class, Object.class, "newValue"); //$NON-NLS-1$
+
+        /**
+         * The bean.
+         */
+        final Object source;
+
+        /**
+         * The change kind.
+         */
+        final byte kind;
+
+        /**
+         * The property name.
+         */
+        final String propertyName;
+
+        /**
+         * The old value of the first change.
+         */
+        final Object oldValue;
+
+        /**
+         * The new value of the last change, or the marker if the change was delivered.
+         */
+        private volatile Object newValue;
+
+        /**
+         * Constructor that sets the change properties.
+         *
+         * @param source the bean
+         * @param kind the change kind
+         * @param propertyName the property name
+         * @param oldValue the property old value
+         * @param newValue the property new value
+         */
+        PendingChange(Object source, byte kind, String propertyName,
+                      Object oldValue, Object newValue) {
+
+            super();
+
+            this.source = source;
+            this.kind = kind;
+            this.propertyName = propertyName;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * Marks the change as delivered and returns its new value.
+         *
+         * @return the new value
+         */
+        Object close() {
+
+            return NEW_VALUE.getAndSet(this, CLOSED);
+        }
+
+        /**
+         * Replaces the new value, unless the change was delivered.
+         *
+         * @param value the new value
+         *
+         * @return whether the new value was replaced
+         */
+        boolean offer(Object value) {
+
+            Object current;
+
+            do {
+                current = newValue;
+
+                if (current == CLOSED) {
+                    return false;
+                }
+            } while (!NEW_VALUE.compareAndSet(this, current, value));
+
+            return true;
+        }
+
+        /**
+         * Returns whether the given object is a change of the same bean and property.
+         *
+         * @param target the target object
+         *
+         * @return whether the given object is a change of the same bean and property
+         */
+        public boolean equals(Object target) {
+
+            if (!(target instanceof PendingChange)) {
+                return false;
+            }
+
+            PendingChange change = (PendingChange) target;
+
+            return source == change.source && Objects.equals(propertyName, change.propertyName);
+        }
+
+        /**
+         * Returns a hash code value for the bean and property.
+         *
+         * @return a hash code value for the change
+         */
+        public int hashCode() {
+
+            return System.identityHashCode(source) * 31 + Objects.hashCode(propertyName);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package deors.core.sensible;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Parameters of a field defined by a component of a <code>SensibleRecord</code> declaration.<br>
+ *
+ * Only the parameters given are set in the field, so the rest keep the defaults of the data type.
+ * A compile error is reported if a parameter does not apply to the data type of the field.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleRecord
+ * @see SensibleObjectProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface SensibleField {
+
+    /**
+     * The field name. By default it is the component name.
+     *
+     * @return the field name
+     */
+    String name() default "";
+
+    /**
+     * Whether the field is a key field.
+     *
+     * @return whether the field is a key field
+     *
+     * @see SensibleDataType#setKey(boolean)
+     */
+    boolean key() default false;
+
+    /**
+     * Whether the field is required.
+     *
+     * @return whether the field is required
+     *
+     * @see SensibleDataType#setRequired(boolean)
+     */
+    boolean required() default false;
+
+    /**
+     * The maximum length of a string field.
+     *
+     * @return the maximum length
+     *
+     * @see SensibleString#setMaxLength(int)
+     */
+    int maxLength() default -1;
+
+    /**
+     * The casing mode of a string field.
+     *
+     * @return the casing mode
+     *
+     * @see SensibleString#setCasingMode(String)
+     */
+    String casingMode() default "NO"; //$NON-NLS-1$
+
+    /**
+     * The minimum value of an integer or long field.
+     *
+     * @return the minimum value
+     *
+     * @see SensibleInteger#setMinValue(int)
+     * @see SensibleLong#setMinValue(long)
+     */
+    long minValue() default Long.MIN_VALUE;
+
+    /**
+     * The maximum value of an integer or long field.
+     *
+     * @return the maximum value
+     *
+     * @see SensibleInteger#setMaxValue(int)
+     * @see SensibleLong#setMaxValue(long)
+     */
+    long maxValue() default Long.MAX_VALUE;
+
+    /**
+     * The maximum integer digits of a big decimal field.
+     *
+     * @return the maximum integer digits
+     *
+     * @see SensibleBigDecimal#setMaxIntegerDigits(int)
+     */
+    int maxIntegerDigits() default -1;
+
+    /**
+     * The maximum fractional digits of a big decimal field.
+     *
+     * @return the maximum fractional digits
+     *
+     * @see SensibleBigDecimal#setMaxFractionalDigits(int)
+     */
+    int maxFractionalDigits() default -1;
+
+    /**
+     * Whether a big decimal field allows negative values.
+     *
+     * @return whether negative values are allowed
+     *
+     * @see SensibleBigDecimal#setNegativeValuesAllowed(boolean)
+     */
+    boolean negativeValuesAllowed() default true;
+
+    /**
+     * Whether a time or date/time field has seconds.
+     *
+     * @return whether the time has seconds
+     *
+     * @see SensibleTime#setTimeWithSeconds(boolean)
+     * @see SensibleDateTime#setTimeWithSeconds(boolean)
+     */
+    boolean timeWithSeconds() default true;
+
+    /**
+     * Whether the time is optional in a date/time field.
+     *
+     * @return whether the time is optional
+     *
+     * @see SensibleDateTime#setTimeOptional(boolean)
+     */
+    boolean timeOptional() default false;
+}
@@ -0,0 +1,30 @@
+package deors.core.sensible;
+
+import java.io.Serializable;
+
+/**
+ * Definition for the formula of a derived field of a <code>SensibleObject</code> object.<br>
+ *
+ * The formula reads the input fields from the given object and changes the value of the given
+ * target field, usually with the typed setters of its data type. The formula is invoked only when
+ * an input changed and after the derived fields it depends on are computed, so it must not change
+ * other fields. The fields must be read from the given object and not captured when the formula
+ * is declared, as the fields of an object are replaced in its copies.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleObject#deriveField(int, SensibleFieldFormula, int...)
+ */
+@FunctionalInterface
+public interface SensibleFieldFormula
+    extends Serializable {
+
+    /**
+     * Computes the value of a derived field.
+     *
+     * @param object the object
+     * @param target the derived field
+     */
+    void compute(SensibleObject object, SensibleDataType target);
+}
@@ -0,0 +1,161 @@
+package deors.core.sensible;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Factory of new instances for the <code>returnNew()</code> methods of the
+ * <code>SensibleObject</code> and <code>SensibleDataType</code> classes.<br>
+ *
+ * The public no-argument constructor of each class is resolved only once, the first time an
+ * instance of the class is requested, and kept as a method handle, so creating an instance does
+ * not look up the constructor nor check the access again as
+ * <code>getClass().getConstructor().newInstance()</code> does on every invocation. Classes can
+ * also register an explicit factory, usually a reference to their constructor, which is used
+ * instead of the constructor handle:
+ *
+ * <pre>
+ * SensibleInstanceFactory.register(CustomerObject.class, CustomerObject::new);
+ * </pre>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleObject#returnNew()
+ * @see SensibleDataType#returnNew()
+ */
+public final class SensibleInstanceFactory {
+
+    /**
+     * The factories registered explicitly.
+     */
+    private static final Map<Class<?>, Supplier<?>> REGISTERED =
+        new ConcurrentHashMap<Class<?>, Supplier<?>>();
+
+    /**
+     * The factory resolved for each class, either the one registered or the constructor handle.
+     */
+    private static final ClassValue<Supplier<?>> FACTORIES = new ClassValue<Supplier<?>>() {
+
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+
+            Supplier<?> factory = REGISTERED.get(type);
+
+            return factory != null ? factory : constructorOf(type);
+        }
+    };
+
+    /**
+     * The factory of the classes without an accessible no-argument constructor.
+     */
+    private static final Supplier<?> NO_FACTORY = () -> null;
+
+    /**
+     * Default constructor. This class is a toolkit and therefore it cannot be instantiated.
+     */
+    private SensibleInstanceFactory() {
+        super();
+    }
+
+    /**
+     * Returns a factory that invokes the public no-argument constructor of the given class.
+     *
+     * @param type the class
+     *
+     * @return the factory, which returns <code>null</code> if the class has no accessible
+     *         no-argument constructor
+     */
+    private static Supplier<?> constructorOf(Class<?> type) {
+
+        MethodHandle found;
+
+        try {
+            found = MethodHandles.publicLookup()
+                .findConstructor(type, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException e) {
+            return NO_FACTORY;
+        } catch (IllegalAccessException iae) {
+            found = reflectedConstructorOf(type);
+
+            if (found == null) {
+                return NO_FACTORY;
+            }
+        }
+
+        MethodHandle constructor = found.asType(MethodType.methodType(Object.class));
+
+        return () -> {
+            try {
+                return constructor.invokeExact();
+            } catch (Throwable t) {
+                // as with the reflective path, a failed construction gives no instance
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns a new instance of the given class, or <code>null</code> if the instance could not
+     * be created.
+     *
+     * @param <T> the type of the instance
+     * @param type the class
+     *
+     * @return a new instance of the class or <code>null</code> if the instance could not be
+     *         created
+     */
+    public static <T> T newInstance(Class<T> type) {
+
+        return type.cast(FACTORIES.get(type).get());
+    }
+
+    /**
+     * Returns the public no-argument constructor of the given class as seen by this class, for
+     * the classes whose constructor is not found by the public lookup, such as the classes that
+     * are not public. These classes are created as the reflective path created them, which
+     * invoked the constructor from this package.
+     *
+     * @param type the class
+     *
+     * @return the constructor handle, or <code>null</code> if the class has no public
+     *         no-argument constructor accessible from this class
+     */
+    private static MethodHandle reflectedConstructorOf(Class<?> type) {
+
+        try {
+            return MethodHandles.lookup().unreflectConstructor(type.getConstructor());
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Registers an explicit factory for the given class, replacing the one used until now.
+     *
+     * @param <T> the type of the instances
+     * @param type the class
+     * @param factory the factory, which must return new instances of exactly the given class
+     */
+    public static <T> void register(Class<T> type, Supplier<? extends T> factory) {
+
+        REGISTERED.put(type, factory);
+        FACTORIES.remove(type);
+    }
+
+    /**
+     * Removes the factory registered explicitly for the given class, so its no-argument
+     * constructor is used again.
+     *
+     * @param type the class
+     */
+    public static void unregister(Class<?> type) {
+
+        REGISTERED.remove(type);
+        FACTORIES.remove(type);
+    }
+}
@@ -288,12 +288,10 @@ public final class SensibleInteger
             return true;
         }
 
-        try {
-            Integer.parseInt(value.substring(0, offset) + s + value.substring(offset));
-            return true;
-        } catch (NumberFormatException nfe) {
-            return false;
-        }
+        String proposedValue = value.substring(0, offset) + s + value.substring(offset);
+
+        return SensibleParseResult.parseNumber(proposedValue, Integer.MIN_VALUE, Integer.MAX_VALUE,
+            Integer.MIN_VALUE, Integer.MAX_VALUE, null, null, null) == SensibleParseResult.VALID;
     }
 
     /**
@@ -369,37 +367,21 @@ public final class SensibleInteger
 
         int oldNumber = number;
         String oldValue = value;
-        boolean newValid = valid;
+        boolean blank = newValue.isEmpty() || newValue.equals(PATTERN_MINUS);
 
-        if (newValue.isEmpty() || newValue.equals(PATTERN_MINUS)) {
-            number = 0;
-            value = newValue;
-            newValid = 0 >= minValue && 0 <= maxValue;
-        } else {
-            try {
-                int i = Integer.parseInt(newValue);
-
-                if (valueChangingInSet
-                    && (i < minValue || i > maxValue)) {
-
-                    valueChangingInSet = false;
-                    throw new IllegalArgumentException(
-                        SensibleContext.getMessage("INT_ERR_VALUE_NOT_IN_RANGE")); //$NON-NLS-1$
-                }
-
-                number = i;
-                value = Integer.toString(i);
-                newValid = i >= minValue && i <= maxValue;
-            } catch (NumberFormatException nfe) {
-                if (valueChangingInSet) {
-                    valueChangingInSet = false;
-                }
-
-                throw new IllegalArgumentException(
-                    SensibleContext.getMessage("INT_ERR_INVALID_STRING"), nfe); //$NON-NLS-1$
-            }
+        SensibleParseResult result = new SensibleParseResult();
+        int code = tryParse(newValue, result);
+
+        if (code == SensibleParseResult.INVALID_FORMAT
+            || code == SensibleParseResult.NOT_IN_RANGE && valueChangingInSet && !blank) {
+            valueChangingInSet = false;
+            throw new IllegalArgumentException(result.getMessage());
         }
 
+        number = (int) result.getNumber();
+        value = blank ? newValue : Integer.toString(number);
+        boolean newValid = code == SensibleParseResult.VALID;
+
         if (!newValue.equals(value)) {
             valueChangingInSet = true;
         }
@@ -440,6 +422,20 @@ public final class SensibleInteger
         return super.compareTo(target);
     }
 
+    /**
+     * Returns the immutable state of the data value, where the parsed value is the number.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleDataType#createState()
+     */
+    @Override
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid,
+            value.length() > 0, Integer.valueOf(number), null);
+    }
+
     /**
      * Compares this <code>SensibleInteger</code> object with the given integer value and returns
      * whether both represent the same integer value.
@@ -869,4 +865,32 @@ public final class SensibleInteger
 
         return toString();
     }
+
+    /**
+     * Checks whether the given string is a valid integer value in range, without changing the
+     * data value and without throwing exceptions, and stores the result code and the number in
+     * the given result object. No objects are created while the string is checked. An empty
+     * string and a single minus sign are the number zero.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        if (source.length() == 0 || PATTERN_MINUS.contentEquals(source)) {
+            return SensibleParseResult.complete(result,
+                0 >= minValue && 0 <= maxValue
+                    ? SensibleParseResult.VALID : SensibleParseResult.NOT_IN_RANGE,
+                "INT_ERR_VALUE_NOT_IN_RANGE", 0, null); //$NON-NLS-1$
+        }
+
+        return SensibleParseResult.parseNumber(source, Integer.MIN_VALUE, Integer.MAX_VALUE,
+            minValue, maxValue, "INT_ERR_INVALID_STRING", //$NON-NLS-1$
+            "INT_ERR_VALUE_NOT_IN_RANGE", result); //$NON-NLS-1$
+    }
 }
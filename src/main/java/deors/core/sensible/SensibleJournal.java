@@ -0,0 +1,769 @@
+package deors.core.sensible;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal of the changes made in <code>SensibleObject</code> and <code>SensibleTable</code>
+ * objects, which allows to undo and redo them.<br>
+ *
+ * Instead of copies of the objects, the journal keeps the deltas: the field index with the old
+ * and new values for the field changes, the row and the record for the records inserted, updated
+ * or deleted in a table, and the row and column with the old and new values for the cells edited
+ * in a table. The values are the strings held by the fields, shared and not copied, and the
+ * records are the ones removed from the table, so the undo and redo actions apply the deltas
+ * without copying any record.<br>
+ *
+ * The objects and tables are attached to the journal with their <code>setJournal()</code>
+ * methods. The records of an attached table must not be attached too, as the cells edited are
+ * already recorded by the table, both the ones changed through its model and the ones edited in
+ * its cell editors. Replacing the table data clears the journal, as the rows
+ * recorded no longer exist, and the records loaded in the background are not recorded.<br>
+ *
+ * The changes are grouped so a single undo action reverts all of them. Each change is a group
+ * of its own unless it is made between <code>beginGroup()</code> and <code>endGroup()</code>.<br>
+ *
+ * The deltas are kept in a ring buffer whose capacity is the maximum number of deltas, and the
+ * memory they hold is estimated and bounded by the <code>memoryBudget</code> property. When
+ * either limit is reached, the oldest groups are discarded whole. A group larger than the limits
+ * is discarded and the rest of its changes are not recorded.<br>
+ *
+ * The journal fires property change events for the <code>undoable</code> and
+ * <code>redoable</code> properties, so the undo and redo actions can be enabled accordingly.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleObject#setJournal(SensibleJournal)
+ * @see SensibleTable#setJournal(SensibleJournal)
+ */
+public final class SensibleJournal
+    extends BasicPropertyChangeSupport {
+
+    /**
+     * The default capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The default memory budget, in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 4L << 20;
+
+    /**
+     * The estimated size of a delta without its values, in bytes.
+     */
+    private static final int DELTA_SIZE = 48;
+
+    /**
+     * The estimated size of a field of a record, without its value, in bytes.
+     */
+    private static final int FIELD_SIZE = 384;
+
+    /**
+     * Kind of the deltas of a field changed in an object.
+     */
+    private static final byte KIND_FIELD = 0;
+
+    /**
+     * Kind of the deltas of a cell edited in a table.
+     */
+    private static final byte KIND_CELL = 1;
+
+    /**
+     * Kind of the deltas of a record inserted in a table.
+     */
+    private static final byte KIND_INSERTED = 2;
+
+    /**
+     * Kind of the deltas of a record updated in a table.
+     */
+    private static final byte KIND_UPDATED = 3;
+
+    /**
+     * Kind of the deltas of a record deleted from a table.
+     */
+    private static final byte KIND_DELETED = 4;
+
+    /**
+     * The "undoable" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_UNDOABLE = "undoable"; //$NON-NLS-1$
+
+    /**
+     * The "redoable" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_REDOABLE = "redoable"; //$NON-NLS-1$
+
+    /**
+     * The kind of each delta.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The object or table changed by each delta.
+     */
+    private final Object[] targets;
+
+    /**
+     * The field index or the row of each delta.
+     */
+    private final int[] indexes;
+
+    /**
+     * The column of each cell delta.
+     */
+    private final int[] columns;
+
+    /**
+     * The old value or record of each delta.
+     */
+    private final Object[] oldValues;
+
+    /**
+     * The new value or record of each delta.
+     */
+    private final Object[] newValues;
+
+    /**
+     * The group of each delta.
+     */
+    private final int[] groups;
+
+    /**
+     * The estimated size of each delta.
+     */
+    private final int[] sizes;
+
+    /**
+     * The position in the buffer of the oldest delta.
+     */
+    private int head;
+
+    /**
+     * The number of deltas kept.
+     */
+    private int count;
+
+    /**
+     * The number of deltas applied, so the deltas after them can be redone.
+     */
+    private int cursor;
+
+    /**
+     * The estimated size of the deltas kept.
+     */
+    private long memoryUsage;
+
+    /**
+     * The maximum estimated size of the deltas kept.
+     *
+     * @see SensibleJournal#getMemoryBudget()
+     * @see SensibleJournal#setMemoryBudget(long)
+     */
+    private long memoryBudget;
+
+    /**
+     * The last group number given.
+     */
+    private int lastGroup;
+
+    /**
+     * The number of nested groups open.
+     *
+     * @see SensibleJournal#beginGroup()
+     */
+    private int groupDepth;
+
+    /**
+     * Whether the group open was discarded, so the rest of its changes are not recorded.
+     */
+    private boolean groupDiscarded;
+
+    /**
+     * Whether the deltas are being applied, so the changes are not recorded.
+     */
+    private boolean applying;
+
+    /**
+     * The last <code>undoable</code> property value notified.
+     */
+    private boolean undoable;
+
+    /**
+     * The last <code>redoable</code> property value notified.
+     */
+    private boolean redoable;
+
+    /**
+     * Default constructor. The journal has the default capacity and memory budget.
+     *
+     * @see SensibleJournal#DEFAULT_CAPACITY
+     * @see SensibleJournal#DEFAULT_MEMORY_BUDGET
+     */
+    public SensibleJournal() {
+
+        this(DEFAULT_CAPACITY, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Constructor that sets the capacity and the memory budget.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the capacity is not
+     * positive.
+     *
+     * @param capacity the maximum number of deltas kept
+     * @param memoryBudget the maximum estimated size of the deltas kept, in bytes
+     */
+    public SensibleJournal(int capacity, long memoryBudget) {
+
+        super();
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "JOURNAL_ERR_INVALID_CAPACITY", Integer.toString(capacity))); //$NON-NLS-1$
+        }
+
+        kinds = new byte[capacity];
+        targets = new Object[capacity];
+        indexes = new int[capacity];
+        columns = new int[capacity];
+        oldValues = new Object[capacity];
+        newValues = new Object[capacity];
+        groups = new int[capacity];
+        sizes = new int[capacity];
+
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Opens a group of changes. Until the group is closed by invoking <code>endGroup()</code>,
+     * the changes recorded are reverted and applied again together. Groups can be nested, in
+     * which case the changes are grouped until the outermost group is closed.
+     *
+     * @see SensibleJournal#endGroup()
+     * @see SensibleJournal#group(Runnable)
+     */
+    public void beginGroup() {
+
+        if (groupDepth++ == 0) {
+            lastGroup++;
+            groupDiscarded = false;
+        }
+    }
+
+    /**
+     * Returns whether there are changes that can be redone.
+     *
+     * @return whether there are changes that can be redone
+     */
+    public boolean canRedo() {
+
+        return cursor < count;
+    }
+
+    /**
+     * Returns whether there are changes that can be undone.
+     *
+     * @return whether there are changes that can be undone
+     */
+    public boolean canUndo() {
+
+        return cursor > 0;
+    }
+
+    /**
+     * Records a cell edited in a table.
+     *
+     * @param table the table
+     * @param row the row
+     * @param column the column
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    void cellChanged(SensibleTable<?> table, int row, int column, String oldValue, String newValue) {
+
+        record(KIND_CELL, table, row, column, oldValue, newValue,
+            DELTA_SIZE + 2 * (oldValue.length() + newValue.length()));
+    }
+
+    /**
+     * Checks that there is no group open.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if there is a group open.
+     */
+    private void checkNoGroup() {
+
+        if (groupDepth > 0) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage("JOURNAL_ERR_GROUP_OPEN")); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Discards all the deltas kept.
+     */
+    public void clear() {
+
+        for (int i = 0; i < count; i++) {
+            release(head + i);
+        }
+
+        head = 0;
+        count = 0;
+        cursor = 0;
+        memoryUsage = 0;
+
+        if (groupDepth > 0) {
+            groupDiscarded = true;
+        }
+
+        fireStateChanges();
+    }
+
+    /**
+     * Discards the deltas undone, which can be redone.
+     */
+    private void discardRedo() {
+
+        for (int i = cursor; i < count; i++) {
+            memoryUsage -= sizes[slot(i)];
+            release(head + i);
+        }
+
+        count = cursor;
+    }
+
+    /**
+     * Closes a group of changes opened by invoking <code>beginGroup()</code>.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if there is no group open.
+     *
+     * @see SensibleJournal#beginGroup()
+     */
+    public void endGroup() {
+
+        if (groupDepth == 0) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage("JOURNAL_ERR_NO_GROUP")); //$NON-NLS-1$
+        }
+
+        if (--groupDepth == 0) {
+            groupDiscarded = false;
+        }
+    }
+
+    /**
+     * Estimates the size of a record held by a delta.
+     *
+     * @param record the record
+     *
+     * @return the estimated size
+     */
+    private static int estimateSize(SensibleObject record) {
+
+        int size = DELTA_SIZE;
+
+        for (int i = 0, n = record.getFieldCount(); i < n; i++) {
+            size += FIELD_SIZE + 2 * record.getField(i).getValue().length();
+        }
+
+        return size;
+    }
+
+    /**
+     * Discards the oldest group.
+     */
+    private void evictGroup() {
+
+        int group = groups[slot(0)];
+
+        while (count > 0 && groups[slot(0)] == group) {
+            memoryUsage -= sizes[slot(0)];
+            release(head);
+            head = (head + 1) % kinds.length;
+            count--;
+            cursor--;
+        }
+    }
+
+    /**
+     * Records a field changed in an object.
+     *
+     * @param object the object
+     * @param index the field index
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    void fieldChanged(SensibleObject object, int index, String oldValue, String newValue) {
+
+        record(KIND_FIELD, object, index, 0, oldValue, newValue,
+            DELTA_SIZE + 2 * (oldValue.length() + newValue.length()));
+    }
+
+    /**
+     * Fires the property change events of the <code>undoable</code> and <code>redoable</code>
+     * properties if their values changed.
+     */
+    private void fireStateChanges() {
+
+        boolean oldUndoable = undoable;
+        boolean oldRedoable = redoable;
+
+        undoable = canUndo();
+        redoable = canRedo();
+
+        if (oldUndoable != undoable) {
+            firePropertyChange(JAVA_BEAN_PROPERTY_UNDOABLE, oldUndoable, undoable);
+        }
+
+        if (oldRedoable != redoable) {
+            firePropertyChange(JAVA_BEAN_PROPERTY_REDOABLE, oldRedoable, redoable);
+        }
+    }
+
+    /**
+     * Returns the number of deltas kept, including the ones that can be redone.
+     *
+     * @return the number of deltas kept
+     */
+    public int getDeltaCount() {
+
+        return count;
+    }
+
+    /**
+     * Returns the capacity, that is, the maximum number of deltas kept.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+
+        return kinds.length;
+    }
+
+    /**
+     * Returns the <code>memoryBudget</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleJournal#memoryBudget
+     * @see SensibleJournal#setMemoryBudget(long)
+     */
+    public long getMemoryBudget() {
+
+        return memoryBudget;
+    }
+
+    /**
+     * Returns the estimated size of the deltas kept, in bytes.
+     *
+     * @return the estimated size of the deltas kept
+     */
+    public long getMemoryUsage() {
+
+        return memoryUsage;
+    }
+
+    /**
+     * Applies the given changes inside a group, so they are undone together, even if they throw
+     * an exception.
+     *
+     * @param changes the changes
+     *
+     * @see SensibleJournal#beginGroup()
+     */
+    public void group(Runnable changes) {
+
+        beginGroup();
+
+        try {
+            changes.run();
+        } finally {
+            endGroup();
+        }
+    }
+
+    /**
+     * Returns whether the changes are being undone or redone, so they are not recorded.
+     *
+     * @return whether the changes are being undone or redone
+     */
+    boolean isApplying() {
+
+        return applying;
+    }
+
+    /**
+     * Records a delta, discarding the deltas that could be redone and, if a limit is reached,
+     * the oldest groups.
+     *
+     * @param kind the delta kind
+     * @param target the object or table changed
+     * @param index the field index or the row
+     * @param column the column
+     * @param oldValue the old value or record
+     * @param newValue the new value or record
+     * @param size the estimated size of the delta
+     */
+    private void record(byte kind, Object target, int index, int column,
+                        Object oldValue, Object newValue, int size) {
+
+        if (applying || groupDiscarded) {
+            return;
+        }
+
+        // a new change discards the changes undone
+        discardRedo();
+
+        int group = groupDepth > 0 ? lastGroup : ++lastGroup;
+
+        while (count > 0 && (count == kinds.length || memoryUsage + size > memoryBudget)) {
+            if (groups[slot(0)] == group) {
+                // the group does not fit, so it is discarded whole
+                clear();
+                groupDiscarded = groupDepth > 0;
+                return;
+            }
+            evictGroup();
+        }
+
+        if (size > memoryBudget) {
+            groupDiscarded = groupDepth > 0;
+            fireStateChanges();
+            return;
+        }
+
+        int slot = slot(count);
+
+        kinds[slot] = kind;
+        targets[slot] = target;
+        indexes[slot] = index;
+        columns[slot] = column;
+        oldValues[slot] = oldValue;
+        newValues[slot] = newValue;
+        groups[slot] = group;
+        sizes[slot] = size;
+
+        count++;
+        cursor = count;
+        memoryUsage += size;
+
+        fireStateChanges();
+    }
+
+    /**
+     * Redoes the changes of the next group undone.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if there is a group open.
+     *
+     * @return whether there were changes to redo
+     */
+    public boolean redo() {
+
+        checkNoGroup();
+
+        if (cursor == count) {
+            return false;
+        }
+
+        int group = groups[slot(cursor)];
+        int from = cursor;
+
+        while (cursor < count && groups[slot(cursor)] == group) {
+            cursor++;
+        }
+
+        apply(from, cursor, false);
+
+        return true;
+    }
+
+    /**
+     * Records a record deleted from a table.
+     *
+     * @param table the table
+     * @param row the row
+     * @param record the record deleted
+     */
+    void rowDeleted(SensibleTable<?> table, int row, SensibleObject record) {
+
+        record(KIND_DELETED, table, row, 0, record, null, estimateSize(record));
+    }
+
+    /**
+     * Records a record inserted in a table.
+     *
+     * @param table the table
+     * @param row the row
+     * @param record the record inserted
+     */
+    void rowInserted(SensibleTable<?> table, int row, SensibleObject record) {
+
+        record(KIND_INSERTED, table, row, 0, null, record, DELTA_SIZE);
+    }
+
+    /**
+     * Records a record updated in a table.
+     *
+     * @param table the table
+     * @param row the row
+     * @param oldRecord the record replaced
+     * @param newRecord the new record
+     */
+    void rowUpdated(SensibleTable<?> table, int row, SensibleObject oldRecord,
+                    SensibleObject newRecord) {
+
+        record(KIND_UPDATED, table, row, 0, oldRecord, newRecord, estimateSize(oldRecord));
+    }
+
+    /**
+     * Changes the <code>memoryBudget</code> property value, discarding the changes undone and
+     * the oldest groups until the deltas kept fit in the new budget.
+     *
+     * @param newValue the property new value
+     *
+     * @see SensibleJournal#memoryBudget
+     * @see SensibleJournal#getMemoryBudget()
+     */
+    public void setMemoryBudget(long newValue) {
+
+        memoryBudget = newValue;
+
+        if (memoryUsage > memoryBudget) {
+            discardRedo();
+        }
+
+        while (count > 0 && memoryUsage > memoryBudget) {
+            evictGroup();
+        }
+
+        fireStateChanges();
+    }
+
+    /**
+     * Undoes the changes of the last group applied.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if there is a group open.
+     *
+     * @return whether there were changes to undo
+     */
+    public boolean undo() {
+
+        checkNoGroup();
+
+        if (cursor == 0) {
+            return false;
+        }
+
+        int group = groups[slot(cursor - 1)];
+        int to = cursor;
+
+        while (cursor > 0 && groups[slot(cursor - 1)] == group) {
+            cursor--;
+        }
+
+        apply(cursor, to, true);
+
+        return true;
+    }
+
+    /**
+     * Applies the deltas in the given range, reverting them backwards or applying them again
+     * forwards. The changes of each table are applied in a batch.
+     *
+     * @param from the first delta, inclusive
+     * @param to the last delta, exclusive
+     * @param revert whether the deltas are reverted
+     */
+    @SuppressWarnings("unchecked")
+    private void apply(int from, int to, boolean revert) {
+
+        List<SensibleTable<?>> batches = new ArrayList<SensibleTable<?>>();
+
+        applying = true;
+
+        try {
+            for (int k = 0, n = to - from; k < n; k++) {
+                int slot = slot(revert ? to - 1 - k : from + k);
+                Object target = targets[slot];
+                Object value = revert ? oldValues[slot] : newValues[slot];
+                int index = indexes[slot];
+
+                if (kinds[slot] == KIND_FIELD) {
+                    SensibleObject object = (SensibleObject) target;
+                    object.beginUpdate();
+
+                    try {
+                        object.restoreField(index, (String) value);
+                    } finally {
+                        object.commit();
+                    }
+                    continue;
+                }
+
+                SensibleTable<SensibleObject> table = (SensibleTable<SensibleObject>) target;
+
+                if (!batches.contains(table)) {
+                    table.beginBatch();
+                    batches.add(table);
+                }
+
+                switch (kinds[slot]) {
+                    case KIND_CELL:
+                        table.restoreCell(index, columns[slot], (String) value);
+                        break;
+                    case KIND_UPDATED:
+                        table.updateRecord(index, (SensibleObject) value, SensibleTable.DONT_CLONE);
+                        break;
+                    default:
+                        // a record inserted is deleted when reverted and a record deleted is
+                        // deleted when applied again
+                        if ((kinds[slot] == KIND_INSERTED) == revert) {
+                            table.deleteRecord(index);
+                        } else {
+                            table.insertRecord((SensibleObject) (revert ? oldValues[slot]
+                                : newValues[slot]), index, SensibleTable.DONT_CLONE);
+                        }
+                        break;
+                }
+            }
+        } finally {
+            try {
+                for (SensibleTable<?> table : batches) {
+                    table.endBatch();
+                }
+            } finally {
+                applying = false;
+                fireStateChanges();
+            }
+        }
+    }
+
+    /**
+     * Releases the references held by the delta in the given position of the buffer.
+     *
+     * @param position the position, which may exceed the capacity
+     */
+    private void release(int position) {
+
+        int slot = position % kinds.length;
+
+        targets[slot] = null;
+        oldValues[slot] = null;
+        newValues[slot] = null;
+    }
+
+    /**
+     * Returns the position in the buffer of the given delta.
+     *
+     * @param delta the delta, counted from the oldest one
+     *
+     * @return the position in the buffer
+     */
+    private int slot(int delta) {
+
+        return (head + delta) % kinds.length;
+    }
+}
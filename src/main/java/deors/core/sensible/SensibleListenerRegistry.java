@@ -0,0 +1,300 @@
+package deors.core.sensible;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+/**
+ * Immutable registry of the property change listeners of a bean, and of its typed listeners,
+ * which are notified with the primitive or typed values without event objects.<br>
+ *
+ * The registry keeps the listeners and the property each one is linked to in two arrays, and it
+ * is never modified: adding or removing a listener returns a new registry, which the bean swaps
+ * atomically, so the events are fired without locks and the listeners changed while an event is
+ * fired do not affect it. A bean without listeners has no registry at all, so firing an event
+ * costs a single read and creates no event. The property names are interned when the listeners
+ * are added, so they are usually matched by identity when the events are fired.<br>
+ *
+ * The listeners not linked to a property are notified first, and then the listeners linked to
+ * the property changed, in the order they were added, as the
+ * <code>java.beans.PropertyChangeSupport</code> class does. The events are not fired if the old
+ * and new values are equal and not <code>null</code>. The typed listeners are notified in the
+ * order they were added, before the property change listeners. The listeners are told apart by
+ * the interface they implement, so a listener must implement only one of the listener
+ * interfaces.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see BasicPropertyChangeSupport
+ * @see SensibleObject
+ * @see BooleanPropertyListener
+ * @see IntValueListener
+ * @see LongValueListener
+ * @see ValueListener
+ */
+final class SensibleListenerRegistry {
+
+    /**
+     * The property each listener is linked to, or <code>null</code> for the listeners notified
+     * of all the properties.
+     */
+    private final String[] names;
+
+    /**
+     * The listeners, either property change listeners or typed listeners.
+     */
+    private final Object[] listeners;
+
+    /**
+     * Constructor that sets the registry arrays.
+     *
+     * @param names the property each listener is linked to
+     * @param listeners the listeners
+     */
+    private SensibleListenerRegistry(String[] names, Object[] listeners) {
+
+        super();
+
+        this.names = names;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Returns a registry with the listeners in the given registry and the given listener.
+     *
+     * @param registry the registry, or <code>null</code> if there are no listeners
+     * @param propertyName the property name, or <code>null</code> to notify the listener of all
+     *                     the properties
+     * @param listener the listener
+     *
+     * @return the new registry
+     */
+    static SensibleListenerRegistry add(SensibleListenerRegistry registry,
+                                        String propertyName, Object listener) {
+
+        String name = propertyName == null ? null : propertyName.intern();
+
+        if (registry == null) {
+            return new SensibleListenerRegistry(new String[] {name}, new Object[] {listener});
+        }
+
+        int n = registry.listeners.length;
+        String[] names = new String[n + 1];
+        Object[] listeners = new Object[n + 1];
+
+        System.arraycopy(registry.names, 0, names, 0, n);
+        System.arraycopy(registry.listeners, 0, listeners, 0, n);
+        names[n] = name;
+        listeners[n] = listener;
+
+        return new SensibleListenerRegistry(names, listeners);
+    }
+
+    /**
+     * Returns a registry with the listeners in the given registry except the first occurrence of
+     * the given listener linked to the given property.
+     *
+     * @param registry the registry, or <code>null</code> if there are no listeners
+     * @param propertyName the property name, or <code>null</code> for a listener notified of
+     *                     all the properties
+     * @param listener the listener
+     *
+     * @return the new registry, the given registry if the listener was not found, or
+     *         <code>null</code> if there are no listeners left
+     */
+    static SensibleListenerRegistry remove(SensibleListenerRegistry registry,
+                                           String propertyName, Object listener) {
+
+        if (registry == null) {
+            return null;
+        }
+
+        int n = registry.listeners.length;
+
+        for (int i = 0; i < n; i++) {
+            if (registry.listeners[i] == listener && matches(registry.names[i], propertyName)) {
+                if (n == 1) {
+                    return null;
+                }
+
+                String[] names = new String[n - 1];
+                Object[] listeners = new Object[n - 1];
+
+                System.arraycopy(registry.names, 0, names, 0, i);
+                System.arraycopy(registry.listeners, 0, listeners, 0, i);
+                System.arraycopy(registry.names, i + 1, names, i, n - 1 - i);
+                System.arraycopy(registry.listeners, i + 1, listeners, i, n - 1 - i);
+
+                return new SensibleListenerRegistry(names, listeners);
+            }
+        }
+
+        return registry;
+    }
+
+    /**
+     * Fires the given event to the listeners of its property.
+     *
+     * @param event the event
+     */
+    void fire(PropertyChangeEvent event) {
+
+        Object oldValue = event.getOldValue();
+        Object newValue = event.getNewValue();
+
+        if (oldValue != null && newValue != null && oldValue.equals(newValue)) {
+            return;
+        }
+
+        String propertyName = event.getPropertyName();
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (names[i] == null && listeners[i] instanceof PropertyChangeListener) {
+                ((PropertyChangeListener) listeners[i]).propertyChange(event);
+            }
+        }
+
+        if (propertyName != null) {
+            for (int i = 0; i < listeners.length; i++) {
+                if (names[i] != null && listeners[i] instanceof PropertyChangeListener
+                    && matches(names[i], propertyName)) {
+                    ((PropertyChangeListener) listeners[i]).propertyChange(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fires an event to the listeners of the given property. The event is created only if the
+     * old and new values are not equal and there are listeners to notify.
+     *
+     * @param source the bean whose property changed
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void fire(Object source, String propertyName, Object oldValue, Object newValue) {
+
+        if (oldValue != null && newValue != null && oldValue.equals(newValue)) {
+            return;
+        }
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof ValueListener<?> && matches(names[i], propertyName)) {
+                @SuppressWarnings("unchecked")
+                ValueListener<Object> listener = (ValueListener<Object>) listeners[i];
+                listener.valueChanged(source, oldValue, newValue);
+            }
+        }
+
+        if (hasListeners(propertyName)) {
+            fire(new PropertyChangeEvent(source, propertyName, oldValue, newValue));
+        }
+    }
+
+    /**
+     * Notifies a change in a boolean property to the boolean property listeners linked to it or
+     * to all the properties, and fires an event to the property change listeners of the
+     * property. The event is created only if there are property change listeners to notify.
+     *
+     * @param source the bean whose property changed
+     * @param propertyName the property name
+     * @param newValue the property new value, which is the negation of the old value
+     */
+    void fire(Object source, String propertyName, boolean newValue) {
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof BooleanPropertyListener
+                && (names[i] == null || matches(names[i], propertyName))) {
+                ((BooleanPropertyListener) listeners[i]).propertyChanged(
+                    source, propertyName, newValue);
+            }
+        }
+
+        if (hasListeners(propertyName)) {
+            fire(new PropertyChangeEvent(
+                source, propertyName, Boolean.valueOf(!newValue), Boolean.valueOf(newValue)));
+        }
+    }
+
+    /**
+     * Notifies a change in an integer property to the integer value listeners linked to it, and
+     * fires an event to the property change listeners of the property. The values are boxed only
+     * if there are property change listeners to notify.
+     *
+     * @param source the bean whose property changed
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void fire(Object source, String propertyName, int oldValue, int newValue) {
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof IntValueListener && matches(names[i], propertyName)) {
+                ((IntValueListener) listeners[i]).valueChanged(source, oldValue, newValue);
+            }
+        }
+
+        if (hasListeners(propertyName)) {
+            fire(new PropertyChangeEvent(
+                source, propertyName, Integer.valueOf(oldValue), Integer.valueOf(newValue)));
+        }
+    }
+
+    /**
+     * Notifies a change in a long integer property to the long value listeners linked to it, and
+     * fires an event to the property change listeners of the property. The values are boxed only
+     * if there are property change listeners to notify.
+     *
+     * @param source the bean whose property changed
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void fire(Object source, String propertyName, long oldValue, long newValue) {
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof LongValueListener && matches(names[i], propertyName)) {
+                ((LongValueListener) listeners[i]).valueChanged(source, oldValue, newValue);
+            }
+        }
+
+        if (hasListeners(propertyName)) {
+            fire(new PropertyChangeEvent(
+                source, propertyName, Long.valueOf(oldValue), Long.valueOf(newValue)));
+        }
+    }
+
+    /**
+     * Returns whether there are property change listeners to notify of changes in the given
+     * property. The typed listeners are not considered.
+     *
+     * @param propertyName the property name
+     *
+     * @return whether there are property change listeners for the property
+     */
+    boolean hasListeners(String propertyName) {
+
+        for (int i = 0; i < names.length; i++) {
+            if (listeners[i] instanceof PropertyChangeListener
+                && (names[i] == null || propertyName != null && matches(names[i], propertyName))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether a listener linked to the given name is linked to the given property.
+     *
+     * @param name the name the listener is linked to, interned
+     * @param propertyName the property name
+     *
+     * @return whether the names match
+     */
+    private static boolean matches(String name, String propertyName) {
+
+        return name == propertyName || name != null && name.equals(propertyName);
+    }
+}
@@ -1,8 +1,10 @@
 package deors.core.sensible;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 
 /**
  * Definition for an abstract object.<br>
@@ -29,7 +31,8 @@ import java.util.Arrays;
  * variables defined and initialized in this constructor) and the second will be an array of
  * <code>String</code> objects containing the field names. Each field name must be equal to the name
  * of the property and, if the object is going to be used to read and update tables, equal to the
- * table or view column name or alias. The constructor ends invoking the <code>addListeners()</code>
+ * table or view column name or alias. The fields computed from other fields are declared with the
+ * <code>deriveField()</code> method. The constructor ends invoking the <code>addListeners()</code>
  * method.</li>
  * <li>3. Implement the desired constructors. All of them begin calling the default constructor and
  * change field values invoking the <code>changeField()</code> methods so the property change
@@ -73,7 +76,9 @@ public abstract class SensibleObject
     protected SensibleDataType[] fields;
 
     /**
-     * Array of <code>String</code> objects that contains the fields names.
+     * Array of <code>String</code> objects that contains the fields names. Once the object is
+     * constructed the array is shared with the other objects of the same class and it must not
+     * be modified.
      *
      * @see SensibleObject#getFieldNames()
      * @see SensibleObject#getFieldName(int)
@@ -81,6 +86,120 @@ public abstract class SensibleObject
      */
     protected String[] fieldNames;
 
+    /**
+     * The schema of this object, shared with the other objects of the same class, or
+     * <code>null</code> if it was not resolved yet.
+     *
+     * @see SensibleObject#getSchema()
+     */
+    private transient SensibleObjectSchema schema;
+
+    /**
+     * Whether the object definition is complete, which happens when the listeners are added at
+     * the end of the constructor. The schema is not kept nor shared until then. It is not
+     * transient, so the objects deserialized share the schema of their class.
+     *
+     * @see SensibleObject#addListeners()
+     */
+    private boolean defined;
+
+    /**
+     * The fields of this object while they are bound to the fields of other object, or
+     * <code>null</code> if the fields are not bound.
+     *
+     * @see SensibleObject#bindFields(SensibleObject)
+     * @see SensibleObject#unbindFields()
+     */
+    private transient SensibleDataType[] ownFields;
+
+    /**
+     * The object whose fields are bound to the fields of this object, or <code>null</code> if
+     * the fields are not bound. The object listens to its fields, so while they are bound the
+     * fields that are not valid and the <code>dataComplete</code> property are taken from it.
+     *
+     * @see SensibleObject#bindFields(SensibleObject)
+     */
+    private transient SensibleObject boundSource;
+
+    /**
+     * The listener of the <code>dataComplete</code> property of the object whose fields are
+     * bound, which sets the same property in this object, or <code>null</code> if the fields
+     * were never bound.
+     */
+    private transient java.beans.PropertyChangeListener boundListener;
+
+    /**
+     * The indexes of the fields that are not valid, kept up to date with the events of the
+     * <code>valid</code> property of the fields, or <code>null</code> if they were not
+     * collected yet.
+     *
+     * @see SensibleObject#getInvalidFields()
+     */
+    private transient BitSet invalidFields;
+
+    /**
+     * The number of nested updates open.
+     *
+     * @see SensibleObject#beginUpdate()
+     */
+    private transient int updateDepth;
+
+    /**
+     * The fields changed in the update open, or <code>null</code> if there is no update open.
+     *
+     * @see SensibleObject#beginUpdate()
+     */
+    private transient BitSet updatedFields;
+
+    /**
+     * Whether the hash code of this object is cached until a field changes.
+     *
+     * @see SensibleObject#isHashCodeCached()
+     * @see SensibleObject#setHashCodeCached(boolean)
+     */
+    private boolean hashCodeCached;
+
+    /**
+     * The cached hash code of this object, or zero if it is not cached.
+     *
+     * @see SensibleObject#hashCode()
+     */
+    private transient int cachedHashCode;
+
+    /**
+     * The formula of each derived field, or <code>null</code> if there are no derived fields.
+     *
+     * @see SensibleObject#deriveField(int, SensibleFieldFormula, int...)
+     */
+    private SensibleFieldFormula[] formulas;
+
+    /**
+     * The inputs of each derived field, or <code>null</code> if there are no derived fields.
+     *
+     * @see SensibleObject#deriveField(int, SensibleFieldFormula, int...)
+     */
+    private int[][] derivedInputs;
+
+    /**
+     * The derived fields whose inputs changed since they were computed, or <code>null</code> if
+     * no input changed yet.
+     */
+    private transient BitSet staleFields;
+
+    /**
+     * Whether the derived fields are being computed.
+     */
+    private transient boolean deriving;
+
+    /**
+     * The journal where the field changes are recorded, or <code>null</code> if the changes are
+     * not recorded.
+     *
+     * @see SensibleObject#getJournal()
+     * @see SensibleObject#setJournal(SensibleJournal)
+     */
+    private transient SensibleJournal journal;
+
     /**
      * Separator.
      */
@@ -91,6 +210,21 @@ public abstract class SensibleObject
      */
     private static final String JAVA_BEAN_PROPERTY_DATA_COMPLETE = "dataComplete"; //$NON-NLS-1$
 
+    /**
+     * The "value" JavaBean property name of the fields.
+     */
+    private static final String JAVA_BEAN_PROPERTY_VALUE = "value"; //$NON-NLS-1$
+
+    /**
+     * The "valid" JavaBean property name of the fields.
+     */
+    private static final String JAVA_BEAN_PROPERTY_VALID = "valid"; //$NON-NLS-1$
+
+    /**
+     * The "fields" JavaBean property name, used by the event fired when an update is committed.
+     */
+    private static final String JAVA_BEAN_PROPERTY_FIELDS = "fields"; //$NON-NLS-1$
+
     /**
      * Default constructor. This is an abstract class and therefore it cannot be instantiated. The
      * constructor adds the property change listener to the class instance.
@@ -103,7 +237,14 @@ public abstract class SensibleObject
     }
 
     /**
-     * Adds listeners for all the fields.
+     * Adds listeners for all the fields. As this method ends the object definition, the schema of
+     * the object is also resolved, so the field names are shared with the other objects of the
+     * same class, the derived fields are computed, and the fields that are not valid are
+     * collected, so they are tracked from now on with the events of the fields.
+     *
+     * @see SensibleObject#getSchema()
+     * @see SensibleObject#getInvalidFields()
+     * @see SensibleObject#deriveField(int, SensibleFieldFormula, int...)
      */
     public final void addListeners() {
 
@@ -112,6 +253,89 @@ public abstract class SensibleObject
                 fields[i].addPropertyChangeListener(this);
             }
         }
+
+        defined = true;
+
+        SensibleObjectSchema current = getSchema();
+
+        if (current.hasDerivedFields()) {
+            for (int index : current.derivedOrder()) {
+                staleFields().set(index);
+            }
+            deriveFields();
+        }
+
+        collectInvalidFields();
+    }
+
+    /**
+     * Opens an update of the object fields. Until the update is committed by invoking
+     * <code>commit()</code>, the <code>setField()</code> methods change the field values without
+     * copying the old field values nor firing the property change events in the object, and the
+     * <code>dataComplete</code> property is not checked on each change. Instead, the fields
+     * changed are recorded and, when the update is committed, the <code>dataComplete</code>
+     * property is checked once and a single event is fired for the <code>fields</code> property
+     * with the indexes of the fields changed. The property change events of the fields are
+     * fired as usual. Updates can be nested, in which case the changes are notified when the
+     * outermost update is committed.
+     *
+     * @see SensibleObject#commit()
+     * @see SensibleObject#update(Consumer)
+     */
+    public final void beginUpdate() {
+
+        if (updateDepth++ == 0) {
+            updatedFields = new BitSet(fields.length);
+        }
+    }
+
+    /**
+     * Binds the fields of this object to the fields of the given object, so this object becomes
+     * a view over it without copying any value and without firing the property change events of
+     * the fields. The fields of this object are kept apart and restored with the
+     * <code>unbindFields()</code> method.<br>
+     *
+     * This object does not listen to the fields bound, the given object does. While they are
+     * bound, the <code>dataComplete</code> property follows the same property of the given
+     * object and the fields that are not valid are the ones of the given object, so both stay
+     * current when the fields bound change.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the given object
+     * definition does not match this object definition.
+     *
+     * @param source the object whose fields are bound
+     *
+     * @see SensibleObject#unbindFields()
+     */
+    final void bindFields(SensibleObject source) {
+
+        if (fields.length != source.fields.length) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_INVALID_OBJECT")); //$NON-NLS-1$
+        }
+
+        if (ownFields == null) {
+            ownFields = fields;
+        } else {
+            boundSource.removeListener(JAVA_BEAN_PROPERTY_DATA_COMPLETE, boundListener);
+        }
+
+        if (boundListener == null) {
+            boundListener = event -> {
+                // the event may be delivered after the fields are unbound
+                if (boundSource != null) {
+                    setDataComplete(boundSource.isDataComplete());
+                }
+            };
+        }
+
+        boundSource = source;
+        fields = source.fields;
+        cachedHashCode = 0;
+
+        source.addListener(JAVA_BEAN_PROPERTY_DATA_COMPLETE, boundListener);
+        setDataComplete(source.isDataComplete());
     }
 
     /**
@@ -222,22 +446,35 @@ public abstract class SensibleObject
     }
 
     /**
-     * Checks the completion of object data and sets the <code>dataComplete</code> property.
+     * Checks the completion of object data and sets the <code>dataComplete</code> property. The
+     * fields that are not valid are collected again, so this method is used when the fields of
+     * the object are replaced.
      *
      * @see SensibleObject#setDataComplete(boolean)
      */
     private void checkDataComplete() {
 
-        boolean newValue = true;
+        collectInvalidFields();
+
+        setDataComplete(invalidFields.isEmpty());
+    }
+
+    /**
+     * Collects the indexes of the fields that are not valid.
+     *
+     * @see SensibleObject#invalidFields
+     */
+    private void collectInvalidFields() {
+
+        BitSet invalid = new BitSet(fields.length);
 
         for (int i = 0, n = fields.length; i < n; i++) {
             if (!fields[i].isValid()) {
-                newValue = false;
-                break;
+                invalid.set(i);
             }
         }
 
-        setDataComplete(newValue);
+        invalidFields = invalid;
     }
 
     /**
@@ -280,12 +517,47 @@ public abstract class SensibleObject
         }
     }
 
+    /**
+     * Commits an update of the object fields opened by invoking <code>beginUpdate()</code>. If
+     * this is the outermost update, the <code>dataComplete</code> property is checked and, if
+     * any field changed, the property change event for the <code>fields</code> property is fired
+     * with the indexes of the fields changed, in ascending order, as the new value.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if there is no update open.
+     *
+     * @see SensibleObject#beginUpdate()
+     */
+    public final void commit() {
+
+        if (updateDepth == 0) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage("DTYPE_ERR_NO_UPDATE")); //$NON-NLS-1$
+        }
+
+        if (--updateDepth > 0) {
+            return;
+        }
+
+        // the derived fields are computed once, with the fields changed in the update recorded
+        deriveFields();
+
+        BitSet changed = updatedFields;
+        updatedFields = null;
+
+        setDataComplete(invalidFields().isEmpty());
+
+        if (!changed.isEmpty()) {
+            firePropertyChange(JAVA_BEAN_PROPERTY_FIELDS, null, changed.stream().toArray());
+        }
+    }
+
     /**
      * Compares this <code>SensibleObject</code> object with the given object and returns an
      * integer value as established in the <code>Comparable</code> interface. The method compares
-     * the <code>toStringForSort()</code> string representation for both objects if the target
-     * object is a <code>SensibleObject</code> object while other target objects are always
-     * greater than this object.
+     * the key fields of both objects one by one, in field order, with the <code>compareTo()</code>
+     * method of the data types, so numbers and dates are compared by their values and no string
+     * representation is built. If all the key fields compared are equal, the object with less
+     * key fields is less than the other.
      *
      * @param target the target object
      *
@@ -294,11 +566,139 @@ public abstract class SensibleObject
      *         greater than the given object
      *
      * @see Comparable#compareTo(Object)
+     * @see SensibleDataType#compareTo(Object)
      * @see SensibleObject#toStringForSort()
      */
     public final int compareTo(SensibleObject target) {
 
-        return this.toStringForSort().compareTo(target.toStringForSort());
+        SensibleDataType[] targetFields = target.fields;
+
+        int i = 0;
+        int j = 0;
+        int n = fields.length;
+        int m = targetFields.length;
+
+        while (true) {
+            while (i < n && !fields[i].isKey()) {
+                i++;
+            }
+            while (j < m && !targetFields[j].isKey()) {
+                j++;
+            }
+
+            if (i == n || j == m) {
+                return (i == n ? 0 : 1) - (j == m ? 0 : 1);
+            }
+
+            int result = fields[i++].compareTo(targetFields[j++]);
+            if (result != 0) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Declares a derived field, whose value is computed by the given formula from the given
+     * input fields. The derived fields must be declared in the constructor, before invoking the
+     * <code>addListeners()</code> method, which computes them the first time. From then on, a
+     * derived field is computed again only when the value of one of its inputs changes, after
+     * the derived fields it depends on, so it never sees a stale input. Inside an update, the
+     * derived fields are computed once when the update is committed. The derived field is set
+     * as read only, as its value is replaced every time it is computed.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if a field index is not
+     * defined, and an <code>IllegalStateException</code> exception is thrown if the listeners
+     * of the object were already added. If a derived field depends on itself, directly or
+     * through other derived fields, an <code>IllegalArgumentException</code> exception is
+     * thrown when the listeners are added.
+     *
+     * @param index the index of the derived field
+     * @param formula the formula that computes the derived field
+     * @param inputs the indexes of the input fields
+     *
+     * @see SensibleFieldFormula
+     * @see SensibleObjectSchema#isDerived(int)
+     */
+    protected final void deriveField(int index, SensibleFieldFormula formula, int... inputs) {
+
+        if (defined) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_DERIVED_AFTER_LISTENERS")); //$NON-NLS-1$
+        }
+
+        int n = fields.length;
+
+        for (int i = -1; i < inputs.length; i++) {
+            int checked = i == -1 ? index : inputs[i];
+
+            if (checked < 0 || checked >= n) {
+                throw new IllegalArgumentException(
+                    SensibleContext.getMessage(
+                        "DTYPE_ERR_FIELD_NOT_DEFINED", Integer.toString(checked))); //$NON-NLS-1$
+            }
+        }
+
+        if (formulas == null) {
+            formulas = new SensibleFieldFormula[n];
+            derivedInputs = new int[n][];
+        }
+
+        formulas[index] = formula;
+        derivedInputs[index] = inputs.clone();
+
+        fields[index].setReadOnly(true);
+    }
+
+    /**
+     * Computes the derived fields whose inputs changed, in topological order. Inside an update
+     * the derived fields changed are recorded, and outside an update the property change event
+     * in the object is fired for each one.
+     */
+    private void deriveFields() {
+
+        BitSet stale = staleFields;
+
+        if (stale == null || stale.isEmpty() || deriving) {
+            return;
+        }
+
+        deriving = true;
+
+        try {
+            for (int index : schema.derivedOrder()) {
+                if (!stale.get(index)) {
+                    continue;
+                }
+
+                SensibleDataType field = fields[index];
+                String oldValue = field.getValue();
+
+                formulas[index].compute(this, field);
+
+                if (!oldValue.equals(field.getValue())) {
+                    if (updatedFields != null) {
+                        updatedFields.set(index);
+                    } else {
+                        firePropertyChange(fieldNames[index], null, field);
+                    }
+                }
+            }
+        } finally {
+            stale.clear();
+            deriving = false;
+        }
+    }
+
+    /**
+     * Returns the inputs of each derived field, or <code>null</code> if there are no derived
+     * fields.
+     *
+     * @return the inputs of each derived field, not to be modified
+     */
+    final int[][] derivedInputs() {
+
+        return derivedInputs;
     }
 
     /**
@@ -387,15 +787,21 @@ public abstract class SensibleObject
      */
     public final SensibleDataType getField(String name) {
 
-        for (int i = 0, n = fieldNames.length; i < n; i++) {
-            if (name.equals(fieldNames[i])) {
-                return fields[i];
-            }
-        }
+        return fields[getFieldIndex(name)];
+    }
 
-        throw new IllegalArgumentException(
-            SensibleContext.getMessage(
-                "DTYPE_ERR_FIELD_NOT_DEFINED", name)); //$NON-NLS-1$
+    /**
+     * Returns the indexes of the fields that are not valid. The fields are not checked, as the
+     * indexes are kept up to date with the events of the <code>valid</code> property of the
+     * fields.
+     *
+     * @return the indexes of the fields that are not valid
+     *
+     * @see SensibleDataType#isValid()
+     */
+    public final BitSet getInvalidFields() {
+
+        return (BitSet) invalidFields().clone();
     }
 
     /**
@@ -425,15 +831,15 @@ public abstract class SensibleObject
      */
     public final int getFieldIndex(String name) {
 
-        for (int i = 0, n = fieldNames.length; i < n; i++) {
-            if (name.equals(fieldNames[i])) {
-                return i;
-            }
+        int index = getSchema().getFieldIndex(name);
+
+        if (index == -1) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_FIELD_NOT_DEFINED", name)); //$NON-NLS-1$
         }
 
-        throw new IllegalArgumentException(
-            SensibleContext.getMessage(
-                "DTYPE_ERR_FIELD_NOT_DEFINED", name)); //$NON-NLS-1$
+        return index;
     }
 
     /**
@@ -471,21 +877,78 @@ public abstract class SensibleObject
         }
     }
 
+    /**
+     * Returns the <code>journal</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleObject#journal
+     * @see SensibleObject#setJournal(SensibleJournal)
+     */
+    public final SensibleJournal getJournal() {
+
+        return journal;
+    }
+
+    /**
+     * Returns the schema of this object, with the field names, types and key flags set by the
+     * class constructor. The schema is shared by all the objects of the same class whose fields
+     * match it, and it finds the index of a field by name in constant time. Until the listeners
+     * are added at the end of the constructor, the schema is resolved again on each invocation
+     * and a new schema is not shared, as the object definition may still change.
+     *
+     * @return the schema of this object
+     *
+     * @see SensibleObjectSchema
+     */
+    public final SensibleObjectSchema getSchema() {
+
+        SensibleObjectSchema current = schema;
+
+        if (current == null) {
+            current = SensibleObjectSchema.of(this, defined);
+
+            if (defined) {
+                fieldNames = current.sharedFieldNames();
+                schema = current;
+            }
+        }
+
+        return current;
+    }
+
     /**
      * Returns a hash code value for the object.<br>
      *
-     * Actually the method returns the hash code from the object's interned string representation.
+     * Actually the method combines the hash codes of the field values, which are the same values
+     * compared by the <code>equals()</code> method, without building the object's string
+     * representation. If the <code>hashCodeCached</code> property is set, the hash code is kept
+     * until a field of the object changes, unless the fields are bound to other object.
      *
      * @return a hash code value for this object
      *
      * @see java.lang.Object#hashCode()
      * @see java.lang.String#hashCode()
-     * @see java.lang.String#intern()
-     * @see SensibleObject#toString()
+     * @see SensibleObject#equals(Object)
+     * @see SensibleObject#setHashCodeCached(boolean)
      */
     public int hashCode() {
 
-        return toString().intern().hashCode();
+        int hash = cachedHashCode;
+
+        if (hash == 0) {
+            hash = 1;
+            for (int i = 0, n = fields.length; i < n; i++) {
+                hash = 31 * hash + fields[i].getValue().hashCode();
+            }
+
+            // bound fields do not notify this object, so their hash code is not kept
+            if (hashCodeCached && ownFields == null) {
+                cachedHashCode = hash;
+            }
+        }
+
+        return hash;
     }
 
     /**
@@ -556,17 +1019,125 @@ public abstract class SensibleObject
     }
 
     /**
-     * Property change event handler. It monitorizes changes in any of the object fields and checks
-     * whether the object is complete invoking the <code>checkDataComplete()</code> method.
+     * Returns whether the fields of this object are bound to the fields of the given object.
+     *
+     * @param source the object
+     *
+     * @return whether the fields are bound to the given object fields
+     *
+     * @see SensibleObject#bindFields(SensibleObject)
+     */
+    final boolean isBoundTo(SensibleObject source) {
+
+        return ownFields != null && fields == source.fields;
+    }
+
+    /**
+     * Returns the <code>hashCodeCached</code> property value.
+     *
+     * @return whether the hash code is cached until a field changes
+     *
+     * @see SensibleObject#hashCodeCached
+     * @see SensibleObject#setHashCodeCached(boolean)
+     */
+    public final boolean isHashCodeCached() {
+
+        return hashCodeCached;
+    }
+
+    /**
+     * Returns the indexes of the fields that are not valid, collecting them if they were not
+     * collected yet. While the fields are bound, they are the ones of the object whose fields are
+     * bound.
+     *
+     * @return the indexes of the fields that are not valid, not to be modified
+     */
+    private BitSet invalidFields() {
+
+        if (boundSource != null) {
+            return boundSource.invalidFields();
+        }
+
+        if (invalidFields == null) {
+            collectInvalidFields();
+        }
+
+        return invalidFields;
+    }
+
+    /**
+     * Property change event handler. It monitorizes changes in any of the object fields, computes
+     * the derived fields that depend on the field changed and checks whether the object is
+     * complete, unless an update of the object fields is open. The fields are not checked one by
+     * one, as the fields that are not valid are tracked with the events of their
+     * <code>valid</code> property, so the check takes constant time.
      * Derived classes can override this method to include additional field validations.
      *
      * @param event the event
      *
-     * @see SensibleObject#checkDataComplete()
+     * @see SensibleObject#getInvalidFields()
      */
     public void propertyChange(java.beans.PropertyChangeEvent event) {
 
-        checkDataComplete();
+        Object source = event.getSource();
+
+        if (source == this) {
+            return;
+        }
+
+        cachedHashCode = 0;
+
+        BitSet invalid = invalidFields();
+        String propertyName = event.getPropertyName();
+
+        if (JAVA_BEAN_PROPERTY_VALID.equals(propertyName)) {
+            // the field is looked for only when its validity changes, not on every keystroke
+            for (int i = 0, n = fields.length; i < n; i++) {
+                if (fields[i] == source) {
+                    invalid.set(i, !fields[i].isValid());
+                    break;
+                }
+            }
+        } else if (!deriving && (journal != null || formulas != null && schema != null)
+                   && JAVA_BEAN_PROPERTY_VALUE.equals(propertyName)) {
+            for (int i = 0, n = fields.length; i < n; i++) {
+                if (fields[i] == source) {
+                    if (journal != null && event.getOldValue() != null) {
+                        journal.fieldChanged(this, i,
+                            (String) event.getOldValue(), (String) event.getNewValue());
+                    }
+                    if (formulas != null && schema != null) {
+                        staleFields().or(schema.dependents(i));
+                    }
+                    break;
+                }
+            }
+
+            // inside an update the derived fields are computed when the update is committed
+            if (formulas != null && updatedFields == null) {
+                deriveFields();
+            }
+        }
+
+        // inside an update the check is done once, when the update is committed
+        if (updatedFields == null) {
+            setDataComplete(invalid.isEmpty());
+        }
+    }
+
+    /**
+     * Returns the derived fields whose inputs changed since they were computed, creating the
+     * set if it was not created yet.
+     *
+     * @return the derived fields whose inputs changed
+     */
+    private BitSet staleFields() {
+
+        if (staleFields == null) {
+            staleFields = new BitSet(fields.length);
+        }
+
+        return staleFields;
     }
 
     /**
@@ -581,6 +1152,39 @@ public abstract class SensibleObject
         }
     }
 
+    /**
+     * Restores the value of a field given by index, sharing the given string. The values not
+     * valid are kept as they are, as the text fields keep the values being typed. Inside an
+     * update the field is recorded if its value changed.
+     *
+     * @param index the field index
+     * @param newValue the new value
+     *
+     * @see SensibleObjectSnapshot#thaw(SensibleObject)
+     */
+    final void restoreField(int index, String newValue) {
+
+        SensibleDataType field = fields[index];
+
+        if (newValue.equals(field.getValue())) {
+            return;
+        }
+
+        if (newValue.length() == 0) {
+            field.clear();
+        } else {
+            try {
+                field.setValue(newValue);
+            } catch (IllegalArgumentException iae) {
+                field.changeValue(newValue);
+            }
+        }
+
+        if (updatedFields != null) {
+            updatedFields.set(index);
+        }
+    }
+
     /**
      * Returns a copy of this object.
      *
@@ -592,13 +1196,20 @@ public abstract class SensibleObject
 
         if (obj != null) {
 
+            // the copy listens its own fields, so the cached hash code is discarded on changes
+            obj.removeListeners();
             obj.fields = new SensibleDataType[fields.length];
-            obj.fieldNames = new String[fieldNames.length];
 
             for (int i = 0, n = fields.length; i < n; i++) {
                 obj.fields[i] = (SensibleDataType) fields[i].returnCopy();
-                obj.fieldNames[i] = fieldNames[i];
             }
+
+            // the field names are not copied but shared with this object
+            obj.fieldNames = getSchema().sharedFieldNames();
+            obj.schema = schema;
+            obj.hashCodeCached = hashCodeCached;
+            obj.cachedHashCode = 0;
+            obj.addListeners();
         }
 
         return obj;
@@ -606,18 +1217,16 @@ public abstract class SensibleObject
 
     /**
      * Returns a new object of this class or <code>null</code> if an exception is thrown while
-     * creating the new instance.
+     * creating the new instance. The instance is created by the factory registered for the class
+     * or by its no-argument constructor, resolved only once for each class.
      *
      * @return a new instance of this object class or <code>null</code> if the new instance could not be created
+     *
+     * @see SensibleInstanceFactory
      */
     public SensibleObject returnNew() {
 
-        try {
-            return getClass().getConstructor().newInstance();
-        } catch (InstantiationException | IllegalAccessException
-                 | InvocationTargetException | NoSuchMethodException e) {
-            return null;
-        }
+        return SensibleInstanceFactory.newInstance(getClass());
     }
 
     /**
@@ -657,6 +1266,11 @@ public abstract class SensibleObject
                     "DTYPE_ERR_FIELD_NOT_DEFINED", Integer.toString(index)), aobe); //$NON-NLS-1$
         }
 
+        if (updatedFields != null) {
+            updateField(index, field, newValue);
+            return;
+        }
+
         // a copy of the current field is created so the
         // type parameters conserve their values
         SensibleDataType oldField = field.returnCopy();
@@ -695,6 +1309,11 @@ public abstract class SensibleObject
                     "DTYPE_ERR_INVALID_OBJECT")); //$NON-NLS-1$
         }
 
+        if (updatedFields != null) {
+            updateField(index, field, newValue.getValue());
+            return;
+        }
+
         // a copy of the current field is created so the
         // type parameters conserve their values
         SensibleDataType oldField = field.returnCopy();
@@ -736,7 +1355,43 @@ public abstract class SensibleObject
     }
 
     /**
-     * Changes the value of all the fields and fires the property change events in the object.<br>
+     * Sets the <code>hashCodeCached</code> property value. When set, the hash code is computed
+     * once and kept until the object receives a property change event from any of its fields,
+     * which is useful for objects used as keys of hash based collections. Derived classes that
+     * override the <code>propertyChange()</code> method must invoke the super class method for
+     * the cached hash code to be discarded.
+     *
+     * @param hashCodeCached whether the hash code is cached until a field changes
+     *
+     * @see SensibleObject#hashCodeCached
+     * @see SensibleObject#hashCode()
+     */
+    public final void setHashCodeCached(boolean hashCodeCached) {
+
+        this.hashCodeCached = hashCodeCached;
+        this.cachedHashCode = 0;
+    }
+
+    /**
+     * Sets the <code>journal</code> property value. When set, the changes of the field values
+     * are recorded in the journal so they can be undone, except the derived fields, which are
+     * computed again when their inputs are undone. Derived classes that override the
+     * <code>propertyChange()</code> method must invoke the super class method for the changes to
+     * be recorded.
+     *
+     * @param newValue the property new value, or <code>null</code> to stop recording
+     *
+     * @see SensibleObject#journal
+     * @see SensibleObject#getJournal()
+     */
+    public final void setJournal(SensibleJournal newValue) {
+
+        this.journal = newValue;
+    }
+
+    /**
+     * Changes the value of all the fields and fires the property change events in the object.
+     * If an update is open the changes are notified when the update is committed.<br>
      *
      * An <code>IllegalArgumentException</code> exception is thrown if the given object
      * definition does not match this object definition.
@@ -796,9 +1451,101 @@ public abstract class SensibleObject
     }
 
     /**
-     * Property change support property.
+     * Applies the given changes to the object fields inside an update, so the changes are
+     * notified with a single event when they end, even if they throw an exception.
+     *
+     * @param changes the changes, which receive this object
+     *
+     * @see SensibleObject#beginUpdate()
+     * @see SensibleObject#commit()
      */
-    protected transient java.beans.PropertyChangeSupport propertyChangeSupport = new java.beans.PropertyChangeSupport(this);
+    public final void update(Consumer<? super SensibleObject> changes) {
+
+        beginUpdate();
+
+        try {
+            changes.accept(this);
+        } finally {
+            commit();
+        }
+    }
+
+    /**
+     * Changes the value of a field inside an update and records the field if its value changed.
+     *
+     * @param index the field index
+     * @param field the field
+     * @param newValue the new value
+     */
+    private void updateField(int index, SensibleDataType field, String newValue) {
+
+        String oldValue = field.getValue();
+
+        field.setValue(new String(newValue));
+
+        if (!oldValue.equals(field.getValue())) {
+            updatedFields.set(index);
+        }
+    }
+
+    /**
+     * Restores the fields of this object after they were bound to the fields of other object and
+     * checks again the <code>dataComplete</code> property. Nothing is done if the fields are not
+     * bound.
+     *
+     * @see SensibleObject#bindFields(SensibleObject)
+     */
+    final void unbindFields() {
+
+        if (ownFields != null) {
+            boundSource.removeListener(JAVA_BEAN_PROPERTY_DATA_COMPLETE, boundListener);
+            boundSource = null;
+            fields = ownFields;
+            ownFields = null;
+            cachedHashCode = 0;
+
+            checkDataComplete();
+        }
+    }
+
+    /**
+     * The listeners registry, or <code>null</code> if there are no listeners.
+     *
+     * @see SensibleListenerRegistry
+     */
+    private transient volatile SensibleListenerRegistry listeners;
+
+    /**
+     * The dispatcher where the property changes are posted, or <code>null</code> if they are
+     * notified when they happen.
+     *
+     * @see SensibleObject#getEventDispatcher()
+     * @see SensibleObject#setEventDispatcher(SensibleEventDispatcher)
+     */
+    private transient volatile SensibleEventDispatcher dispatcher;
+
+    /**
+     * Updater used to replace the listeners registry atomically.
+     */
+    private static final AtomicReferenceFieldUpdater<SensibleObject,
+                                                     SensibleListenerRegistry> LISTENERS =
+        AtomicReferenceFieldUpdater.newUpdater(
+            SensibleObject.class, SensibleListenerRegistry.class, "listeners"); //$NON-NLS-1$
+
+    /**
+     * Adds a listener of the changes in the given boolean property, like the
+     * <code>dataComplete</code> property, or in all the boolean properties if the property name
+     * is <code>null</code>. Unlike the property change listeners, the listener is not notified
+     * of the current object state when it is added.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the boolean properties
+     * @param listener the listener
+     */
+    public final void addBooleanPropertyListener(String propertyName,
+        BooleanPropertyListener listener) {
+
+        addListener(propertyName, listener);
+    }
 
     /**
      * Adds a property change listener.
@@ -808,9 +1555,7 @@ public abstract class SensibleObject
     public final void addPropertyChangeListener(
         java.beans.PropertyChangeListener listener) {
 
-        synchronized (propertyChangeSupport) {
-            getPropertyChange().addPropertyChangeListener(listener);
-        }
+        addListener(null, listener);
 
         // notify the listener the current object state
         // unless the method is invoked from the default constructor
@@ -828,8 +1573,8 @@ public abstract class SensibleObject
     public final void addPropertyChangeListener(String propertyName,
         java.beans.PropertyChangeListener listener) {
 
-        synchronized (propertyChangeSupport) {
-            getPropertyChange().addPropertyChangeListener(propertyName, listener);
+        if (propertyName != null) {
+            addListener(propertyName, listener);
         }
 
         // notify the listener the current object state
@@ -839,6 +1584,26 @@ public abstract class SensibleObject
         }
     }
 
+    /**
+     * Adds a listener to the registry.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the properties
+     * @param listener the listener
+     */
+    private void addListener(String propertyName, Object listener) {
+
+        if (listener == null) {
+            return;
+        }
+
+        SensibleListenerRegistry current;
+
+        do {
+            current = listeners;
+        } while (!LISTENERS.compareAndSet(this, current,
+            SensibleListenerRegistry.add(current, propertyName, listener)));
+    }
+
     /**
      * Fires a property change event.
      *
@@ -846,7 +1611,18 @@ public abstract class SensibleObject
      */
     public final void firePropertyChange(java.beans.PropertyChangeEvent event) {
 
-        getPropertyChange().firePropertyChange(event);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(event);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_OBJECT,
+                    event.getPropertyName(), event.getOldValue(), event.getNewValue());
+            }
+        }
     }
 
     /**
@@ -858,7 +1634,18 @@ public abstract class SensibleObject
      */
     public final void firePropertyChange(String propertyName, int oldValue, int newValue) {
 
-        getPropertyChange().firePropertyChange(propertyName, oldValue, newValue);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null && oldValue != newValue) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, oldValue, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_INT, propertyName,
+                    Integer.valueOf(oldValue), Integer.valueOf(newValue));
+            }
+        }
     }
 
     /**
@@ -870,7 +1657,55 @@ public abstract class SensibleObject
      */
     public final void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
 
-        getPropertyChange().firePropertyChange(propertyName, oldValue, newValue);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, oldValue, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_OBJECT, propertyName,
+                    oldValue, newValue);
+            }
+        }
+    }
+
+    /**
+     * Notifies a property change posted to the dispatcher to the listeners.
+     *
+     * @param kind the change kind
+     * @param propertyName the property name
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     *
+     * @see SensibleEventDispatcher#deliver()
+     */
+    final void dispatchPropertyChange(byte kind, String propertyName,
+                                      Object oldValue, Object newValue) {
+
+        SensibleListenerRegistry current = listeners;
+
+        if (current == null) {
+            return;
+        }
+
+        switch (kind) {
+            case SensibleEventDispatcher.KIND_BOOLEAN:
+                current.fire(this, propertyName, ((Boolean) newValue).booleanValue());
+                break;
+            case SensibleEventDispatcher.KIND_INT:
+                current.fire(this, propertyName,
+                    ((Integer) oldValue).intValue(), ((Integer) newValue).intValue());
+                break;
+            case SensibleEventDispatcher.KIND_LONG:
+                current.fire(this, propertyName,
+                    ((Long) oldValue).longValue(), ((Long) newValue).longValue());
+                break;
+            default:
+                current.fire(this, propertyName, oldValue, newValue);
+                break;
+        }
     }
 
     /**
@@ -882,17 +1717,30 @@ public abstract class SensibleObject
      */
     public final void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
 
-        getPropertyChange().firePropertyChange(propertyName, oldValue, newValue);
+        SensibleListenerRegistry current = listeners;
+
+        if (current != null && oldValue != newValue) {
+            SensibleEventDispatcher currentDispatcher = dispatcher;
+
+            if (currentDispatcher == null) {
+                current.fire(this, propertyName, newValue);
+            } else {
+                currentDispatcher.post(this, SensibleEventDispatcher.KIND_BOOLEAN, propertyName,
+                    Boolean.valueOf(oldValue), Boolean.valueOf(newValue));
+            }
+        }
     }
 
     /**
-     * Returns the <code>propertyChange</code> property value.
+     * Returns the <code>eventDispatcher</code> property value.
      *
      * @return the property value
+     *
+     * @see SensibleObject#setEventDispatcher(SensibleEventDispatcher)
      */
-    protected final java.beans.PropertyChangeSupport getPropertyChange() {
+    public final SensibleEventDispatcher getEventDispatcher() {
 
-        return propertyChangeSupport;
+        return dispatcher;
     }
 
     /**
@@ -904,9 +1752,38 @@ public abstract class SensibleObject
      */
     public final boolean hasListeners(String propertyName) {
 
-        synchronized (propertyChangeSupport) {
-            return getPropertyChange().hasListeners(propertyName);
-        }
+        SensibleListenerRegistry current = listeners;
+
+        return current != null && current.hasListeners(propertyName);
+    }
+
+    /**
+     * Removes a listener of the changes in the given boolean property, or in all the boolean
+     * properties if the property name is <code>null</code>.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the boolean properties
+     * @param listener the listener
+     */
+    public final void removeBooleanPropertyListener(String propertyName,
+        BooleanPropertyListener listener) {
+
+        removeListener(propertyName, listener);
+    }
+
+    /**
+     * Sets the <code>eventDispatcher</code> property value. When set, the property changes are
+     * posted to the dispatcher, which coalesces them and notifies them to the listeners in the
+     * event dispatch thread once per frame, instead of notifying them when they happen.
+     *
+     * @param newValue the property new value, or <code>null</code> to notify the changes when
+     *                 they happen
+     *
+     * @see SensibleObject#getEventDispatcher()
+     * @see SensibleEventDispatcher
+     */
+    public final void setEventDispatcher(SensibleEventDispatcher newValue) {
+
+        dispatcher = newValue;
     }
 
     /**
@@ -917,9 +1794,7 @@ public abstract class SensibleObject
     public final void removePropertyChangeListener(
         java.beans.PropertyChangeListener listener) {
 
-        synchronized (propertyChangeSupport) {
-            getPropertyChange().removePropertyChangeListener(listener);
-        }
+        removeListener(null, listener);
     }
 
     /**
@@ -931,8 +1806,25 @@ public abstract class SensibleObject
     public final void removePropertyChangeListener(String propertyName,
         java.beans.PropertyChangeListener listener) {
 
-        synchronized (propertyChangeSupport) {
-            getPropertyChange().removePropertyChangeListener(propertyName, listener);
+        if (propertyName != null) {
+            removeListener(propertyName, listener);
         }
     }
+
+    /**
+     * Removes a listener from the registry.
+     *
+     * @param propertyName the property name, or <code>null</code> for all the properties
+     * @param listener the listener
+     */
+    private void removeListener(String propertyName, Object listener) {
+
+        SensibleListenerRegistry current;
+        SensibleListenerRegistry updated;
+
+        do {
+            current = listeners;
+            updated = SensibleListenerRegistry.remove(current, propertyName, listener);
+        } while (updated != current && !LISTENERS.compareAndSet(this, current, updated));
+    }
 }
@@ -0,0 +1,885 @@
+package deors.core.sensible;
+
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary codec for the objects of a <code>SensibleObject</code> class.<br>
+ *
+ * The codec is driven by the schema of the class, so only the field values are written, without
+ * the class definition, the field parameters nor the property change support written by the
+ * Java serialization. Each record starts with a two bits tag for each field, telling whether the
+ * field is clear, it has a typed value or it has a string value, written literally or as a
+ * reference to an equal string written before. The tags are followed by the values:
+ *
+ * <ul>
+ * <li><code>SensibleInteger</code> and <code>SensibleLong</code> values are written as zigzag
+ * variable length integers, so small numbers take one byte.</li>
+ * <li><code>SensibleBoolean</code> values are written in a single byte.</li>
+ * <li><code>SensibleBigDecimal</code> values are written as the scale and the unscaled value,
+ * as a variable length integer if it fits in a <code>long</code> and as its bytes otherwise.</li>
+ * <li><code>SensibleDate</code>, <code>SensibleTime</code> and <code>SensibleDateTime</code>
+ * values are written with the date and time fields packed in variable length integers.</li>
+ * <li>The values of the rest of the fields are written as strings. Each different string is
+ * written once, as its length and its characters, and the strings repeated are written as a
+ * reference to the first one, up to <code>MAX_DICTIONARY_SIZE</code> different strings.</li>
+ * </ul>
+ *
+ * The values of numeric, date and time fields are only written typed if setting the number,
+ * date or time again gives the same data value, so an incomplete date or a number typed with a
+ * different format is written as a string and the records read are always equal to the records
+ * written.<br>
+ *
+ * The records are written by an <code>Encoder</code> and read by a <code>Decoder</code>, on a
+ * <code>ByteBuffer</code> or a stream. As the strings repeated are written as references, the
+ * records must be read by a single decoder in the same order they were written by a single
+ * encoder. The values are written directly from the fields and the characters of the strings
+ * are encoded one by one, without intermediate strings nor byte arrays.<br>
+ *
+ * @param <R> a SensibleObject type whose objects are encoded
+ *
+ * @author deors
+ * @version 1.0
+ */
+public final class SensibleObjectCodec<R extends SensibleObject> {
+
+    /**
+     * The maximum number of different strings kept by the encoders and decoders to write the
+     * strings repeated as references.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    /**
+     * The size of the buffers used with streams.
+     */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    /**
+     * Tag of a clear field.
+     */
+    private static final int TAG_CLEAR = 0;
+
+    /**
+     * Tag of a field with a typed value.
+     */
+    private static final int TAG_TYPED = 1;
+
+    /**
+     * Tag of a field with a string value written literally.
+     */
+    private static final int TAG_STRING = 2;
+
+    /**
+     * Tag of a field with a string value written as a reference to a string written before.
+     */
+    private static final int TAG_REFERENCE = 3;
+
+    /**
+     * Kind of the fields written as strings.
+     */
+    private static final int KIND_STRING = 0;
+
+    /**
+     * Kind of the <code>SensibleInteger</code> fields.
+     */
+    private static final int KIND_INTEGER = 1;
+
+    /**
+     * Kind of the <code>SensibleLong</code> fields.
+     */
+    private static final int KIND_LONG = 2;
+
+    /**
+     * Kind of the <code>SensibleBoolean</code> fields.
+     */
+    private static final int KIND_BOOLEAN = 3;
+
+    /**
+     * Kind of the <code>SensibleBigDecimal</code> fields.
+     */
+    private static final int KIND_BIG_DECIMAL = 4;
+
+    /**
+     * Kind of the <code>SensibleDate</code> fields.
+     */
+    private static final int KIND_DATE = 5;
+
+    /**
+     * Kind of the <code>SensibleTime</code> fields.
+     */
+    private static final int KIND_TIME = 6;
+
+    /**
+     * Kind of the <code>SensibleDateTime</code> fields.
+     */
+    private static final int KIND_DATE_TIME = 7;
+
+    /**
+     * The object used to create the objects read.
+     */
+    private final R prototype;
+
+    /**
+     * The kind of each field.
+     */
+    private final int[] kinds;
+
+    /**
+     * Constructor that sets the object used as prototype. The objects read are new objects of
+     * the prototype class.
+     *
+     * @param prototype an object of the class encoded
+     */
+    public SensibleObjectCodec(R prototype) {
+
+        super();
+
+        this.prototype = prototype;
+
+        SensibleObjectSchema schema = prototype.getSchema();
+
+        kinds = new int[schema.getFieldCount()];
+
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindOf(schema.getFieldType(i));
+        }
+    }
+
+    /**
+     * Returns the kind of the fields of the given type.
+     *
+     * @param type the field type
+     *
+     * @return the field kind
+     */
+    private static int kindOf(Class<?> type) {
+
+        int kind;
+
+        if (SensibleInteger.class.isAssignableFrom(type)) {
+            kind = KIND_INTEGER;
+        } else if (SensibleLong.class.isAssignableFrom(type)) {
+            kind = KIND_LONG;
+        } else if (SensibleBoolean.class.isAssignableFrom(type)) {
+            kind = KIND_BOOLEAN;
+        } else if (SensibleBigDecimal.class.isAssignableFrom(type)) {
+            kind = KIND_BIG_DECIMAL;
+        } else if (SensibleDate.class.isAssignableFrom(type)) {
+            kind = KIND_DATE;
+        } else if (SensibleTime.class.isAssignableFrom(type)) {
+            kind = KIND_TIME;
+        } else if (SensibleDateTime.class.isAssignableFrom(type)) {
+            kind = KIND_DATE_TIME;
+        } else {
+            kind = KIND_STRING;
+        }
+
+        return kind;
+    }
+
+    /**
+     * Returns whether the value of a field can be written typed.
+     *
+     * @param kind the field kind
+     * @param field the field
+     *
+     * @return whether setting the typed value gives the same data value
+     */
+    private static boolean isTyped(int kind, SensibleDataType field) {
+
+        String value = field.getValue();
+
+        switch (kind) {
+            case KIND_INTEGER:
+            case KIND_LONG:
+                // the values out of range and the single minus sign are kept as typed
+                return field.isValid() && !(value.length() == 1 && value.charAt(0) == '-');
+            case KIND_BOOLEAN:
+                return true;
+            case KIND_BIG_DECIMAL:
+                return ((SensibleBigDecimal) field).isFormatted();
+            case KIND_DATE:
+                return ((SensibleDate) field).isFormatted();
+            case KIND_TIME:
+                return ((SensibleTime) field).isFormatted();
+            case KIND_DATE_TIME:
+                return ((SensibleDateTime) field).isFormatted();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Packs a date in a number.
+     *
+     * @param year the year
+     * @param month the month
+     * @param day the day
+     *
+     * @return the date packed
+     */
+    private static long packDate(int year, int month, int day) {
+
+        return (zigzag(year) << 9) | (month << 5) | day;
+    }
+
+    /**
+     * Packs a time in a number.
+     *
+     * @param hour the hour
+     * @param minute the minute
+     * @param second the second
+     *
+     * @return the time packed
+     */
+    private static long packTime(int hour, int minute, int second) {
+
+        return (hour << 12) | (minute << 6) | second;
+    }
+
+    /**
+     * Returns the zigzag encoding of a number, which maps the numbers with a small absolute
+     * value to small positive numbers.
+     *
+     * @param number the number
+     *
+     * @return the number encoded
+     */
+    private static long zigzag(long number) {
+
+        return (number << 1) ^ (number >> 63);
+    }
+
+    /**
+     * Returns the number given by its zigzag encoding.
+     *
+     * @param encoded the number encoded
+     *
+     * @return the number
+     */
+    private static long unzigzag(long encoded) {
+
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Returns a new encoder that writes the records in the given buffer. A
+     * <code>BufferOverflowException</code> exception is thrown if a record does not fit in the
+     * buffer.
+     *
+     * @param buffer the buffer
+     *
+     * @return the encoder
+     */
+    public Encoder encoder(ByteBuffer buffer) {
+
+        return new Encoder(buffer, null);
+    }
+
+    /**
+     * Returns a new encoder that writes the records in the given stream. The records are kept in
+     * a buffer until it is full or the encoder is flushed.
+     *
+     * @param out the stream
+     *
+     * @return the encoder
+     */
+    public Encoder encoder(OutputStream out) {
+
+        return new Encoder(ByteBuffer.allocate(STREAM_BUFFER_SIZE), out);
+    }
+
+    /**
+     * Returns a new decoder that reads the records from the given buffer. A
+     * <code>BufferUnderflowException</code> exception is thrown if a record is not complete in
+     * the buffer.
+     *
+     * @param buffer the buffer
+     *
+     * @return the decoder
+     */
+    public Decoder decoder(ByteBuffer buffer) {
+
+        return new Decoder(buffer, null);
+    }
+
+    /**
+     * Returns a new decoder that reads the records from the given stream.
+     *
+     * @param in the stream
+     *
+     * @return the decoder
+     */
+    public Decoder decoder(InputStream in) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        buffer.flip();
+
+        return new Decoder(buffer, in);
+    }
+
+    /**
+     * Writer of records.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    public final class Encoder
+        implements Flushable {
+
+        /**
+         * The buffer where the records are written.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The stream where the buffer is drained, or <code>null</code> if the records are written
+         * only in the buffer.
+         */
+        private final OutputStream out;
+
+        /**
+         * The index of each different string written.
+         */
+        private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+        /**
+         * The tag of each field in the record being written.
+         */
+        private final int[] tags = new int[kinds.length];
+
+        /**
+         * The string index of each field written as a reference in the record being written.
+         */
+        private final int[] references = new int[kinds.length];
+
+        /**
+         * Constructor that sets the buffer and the stream.
+         *
+         * @param buffer the buffer
+         * @param out the stream or <code>null</code>
+         */
+        Encoder(ByteBuffer buffer, OutputStream out) {
+
+            super();
+
+            this.buffer = buffer;
+            this.out = out;
+        }
+
+        /**
+         * Writes the buffer in the stream.
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        public void flush() throws IOException {
+
+            if (out != null) {
+                buffer.flip();
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+                buffer.clear();
+                out.flush();
+            }
+        }
+
+        /**
+         * Ensures that the given number of bytes can be written in the buffer, writing the buffer
+         * in the stream if needed.
+         *
+         * @param size the number of bytes, not greater than the buffer capacity
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        private void ensure(int size) throws IOException {
+
+            if (out != null && buffer.remaining() < size) {
+                buffer.flip();
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+                buffer.clear();
+            }
+        }
+
+        /**
+         * Writes a record.
+         *
+         * @param record the record
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        public void write(R record) throws IOException {
+
+            int n = kinds.length;
+
+            if (record.getFieldCount() != n) {
+                throw new IllegalArgumentException(
+                    SensibleContext.getMessage(
+                        "DTYPE_ERR_INVALID_OBJECT")); //$NON-NLS-1$
+            }
+
+            // the tags are found first, adding the new strings to the dictionary in field order
+            // as the decoder does while reading them
+            for (int i = 0; i < n; i++) {
+                SensibleDataType field = record.getField(i);
+                String value = field.getValue();
+
+                if (value.isEmpty()) {
+                    tags[i] = TAG_CLEAR;
+                } else if (isTyped(kinds[i], field)) {
+                    tags[i] = TAG_TYPED;
+                } else {
+                    Integer reference = dictionary.get(value);
+
+                    if (reference != null) {
+                        tags[i] = TAG_REFERENCE;
+                        references[i] = reference;
+                    } else {
+                        tags[i] = TAG_STRING;
+
+                        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                            dictionary.put(value, dictionary.size());
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0; i < n; i += 4) {
+                int packed = 0;
+
+                for (int j = i, shift = 0; j < n && j < i + 4; j++, shift += 2) {
+                    packed |= tags[j] << shift;
+                }
+
+                ensure(1);
+                buffer.put((byte) packed);
+            }
+
+            for (int i = 0; i < n; i++) {
+                if (tags[i] == TAG_TYPED) {
+                    writeTyped(kinds[i], record.getField(i));
+                } else if (tags[i] == TAG_STRING) {
+                    writeString(record.getField(i).getValue());
+                } else if (tags[i] == TAG_REFERENCE) {
+                    writeVarLong(references[i]);
+                }
+            }
+        }
+
+        /**
+         * Writes the typed value of a field.
+         *
+         * @param kind the field kind
+         * @param field the field
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        private void writeTyped(int kind, SensibleDataType field) throws IOException {
+
+            switch (kind) {
+                case KIND_INTEGER:
+                    writeVarLong(zigzag(((SensibleInteger) field).getNumber()));
+                    break;
+                case KIND_LONG:
+                    writeVarLong(zigzag(((SensibleLong) field).getNumber()));
+                    break;
+                case KIND_BOOLEAN:
+                    ensure(1);
+                    buffer.put((byte) (((SensibleBoolean) field).booleanValue() ? 1 : 0));
+                    break;
+                case KIND_BIG_DECIMAL:
+                    writeBigDecimal(((SensibleBigDecimal) field).getNumber());
+                    break;
+                case KIND_DATE:
+                    SensibleDate date = (SensibleDate) field;
+                    writeVarLong(packDate(date.getYear(), date.getMonth(), date.getDay()));
+                    break;
+                case KIND_TIME:
+                    SensibleTime time = (SensibleTime) field;
+                    writeVarLong(packTime(time.getHour(), time.getMinute(), time.getSecond()));
+                    break;
+                default:
+                    SensibleDateTime dateTime = (SensibleDateTime) field;
+                    writeVarLong(packDate(
+                        dateTime.getYear(), dateTime.getMonth(), dateTime.getDay()));
+                    writeVarLong(packTime(
+                        dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond()));
+                    break;
+            }
+        }
+
+        /**
+         * Writes a number as its scale and its unscaled value.
+         *
+         * @param number the number
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        private void writeBigDecimal(BigDecimal number) throws IOException {
+
+            BigInteger unscaled = number.unscaledValue();
+            boolean fitsInLong = unscaled.bitLength() < Long.SIZE;
+
+            writeVarLong(zigzag(number.scale()) << 1 | (fitsInLong ? 0 : 1));
+
+            if (fitsInLong) {
+                writeVarLong(zigzag(unscaled.longValue()));
+            } else {
+                byte[] bytes = unscaled.toByteArray();
+
+                writeVarLong(bytes.length);
+
+                for (byte b : bytes) {
+                    ensure(1);
+                    buffer.put(b);
+                }
+            }
+        }
+
+        /**
+         * Writes a string as its length and its characters.
+         *
+         * @param value the string
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        private void writeString(String value) throws IOException {
+
+            int length = value.length();
+
+            writeVarLong(length);
+
+            for (int i = 0; i < length; i++) {
+                writeVarLong(value.charAt(i));
+            }
+        }
+
+        /**
+         * Writes a positive number in groups of seven bits, with the highest bit of each byte
+         * set if more groups follow.
+         *
+         * @param number the number
+         *
+         * @throws IOException an I/O exception writing the stream
+         */
+        private void writeVarLong(long number) throws IOException {
+
+            ensure(10);
+
+            long remaining = number;
+
+            while ((remaining & ~0x7FL) != 0) {
+                buffer.put((byte) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+
+            buffer.put((byte) remaining);
+        }
+    }
+
+    /**
+     * Reader of records.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    public final class Decoder {
+
+        /**
+         * The buffer where the records are read.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The stream that fills the buffer, or <code>null</code> if the records are read only
+         * from the buffer.
+         */
+        private final InputStream in;
+
+        /**
+         * The different strings read.
+         */
+        private final List<String> dictionary = new ArrayList<String>();
+
+        /**
+         * The tag of each field in the record being read.
+         */
+        private final int[] tags = new int[kinds.length];
+
+        /**
+         * The characters of the string being read.
+         */
+        private char[] chars = new char[64];
+
+        /**
+         * Constructor that sets the buffer and the stream.
+         *
+         * @param buffer the buffer, ready to be read
+         * @param in the stream or <code>null</code>
+         */
+        Decoder(ByteBuffer buffer, InputStream in) {
+
+            super();
+
+            this.buffer = buffer;
+            this.in = in;
+        }
+
+        /**
+         * Returns whether there are more records to read.
+         *
+         * @return whether there are more records
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        public boolean hasNext() throws IOException {
+
+            return buffer.hasRemaining() || in != null && fill(1);
+        }
+
+        /**
+         * Reads the stream until the given number of bytes are available in the buffer or the
+         * stream ends.
+         *
+         * @param size the number of bytes, not greater than the buffer capacity
+         *
+         * @return whether the bytes are available
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        private boolean fill(int size) throws IOException {
+
+            buffer.compact();
+
+            try {
+                while (buffer.position() < size) {
+                    int read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining());
+
+                    if (read == -1) {
+                        return false;
+                    }
+
+                    buffer.position(buffer.position() + read);
+                }
+            } finally {
+                buffer.flip();
+            }
+
+            return true;
+        }
+
+        /**
+         * Reads a byte.
+         *
+         * @return the byte
+         *
+         * @throws IOException an I/O exception reading the stream or the stream ends
+         */
+        private int readByte() throws IOException {
+
+            if (!buffer.hasRemaining() && in != null && !fill(1)) {
+                throw new EOFException();
+            }
+
+            return buffer.get();
+        }
+
+        /**
+         * Reads a new record. An <code>EOFException</code> exception is thrown if there are no
+         * more records in the stream.
+         *
+         * @return the record
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        @SuppressWarnings("unchecked")
+        public R read() throws IOException {
+
+            R record = (R) prototype.returnNew();
+
+            read(record);
+
+            return record;
+        }
+
+        /**
+         * Reads a record in the given object. The fields are changed inside an update of the
+         * object. An <code>EOFException</code> exception is thrown if there are no more records
+         * in the stream.
+         *
+         * @param record the object where the record is read
+         *
+         * @throws IOException an I/O exception reading the stream
+         *
+         * @see SensibleObject#beginUpdate()
+         */
+        public void read(R record) throws IOException {
+
+            int n = kinds.length;
+
+            for (int i = 0; i < n; i += 4) {
+                int packed = readByte();
+
+                for (int j = i, shift = 0; j < n && j < i + 4; j++, shift += 2) {
+                    tags[j] = (packed >>> shift) & 3;
+                }
+            }
+
+            record.beginUpdate();
+
+            try {
+                for (int i = 0; i < n; i++) {
+                    SensibleDataType field = record.getField(i);
+
+                    switch (tags[i]) {
+                        case TAG_CLEAR:
+                            field.clear();
+                            break;
+                        case TAG_TYPED:
+                            readTyped(kinds[i], field);
+                            break;
+                        case TAG_STRING:
+                            String value = readString();
+
+                            if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                                dictionary.add(value);
+                            }
+
+                            // the value is set as typed, so the values not valid are kept
+                            field.changeValue(value);
+                            break;
+                        default:
+                            field.changeValue(dictionary.get((int) readVarLong()));
+                            break;
+                    }
+                }
+            } finally {
+                record.commit();
+            }
+        }
+
+        /**
+         * Reads the typed value of a field.
+         *
+         * @param kind the field kind
+         * @param field the field
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        private void readTyped(int kind, SensibleDataType field) throws IOException {
+
+            switch (kind) {
+                case KIND_INTEGER:
+                    ((SensibleInteger) field).setNumber((int) unzigzag(readVarLong()));
+                    break;
+                case KIND_LONG:
+                    ((SensibleLong) field).setNumber(unzigzag(readVarLong()));
+                    break;
+                case KIND_BOOLEAN:
+                    ((SensibleBoolean) field).setFlag(readByte() != 0);
+                    break;
+                case KIND_BIG_DECIMAL:
+                    ((SensibleBigDecimal) field).setNumber(readBigDecimal());
+                    break;
+                case KIND_DATE:
+                    long date = readVarLong();
+                    ((SensibleDate) field).setDate(
+                        (int) unzigzag(date >>> 9), (int) (date >>> 5) & 0xF, (int) date & 0x1F);
+                    break;
+                case KIND_TIME:
+                    long time = readVarLong();
+                    ((SensibleTime) field).setTime(
+                        (int) (time >>> 12), (int) (time >>> 6) & 0x3F, (int) time & 0x3F);
+                    break;
+                default:
+                    long datePart = readVarLong();
+                    long timePart = readVarLong();
+                    ((SensibleDateTime) field).setDateTime(
+                        (int) unzigzag(datePart >>> 9), (int) (datePart >>> 5) & 0xF,
+                        (int) datePart & 0x1F, (int) (timePart >>> 12),
+                        (int) (timePart >>> 6) & 0x3F, (int) timePart & 0x3F);
+                    break;
+            }
+        }
+
+        /**
+         * Reads a number written as its scale and its unscaled value.
+         *
+         * @return the number
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        private BigDecimal readBigDecimal() throws IOException {
+
+            long header = readVarLong();
+            int scale = (int) unzigzag(header >>> 1);
+
+            if ((header & 1) == 0) {
+                return BigDecimal.valueOf(unzigzag(readVarLong()), scale);
+            }
+
+            byte[] bytes = new byte[(int) readVarLong()];
+
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) readByte();
+            }
+
+            return new BigDecimal(new BigInteger(bytes), scale);
+        }
+
+        /**
+         * Reads a string written as its length and its characters.
+         *
+         * @return the string
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        private String readString() throws IOException {
+
+            int length = (int) readVarLong();
+
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) readVarLong();
+            }
+
+            return new String(chars, 0, length);
+        }
+
+        /**
+         * Reads a positive number written in groups of seven bits.
+         *
+         * @return the number
+         *
+         * @throws IOException an I/O exception reading the stream
+         */
+        private long readVarLong() throws IOException {
+
+            long number = 0;
+
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+
+                number |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return number;
+                }
+            }
+        }
+    }
+}
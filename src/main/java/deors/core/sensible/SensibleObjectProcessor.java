@@ -0,0 +1,749 @@
+package deors.core.sensible;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that generates the <code>SensibleObject</code> classes defined by the
+ * record declarations annotated with <code>SensibleRecord</code>.<br>
+ *
+ * The class generated has the code that is written by hand in other <code>SensibleObject</code>
+ * classes, so its objects are created, accessed and compared without reflection nor field lookups
+ * by name:
+ *
+ * <ul>
+ * <li>A constant with the index of each field, used by the accessors.</li>
+ * <li>The default constructor, which creates the fields with the parameters given in the
+ * <code>SensibleField</code> annotations and sets the field definition arrays. The field names
+ * array is a constant shared by all the objects.</li>
+ * <li>A typed getter and setter for each field.</li>
+ * <li>The <code>returnNew()</code> method, invoking the constructor.</li>
+ * <li>The <code>compareKeys()</code> method and the <code>KEY_ORDER</code> comparator, which
+ * compare the key fields one by one with the typed comparison of their data type.</li>
+ * <li>The <code>codec()</code> method, which returns the binary codec of the class.</li>
+ * </ul>
+ *
+ * The processor is registered as a service, so it runs when the library is in the annotation
+ * processor path of the compiler.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleRecord
+ * @see SensibleField
+ * @see SensibleObjectCodec
+ */
+@SupportedAnnotationTypes("deors.core.sensible.SensibleRecord")
+public final class SensibleObjectProcessor
+    extends AbstractProcessor {
+
+    /**
+     * The qualified name of the field annotation.
+     */
+    private static final String FIELD_ANNOTATION = SensibleField.class.getName();
+
+    /**
+     * The data type of the fields defined by each component type.
+     */
+    private static final Map<String, String> DATA_TYPES = new HashMap<String, String>();
+
+    /**
+     * The parameters of each data type, besides the name, key and required parameters that apply
+     * to every data type.
+     */
+    private static final Map<String, Set<String>> PARAMETERS = new HashMap<String, Set<String>>();
+
+    /**
+     * The names of the constants generated besides the field indexes.
+     */
+    private static final Set<String> CONSTANTS =
+        Set.of("KEY_ORDER", "FIELD_NAMES"); //$NON-NLS-1$ //$NON-NLS-2$
+
+    /**
+     * The names of the fields of the <code>SensibleObject</code> class used by the constructor
+     * generated, which cannot be used as component names.
+     */
+    private static final Set<String> FIELDS = Set.of("fields", "fieldNames"); //$NON-NLS-1$ //$NON-NLS-2$
+
+    static {
+        addDataType("SensibleInteger", "int", "java.lang.Integer"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        addDataType("SensibleLong", "long", "java.lang.Long"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        addDataType("SensibleBoolean", "boolean", "java.lang.Boolean"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        addDataType("SensibleString", "java.lang.String"); //$NON-NLS-1$ //$NON-NLS-2$
+        addDataType("SensibleBigDecimal", "java.math.BigDecimal"); //$NON-NLS-1$ //$NON-NLS-2$
+        addDataType("SensibleDate", "java.time.LocalDate"); //$NON-NLS-1$ //$NON-NLS-2$
+        addDataType("SensibleTime", "java.time.LocalTime"); //$NON-NLS-1$ //$NON-NLS-2$
+        addDataType("SensibleDateTime", "java.time.LocalDateTime"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        PARAMETERS.put("SensibleInteger", Set.of("minValue", "maxValue")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        PARAMETERS.put("SensibleLong", Set.of("minValue", "maxValue")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        PARAMETERS.put("SensibleBoolean", Set.of()); //$NON-NLS-1$
+        PARAMETERS.put("SensibleString", Set.of("maxLength", "casingMode")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        PARAMETERS.put("SensibleBigDecimal", Set.of("maxIntegerDigits", //$NON-NLS-1$ //$NON-NLS-2$
+            "maxFractionalDigits", "negativeValuesAllowed")); //$NON-NLS-1$ //$NON-NLS-2$
+        PARAMETERS.put("SensibleDate", Set.of()); //$NON-NLS-1$
+        PARAMETERS.put("SensibleTime", Set.of("timeWithSeconds")); //$NON-NLS-1$ //$NON-NLS-2$
+        PARAMETERS.put("SensibleDateTime", Set.of("timeWithSeconds", "timeOptional")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * Default constructor.
+     */
+    public SensibleObjectProcessor() {
+
+        super();
+    }
+
+    /**
+     * Maps the data type and the given component types to the data type.
+     *
+     * @param dataType the simple name of the data type
+     * @param componentTypes the qualified names of the component types
+     */
+    private static void addDataType(String dataType, String... componentTypes) {
+
+        DATA_TYPES.put("deors.core.sensible." + dataType, dataType); //$NON-NLS-1$
+
+        for (String componentType : componentTypes) {
+            DATA_TYPES.put(componentType, dataType);
+        }
+    }
+
+    /**
+     * Returns the latest source version supported by the compiler, as the records processed do not
+     * depend on the source version.
+     *
+     * @return the latest source version supported
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the classes of the records annotated in this round.
+     *
+     * @param annotations the annotations processed
+     * @param roundEnv the round environment
+     *
+     * @return <code>true</code>, as the annotations are not processed by other processors
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(SensibleRecord.class)) {
+            if (element.getKind() == ElementKind.RECORD) {
+                generate((TypeElement) element);
+            } else {
+                error(SensibleContext.getMessage("PROC_ERR_NOT_RECORD"), element); //$NON-NLS-1$
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reports an error in the given element.
+     *
+     * @param message the message
+     * @param element the element
+     */
+    private void error(String message, Element element) {
+
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Generates the class of a record.
+     *
+     * @param type the record
+     */
+    private void generate(TypeElement type) {
+
+        Elements elements = processingEnv.getElementUtils();
+
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String className = type.getAnnotation(SensibleRecord.class).className();
+
+        if (className.isEmpty()) {
+            className = type.getSimpleName() + "Object"; //$NON-NLS-1$
+        }
+
+        Set<String> reserved = reservedNames(elements);
+
+        List<Field> fields = new ArrayList<Field>();
+        boolean valid = true;
+
+        for (RecordComponentElement component : type.getRecordComponents()) {
+            Field field = readField(component, reserved);
+
+            if (field == null) {
+                valid = false;
+            } else {
+                fields.add(field);
+            }
+        }
+
+        if (!valid) {
+            return;
+        }
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + '.' + className;
+
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(new Source(packageName, className, type, fields).toString());
+        } catch (IOException ioe) {
+            error(SensibleContext.getMessage(
+                "PROC_ERR_WRITE", qualifiedName, ioe.getMessage()), type); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the names of the getters and setters that cannot be generated because they are
+     * methods of the <code>SensibleObject</code> class.
+     *
+     * @param elements the element utilities
+     *
+     * @return the names reserved
+     */
+    private static Set<String> reservedNames(Elements elements) {
+
+        Set<String> reserved = new HashSet<String>();
+
+        TypeElement base = elements.getTypeElement(SensibleObject.class.getName());
+
+        for (Element member : elements.getAllMembers(base)) {
+            if (member.getKind() == ElementKind.METHOD) {
+                reserved.add(member.getSimpleName().toString());
+            }
+        }
+
+        return reserved;
+    }
+
+    /**
+     * Reads the field defined by a record component, reporting an error if it is not valid.
+     *
+     * @param component the record component
+     * @param reserved the names reserved
+     *
+     * @return the field or <code>null</code> if it is not valid
+     */
+    private Field readField(RecordComponentElement component, Set<String> reserved) {
+
+        String name = component.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String constant = constantOf(name);
+
+        if (FIELDS.contains(name) || reserved.contains("get" + capitalized) //$NON-NLS-1$
+            || reserved.contains("set" + capitalized) || CONSTANTS.contains(constant)) { //$NON-NLS-1$
+            error(SensibleContext.getMessage("PROC_ERR_RESERVED_NAME", name), component); //$NON-NLS-1$
+            return null;
+        }
+
+        String dataType = dataTypeOf(component.asType());
+
+        if (dataType == null) {
+            error(SensibleContext.getMessage(
+                "PROC_ERR_UNSUPPORTED_TYPE", component.asType().toString(), name), //$NON-NLS-1$
+                component);
+            return null;
+        }
+
+        Field field = new Field(name, capitalized, constant, dataType);
+
+        Map<String, Object> parameters = parametersOf(component);
+        Set<String> applicable = PARAMETERS.get(dataType);
+
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            String parameterName = parameter.getKey();
+            Object value = parameter.getValue();
+
+            switch (parameterName) {
+                case "name": //$NON-NLS-1$
+                    field.fieldName = (String) value;
+                    break;
+                case "key": //$NON-NLS-1$
+                    field.key = (Boolean) value;
+                    field.settings.add(setting(name, "setKey", value)); //$NON-NLS-1$
+                    break;
+                case "required": //$NON-NLS-1$
+                    field.settings.add(setting(name, "setRequired", value)); //$NON-NLS-1$
+                    break;
+                default:
+                    if (!applicable.contains(parameterName)) {
+                        error(SensibleContext.getMessage(
+                            "PROC_ERR_INVALID_PARAMETER", parameterName, name), //$NON-NLS-1$
+                            component);
+                        return null;
+                    }
+
+                    if (!"minValue".equals(parameterName) //$NON-NLS-1$
+                        && !"maxValue".equals(parameterName)) { //$NON-NLS-1$
+                        field.settings.add(setting(name,
+                            "set" + Character.toUpperCase(parameterName.charAt(0)) //$NON-NLS-1$
+                            + parameterName.substring(1), value));
+                    }
+                    break;
+            }
+        }
+
+        // the range is set by the constructor, as the limits are checked against each other
+        if (parameters.containsKey("minValue") || parameters.containsKey("maxValue")) { //$NON-NLS-1$ //$NON-NLS-2$
+            boolean isInteger = "SensibleInteger".equals(dataType); //$NON-NLS-1$
+            long min = rangeLimit(parameters, "minValue", //$NON-NLS-1$
+                isInteger ? Integer.MIN_VALUE : Long.MIN_VALUE);
+            long max = rangeLimit(parameters, "maxValue", //$NON-NLS-1$
+                isInteger ? Integer.MAX_VALUE : Long.MAX_VALUE);
+
+            if (isInteger && (min != (int) min || max != (int) max) || min > max) {
+                error(SensibleContext.getMessage("PROC_ERR_INVALID_RANGE", name), component); //$NON-NLS-1$
+                return null;
+            }
+
+            field.arguments = isInteger
+                ? min + ", " + max //$NON-NLS-1$
+                : min + "L, " + max + 'L'; //$NON-NLS-1$
+        }
+
+        return field;
+    }
+
+    /**
+     * Returns the data type of the fields defined by a component type.
+     *
+     * @param type the component type
+     *
+     * @return the simple name of the data type or <code>null</code> if the type has no data type
+     */
+    private static String dataTypeOf(TypeMirror type) {
+
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            return DATA_TYPES.get(element.getQualifiedName().toString());
+        }
+
+        return DATA_TYPES.get(type.toString());
+    }
+
+    /**
+     * Returns the parameters given in the field annotation of a record component.
+     *
+     * @param component the record component
+     *
+     * @return the values of the parameters given, by name in the order they are given
+     */
+    private static Map<String, Object> parametersOf(RecordComponentElement component) {
+
+        Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+
+        for (AnnotationMirror annotation : component.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+
+            if (annotationType.getQualifiedName().contentEquals(FIELD_ANNOTATION)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                    : annotation.getElementValues().entrySet()) {
+                    parameters.put(value.getKey().getSimpleName().toString(),
+                        value.getValue().getValue());
+                }
+            }
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Returns a range limit given in the parameters.
+     *
+     * @param parameters the parameters
+     * @param name the parameter name
+     * @param defaultValue the value if the parameter is not given
+     *
+     * @return the range limit
+     */
+    private static long rangeLimit(Map<String, Object> parameters, String name,
+                                   long defaultValue) {
+
+        Object value = parameters.get(name);
+
+        return value == null ? defaultValue : ((Number) value).longValue();
+    }
+
+    /**
+     * Returns the statement that sets a parameter of a field.
+     *
+     * @param variable the field variable
+     * @param setter the setter name
+     * @param value the parameter value
+     *
+     * @return the statement
+     */
+    private String setting(String variable, String setter, Object value) {
+
+        return variable + '.' + setter + '('
+            + processingEnv.getElementUtils().getConstantExpression(value) + ");"; //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the name of the constant with the index of a field, the component name in upper case
+     * with the words separated by underscores.
+     *
+     * @param name the component name
+     *
+     * @return the constant name
+     */
+    private static String constantOf(String name) {
+
+        StringBuilder constant = new StringBuilder();
+
+        for (int i = 0, n = name.length(); i < n; i++) {
+            char c = name.charAt(i);
+
+            if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+
+            constant.append(c);
+        }
+
+        return constant.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * A field defined by a record component.
+     */
+    private static final class Field {
+
+        /**
+         * The component name, used as variable name.
+         */
+        final String name;
+
+        /**
+         * The component name capitalized, used in the accessor names.
+         */
+        final String capitalized;
+
+        /**
+         * The name of the constant with the field index.
+         */
+        final String constant;
+
+        /**
+         * The simple name of the data type.
+         */
+        final String dataType;
+
+        /**
+         * The field name.
+         */
+        String fieldName;
+
+        /**
+         * Whether the field is a key field.
+         */
+        boolean key;
+
+        /**
+         * The arguments of the data type constructor.
+         */
+        String arguments = ""; //$NON-NLS-1$
+
+        /**
+         * The statements that set the field parameters.
+         */
+        final List<String> settings = new ArrayList<String>();
+
+        /**
+         * Constructor that sets the field names and the data type.
+         *
+         * @param name the component name
+         * @param capitalized the component name capitalized
+         * @param constant the constant name
+         * @param dataType the data type
+         */
+        Field(String name, String capitalized, String constant, String dataType) {
+
+            this.name = name;
+            this.capitalized = capitalized;
+            this.constant = constant;
+            this.dataType = dataType;
+            this.fieldName = name;
+        }
+    }
+
+    /**
+     * The source of a class generated.
+     */
+    private static final class Source {
+
+        /**
+         * The source code.
+         */
+        private final StringBuilder code = new StringBuilder();
+
+        /**
+         * Constructor that writes the source of a class.
+         *
+         * @param packageName the package name
+         * @param className the class name
+         * @param type the record
+         * @param fields the fields
+         */
+        Source(String packageName, String className, TypeElement type, List<Field> fields) {
+
+            List<Field> keys = new ArrayList<Field>();
+            Set<String> imports = new TreeSet<String>();
+
+            imports.add("SensibleDataType"); //$NON-NLS-1$
+            imports.add("SensibleObject"); //$NON-NLS-1$
+            imports.add("SensibleObjectCodec"); //$NON-NLS-1$
+
+            for (Field field : fields) {
+                imports.add(field.dataType);
+
+                if (field.key) {
+                    keys.add(field);
+                }
+            }
+
+            if (!packageName.isEmpty()) {
+                line("package " + packageName + ';'); //$NON-NLS-1$
+                line(""); //$NON-NLS-1$
+            }
+
+            line("import java.util.Comparator;"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("import javax.annotation.processing.Generated;"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+
+            String sensiblePackage = SensibleObject.class.getPackageName();
+
+            if (!packageName.equals(sensiblePackage)) {
+                for (String name : imports) {
+                    line("import " + sensiblePackage + '.' + name + ';'); //$NON-NLS-1$
+                }
+
+                line(""); //$NON-NLS-1$
+            }
+
+            line("/**"); //$NON-NLS-1$
+            line(" * Sensible object defined by the <code>" + type.getSimpleName() //$NON-NLS-1$
+                + "</code> record.<br>"); //$NON-NLS-1$
+            line(" */"); //$NON-NLS-1$
+            line("@Generated(\"" + SensibleObjectProcessor.class.getName() + "\")"); //$NON-NLS-1$ //$NON-NLS-2$
+            line("public class " + className); //$NON-NLS-1$
+            line("    extends SensibleObject {"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("    private static final long serialVersionUID = " //$NON-NLS-1$
+                + serialVersionUID(className, fields) + "L;"); //$NON-NLS-1$
+
+            for (int i = 0, n = fields.size(); i < n; i++) {
+                Field field = fields.get(i);
+                line(""); //$NON-NLS-1$
+                line("    /**"); //$NON-NLS-1$
+                line("     * Index of the <code>" + field.fieldName + "</code> field."); //$NON-NLS-1$ //$NON-NLS-2$
+                line("     */"); //$NON-NLS-1$
+                line("    public static final int " + field.constant + " = " + i + ';'); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+
+            line(""); //$NON-NLS-1$
+            line("    /**"); //$NON-NLS-1$
+            line("     * Order of the objects by the values of their key fields."); //$NON-NLS-1$
+            line("     */"); //$NON-NLS-1$
+            line("    public static final Comparator<" + className + "> KEY_ORDER = " //$NON-NLS-1$ //$NON-NLS-2$
+                + className + "::compareKeys;"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("    private static final String[] FIELD_NAMES = {"); //$NON-NLS-1$
+
+            for (int i = 0, n = fields.size(); i < n; i++) {
+                line("        \"" + fields.get(i).fieldName + '"' + (i < n - 1 ? "," : "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+
+            line("    };"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("    public " + className + "() {"); //$NON-NLS-1$ //$NON-NLS-2$
+            line(""); //$NON-NLS-1$
+            line("        super();"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+
+            StringBuilder variables = new StringBuilder();
+
+            for (Field field : fields) {
+                line("        " + field.dataType + ' ' + field.name + " = new " //$NON-NLS-1$
+                    + field.dataType + '(' + field.arguments + ");"); //$NON-NLS-1$
+
+                if (variables.length() > 0) {
+                    variables.append(", "); //$NON-NLS-1$
+                }
+                variables.append(field.name);
+            }
+
+            boolean settings = false;
+
+            for (Field field : fields) {
+                for (String setting : field.settings) {
+                    if (!settings) {
+                        line(""); //$NON-NLS-1$
+                        settings = true;
+                    }
+                    line("        " + setting); //$NON-NLS-1$
+                }
+            }
+
+            line(""); //$NON-NLS-1$
+            line("        fields = new SensibleDataType[] {" + variables + "};"); //$NON-NLS-1$ //$NON-NLS-2$
+            line("        fieldNames = FIELD_NAMES;"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("        // the object listens itself"); //$NON-NLS-1$
+            line("        addListeners();"); //$NON-NLS-1$
+            line("    }"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("    /**"); //$NON-NLS-1$
+            line("     * Returns the binary codec of the objects of this class."); //$NON-NLS-1$
+            line("     *"); //$NON-NLS-1$
+            line("     * @return the codec"); //$NON-NLS-1$
+            line("     */"); //$NON-NLS-1$
+            line("    public static SensibleObjectCodec<" + className + "> codec() {"); //$NON-NLS-1$ //$NON-NLS-2$
+            line(""); //$NON-NLS-1$
+            line("        return CodecHolder.CODEC;"); //$NON-NLS-1$
+            line("    }"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("    /**"); //$NON-NLS-1$
+            line("     * Compares the key fields of this object with the ones of the given object,"); //$NON-NLS-1$
+            line("     * one by one in field order."); //$NON-NLS-1$
+            line("     *"); //$NON-NLS-1$
+            line("     * @param target the target object"); //$NON-NLS-1$
+            line("     *"); //$NON-NLS-1$
+            line("     * @return the result of the first key field comparison that is not zero"); //$NON-NLS-1$
+            line("     */"); //$NON-NLS-1$
+            line("    public int compareKeys(" + className + " target) {"); //$NON-NLS-1$ //$NON-NLS-2$
+            line(""); //$NON-NLS-1$
+
+            if (!keys.isEmpty()) {
+                line("        int result;"); //$NON-NLS-1$
+                line(""); //$NON-NLS-1$
+
+                for (Field field : keys) {
+                    line("        result = fields[" + field.constant //$NON-NLS-1$
+                        + "].compareTo(target.fields[" + field.constant + "]);"); //$NON-NLS-1$ //$NON-NLS-2$
+                    line("        if (result != 0) {"); //$NON-NLS-1$
+                    line("            return result;"); //$NON-NLS-1$
+                    line("        }"); //$NON-NLS-1$
+                    line(""); //$NON-NLS-1$
+                }
+            }
+
+            line("        return 0;"); //$NON-NLS-1$
+            line("    }"); //$NON-NLS-1$
+
+            for (Field field : fields) {
+                line(""); //$NON-NLS-1$
+                line("    public " + field.dataType + " get" + field.capitalized + "() {"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                line("        return (" + field.dataType + ") fields[" + field.constant + "];"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                line("    }"); //$NON-NLS-1$
+            }
+
+            line(""); //$NON-NLS-1$
+            line("    @Override"); //$NON-NLS-1$
+            line("    public " + className + " returnNew() {"); //$NON-NLS-1$ //$NON-NLS-2$
+            line(""); //$NON-NLS-1$
+            line("        return new " + className + "();"); //$NON-NLS-1$ //$NON-NLS-2$
+            line("    }"); //$NON-NLS-1$
+
+            for (Field field : fields) {
+                String parameter = "new" + field.capitalized; //$NON-NLS-1$
+                line(""); //$NON-NLS-1$
+                line("    public void set" + field.capitalized + '(' + field.dataType + ' ' //$NON-NLS-1$
+                    + parameter + ") {"); //$NON-NLS-1$
+                line("        setField(" + field.constant + ", " + parameter + ");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                line("    }"); //$NON-NLS-1$
+            }
+
+            line(""); //$NON-NLS-1$
+            line("    /**"); //$NON-NLS-1$
+            line("     * Holder of the codec, created the first time it is used."); //$NON-NLS-1$
+            line("     */"); //$NON-NLS-1$
+            line("    private static final class CodecHolder {"); //$NON-NLS-1$
+            line(""); //$NON-NLS-1$
+            line("        static final SensibleObjectCodec<" + className + "> CODEC ="); //$NON-NLS-1$ //$NON-NLS-2$
+            line("            new SensibleObjectCodec<" + className + ">(new " + className + "());"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            line("    }"); //$NON-NLS-1$
+            line("}"); //$NON-NLS-1$
+        }
+
+        /**
+         * Returns the serialization ID of a class generated, a hash of its definition.
+         *
+         * @param className the class name
+         * @param fields the fields
+         *
+         * @return the serialization ID
+         */
+        private static long serialVersionUID(String className, List<Field> fields) {
+
+            StringBuilder definition = new StringBuilder(className);
+
+            for (Field field : fields) {
+                definition.append('/').append(field.fieldName).append('/').append(field.dataType);
+            }
+
+            long hash = 0xCBF29CE484222325L;
+
+            for (int i = 0, n = definition.length(); i < n; i++) {
+                hash = (hash ^ definition.charAt(i)) * 0x100000001B3L;
+            }
+
+            return hash;
+        }
+
+        /**
+         * Appends a line to the source code.
+         *
+         * @param line the line
+         */
+        private void line(String line) {
+
+            code.append(line).append('\n');
+        }
+
+        /**
+         * Returns the source code.
+         *
+         * @return the source code
+         */
+        @Override
+        public String toString() {
+
+            return code.toString();
+        }
+    }
+}
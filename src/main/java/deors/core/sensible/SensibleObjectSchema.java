@@ -0,0 +1,576 @@
+package deors.core.sensible;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Definition of the fields of a <code>SensibleObject</code> class: the field names, the field
+ * types, the key flags and the inputs of the derived fields, as set by the class constructor.<br>
+ *
+ * The schema is immutable and it is shared by all the objects of the same class, so the field
+ * names are held only once for each class instead of once for each object. The names are indexed
+ * with a perfect hash, built once for each class, so the index of a field is found with a single
+ * probe and a single string comparison whatever the number of fields.<br>
+ *
+ * The perfect hash follows the hash and displace scheme: the names are distributed in buckets by
+ * their hash code and, starting with the largest buckets, a seed is searched for each bucket that
+ * places all its names in free slots of the table. A lookup takes the seed of the name bucket and
+ * reads the single slot given by the name characters hashed with that seed, so even names with
+ * the same hash code are placed in different slots.<br>
+ *
+ * The dependencies of the derived fields are also resolved once for each class: the derived
+ * fields are sorted in topological order, so each one is computed after its inputs, and the
+ * derived fields affected directly or indirectly by each field are collected, so a change only
+ * computes again the derived fields that depend on it.<br>
+ *
+ * Objects whose fields do not match the schema of their class, because the constructor defines
+ * different fields for different objects, get their own schema that is not shared.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleObject#getSchema()
+ */
+public final class SensibleObjectSchema {
+
+    /**
+     * The schemas shared by the objects of each class.
+     */
+    private static final Map<Class<?>, SensibleObjectSchema> SCHEMAS =
+        new ConcurrentHashMap<Class<?>, SensibleObjectSchema>();
+
+    /**
+     * The maximum number of seeds tried for a bucket before the table is enlarged.
+     */
+    private static final int MAX_SEEDS = 1 << 12;
+
+    /**
+     * The field names.
+     */
+    private final String[] names;
+
+    /**
+     * The field types.
+     */
+    private final Class<?>[] types;
+
+    /**
+     * The key flags of the fields.
+     */
+    private final boolean[] keys;
+
+    /**
+     * The inputs of each derived field, or <code>null</code> for the fields that are not derived.
+     */
+    private final int[][] inputs;
+
+    /**
+     * The derived fields in topological order.
+     */
+    private final int[] derivedOrder;
+
+    /**
+     * The derived fields affected directly or indirectly by each field.
+     */
+    private final BitSet[] dependents;
+
+    /**
+     * The seed of each bucket.
+     */
+    private final int[] seeds;
+
+    /**
+     * The field index in each slot, or <code>-1</code> for the free slots.
+     */
+    private final int[] slots;
+
+    /**
+     * Constructor that sets the fields, builds the perfect hash of their names and resolves the
+     * dependencies of the derived fields.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if a derived field depends on
+     * itself, directly or through other derived fields.
+     *
+     * @param fieldNames the field names
+     * @param fields the fields
+     * @param derivedInputs the inputs of each derived field, or <code>null</code> if there are
+     *                      no derived fields
+     */
+    private SensibleObjectSchema(String[] fieldNames, SensibleDataType[] fields,
+                                 int[][] derivedInputs) {
+
+        super();
+
+        int n = fieldNames.length;
+
+        names = Arrays.copyOf(fieldNames, n);
+        types = new Class<?>[n];
+        keys = new boolean[n];
+
+        for (int i = 0; i < n && i < fields.length; i++) {
+            types[i] = fields[i].getClass();
+            keys[i] = fields[i].isKey();
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(1, n)) * 4;
+        int[][] hash = buildHash(tableSize);
+
+        while (hash == null) {
+            tableSize *= 2;
+            hash = buildHash(tableSize);
+        }
+
+        seeds = hash[0];
+        slots = hash[1];
+
+        inputs = new int[n][];
+        dependents = new BitSet[n];
+
+        for (int i = 0; i < n; i++) {
+            if (derivedInputs != null && i < derivedInputs.length && derivedInputs[i] != null) {
+                inputs[i] = derivedInputs[i].clone();
+            }
+            dependents[i] = new BitSet(n);
+        }
+
+        derivedOrder = sortDerived();
+
+        // walked backwards, the dependents of a derived field are complete before its inputs
+        for (int k = derivedOrder.length - 1; k >= 0; k--) {
+            int d = derivedOrder[k];
+
+            for (int input : inputs[d]) {
+                dependents[input].set(d);
+                dependents[input].or(dependents[d]);
+            }
+        }
+    }
+
+    /**
+     * Returns the schema of the given object, shared with the other objects of its class if the
+     * object fields match the schema of the class. The schema of the class is only set from an
+     * object whose definition is complete, as the fields, their key flags and the derived fields
+     * of an object being constructed may still change.
+     *
+     * @param object the object
+     * @param defined whether the object definition is complete
+     *
+     * @return the schema of the object
+     */
+    static SensibleObjectSchema of(SensibleObject object, boolean defined) {
+
+        Class<?> type = object.getClass();
+
+        SensibleObjectSchema schema = SCHEMAS.get(type);
+
+        int[][] derivedInputs = object.derivedInputs();
+
+        if (schema == null && defined) {
+            schema = SCHEMAS.computeIfAbsent(type,
+                t -> new SensibleObjectSchema(object.fieldNames, object.fields, derivedInputs));
+        }
+
+        if (schema == null || !schema.matches(object.fieldNames, object.fields, derivedInputs)) {
+            schema = new SensibleObjectSchema(object.fieldNames, object.fields, derivedInputs);
+        }
+
+        return schema;
+    }
+
+    /**
+     * Returns the bucket of a name.
+     *
+     * @param name the name
+     * @param bucketMask the number of buckets minus one
+     *
+     * @return the bucket
+     */
+    private static int bucketOf(String name, int bucketMask) {
+
+        int h = name.hashCode() * 0x9E3779B9;
+
+        return (h ^ (h >>> 16)) & bucketMask;
+    }
+
+    /**
+     * Returns the slot of a name, hashing its characters with the given seed.
+     *
+     * @param name the name
+     * @param seed the seed
+     * @param slotMask the number of slots minus one
+     *
+     * @return the slot
+     */
+    private static int slotOf(String name, int seed, int slotMask) {
+
+        int h = seed * 0x9E3779B9;
+
+        for (int i = 0, n = name.length(); i < n; i++) {
+            h = (h ^ name.charAt(i)) * 0x01000193;
+        }
+
+        return (h ^ (h >>> 16)) & slotMask;
+    }
+
+    /**
+     * Builds the perfect hash of the field names in a table of the given size.
+     *
+     * @param tableSize the number of slots, a power of two
+     *
+     * @return the seed of each bucket and the field index in each slot, or <code>null</code> if
+     *         a seed was not found for every bucket
+     */
+    private int[][] buildHash(int tableSize) {
+
+        int bucketCount = Math.max(1, tableSize / 8);
+        int bucketMask = bucketCount - 1;
+        int slotMask = tableSize - 1;
+
+        List<List<Integer>> buckets = new ArrayList<List<Integer>>(bucketCount);
+        for (int b = 0; b < bucketCount; b++) {
+            buckets.add(new ArrayList<Integer>());
+        }
+
+        Set<String> indexed = new HashSet<String>();
+
+        for (int i = 0, n = names.length; i < n; i++) {
+            // only the first field with a name is indexed, as a lookup returns the first one
+            if (names[i] != null && indexed.add(names[i])) {
+                buckets.get(bucketOf(names[i], bucketMask)).add(i);
+            }
+        }
+
+        Integer[] order = new Integer[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (b1, b2) -> buckets.get(b2).size() - buckets.get(b1).size());
+
+        int[] newSeeds = new int[bucketCount];
+        int[] newSlots = new int[tableSize];
+        Arrays.fill(newSlots, -1);
+
+        int[] taken = new int[names.length];
+
+        for (int b : order) {
+            List<Integer> bucket = buckets.get(b);
+
+            if (bucket.isEmpty()) {
+                break;
+            }
+
+            boolean placed = false;
+
+            for (int seed = 1; seed <= MAX_SEEDS && !placed; seed++) {
+                int count = 0;
+
+                for (int i : bucket) {
+                    int slot = slotOf(names[i], seed, slotMask);
+
+                    if (newSlots[slot] != -1) {
+                        break;
+                    }
+
+                    newSlots[slot] = i;
+                    taken[count++] = slot;
+                }
+
+                if (count == bucket.size()) {
+                    newSeeds[b] = seed;
+                    placed = true;
+                } else {
+                    for (int k = 0; k < count; k++) {
+                        newSlots[taken[k]] = -1;
+                    }
+                }
+            }
+
+            if (!placed) {
+                return null;
+            }
+        }
+
+        return new int[][] {newSeeds, newSlots};
+    }
+
+    /**
+     * Sorts the derived fields in topological order, taking first the derived fields whose inputs
+     * are not derived or are already sorted.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if a derived field depends on
+     * itself, directly or through other derived fields.
+     *
+     * @return the derived fields in topological order
+     */
+    private int[] sortDerived() {
+
+        int n = inputs.length;
+        int[] pending = new int[n];
+        int count = 0;
+
+        for (int i = 0; i < n; i++) {
+            if (inputs[i] != null) {
+                count++;
+                for (int input : inputs[i]) {
+                    if (inputs[input] != null) {
+                        pending[i]++;
+                    }
+                }
+            }
+        }
+
+        int[] order = new int[count];
+        int sorted = 0;
+
+        for (int i = 0; i < n; i++) {
+            if (inputs[i] != null && pending[i] == 0) {
+                order[sorted++] = i;
+            }
+        }
+
+        for (int k = 0; k < sorted; k++) {
+            int d = order[k];
+
+            for (int i = 0; i < n; i++) {
+                if (inputs[i] == null) {
+                    continue;
+                }
+                for (int input : inputs[i]) {
+                    if (input == d && --pending[i] == 0) {
+                        order[sorted++] = i;
+                    }
+                }
+            }
+        }
+
+        if (sorted < count) {
+            for (int i = 0; i < n; i++) {
+                if (inputs[i] != null && pending[i] > 0) {
+                    throw new IllegalArgumentException(
+                        SensibleContext.getMessage(
+                            "DTYPE_ERR_DERIVED_CYCLE", names[i])); //$NON-NLS-1$
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Returns whether the given fields match this schema.
+     *
+     * @param fieldNames the field names
+     * @param fields the fields
+     * @param derivedInputs the inputs of each derived field, or <code>null</code> if there are
+     *                      no derived fields
+     *
+     * @return whether the names, types and inputs of the fields are the ones in this schema
+     */
+    private boolean matches(String[] fieldNames, SensibleDataType[] fields,
+                            int[][] derivedInputs) {
+
+        if (fieldNames != names && !Arrays.equals(fieldNames, names)) {
+            return false;
+        }
+
+        for (int i = 0, n = inputs.length; i < n; i++) {
+            int[] derived = derivedInputs == null || i >= derivedInputs.length
+                ? null : derivedInputs[i];
+
+            if (!Arrays.equals(derived, inputs[i])) {
+                return false;
+            }
+        }
+
+        for (int i = 0, n = types.length; i < n; i++) {
+            if (i >= fields.length || fields[i].getClass() != types[i]
+                || fields[i].isKey() != keys[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the field names shared by the objects with this schema. The array must not be
+     * modified.
+     *
+     * @return the field names
+     */
+    String[] sharedFieldNames() {
+
+        return names;
+    }
+
+    /**
+     * Returns whether there are derived fields.
+     *
+     * @return whether there are derived fields
+     */
+    boolean hasDerivedFields() {
+
+        return derivedOrder.length > 0;
+    }
+
+    /**
+     * Returns the derived fields in topological order, so each one comes after its inputs. The
+     * array must not be modified.
+     *
+     * @return the derived fields in topological order
+     */
+    int[] derivedOrder() {
+
+        return derivedOrder;
+    }
+
+    /**
+     * Returns the derived fields affected directly or indirectly by a field. The set must not be
+     * modified.
+     *
+     * @param index the field index
+     *
+     * @return the derived fields affected by the field
+     */
+    BitSet dependents(int index) {
+
+        return dependents[index];
+    }
+
+    /**
+     * Returns the inputs of a derived field.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     *
+     * @return the indexes of the inputs or an empty array if the field is not derived
+     *
+     * @see SensibleObject#deriveField(int, SensibleFieldFormula, int...)
+     */
+    public int[] getDerivedInputs(int index) {
+
+        checkIndex(index);
+
+        return inputs[index] == null ? new int[0] : inputs[index].clone();
+    }
+
+    /**
+     * Returns the number of fields.
+     *
+     * @return the number of fields
+     */
+    public int getFieldCount() {
+
+        return names.length;
+    }
+
+    /**
+     * Returns the index of a field given by name.
+     *
+     * @param name the field name
+     *
+     * @return the field index or <code>-1</code> if the field name is not defined
+     */
+    public int getFieldIndex(String name) {
+
+        int seed = seeds[bucketOf(name, seeds.length - 1)];
+        int index = slots[slotOf(name, seed, slots.length - 1)];
+
+        return index != -1 && name.equals(names[index]) ? index : -1;
+    }
+
+    /**
+     * Returns the name of a field.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     *
+     * @return the field name
+     */
+    public String getFieldName(int index) {
+
+        checkIndex(index);
+
+        return names[index];
+    }
+
+    /**
+     * Returns the type of a field.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     *
+     * @return the field type
+     */
+    public Class<?> getFieldType(int index) {
+
+        checkIndex(index);
+
+        return types[index];
+    }
+
+    /**
+     * Returns whether a field is a derived field.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     *
+     * @return whether the field is a derived field
+     *
+     * @see SensibleObject#deriveField(int, SensibleFieldFormula, int...)
+     */
+    public boolean isDerived(int index) {
+
+        checkIndex(index);
+
+        return inputs[index] != null;
+    }
+
+    /**
+     * Returns whether a field is a key field.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     *
+     * @return whether the field is a key field
+     */
+    public boolean isKey(int index) {
+
+        checkIndex(index);
+
+        return keys[index];
+    }
+
+    /**
+     * Checks that a field index is defined.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     */
+    private void checkIndex(int index) {
+
+        if (index < 0 || index >= names.length) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_FIELD_NOT_DEFINED", Integer.toString(index))); //$NON-NLS-1$
+        }
+    }
+}
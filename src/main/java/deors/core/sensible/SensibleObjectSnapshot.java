@@ -0,0 +1,340 @@
+package deors.core.sensible;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the field values of a <code>SensibleObject</code> object.<br>
+ *
+ * A snapshot holds only the class of the object, the schema shared by the objects of the class
+ * and the data value of each field, without the fields, their parameters, their validation state
+ * nor the property change support of a live object. The data values are the strings held by the
+ * fields, shared and not copied, so taking a snapshot only allocates the array of values and the
+ * values not valid or not complete are kept as they are.<br>
+ *
+ * Snapshots are meant for read-mostly data, like the rows of a table that are seldom edited.
+ * A live object is created from a snapshot with the <code>thaw()</code> method when it has to be
+ * edited, and a list of snapshots is shown in a table with the row provider returned by the
+ * <code>provider()</code> method, so only the rows visible are live objects.<br>
+ *
+ * @param <R> a SensibleObject type whose objects are kept in snapshots
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleObject
+ * @see SensibleTableRowProvider
+ */
+public final class SensibleObjectSnapshot<R extends SensibleObject> {
+
+    /**
+     * The class of the object.
+     */
+    private final Class<R> type;
+
+    /**
+     * The schema of the object.
+     */
+    private final SensibleObjectSchema schema;
+
+    /**
+     * The data value of each field.
+     */
+    private final String[] values;
+
+    /**
+     * Separator used in the string representation.
+     */
+    private static final String SEPARATOR = "//"; //$NON-NLS-1$
+
+    /**
+     * Constructor that sets the snapshot properties.
+     *
+     * @param type the class of the object
+     * @param schema the schema of the object
+     * @param values the data value of each field
+     */
+    private SensibleObjectSnapshot(Class<R> type, SensibleObjectSchema schema, String[] values) {
+
+        super();
+
+        this.type = type;
+        this.schema = schema;
+        this.values = values;
+    }
+
+    /**
+     * Returns a snapshot of the field values of the given object.
+     *
+     * @param <R> the type of the object
+     * @param object the object
+     *
+     * @return the snapshot of the object
+     */
+    @SuppressWarnings("unchecked")
+    public static <R extends SensibleObject> SensibleObjectSnapshot<R> of(R object) {
+
+        SensibleDataType[] fields = object.fields;
+        String[] values = new String[fields.length];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = fields[i].getValue();
+        }
+
+        return new SensibleObjectSnapshot<R>(
+            (Class<R>) object.getClass(), object.getSchema(), values);
+    }
+
+    /**
+     * Returns a row provider that shows the given snapshots in a table. The rows are thawed in
+     * new objects when the table asks for them, so the snapshots changed in the list are shown
+     * after the table is refreshed, and the changes made in the rows are not kept in the
+     * snapshots.
+     *
+     * @param <R> the type of the rows
+     * @param snapshots the snapshots
+     *
+     * @return the row provider
+     *
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider)
+     * @see SensibleTable#refreshRowProvider()
+     */
+    public static <R extends SensibleObject> SensibleTableRowProvider<R> provider(
+            final List<SensibleObjectSnapshot<R>> snapshots) {
+
+        return new SensibleTableRowProvider<R>() {
+
+            public int getRowCount() {
+
+                return snapshots.size();
+            }
+
+            public List<R> getRows(int fromIndex, int toIndex) {
+
+                final List<SensibleObjectSnapshot<R>> page = snapshots.subList(fromIndex, toIndex);
+
+                return new AbstractList<R>() {
+
+                    private final Object[] rows = new Object[page.size()];
+
+                    @SuppressWarnings("unchecked")
+                    public R get(int index) {
+
+                        Object row = rows[index];
+
+                        if (row == null) {
+                            row = page.get(index).thaw();
+                            rows[index] = row;
+                        }
+
+                        return (R) row;
+                    }
+
+                    public int size() {
+
+                        return rows.length;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Compares this <code>SensibleObjectSnapshot</code> object with the given object and
+     * returns whether both are snapshots of objects of the same class with the same field
+     * values.
+     *
+     * @param target the target object
+     *
+     * @return whether this and the given object have the same class and field values
+     *
+     * @see java.lang.Object#equals(Object)
+     */
+    public boolean equals(Object target) {
+
+        if (this == target) {
+            return true;
+        }
+
+        if (!(target instanceof SensibleObjectSnapshot)) {
+            return false;
+        }
+
+        SensibleObjectSnapshot<?> snapshot = (SensibleObjectSnapshot<?>) target;
+
+        return type == snapshot.type && Arrays.equals(values, snapshot.values);
+    }
+
+    /**
+     * Returns the class of the object.
+     *
+     * @return the class of the object
+     */
+    public Class<R> getType() {
+
+        return type;
+    }
+
+    /**
+     * Returns the schema of the object.
+     *
+     * @return the schema of the object
+     *
+     * @see SensibleObject#getSchema()
+     */
+    public SensibleObjectSchema getSchema() {
+
+        return schema;
+    }
+
+    /**
+     * Returns the data value of a field given by index.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field index is
+     * not defined.
+     *
+     * @param index the field index
+     *
+     * @return the data value of the field
+     *
+     * @see SensibleDataType#getValue()
+     */
+    public String getValue(int index) {
+
+        try {
+            return values[index];
+        } catch (ArrayIndexOutOfBoundsException aobe) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_FIELD_NOT_DEFINED", Integer.toString(index)), aobe); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the data value of a field given by name.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the field name is
+     * not defined.
+     *
+     * @param name the field name
+     *
+     * @return the data value of the field
+     *
+     * @see SensibleDataType#getValue()
+     */
+    public String getValue(String name) {
+
+        int index = schema.getFieldIndex(name);
+
+        if (index == -1) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_FIELD_NOT_DEFINED", name)); //$NON-NLS-1$
+        }
+
+        return values[index];
+    }
+
+    /**
+     * Returns a hash code value for the snapshot. It is the same hash code returned by the
+     * objects with the same field values.
+     *
+     * @return a hash code value for this snapshot
+     *
+     * @see SensibleObject#hashCode()
+     */
+    public int hashCode() {
+
+        return Arrays.hashCode(values);
+    }
+
+    /**
+     * Returns a new object with the field values of this snapshot. The object is created like
+     * the objects returned by the <code>returnNew()</code> method.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if the object could not be
+     * created.
+     *
+     * @return the new object
+     *
+     * @see SensibleObject#returnNew()
+     */
+    public R thaw() {
+
+        R object;
+
+        try {
+            object = SensibleInstanceFactory.newInstance(type);
+        } catch (RuntimeException re) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_INVALID_OBJECT"), re); //$NON-NLS-1$
+        }
+
+        // the factory returns null if the class has no constructor it can use
+        if (object == null) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_INVALID_OBJECT")); //$NON-NLS-1$
+        }
+
+        thaw(object);
+
+        return object;
+    }
+
+    /**
+     * Changes the field values of the given object to the field values of this snapshot. The
+     * fields are changed inside an update of the object, so a single event is fired for the
+     * fields changed, and the values not valid are kept as they are. The field parameters of
+     * the object are not changed.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the given object
+     * definition does not match the object definition of this snapshot.
+     *
+     * @param object the object
+     *
+     * @see SensibleObject#beginUpdate()
+     */
+    public void thaw(R object) {
+
+        int n = values.length;
+
+        if (object.getFieldCount() != n) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage(
+                    "DTYPE_ERR_INVALID_OBJECT")); //$NON-NLS-1$
+        }
+
+        object.beginUpdate();
+
+        try {
+            for (int i = 0; i < n; i++) {
+                object.restoreField(i, values[i]);
+            }
+        } finally {
+            object.commit();
+        }
+    }
+
+    /**
+     * Returns the value of all fields separated by two slashes, as the objects with the same
+     * field values do.
+     *
+     * @return a string representation of this snapshot
+     *
+     * @see SensibleObject#toString()
+     */
+    public String toString() {
+
+        StringBuilder buf = new StringBuilder();
+
+        for (String value : values) {
+            buf.append(value);
+            buf.append(SEPARATOR);
+        }
+
+        return buf.toString();
+    }
+}
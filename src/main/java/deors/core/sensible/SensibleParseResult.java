@@ -0,0 +1,301 @@
+package deors.core.sensible;
+
+/**
+ * Reusable result of the validation of a string as the value of a data type.<br>
+ *
+ * The <code>tryParse(CharSequence, SensibleParseResult)</code> method of the data types checks a
+ * string without changing the data value and without throwing exceptions, and it stores in the
+ * result object the result code and the parsed value: the number for the integer, long integer
+ * and boolean types, the parsed object for the string and big decimal types, and the components
+ * for the date and time types. The result object is meant to be reused for each string checked,
+ * so a bulk import can check each value of a column with the same result object and no
+ * exceptions are created for the values not valid.<br>
+ *
+ * The error message is not formatted when the string is checked: the result keeps only the key
+ * of the message, and the message is formatted when the <code>getMessage()</code> method is
+ * invoked.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+ * @see SensibleDataType#validate(CharSequence)
+ */
+public final class SensibleParseResult {
+
+    /**
+     * Result code of a string that is a valid value.
+     */
+    public static final int VALID = 0;
+
+    /**
+     * Result code of a string that does not represent a value of the data type.
+     */
+    public static final int INVALID_FORMAT = 1;
+
+    /**
+     * Result code of a string that represents a number out of the range of the data type.
+     */
+    public static final int NOT_IN_RANGE = 2;
+
+    /**
+     * The maximum number of components of a parsed value.
+     */
+    private static final int MAX_COMPONENTS = 6;
+
+    /**
+     * The result code.
+     */
+    private int code;
+
+    /**
+     * The key of the error message, or <code>null</code> if the string is valid.
+     */
+    private String messageKey;
+
+    /**
+     * The parsed number.
+     */
+    private long number;
+
+    /**
+     * The parsed object.
+     */
+    private Object value;
+
+    /**
+     * The parsed components.
+     */
+    private final int[] components = new int[MAX_COMPONENTS];
+
+    /**
+     * The number of parsed components.
+     */
+    private int componentCount;
+
+    /**
+     * Default constructor. The result is valid and empty.
+     */
+    public SensibleParseResult() {
+
+        super();
+    }
+
+    /**
+     * Stores the result of a check in the given result object, if any, and returns the result
+     * code.
+     *
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     * @param code the result code
+     * @param messageKey the key of the error message
+     * @param number the parsed number
+     * @param value the parsed object
+     *
+     * @return the result code
+     */
+    static int complete(SensibleParseResult result, int code, String messageKey,
+                        long number, Object value) {
+
+        if (result != null) {
+            result.code = code;
+            result.messageKey = code == VALID ? null : messageKey;
+            result.number = number;
+            result.value = value;
+            result.componentCount = 0;
+        }
+
+        return code;
+    }
+
+    /**
+     * Stores the result of a check with components in the given result object, if any, and
+     * returns the result code. The components not used by the data type are ignored.
+     *
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     * @param code the result code
+     * @param messageKey the key of the error message
+     * @param count the number of components
+     * @param c0 the first component
+     * @param c1 the second component
+     * @param c2 the third component
+     * @param c3 the fourth component
+     * @param c4 the fifth component
+     * @param c5 the sixth component
+     *
+     * @return the result code
+     */
+    static int complete(SensibleParseResult result, int code, String messageKey, int count,
+                        int c0, int c1, int c2, int c3, int c4, int c5) {
+
+        if (result != null) {
+            complete(result, code, messageKey, 0, null);
+
+            if (code == VALID) {
+                int[] c = result.components;
+                c[0] = c0;
+                c[1] = c1;
+                c[2] = c2;
+                c[3] = c3;
+                c[4] = c4;
+                c[5] = c5;
+                result.componentCount = count;
+            }
+        }
+
+        return code;
+    }
+
+    /**
+     * Returns the result code.
+     *
+     * @return the result code
+     *
+     * @see SensibleParseResult#VALID
+     * @see SensibleParseResult#INVALID_FORMAT
+     * @see SensibleParseResult#NOT_IN_RANGE
+     */
+    public int getCode() {
+
+        return code;
+    }
+
+    /**
+     * Returns the parsed component in the given position. The components of the dates are the
+     * year, month and day, and the components of the times are the hour, minute and second.
+     *
+     * @param index the component position
+     *
+     * @return the parsed component
+     *
+     * @see SensibleParseResult#getComponentCount()
+     */
+    public int getComponent(int index) {
+
+        return components[index];
+    }
+
+    /**
+     * Returns the number of parsed components, which is zero for the data types without
+     * components or if the string is not valid.
+     *
+     * @return the number of parsed components
+     */
+    public int getComponentCount() {
+
+        return componentCount;
+    }
+
+    /**
+     * Returns the error message, formatted when this method is invoked, or <code>null</code> if
+     * the string is valid.
+     *
+     * @return the error message
+     *
+     * @see SensibleContext#getMessage(String)
+     */
+    public String getMessage() {
+
+        return messageKey == null ? null : SensibleContext.getMessage(messageKey);
+    }
+
+    /**
+     * Returns the parsed number. It is the number for the integer and long integer types, even if
+     * it is not in range, and one or zero for the boolean type.
+     *
+     * @return the parsed number
+     */
+    public long getNumber() {
+
+        return number;
+    }
+
+    /**
+     * Returns the parsed object. It is the <code>BigDecimal</code> object for the big decimal
+     * type, the <code>Boolean</code> object for the boolean type and the string with the length
+     * and casing applied for the string type.
+     *
+     * @return the parsed object
+     */
+    public Object getValue() {
+
+        return value;
+    }
+
+    /**
+     * Returns whether the string is a valid value.
+     *
+     * @return whether the string is a valid value
+     */
+    public boolean isValid() {
+
+        return code == VALID;
+    }
+
+    /**
+     * Checks whether the given string represents an integer number, with the grammar of the
+     * <code>Long.parseLong(String)</code> method, between the given limits and in the given
+     * range, without creating objects. The number is stored in the result object, if any, also
+     * when it is not in range.
+     *
+     * @param source the string to be checked
+     * @param lowerLimit the least number the data type can represent
+     * @param upperLimit the greatest number the data type can represent
+     * @param minValue the minimum valid value
+     * @param maxValue the maximum valid value
+     * @param formatKey the key of the error message if the string is not a number
+     * @param rangeKey the key of the error message if the number is not in range
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     */
+    static int parseNumber(CharSequence source, long lowerLimit, long upperLimit,
+                           long minValue, long maxValue, String formatKey, String rangeKey,
+                           SensibleParseResult result) {
+
+        final int radix = 10;
+
+        int length = source.length();
+
+        if (length == 0) {
+            return complete(result, INVALID_FORMAT, formatKey, 0, null);
+        }
+
+        int i = 0;
+        char first = source.charAt(0);
+        boolean negative = first == '-';
+
+        if (negative || first == '+') {
+            if (length == 1) {
+                return complete(result, INVALID_FORMAT, formatKey, 0, null);
+            }
+
+            i++;
+        }
+
+        // the digits are accumulated as a negative number, so the lower limit is reachable
+        long limit = negative ? lowerLimit : -upperLimit;
+        long multiplicationLimit = limit / radix;
+        long accumulated = 0;
+
+        for (; i < length; i++) {
+            int digit = Character.digit(source.charAt(i), radix);
+
+            if (digit < 0 || accumulated < multiplicationLimit) {
+                return complete(result, INVALID_FORMAT, formatKey, 0, null);
+            }
+
+            accumulated *= radix;
+
+            if (accumulated < limit + digit) {
+                return complete(result, INVALID_FORMAT, formatKey, 0, null);
+            }
+
+            accumulated -= digit;
+        }
+
+        long parsed = negative ? accumulated : -accumulated;
+
+        return complete(result, parsed < minValue || parsed > maxValue ? NOT_IN_RANGE : VALID,
+            rangeKey, parsed, null);
+    }
+}
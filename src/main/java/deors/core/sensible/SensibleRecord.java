@@ -0,0 +1,61 @@
+package deors.core.sensible;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record declaration as the definition of a <code>SensibleObject</code> class, which is
+ * generated at compile time by the <code>SensibleObjectProcessor</code> annotation processor.<br>
+ *
+ * Each record component defines a field of the object, in the same order, whose data type is
+ * given by the component type:
+ *
+ * <ul>
+ * <li><code>int</code> and <code>Integer</code> components define <code>SensibleInteger</code>
+ * fields.</li>
+ * <li><code>long</code> and <code>Long</code> components define <code>SensibleLong</code>
+ * fields.</li>
+ * <li><code>boolean</code> and <code>Boolean</code> components define
+ * <code>SensibleBoolean</code> fields.</li>
+ * <li><code>String</code> components define <code>SensibleString</code> fields.</li>
+ * <li><code>BigDecimal</code> components define <code>SensibleBigDecimal</code> fields.</li>
+ * <li><code>LocalDate</code>, <code>LocalTime</code> and <code>LocalDateTime</code> components
+ * define <code>SensibleDate</code>, <code>SensibleTime</code> and
+ * <code>SensibleDateTime</code> fields.</li>
+ * <li>Components of any of the <code>SensibleDataType</code> classes above define fields of that
+ * class.</li>
+ * </ul>
+ *
+ * The field parameters are given with the <code>SensibleField</code> annotation:
+ *
+ * <pre>
+ * &#64;SensibleRecord
+ * record Customer(
+ *     &#64;SensibleField(key = true, required = true, minValue = 0, maxValue = 99999) int id,
+ *     &#64;SensibleField(required = true, maxLength = 100) String name,
+ *     &#64;SensibleField(maxIntegerDigits = 10, maxFractionalDigits = 2) BigDecimal balance) {
+ * }
+ * </pre>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleField
+ * @see SensibleObjectProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface SensibleRecord {
+
+    /**
+     * The simple name of the class generated, in the package of the record. By default it is the
+     * record name followed by <code>Object</code>.
+     *
+     * @return the class name
+     */
+    String className() default "";
+}
@@ -424,26 +424,14 @@ public final class SensibleString
 
         String oldValue = value;
 
-        String tempValue = newValue;
+        SensibleParseResult result = new SensibleParseResult();
 
-        if (maxLength != -1 && tempValue.length() > maxLength) {
-            tempValue = tempValue.substring(0, maxLength);
-        }
-
-        if (allowedCharacters != null && allowedCharacters.length() != 0) {
-            for (int i = 0; i < newValue.length(); i++) {
-                if (allowedCharacters.indexOf(newValue.charAt(i)) == -1) {
-                    if (valueChangingInSet) {
-                        valueChangingInSet = false;
-                    }
-
-                    throw new IllegalArgumentException(
-                        SensibleContext.getMessage("STR_ERR_INVALID_STRING")); //$NON-NLS-1$
-                }
-            }
+        if (tryParse(newValue, result) != SensibleParseResult.VALID) {
+            valueChangingInSet = false;
+            throw new IllegalArgumentException(result.getMessage());
         }
 
-        tempValue = applyStringCase(tempValue);
+        String tempValue = (String) result.getValue();
 
         value = tempValue;
 
@@ -599,7 +587,7 @@ public final class SensibleString
      */
     public int hashCode() {
 
-        return value.intern().hashCode();
+        return value.hashCode();
     }
 
     /**
@@ -813,4 +801,46 @@ public final class SensibleString
 
         return '\'' + toString() + '\'';
     }
+
+    /**
+     * Checks whether the given string is a valid value, that is, whether all its characters are
+     * allowed, without changing the data value and without throwing exceptions, and stores the
+     * result code and the string, truncated to the maximum length and with the casing mode
+     * applied, in the given result object. The string is created only if there is a result
+     * object.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleString#allowedCharacters
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        if (allowedCharacters != null && allowedCharacters.length() != 0) {
+            for (int i = 0; i < source.length(); i++) {
+                if (allowedCharacters.indexOf(source.charAt(i)) == -1) {
+                    return SensibleParseResult.complete(result,
+                        SensibleParseResult.INVALID_FORMAT,
+                        "STR_ERR_INVALID_STRING", 0, null); //$NON-NLS-1$
+                }
+            }
+        }
+
+        if (result == null) {
+            return SensibleParseResult.VALID;
+        }
+
+        String parsedValue = source.toString();
+
+        if (maxLength != -1 && parsedValue.length() > maxLength) {
+            parsedValue = parsedValue.substring(0, maxLength);
+        }
+
+        return SensibleParseResult.complete(result, SensibleParseResult.VALID, null, 0,
+            applyStringCase(parsedValue));
+    }
 }
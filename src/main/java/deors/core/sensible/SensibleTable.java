@@ -1,9 +1,17 @@
 package deors.core.sensible;
 
+import static deors.core.sensible.SensibleContext.getConfigurationProperty;
+
 import java.awt.Component;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
 
 import javax.swing.JTable;
 import javax.swing.table.TableColumnModel;
@@ -19,7 +27,43 @@ import javax.swing.table.TableColumnModel;
  * also used to store the row selected from the table.<br>
  *
  * Cell values can be edited over the table using as renderer and editor
- * <code>SensibleTableCellRendererAndEditor</code> objects.<br>
+ * <code>SensibleTableCellRendererAndEditor</code> objects. Boolean, numeric, date and time cells
+ * are painted with a <code>SensibleTableCellRenderer</code> object, which reuses one component for
+ * each kind of value.<br>
+ *
+ * Instead of a list, the table data can be read from a <code>SensibleTableRowProvider</code>
+ * object. In that case only the pages of rows around the viewport are kept in memory, so tables
+ * can show very large data sets.<br>
+ *
+ * Rows can be located by the value of their key fields using the <code>findRowByKey()</code>
+ * methods. If the <code>keyIndexed</code> property is set, the table keeps a hash index on the
+ * key fields so rows are located in constant time, including the rows located by the
+ * <code>deleteRecord()</code> and <code>updateRecord()</code> methods.<br>
+ *
+ * Many changes can be applied at once with the <code>addRecords()</code>,
+ * <code>updateRecords()</code> and <code>deleteRecords()</code> methods, or enclosing the
+ * record methods between <code>beginBatch()</code> and <code>endBatch()</code>. The table model
+ * events of a batch are coalesced into contiguous ranges and fired when the batch ends, and the
+ * selection is updated only once.<br>
+ *
+ * If the <code>sortable</code> property is set, the rows can be sorted clicking on the table
+ * header using a <code>SensibleTableRowSorter</code> object. The rows given to and returned by the
+ * table methods are always model indexes.<br>
+ *
+ * The rows shown can be filtered setting a <code>SensibleTableFilter</code> object in the
+ * <code>rowFilter</code> property. The table keeps an index for each column filtered, updated by
+ * the methods that change the table data, so filters are evaluated without scanning the rows.<br>
+ *
+ * The sum, count, minimum and maximum of numeric columns are returned by the
+ * <code>getColumnAggregate()</code> method. The aggregates are kept up to date by the methods
+ * that change the table data, so summary rows are refreshed without scanning the rows.<br>
+ *
+ * Large or slow data sources are loaded in the background with the <code>loadRecords()</code>
+ * methods, which append the rows in chunks sized so the table stays responsive while loading.<br>
+ *
+ * If the <code>cursorMode</code> property is set, the <code>record</code> property becomes a
+ * view over the row selected instead of a copy of it, so moving the selection does not copy any
+ * value and fires only the property change event for the <code>cursorRow</code> property.<br>
  *
  * @param <R> a SensibleObject type that models the table behavior and data
  *
@@ -61,6 +105,92 @@ public class SensibleTable<R extends SensibleObject>
      */
     protected List<R> tableData = new ArrayList<R>();
 
+    /**
+     * The window of rows materialized from the row provider, or <code>null</code> if the table
+     * data is read from the <code>tableData</code> property.
+     *
+     * @see SensibleTable#getRowProvider()
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider)
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider, int, int)
+     */
+    private SensibleTableRowWindow<R> rowWindow;
+
+    /**
+     * The index of the table data by key, or <code>null</code> if the table data is not indexed.
+     *
+     * @see SensibleTable#isKeyIndexed()
+     * @see SensibleTable#setKeyIndexed(boolean)
+     */
+    private SensibleTableKeyIndex<R> keyIndex;
+
+    /**
+     * The pending changes of the open batch, or <code>null</code> if there is no batch open.
+     *
+     * @see SensibleTable#beginBatch()
+     * @see SensibleTable#endBatch()
+     */
+    private SensibleTableBatch batch;
+
+    /**
+     * The number of nested batches open.
+     */
+    private int batchDepth;
+
+    /**
+     * Whether the rows can be sorted.
+     *
+     * @see SensibleTable#isSortable()
+     * @see SensibleTable#setSortable(boolean)
+     */
+    private boolean sortable;
+
+    /**
+     * The filter of the rows shown, or <code>null</code> if all the rows are shown.
+     *
+     * @see SensibleTable#getRowFilter()
+     * @see SensibleTable#setRowFilter(SensibleTableFilter)
+     */
+    private SensibleTableFilter rowFilter;
+
+    /**
+     * The indexes used to evaluate the row filter, or <code>null</code> if no filter was set.
+     *
+     * @see SensibleTable#refreshFilterIndex()
+     */
+    private SensibleTableFilterIndex filterIndex;
+
+    /**
+     * The journal where the changes of the table data are recorded, or <code>null</code> if the
+     * changes are not recorded.
+     *
+     * @see SensibleTable#getJournal()
+     * @see SensibleTable#setJournal(SensibleJournal)
+     */
+    private SensibleJournal journal;
+
+    /**
+     * The aggregates of the columns summarized, or <code>null</code> if no column was summarized.
+     *
+     * @see SensibleTable#getColumnAggregate(int)
+     * @see SensibleTable#refreshColumnAggregates()
+     */
+    private SensibleTableAggregates aggregates;
+
+    /**
+     * Whether the <code>record</code> property is a view over the row selected.
+     *
+     * @see SensibleTable#isCursorMode()
+     * @see SensibleTable#setCursorMode(boolean)
+     */
+    private boolean cursorMode;
+
+    /**
+     * The batch whose events are being fired, or <code>null</code> if no batch is being fired.
+     * The selection changes caused by those events are ignored until all of them are fired, as
+     * they refer to intermediate states of the table data.
+     */
+    private SensibleTableBatch firingBatch;
+
     /**
      * Whether cell values are editable in the table.
      *
@@ -77,7 +207,7 @@ public class SensibleTable<R extends SensibleObject>
     private boolean rowSelected;
 
     /**
-     * The last row selected.
+     * The last row selected, as a model index.
      */
     private int lastSelectedRow = -1;
 
@@ -91,6 +221,26 @@ public class SensibleTable<R extends SensibleObject>
      */
     public static final boolean DONT_CLONE = false;
 
+    /**
+     * The default number of rows fetched in each page from a row provider. Configurable in the
+     * properties file using the key <code>table.providerPageSize</code>. Default value is
+     * <code>256</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, int)
+     */
+    private static final int DEFAULT_PROVIDER_PAGE_SIZE =
+        getConfigurationProperty("table.providerPageSize", 256); //$NON-NLS-1$
+
+    /**
+     * The default maximum number of pages from a row provider kept in memory. Configurable in
+     * the properties file using the key <code>table.providerCachedPages</code>. Default value is
+     * <code>16</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, int)
+     */
+    private static final int DEFAULT_PROVIDER_CACHED_PAGES =
+        getConfigurationProperty("table.providerCachedPages", 16); //$NON-NLS-1$
+
     /**
      * The "cellsEditableInTable" JavaBean property name.
      */
@@ -101,21 +251,78 @@ public class SensibleTable<R extends SensibleObject>
      */
     private static final String JAVA_BEAN_PROPERTY_COLUMN_WIDTH = "columnWidth"; //$NON-NLS-1$
 
+    /**
+     * The "cursorMode" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_CURSOR_MODE = "cursorMode"; //$NON-NLS-1$
+
+    /**
+     * The "cursorRow" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_CURSOR_ROW = "cursorRow"; //$NON-NLS-1$
+
+    /**
+     * The "keyIndexed" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_KEY_INDEXED = "keyIndexed"; //$NON-NLS-1$
+
     /**
      * The "record" JavaBean property name.
      */
     private static final String JAVA_BEAN_PROPERTY_RECORD = "record"; //$NON-NLS-1$
 
+    /**
+     * The "journal" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_JOURNAL = "journal"; //$NON-NLS-1$
+
+    /**
+     * The "rowFilter" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_ROW_FILTER = "rowFilter"; //$NON-NLS-1$
+
+    /**
+     * The "rowProvider" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_ROW_PROVIDER = "rowProvider"; //$NON-NLS-1$
+
     /**
      * The "rowSelected" JavaBean property name.
      */
     private static final String JAVA_BEAN_PROPERTY_ROW_SELECTED = "rowSelected"; //$NON-NLS-1$
 
+    /**
+     * The "sortable" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_SORTABLE = "sortable"; //$NON-NLS-1$
+
     /**
      * The "tableData" JavaBean property name.
      */
     private static final String JAVA_BEAN_PROPERTY_TABLE_DATA = "tableData"; //$NON-NLS-1$
 
+    /**
+     * How the table data is replaced by the <code>setTableData(List, DiffMode)</code> method.<br>
+     *
+     * @author deors
+     * @version 1.0
+     *
+     * @see SensibleTable#setTableData(List, DiffMode)
+     */
+    public enum DiffMode {
+
+        /**
+         * All the rows are replaced and a single table data changed event is fired.
+         */
+        FULL,
+
+        /**
+         * The old and new rows are matched by the value of their key fields and only the rows
+         * inserted, deleted, moved or updated are notified.
+         */
+        BY_KEY
+    }
+
     /**
      * Definition for the table model.<br>
      *
@@ -152,11 +359,7 @@ public class SensibleTable<R extends SensibleObject>
         @Override
         public int findColumn(String name) {
 
-            try {
-                return record.getFieldIndex(name);
-            } catch (IllegalArgumentException iae) {
-                return -1;
-            }
+            return record.getSchema().getFieldIndex(name);
         }
 
         /**
@@ -185,7 +388,7 @@ public class SensibleTable<R extends SensibleObject>
         @Override
         public Class<?> getColumnClass(int column) {
 
-            return getValueAt(0, column).getClass();
+            return record.getField(column).getClass();
         }
 
         /**
@@ -205,7 +408,7 @@ public class SensibleTable<R extends SensibleObject>
 
         /**
          * Returns the number of rows currently on the table. Actually it returns the number of
-         * records in the <code>tableData</code> property.
+         * records in the <code>tableData</code> property or in the row provider.
          *
          * @return the number of rows
          *
@@ -214,6 +417,10 @@ public class SensibleTable<R extends SensibleObject>
         @Override
         public int getRowCount() {
 
+            if (rowWindow != null) {
+                return rowWindow.getRowCount();
+            }
+
             if (tableData == null) {
                 return 0;
             }
@@ -234,33 +441,39 @@ public class SensibleTable<R extends SensibleObject>
         @Override
         public Object getValueAt(int row, int column) {
 
-            if (tableData == null) {
+            if (rowWindow == null && tableData == null) {
                 return null;
             }
 
-            return tableData.get(row).getField(column);
+            return getRecordAt(row).getField(column);
         }
 
         /**
          * Returns whether a cell is editable. Actually it returns the
-         * <code>cellsEditableInTable</code> property value.
+         * <code>cellsEditableInTable</code> property value, except for the columns of derived
+         * fields and for the rows read from a row provider, which are never editable as the
+         * changes would be lost when their page is discarded.
          *
          * @param row the row index
          * @param column the column index
          *
-         * @return the <code>cellsEditableInTable</code> property value
+         * @return whether the cell is editable
          *
          * @see SensibleTable.SensibleTableModel#setValueAt(Object, int, int)
+         * @see SensibleObjectSchema#isDerived(int)
          * @see javax.swing.table.TableModel#isCellEditable(int, int)
          */
         @Override
         public boolean isCellEditable(int row, int column) {
 
-            return cellsEditableInTable;
+            return cellsEditableInTable && rowWindow == null
+                && !record.getSchema().isDerived(column);
         }
 
         /**
-         * Changes a cell value and fires the table cell updated event.
+         * Changes a cell value and fires the table cell updated event, or the table rows updated
+         * event for the row if derived fields depend on the cell. The cell editors give a copy of
+         * the cell value, so the value is changed only if it differs from the one in the row.
          *
          * @param newValue the new value
          * @param row the row index
@@ -271,9 +484,71 @@ public class SensibleTable<R extends SensibleObject>
         @Override
         public void setValueAt(Object newValue, int row, int column) {
 
-            if (!tableData.get(row).getField(column).equals(newValue)) {
-                tableData.get(row).setField(column, newValue.toString());
-                fireTableCellUpdated(row, column);
+            checkTableDataWritable();
+
+            R rowRecord = getRecordAt(row);
+            SensibleDataType field = rowRecord.getField(column);
+
+            if (!field.equals(newValue)) {
+                String oldValue = field.getValue();
+
+                changeValueAt(rowRecord, newValue.toString(), row, column, false);
+
+                if (journal != null) {
+                    journal.cellChanged(SensibleTable.this, row, column,
+                        oldValue, rowRecord.getField(column).getValue());
+                }
+            }
+        }
+
+        /**
+         * Changes a cell value, setting it or restoring it as kept by a journal, and fires the
+         * table cell updated event, or the table rows updated event for the row if derived fields
+         * depend on the cell.
+         *
+         * @param rowRecord the record in the row
+         * @param newValue the new value
+         * @param row the row index
+         * @param column the column index
+         * @param restore whether the value is restored even if it is not valid
+         *
+         * @see SensibleObject#restoreField(int, String)
+         */
+        void changeValueAt(R rowRecord, String newValue, int row, int column, boolean restore) {
+
+            boolean indexed = keyIndex != null && rowWindow == null;
+
+            if (indexed) {
+                keyIndex.updating(tableData, row);
+            }
+
+            if (restore) {
+                rowRecord.beginUpdate();
+
+                try {
+                    rowRecord.restoreField(column, newValue);
+                } finally {
+                    rowRecord.commit();
+                }
+            } else {
+                rowRecord.setField(column, newValue);
+            }
+
+            if (indexed) {
+                keyIndex.updated(tableData, row);
+            }
+
+            indexRowUpdated(row);
+
+            if (batch == null) {
+                // the derived fields of the row were computed again with the change
+                if (rowRecord.getSchema().dependents(column).isEmpty()) {
+                    fireTableCellUpdated(row, column);
+                } else {
+                    fireTableRowsUpdated(row, row);
+                }
+            } else {
+                batch.rowsUpdated(row, row);
             }
         }
     }
@@ -309,10 +584,15 @@ public class SensibleTable<R extends SensibleObject>
         private final SensibleTextField fieldEditor = new SensibleTextField();
 
         /**
-         * The check box used as renderer and editor for boolean values.
+         * The check box used as editor for boolean values.
          */
         private final SensibleCheckBox checkEditor = new SensibleCheckBox();
 
+        /**
+         * The renderer for boolean values, which reuses its check box for all the cells.
+         */
+        private final SensibleTableCellRenderer checkRenderer = new SensibleTableCellRenderer();
+
         /**
          * The number of clicks needed to start editing a cell.
          *
@@ -332,7 +612,7 @@ public class SensibleTable<R extends SensibleObject>
         private SensibleTable<R> tableBeingEdited;
 
         /**
-         * The value that is being edited.
+         * The copy of the cell value that is being edited.
          */
         private SensibleDataType valueBeingEdited;
 
@@ -421,18 +701,47 @@ public class SensibleTable<R extends SensibleObject>
             columnBeingEdited = column;
 
             if (value instanceof SensibleBoolean) {
-                valueBeingEdited = (SensibleBoolean) value;
-                checkEditor.setData((SensibleBoolean) value);
+                valueBeingEdited = copyToEdit((SensibleBoolean) value, column);
+                checkEditor.setData((SensibleBoolean) valueBeingEdited);
                 return checkEditor;
             } else if (value instanceof SensibleDataType) {
-                valueBeingEdited = (SensibleDataType) value;
-                fieldEditor.setData((SensibleDataType) value);
+                valueBeingEdited = copyToEdit((SensibleDataType) value, column);
+                fieldEditor.setData(valueBeingEdited);
                 return fieldEditor;
             } else {
                 return null;
             }
         }
 
+        /**
+         * Returns the copy of a cell value that is edited, so the field in the row keeps its value
+         * until the editing stops and the table model changes it, updating the key index, the
+         * filter indexes, the aggregates, the sorter and the journal. The copy is the field of a
+         * new record of the table record class, so it has the same settings as the fields in the
+         * column. If the new record cannot be created, the cell value itself is edited.
+         *
+         * @param value the cell value
+         * @param column the column being edited
+         *
+         * @return the copy of the cell value to be edited
+         *
+         * @see SensibleTable.SensibleTableModel#setValueAt(Object, int, int)
+         */
+        private SensibleDataType copyToEdit(SensibleDataType value, int column) {
+
+            SensibleObject newRecord = tableBeingEdited.getRecord().returnNew();
+
+            if (newRecord == null) {
+                return value;
+            }
+
+            SensibleDataType copy =
+                newRecord.getField(tableBeingEdited.convertColumnIndexToModel(column));
+            copy.changeValue(value.getValue());
+
+            return copy;
+        }
+
         /**
          * Returns the component used to render the cell referenced by the given parameters.
          *
@@ -452,17 +761,8 @@ public class SensibleTable<R extends SensibleObject>
                                                        int row, int column) {
 
             if (value instanceof SensibleBoolean) {
-                SensibleCheckBox renderer = new SensibleCheckBox((SensibleBoolean) value);
-
-                if (isSelected) {
-                    renderer.setForeground(table.getSelectionForeground());
-                    renderer.setBackground(table.getSelectionBackground());
-                } else {
-                    renderer.setForeground(table.getForeground());
-                    renderer.setBackground(table.getBackground());
-                }
-
-                return renderer;
+                return checkRenderer.getTableCellRendererComponent(
+                    table, value, isSelected, hasFocus, row, column);
             }
 
             return null;
@@ -657,145 +957,663 @@ public class SensibleTable<R extends SensibleObject>
     }
 
     /**
-     * Returns the <code>cellsEditableInTable</code> property value.
+     * Adds the given records to the end of the table cloning the source objects. The table model
+     * events are coalesced and the last record added is selected.
      *
-     * @return the property value
+     * @param newRecords the records to be added
      *
-     * @see SensibleTable#cellsEditableInTable
-     * @see SensibleTable#setCellsEditableInTable(boolean)
+     * @see SensibleTable#addRecords(Collection, boolean)
      */
-    public boolean areCellsEditableInTable() {
+    public void addRecords(Collection<? extends R> newRecords) {
 
-        return cellsEditableInTable;
+        addRecords(newRecords, CLONE);
     }
 
     /**
-     * Deletes a record from the table and fires the table rows inserted event.
+     * Adds the given records to the end of the table choosing whether to clone the source objects.
+     * The records are added in a batch so the table model events are coalesced into a single
+     * rows inserted event and the last record added is selected.<br>
      *
-     * @param existingRecord the record to be deleted
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
-     * @return whether the given record existed and was deleted
+     * @param newRecords the records to be added
+     * @param clone whether to clone the source objects
+     *
+     * @see SensibleTable#beginBatch()
+     * @see SensibleTable#CLONE
+     * @see SensibleTable#DONT_CLONE
      */
-    public boolean deleteRecord(R existingRecord) {
+    public void addRecords(Collection<? extends R> newRecords, boolean clone) {
 
-        int row = tableData.indexOf(existingRecord);
+        checkTableDataWritable();
 
-        return deleteRecord(row);
+        if (tableData instanceof ArrayList<?>) {
+            ((ArrayList<?>) tableData).ensureCapacity(tableData.size() + newRecords.size());
+        }
+
+        beginBatch();
+
+        try {
+            for (R newRecord : newRecords) {
+                insertRecord(newRecord, tableData.size(), clone);
+            }
+        } finally {
+            endBatch();
+        }
     }
 
     /**
-     * Deletes a record from the table and fires the table rows inserted event.
+     * Appends the given records to the end of the table without cloning them and without changing
+     * the selection. The records are added in a batch so the table model events are coalesced
+     * into a single rows inserted event.<br>
      *
-     * @param row the row to be deleted
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
-     * @return whether the given row does not equal to <code>-1</code>
+     * @param newRecords the records to be appended
+     *
+     * @see SensibleTableLoader
      */
-    public boolean deleteRecord(int row) {
+    void appendRecords(List<? extends R> newRecords) {
 
-        if (row == -1) {
-            return false;
+        checkTableDataWritable();
+
+        if (tableData instanceof ArrayList<?>) {
+            ((ArrayList<?>) tableData).ensureCapacity(tableData.size() + newRecords.size());
         }
 
-        tableData.remove(row);
+        // the records loaded are not recorded in the journal
+        SensibleJournal currentJournal = journal;
+        journal = null;
 
-        getModel().fireTableRowsDeleted(row, row);
+        beginBatch();
 
-        clearSelection();
+        try {
+            int selection = batch.getSelection();
 
-        return true;
+            for (R newRecord : newRecords) {
+                insertRecord(newRecord, tableData.size(), DONT_CLONE);
+            }
+
+            // the rows appended do not change the selection
+            batch.select(selection);
+        } finally {
+            journal = currentJournal;
+            endBatch();
+        }
     }
 
     /**
-     * Returns a copy of the <code>columnWidth</code> property value.
+     * Returns the <code>cellsEditableInTable</code> property value.
      *
      * @return the property value
      *
-     * @see SensibleTable#columnWidth
-     * @see SensibleTable#getColumnWidth(int)
-     * @see SensibleTable#setColumnWidth(int[])
-     * @see SensibleTable#setColumnWidth(int, int)
+     * @see SensibleTable#cellsEditableInTable
+     * @see SensibleTable#setCellsEditableInTable(boolean)
      */
-    public int[] getColumnWidth() {
+    public boolean areCellsEditableInTable() {
 
-        return Arrays.copyOf(columnWidth, columnWidth.length);
+        return cellsEditableInTable;
     }
 
     /**
-     * Returns the width of the given column.
-     *
-     * @param column the column index
+     * Opens a batch of changes. Until the batch is closed by invoking <code>endBatch()</code>,
+     * the table methods that change the table data do not fire the table model events nor change
+     * the selection. Instead, the changes are registered and, when the batch is closed, the
+     * events are fired coalesced into contiguous ranges of rows and the selection is updated
+     * once. Batches can be nested, in which case the events are fired when the outermost batch
+     * is closed.<br>
      *
-     * @return the column width
+     * The table view is not notified of the changes until the batch is closed, so the batch must
+     * be opened and closed in the same task of the event dispatch thread.
      *
-     * @see SensibleTable#columnWidth
-     * @see SensibleTable#getColumnWidth()
-     * @see SensibleTable#setColumnWidth(int[])
-     * @see SensibleTable#setColumnWidth(int, int)
+     * @see SensibleTable#endBatch()
      */
-    public int getColumnWidth(int column) {
+    public void beginBatch() {
 
-        return columnWidth[column];
+        if (batchDepth++ == 0) {
+            batch = new SensibleTableBatch();
+        }
     }
 
     /**
-     * Returns the table model.
+     * Checks that the table data can be modified, that is, the data is not being read from a row
+     * provider.<br>
      *
-     * @return the table model
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      */
-    @Override
-    public SensibleTableModel getModel() {
+    private void checkTableDataWritable() {
 
-        if (super.getModel() instanceof SensibleTable<?>.SensibleTableModel) {
-            @SuppressWarnings("unchecked")
-            SensibleTable<R>.SensibleTableModel castedModel =
-                (SensibleTable<R>.SensibleTableModel) super.getModel();
-            return castedModel;
+        if (rowWindow != null) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage("TABLE_ERR_ROW_PROVIDER")); //$NON-NLS-1$
         }
-
-        return null;
     }
 
     /**
-     * Returns the <code>record</code> property value.
+     * Deletes a record from the table and fires the table rows inserted event.
      *
-     * @return the property value
+     * @param existingRecord the record to be deleted
      *
-     * @see SensibleTable#record
-     * @see SensibleTable#setRecord(SensibleObject)
+     * @return whether the given record existed and was deleted
      */
-    public R getRecord() {
+    public boolean deleteRecord(R existingRecord) {
 
-        return record;
+        int row = indexOf(existingRecord);
+
+        return deleteRecord(row);
     }
 
     /**
-     * Returns the <code>tableData</code> property value.
+     * Deletes a record from the table and fires the table rows inserted event.<br>
      *
-     * @return the property value
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
-     * @see SensibleTable#tableData
-     * @see SensibleTable#setTableData(List)
-     * @see SensibleTable#setTableData(SensibleObject[])
+     * @param row the row to be deleted
+     *
+     * @return whether the given row does not equal to <code>-1</code>
      */
-    public List<R> getTableData() {
+    public boolean deleteRecord(int row) {
 
-        return tableData;
-    }
+        checkTableDataWritable();
 
-    /**
-     * Returns the <code>rowSelected</code> property value.
-     *
-     * @return the property value
-     *
-     * @see SensibleTable#rowSelected
-     */
-    public boolean hasRowSelected() {
+        if (row == -1) {
+            return false;
+        }
 
-        return rowSelected;
-    }
+        if (keyIndex != null) {
+            keyIndex.deleting(tableData, row);
+        }
 
-    /**
-     * Initializes the models. Actually it sets the selection mode to allow only one row at a time
+        R deletedRecord = tableData.remove(row);
+
+        if (journal != null) {
+            journal.rowDeleted(this, row, deletedRecord);
+        }
+
+        if (keyIndex != null) {
+            keyIndex.deleted(tableData, row);
+        }
+
+        indexRowDeleted(row);
+
+        if (batch == null) {
+            getModel().fireTableRowsDeleted(row, row);
+            clearSelection();
+        } else {
+            batch.rowsDeleted(row, row);
+            batch.select(SensibleTableBatch.SELECTION_CLEARED);
+        }
+
+        return true;
+    }
+
+    /**
+     * Deletes the given rows from the table. The rows are removed in a single pass over the table
+     * data and the table model events are coalesced into one rows deleted event for each range of
+     * contiguous rows. Rows equal to <code>-1</code> are ignored.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
+     *
+     * @param rows the rows to be deleted
+     *
+     * @return the number of rows deleted
+     *
+     * @see SensibleTable#beginBatch()
+     */
+    public int deleteRecords(int[] rows) {
+
+        checkTableDataWritable();
+
+        BitSet deleted = new BitSet();
+
+        for (int row : rows) {
+            if (row != -1) {
+                if (row < 0 || row >= tableData.size()) {
+                    throw new IndexOutOfBoundsException(Integer.toString(row));
+                }
+                deleted.set(row);
+            }
+        }
+
+        int first = deleted.nextSetBit(0);
+
+        if (first == -1) {
+            return 0;
+        }
+
+        if (keyIndex != null) {
+            for (int row = first; row >= 0; row = deleted.nextSetBit(row + 1)) {
+                keyIndex.deleting(tableData, row);
+            }
+        }
+
+        if (journal != null) {
+            // the rows are recorded backwards so each row keeps its original position when
+            // they are inserted again
+            journal.beginGroup();
+
+            try {
+                for (int row = deleted.length() - 1; row >= 0;
+                     row = deleted.previousSetBit(row - 1)) {
+                    journal.rowDeleted(this, row, tableData.get(row));
+                }
+            } finally {
+                journal.endGroup();
+            }
+        }
+
+        // the rows kept are moved over the deleted ones and the tail is removed at once
+        int size = tableData.size();
+        int target = first;
+
+        for (int row = first; row < size; row++) {
+            if (!deleted.get(row)) {
+                tableData.set(target++, tableData.get(row));
+            }
+        }
+
+        tableData.subList(target, size).clear();
+
+        if (keyIndex != null) {
+            keyIndex.deleted(tableData, deleted);
+        }
+
+        indexRowsDeleted(deleted);
+
+        beginBatch();
+
+        try {
+            // the ranges are registered backwards so each range keeps its original position
+            for (int last = deleted.length() - 1; last >= 0; ) {
+                int from = deleted.previousClearBit(last) + 1;
+                batch.rowsDeleted(from, last);
+                last = deleted.previousSetBit(from - 1);
+            }
+
+            batch.select(SensibleTableBatch.SELECTION_CLEARED);
+        } finally {
+            endBatch();
+        }
+
+        return size - target;
+    }
+
+    /**
+     * Closes a batch of changes opened by invoking <code>beginBatch()</code>. If this is the
+     * outermost batch, the pending table model events are fired and the selection is updated.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if there is no batch open.
+     *
+     * @see SensibleTable#beginBatch()
+     */
+    public void endBatch() {
+
+        if (batchDepth == 0) {
+            throw new IllegalStateException(
+                SensibleContext.getMessage("TABLE_ERR_NO_BATCH")); //$NON-NLS-1$
+        }
+
+        if (--batchDepth > 0) {
+            return;
+        }
+
+        SensibleTableBatch closedBatch = batch;
+        batch = null;
+
+        int selection = closedBatch.getSelection();
+
+        firingBatch = closedBatch;
+
+        try {
+            closedBatch.fire(getModel());
+
+            if (selection == SensibleTableBatch.SELECTION_CLEARED) {
+                clearSelection();
+            } else if (selection != SensibleTableBatch.SELECTION_UNCHANGED) {
+                selectModelRow(selection);
+            }
+        } finally {
+            firingBatch = null;
+        }
+
+        updateRecordFromSelection();
+    }
+
+    /**
+     * Returns the row with the same key field values as the given record.<br>
+     *
+     * If the <code>keyIndexed</code> property is set the row is located using the index,
+     * otherwise the table data is scanned.
+     *
+     * @param keyRecord the record with the key field values to find
+     *
+     * @return the row index or <code>-1</code> if there is no row with those key values
+     *
+     * @see SensibleTable#findRowByKey(String...)
+     * @see SensibleTable#setKeyIndexed(boolean)
+     */
+    public int findRowByKey(R keyRecord) {
+
+        if (keyIndex != null && rowWindow == null) {
+            return keyIndex.find(tableData, keyRecord);
+        }
+
+        SensibleTableKeyIndex<R> scanIndex = new SensibleTableKeyIndex<R>(record);
+
+        return scanRowByKey(scanIndex, scanIndex.keyValuesOf(keyRecord));
+    }
+
+    /**
+     * Returns the row with the given key field values. The values are given in the same order as
+     * the key fields are defined in the record.<br>
+     *
+     * If the <code>keyIndexed</code> property is set the row is located using the index,
+     * otherwise the table data is scanned.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the number of values does
+     * not match the number of key fields.
+     *
+     * @param keyValues the key field values to find
+     *
+     * @return the row index or <code>-1</code> if there is no row with those key values
+     *
+     * @see SensibleTable#findRowByKey(SensibleObject)
+     * @see SensibleTable#setKeyIndexed(boolean)
+     */
+    public int findRowByKey(String... keyValues) {
+
+        if (keyIndex != null && rowWindow == null) {
+            return keyIndex.find(tableData, keyValues);
+        }
+
+        return scanRowByKey(new SensibleTableKeyIndex<R>(record), keyValues);
+    }
+
+    /**
+     * Returns a copy of the <code>columnWidth</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#columnWidth
+     * @see SensibleTable#getColumnWidth(int)
+     * @see SensibleTable#setColumnWidth(int[])
+     * @see SensibleTable#setColumnWidth(int, int)
+     */
+    public int[] getColumnWidth() {
+
+        return Arrays.copyOf(columnWidth, columnWidth.length);
+    }
+
+    /**
+     * Returns the width of the given column.
+     *
+     * @param column the column index
+     *
+     * @return the column width
+     *
+     * @see SensibleTable#columnWidth
+     * @see SensibleTable#getColumnWidth()
+     * @see SensibleTable#setColumnWidth(int[])
+     * @see SensibleTable#setColumnWidth(int, int)
+     */
+    public int getColumnWidth(int column) {
+
+        return columnWidth[column];
+    }
+
+    /**
+     * Returns the row the <code>record</code> property is a view over, as a model index.
+     *
+     * @return the row or <code>-1</code> if the <code>cursorMode</code> property is not set or
+     *         there is no row selected
+     *
+     * @see SensibleTable#setCursorMode(boolean)
+     */
+    public int getCursorRow() {
+
+        return cursorMode ? lastSelectedRow : -1;
+    }
+
+    /**
+     * Returns the aggregates of the given column: the sum, count, minimum and maximum of its
+     * values. The first time a column is summarized the table reads all its values, and from then
+     * on the aggregates are kept up to date by the methods that change the table data, so the
+     * object returned always reflects the current table data and can be read again whenever the
+     * table model events are received. If the table data is read from a row provider, reading the
+     * values reads all the rows from the provider.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the column is not in the
+     * table or it is not a <code>SensibleInteger</code>, <code>SensibleLong</code> or
+     * <code>SensibleBigDecimal</code> column.
+     *
+     * @param column the column index
+     *
+     * @return the column aggregates
+     *
+     * @see SensibleTable#refreshColumnAggregates()
+     * @see SensibleTableColumnAggregate
+     */
+    public SensibleTableColumnAggregate getColumnAggregate(int column) {
+
+        if (record == null || column < 0 || column >= record.getFieldCount()
+            || !SensibleTableColumnAggregate.isNumeric(record.getField(column))) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage("TABLE_ERR_INVALID_AGGREGATE")); //$NON-NLS-1$
+        }
+
+        if (aggregates == null) {
+            aggregates = new SensibleTableAggregates(this);
+        }
+
+        return aggregates.getColumnAggregate(column);
+    }
+
+    /**
+     * Returns the table model.
+     *
+     * @return the table model
+     */
+    @Override
+    public SensibleTableModel getModel() {
+
+        if (super.getModel() instanceof SensibleTable<?>.SensibleTableModel) {
+            @SuppressWarnings("unchecked")
+            SensibleTable<R>.SensibleTableModel castedModel =
+                (SensibleTable<R>.SensibleTableModel) super.getModel();
+            return castedModel;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the <code>record</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#record
+     * @see SensibleTable#setRecord(SensibleObject)
+     */
+    public R getRecord() {
+
+        return record;
+    }
+
+    /**
+     * Returns the record at the given row, read from the <code>tableData</code> property or from
+     * the row provider if it is set.
+     *
+     * @param row the row index in the model
+     *
+     * @return the record at the given row
+     *
+     * @see SensibleTable#tableData
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider)
+     */
+    public R getRecordAt(int row) {
+
+        if (rowWindow != null) {
+            return rowWindow.getRow(row);
+        }
+
+        return tableData.get(row);
+    }
+
+    /**
+     * Returns the <code>journal</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#journal
+     * @see SensibleTable#setJournal(SensibleJournal)
+     */
+    public SensibleJournal getJournal() {
+
+        return journal;
+    }
+
+    /**
+     * Returns the <code>rowFilter</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#setRowFilter(SensibleTableFilter)
+     */
+    public SensibleTableFilter getRowFilter() {
+
+        return rowFilter;
+    }
+
+    /**
+     * Returns the row provider or <code>null</code> if the table data is read from the
+     * <code>tableData</code> property.
+     *
+     * @return the row provider
+     *
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider)
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider, int, int)
+     */
+    public SensibleTableRowProvider<R> getRowProvider() {
+
+        return rowWindow == null ? null : rowWindow.getProvider();
+    }
+
+    /**
+     * Returns the <code>tableData</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#tableData
+     * @see SensibleTable#setTableData(List)
+     * @see SensibleTable#setTableData(SensibleObject[])
+     */
+    public List<R> getTableData() {
+
+        return tableData;
+    }
+
+    /**
+     * Returns the <code>rowSelected</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#rowSelected
+     */
+    public boolean hasRowSelected() {
+
+        return rowSelected;
+    }
+
+    /**
+     * Returns the row that contains a record equal to the given one. The row is located using the
+     * key index if it is enabled and the table data is not read from a row provider.
+     *
+     * @param existingRecord the record to find
+     *
+     * @return the row index or <code>-1</code> if the record is not in the table
+     */
+    private int indexOf(R existingRecord) {
+
+        if (keyIndex == null || rowWindow != null) {
+            return tableData.indexOf(existingRecord);
+        }
+
+        int row = keyIndex.find(tableData, existingRecord);
+
+        if (row == -1 || tableData.get(row).equals(existingRecord)) {
+            return row;
+        }
+
+        // the key is duplicated or the record differs in no-key fields
+        return tableData.indexOf(existingRecord);
+    }
+
+    /**
+     * Updates the filter indexes and the column aggregates after a row was inserted.
+     *
+     * @param row the row inserted
+     */
+    private void indexRowInserted(int row) {
+
+        if (filterIndex != null) {
+            filterIndex.inserted(row);
+        }
+
+        if (aggregates != null) {
+            aggregates.inserted(row);
+        }
+    }
+
+    /**
+     * Updates the filter indexes and the column aggregates after a row was updated.
+     *
+     * @param row the row updated
+     */
+    private void indexRowUpdated(int row) {
+
+        if (filterIndex != null) {
+            filterIndex.updated(row);
+        }
+
+        if (aggregates != null) {
+            aggregates.updated(row);
+        }
+    }
+
+    /**
+     * Updates the filter indexes and the column aggregates after a row was deleted.
+     *
+     * @param row the row deleted
+     */
+    private void indexRowDeleted(int row) {
+
+        if (filterIndex != null || aggregates != null) {
+            BitSet rows = new BitSet();
+            rows.set(row);
+
+            indexRowsDeleted(rows);
+        }
+    }
+
+    /**
+     * Updates the filter indexes and the column aggregates after some rows were deleted. The
+     * rows are given in the positions they had before any of them was deleted.
+     *
+     * @param rows the rows deleted
+     */
+    private void indexRowsDeleted(BitSet rows) {
+
+        if (filterIndex != null) {
+            filterIndex.deleted(rows);
+        }
+
+        if (aggregates != null) {
+            aggregates.deleted(rows);
+        }
+    }
+
+    /**
+     * Initializes the models. Actually it sets the selection mode to allow only one row at a time
      * to be selected.
      */
     public final void initializeModels() {
@@ -818,7 +1636,9 @@ public class SensibleTable<R extends SensibleObject>
 
     /**
      * Inserts a record in a given position in the table choosing whether to clone the source object
-     * and fires the table rows inserted event.
+     * and fires the table rows inserted event.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
      * @param newRecord the record to be inserted
      * @param row the insert position
@@ -829,6 +1649,8 @@ public class SensibleTable<R extends SensibleObject>
      */
     public void insertRecord(R newRecord, int row, boolean clone) {
 
+        checkTableDataWritable();
+
         if (clone) {
             @SuppressWarnings("unchecked")
             R clonedRecord = (R) newRecord.returnCopy();
@@ -837,37 +1659,324 @@ public class SensibleTable<R extends SensibleObject>
             tableData.add(row, newRecord);
         }
 
-        getModel().fireTableRowsInserted(row, row);
+        if (journal != null) {
+            journal.rowInserted(this, row, tableData.get(row));
+        }
+
+        if (keyIndex != null) {
+            keyIndex.inserted(tableData, row);
+        }
+
+        indexRowInserted(row);
+
+        if (batch == null) {
+            getModel().fireTableRowsInserted(row, row);
+            selectModelRow(row);
+        } else {
+            batch.rowsInserted(row, row);
+            batch.select(row);
+        }
+    }
+
+    /**
+     * Loads the records returned by the given iterator at the end of the table in the background
+     * and returns the loader, which notifies the progress and allows to cancel the load. The
+     * iterator is read in a virtual thread and the records are appended, without cloning them, in
+     * chunks in the event dispatch thread.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
+     *
+     * @param source the iterator that returns the records
+     *
+     * @return the loader
+     *
+     * @see SensibleTableLoader
+     */
+    public SensibleTableLoader<R> loadRecords(Iterator<? extends R> source) {
+
+        checkTableDataWritable();
+
+        SensibleTableLoader<R> loader = new SensibleTableLoader<R>(this);
+        loader.start(source, null);
+
+        return loader;
+    }
+
+    /**
+     * Loads the records in the given stream at the end of the table in the background and returns
+     * the loader, which notifies the progress and allows to cancel the load. The stream is
+     * consumed in a virtual thread, and closed once consumed or cancelled, and the records are
+     * appended, without cloning them, in chunks in the event dispatch thread.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
+     *
+     * @param source the stream of records
+     *
+     * @return the loader
+     *
+     * @see SensibleTableLoader
+     */
+    public SensibleTableLoader<R> loadRecords(Stream<? extends R> source) {
+
+        checkTableDataWritable();
+
+        SensibleTableLoader<R> loader = new SensibleTableLoader<R>(this);
+        loader.start(source.iterator(), source::close);
+
+        return loader;
+    }
+
+    /**
+     * Loads the records received from the given publisher at the end of the table and returns the
+     * loader, which notifies the progress and allows to cancel the load. The loader subscribes to
+     * the publisher and requests the records as it has room for them, and the records are
+     * appended, without cloning them, in chunks in the event dispatch thread.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
+     *
+     * @param source the publisher of records
+     *
+     * @return the loader
+     *
+     * @see SensibleTableLoader
+     */
+    public SensibleTableLoader<R> loadRecords(Flow.Publisher<? extends R> source) {
+
+        checkTableDataWritable();
+
+        SensibleTableLoader<R> loader = new SensibleTableLoader<R>(this);
+        loader.start(source);
+
+        return loader;
+    }
+
+    /**
+     * Returns the model rows matched by the row filter.
+     *
+     * @return the rows matched or <code>null</code> if there is no row filter
+     */
+    BitSet filterRows() {
+
+        if (rowFilter == null) {
+            return null;
+        }
+
+        return rowFilter.evaluate(filterIndex);
+    }
+
+    /**
+     * Returns the batch whose events are being fired if it has several events and any of them
+     * inserts or deletes rows, or <code>null</code> otherwise. While those events are fired the
+     * table data already has the changes of all of them, so the rows of each event may not
+     * refer to the current table data.
+     *
+     * @return the batch being fired or <code>null</code>
+     */
+    SensibleTableBatch getFiringStructuralBatch() {
+
+        if (firingBatch != null && firingBatch.isStructural() && firingBatch.getEventCount() > 1) {
+            return firingBatch;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether there is a batch of changes open.
+     *
+     * @return whether there is a batch open
+     *
+     * @see SensibleTable#beginBatch()
+     */
+    public boolean isBatchOpen() {
+
+        return batch != null;
+    }
+
+    /**
+     * Returns the <code>cursorMode</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#setCursorMode(boolean)
+     */
+    public boolean isCursorMode() {
+
+        return cursorMode;
+    }
+
+    /**
+     * Returns the <code>keyIndexed</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#setKeyIndexed(boolean)
+     */
+    public boolean isKeyIndexed() {
+
+        return keyIndex != null;
+    }
+
+    /**
+     * Returns the <code>sortable</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTable#setSortable(boolean)
+     */
+    public boolean isSortable() {
+
+        return sortable;
+    }
+
+    /**
+     * Prepares the cell renderers and editors. The editor for <code>SensibleBoolean</code>
+     * objects is a <code>SensibleCheckBox</code> component, and the editor for the rest of
+     * <code>SensibleDataType</code> objects is a <code>SensibleTextField</code> component. The
+     * renderer for boolean, numeric, date and time objects is a shared
+     * <code>SensibleTableCellRenderer</code> object (the renderer for the rest of types is not
+     * changed and an standard Swing label is used).
+     */
+    private void prepareCellRenderersAndEditors() {
+
+        if (record != null) {
+            TableColumnModel colModel = getColumnModel();
+
+            SensibleTableCellRendererAndEditor<R> editor = new SensibleTableCellRendererAndEditor<R>();
+            SensibleTableCellRenderer renderer = new SensibleTableCellRenderer();
+
+            for (int i = 0, n = getModel().getColumnCount(); i < n; i++) {
+                SensibleDataType field = record.getField(i);
+
+                if (field instanceof SensibleBoolean
+                    || field instanceof SensibleInteger || field instanceof SensibleLong
+                    || field instanceof SensibleBigDecimal || field instanceof SensibleDate
+                    || field instanceof SensibleTime || field instanceof SensibleDateTime) {
+                    colModel.getColumn(i).setCellRenderer(renderer);
+                }
+
+                colModel.getColumn(i).setCellEditor(editor);
+            }
+        }
+    }
+
+    /**
+     * Installs or removes the row sorter as given by the <code>sortable</code> and
+     * <code>rowFilter</code> properties. The installed sorter is kept while it sorts the current
+     * model, and then its sort keys are discarded if the table is not sortable and its rows are
+     * sorted and filtered again.
+     */
+    private void installRowSorter() {
+
+        if ((sortable || rowFilter != null) && record != null) {
+            if (getRowSorter() instanceof SensibleTableRowSorter<?>
+                && getRowSorter().getModel() == getModel()) {
+                @SuppressWarnings("unchecked")
+                SensibleTableRowSorter<R> sorter = (SensibleTableRowSorter<R>) getRowSorter();
+                if (!sortable) {
+                    sorter.setSortKeys(null);
+                }
+                sorter.sort();
+            } else {
+                setRowSorter(new SensibleTableRowSorter<R>(this));
+            }
+        } else {
+            setRowSorter(null);
+        }
+    }
+
+    /**
+     * Discards the indexes used to evaluate the row filter and filters the rows again. This
+     * method must be invoked whenever field values are changed directly on records already in
+     * the table data or the list in the <code>tableData</code> property is modified without using
+     * the table methods.
+     *
+     * @see SensibleTable#setRowFilter(SensibleTableFilter)
+     */
+    public void refreshFilterIndex() {
+
+        if (filterIndex != null) {
+            filterIndex.clear();
+
+            if (rowFilter != null) {
+                installRowSorter();
+            }
+        }
+    }
+
+    /**
+     * Reads again the values of the columns summarized. This method must be invoked whenever
+     * field values are changed directly on records already in the table data or the list in the
+     * <code>tableData</code> property is modified without using the table methods.
+     *
+     * @see SensibleTable#getColumnAggregate(int)
+     */
+    public void refreshColumnAggregates() {
 
-        setRowSelectionInterval(row, row);
+        if (aggregates != null) {
+            aggregates.rebuild();
+        }
     }
 
     /**
-     * Prepares the cell renderers and editors. The renderer and editor for
-     * <code>SensibleBoolean</code> objects is a <code>SensibleCheckBox</code> component, and
-     * the editor for the rest of <code>SensibleDataType</code> objects is a
-     * <code>SensibleTextField</code> component (the renderer is not changed and an standard Swing
-     * label is used).
+     * Indexes again all the table data if the <code>keyIndexed</code> property is set. This
+     * method must be invoked whenever key field values are changed directly on records already
+     * in the table data or the list in the <code>tableData</code> property is modified without
+     * using the table methods.
+     *
+     * @see SensibleTable#setKeyIndexed(boolean)
      */
-    private void prepareCellRenderersAndEditors() {
+    public void refreshKeyIndex() {
 
-        if (record != null) {
-            TableColumnModel colModel = getColumnModel();
+        if (keyIndex != null) {
+            keyIndex.rebuild(tableData);
+        }
+    }
 
-            SensibleTableCellRendererAndEditor<R> editor = new SensibleTableCellRendererAndEditor<R>();
+    /**
+     * Discards the rows materialized from the row provider and fires the table data changed
+     * event, so the row count and the visible rows are read again from the provider. This method
+     * must be invoked whenever the data in the provider changes. The journal is cleared, as the
+     * cells edited were edited in the rows discarded.
+     *
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider)
+     */
+    public void refreshRowProvider() {
 
-            for (int i = 0, n = getModel().getColumnCount(); i < n; i++) {
-                SensibleDataType field = record.getField(i);
+        if (rowWindow != null) {
+            rowWindow.clear();
 
-                if (field instanceof SensibleBoolean) {
-                    colModel.getColumn(i).setCellRenderer(editor);
-                }
+            if (journal != null) {
+                journal.clear();
+            }
 
-                colModel.getColumn(i).setCellEditor(editor);
+            if (filterIndex != null) {
+                filterIndex.clear();
             }
+
+            if (aggregates != null) {
+                aggregates.rebuild();
+            }
+
+            getModel().fireTableDataChanged();
         }
     }
 
+    /**
+     * Restores the value of a cell as kept by a journal, even if it is not valid, and fires the
+     * table model event as if the cell was edited.
+     *
+     * @param row the row index
+     * @param column the column index
+     * @param newValue the value restored
+     *
+     * @see SensibleJournal#undo()
+     */
+    void restoreCell(int row, int column, String newValue) {
+
+        getModel().changeValueAt(getRecordAt(row), newValue, row, column, true);
+    }
+
     /**
      * Changes the <code>cellsEditableInTable</code> property value and fires the property change
      * event.
@@ -943,6 +2052,114 @@ public class SensibleTable<R extends SensibleObject>
         firePropertyChange(JAVA_BEAN_PROPERTY_COLUMN_WIDTH, oldValue, columnWidth);
     }
 
+    /**
+     * Returns the row with the given key values scanning the table data.
+     *
+     * @param scanIndex the index used to build the keys, not populated
+     * @param keyValues the key field values to find
+     *
+     * @return the row index or <code>-1</code> if there is no row with those key values
+     */
+    private int scanRowByKey(SensibleTableKeyIndex<R> scanIndex, String[] keyValues) {
+
+        scanIndex.checkKeyValues(keyValues);
+
+        for (int row = 0, n = getModel().getRowCount(); row < n; row++) {
+            if (Arrays.equals(keyValues, scanIndex.keyValuesOf(getRecordAt(row)))) {
+                return row;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Changes the <code>cursorMode</code> property value and fires the property change event.
+     * When the property is set, the fields of the <code>record</code> property are bound to the
+     * fields of the row selected, so the record is a view over the row instead of a copy of it.
+     * Selecting other row binds the record to the new row without copying any value and fires
+     * only the property change event for the <code>cursorRow</code> property, instead of the
+     * events of each field and the <code>rowSelected</code> and <code>record</code> properties.
+     * The record fields are restored when no row is selected and when the property is not set.<br>
+     *
+     * While a row is bound the record must be treated as read-only, because its fields are the
+     * fields of the row. Rows are changed with the record methods of the table. The
+     * <code>dataComplete</code> property and the invalid fields of the record follow the row
+     * bound. As no field event is fired when other row is bound, a form that shows the record
+     * fields must get them again from the record on each <code>cursorRow</code> event.
+     *
+     * @param newValue the property new value
+     *
+     * @see SensibleTable#isCursorMode()
+     * @see SensibleTable#getCursorRow()
+     */
+    public void setCursorMode(boolean newValue) {
+
+        boolean oldValue = cursorMode;
+        cursorMode = newValue;
+
+        if (oldValue != newValue && record != null) {
+            // the record is set again from the selection in the new mode
+            record.unbindFields();
+            record.clear();
+            rowSelected = false;
+            lastSelectedRow = -1;
+
+            updateRecordFromSelection();
+        }
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_CURSOR_MODE, oldValue, newValue);
+    }
+
+    /**
+     * Changes the <code>journal</code> property value and fires the property change event. When
+     * the property is set, the records inserted, updated and deleted and the cells edited are
+     * recorded in the journal so they can be undone. The records loaded in the background are
+     * not recorded, and replacing the table data or refreshing the row provider clears the
+     * journal.
+     *
+     * @param newValue the property new value, or <code>null</code> to stop recording
+     *
+     * @see SensibleTable#journal
+     * @see SensibleTable#getJournal()
+     * @see SensibleJournal
+     */
+    public void setJournal(SensibleJournal newValue) {
+
+        SensibleJournal oldValue = journal;
+        journal = newValue;
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_JOURNAL, oldValue, newValue);
+    }
+
+    /**
+     * Changes the <code>keyIndexed</code> property value and fires the property change event.
+     * When the property is set, the table keeps a hash index on the key fields of the records
+     * (or on all the fields if the record has no key fields) so rows are located by key in
+     * constant time. The index is kept up to date by the table methods that change the table
+     * data.
+     *
+     * @param newValue the property new value
+     *
+     * @see SensibleTable#isKeyIndexed()
+     * @see SensibleTable#findRowByKey(SensibleObject)
+     * @see SensibleTable#findRowByKey(String...)
+     * @see SensibleTable#refreshKeyIndex()
+     */
+    public void setKeyIndexed(boolean newValue) {
+
+        boolean oldValue = keyIndex != null;
+
+        if (newValue) {
+            keyIndex = new SensibleTableKeyIndex<R>(record);
+            keyIndex.rebuild(tableData);
+        } else {
+            keyIndex = null;
+        }
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_KEY_INDEXED, oldValue, newValue);
+    }
+
     /**
      * Changes the <code>record</code> property value and fires the property change event. The
      * method also prepares the model, the column widths and the cell renderers and editors.
@@ -956,10 +2173,31 @@ public class SensibleTable<R extends SensibleObject>
 
         R oldValue = record;
 
+        if (oldValue != null) {
+            oldValue.unbindFields();
+        }
+
         record = newValue;
 
+        if (keyIndex != null) {
+            keyIndex = new SensibleTableKeyIndex<R>(record);
+            keyIndex.rebuild(tableData);
+        }
+
+        if (filterIndex != null) {
+            filterIndex.clear();
+        }
+
+        if (aggregates != null) {
+            aggregates.clear();
+        }
+
         setModel(new SensibleTableModel());
 
+        if (sortable || rowFilter != null) {
+            installRowSorter();
+        }
+
         if (columnWidth != null) {
             setColumnWidth(columnWidth);
         }
@@ -970,7 +2208,144 @@ public class SensibleTable<R extends SensibleObject>
     }
 
     /**
-     * Changes the <code>tableData</code> property value and fires the property change event.
+     * Changes the <code>rowFilter</code> property value and fires the property change event.
+     * When the property is set, a <code>SensibleTableRowSorter</code> object is installed as the
+     * table row sorter, if there is not one yet, and only the rows matched by the filter are
+     * shown. The first time a column is filtered the table builds an index with the values of
+     * the column, which is kept up to date by the methods that change the table data and is
+     * reused by the following filters on the same column. If the table data is read from a row
+     * provider, building the index reads all the rows from the provider.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the filter references a
+     * column not in the table.
+     *
+     * @param newValue the property new value or <code>null</code> to show all the rows
+     *
+     * @see SensibleTable#getRowFilter()
+     * @see SensibleTable#refreshFilterIndex()
+     * @see SensibleTableFilter
+     */
+    public void setRowFilter(SensibleTableFilter newValue) {
+
+        if (newValue != null && record != null) {
+            newValue.checkColumns(record.getFieldCount());
+        }
+
+        SensibleTableFilter oldValue = rowFilter;
+        rowFilter = newValue;
+
+        if (newValue != null && filterIndex == null) {
+            filterIndex = new SensibleTableFilterIndex(this);
+        }
+
+        installRowSorter();
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_ROW_FILTER, oldValue, newValue);
+    }
+
+    /**
+     * Changes the row provider using the default page size and number of cached pages, and
+     * fires the property change event.
+     *
+     * @param newValue the row provider or <code>null</code> to read the table data again from
+     *                 the <code>tableData</code> property
+     *
+     * @see SensibleTable#getRowProvider()
+     * @see SensibleTable#setRowProvider(SensibleTableRowProvider, int, int)
+     */
+    public final void setRowProvider(SensibleTableRowProvider<R> newValue) {
+
+        setRowProvider(newValue, DEFAULT_PROVIDER_PAGE_SIZE, DEFAULT_PROVIDER_CACHED_PAGES);
+    }
+
+    /**
+     * Changes the row provider and fires the property change event. While the row provider is
+     * set, the table reads its rows from the provider in pages of the given size and keeps at most
+     * the given number of pages in memory, discarding the least recently used ones. The table data
+     * cannot be modified with the record methods while the provider is set.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the page size or the
+     * number of cached pages is not a positive number.
+     *
+     * @param newValue the row provider or <code>null</code> to read the table data again from
+     *                 the <code>tableData</code> property
+     * @param pageSize the number of rows fetched in each page
+     * @param cachedPages the maximum number of pages kept in memory
+     *
+     * @see SensibleTable#getRowProvider()
+     * @see SensibleTable#refreshRowProvider()
+     */
+    public final void setRowProvider(SensibleTableRowProvider<R> newValue,
+                                     int pageSize, int cachedPages) {
+
+        SensibleTableRowProvider<R> oldValue = getRowProvider();
+
+        if (newValue == null) {
+            rowWindow = null;
+        } else {
+            rowWindow = new SensibleTableRowWindow<R>(newValue, pageSize, cachedPages);
+        }
+
+        if (filterIndex != null) {
+            filterIndex.clear();
+        }
+
+        if (aggregates != null) {
+            aggregates.rebuild();
+        }
+
+        if (journal != null) {
+            journal.clear();
+        }
+
+        clearSelection();
+
+        getModel().fireTableDataChanged();
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_ROW_PROVIDER, oldValue, newValue);
+    }
+
+    /**
+     * Selects the given model row, converting it to the view row.
+     *
+     * @param row the model row
+     */
+    private void selectModelRow(int row) {
+
+        int viewRow = convertRowIndexToView(row);
+
+        if (viewRow != -1) {
+            setRowSelectionInterval(viewRow, viewRow);
+        }
+    }
+
+    /**
+     * Changes the <code>sortable</code> property value and fires the property change event.
+     * When the property is set, a <code>SensibleTableRowSorter</code> object is installed as the
+     * table row sorter, so the rows are sorted clicking on the table header. The sorter is
+     * installed again whenever the record that defines the model changes. When the property is
+     * not set the row sorter is removed, unless there is a row filter, in which case the sort
+     * keys are discarded and the header clicks are ignored.
+     *
+     * @param newValue the property new value
+     *
+     * @see SensibleTable#isSortable()
+     * @see SensibleTableRowSorter
+     */
+    public void setSortable(boolean newValue) {
+
+        boolean oldValue = sortable;
+        sortable = newValue;
+
+        installRowSorter();
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_SORTABLE, oldValue, newValue);
+    }
+
+    /**
+     * Changes the <code>tableData</code> property value and fires the property change event.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
      * @param newValue the property new value
      *
@@ -980,18 +2355,128 @@ public class SensibleTable<R extends SensibleObject>
      */
     public final void setTableData(List<R> newValue) {
 
+        checkTableDataWritable();
+
         List<R> oldValue = tableData;
 
         tableData = newValue;
 
+        if (keyIndex != null) {
+            keyIndex.rebuild(tableData);
+        }
+
+        if (filterIndex != null) {
+            filterIndex.clear();
+        }
+
+        if (aggregates != null) {
+            aggregates.rebuild();
+        }
+
+        if (journal != null) {
+            journal.clear();
+        }
+
         getModel().fireTableDataChanged();
 
         firePropertyChange(JAVA_BEAN_PROPERTY_TABLE_DATA, oldValue, newValue);
     }
 
+    /**
+     * Changes the <code>tableData</code> property value and fires the property change event,
+     * notifying the table view of the changes as given by the diff mode.<br>
+     *
+     * With the <code>FULL</code> mode all the rows are replaced, as with the
+     * <code>setTableData(List)</code> method. With the <code>BY_KEY</code> mode the old and new
+     * rows are matched by the value of their key fields, or all the fields if the record has no
+     * key fields, and the table model events are fired only for the rows deleted, inserted, moved
+     * and updated, coalesced into contiguous ranges as in a batch. The row selected is kept,
+     * following it to its new position, unless it is deleted. This way, refreshing a table with
+     * the current contents of a data source keeps the scroll position and the selection, and the
+     * table view only repaints the rows that changed. If two old or two new rows have the same
+     * key, the rows cannot be matched and all the rows are replaced.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
+     *
+     * @param newValue the property new value
+     * @param mode the diff mode
+     *
+     * @see SensibleTable#tableData
+     * @see SensibleTable#getTableData()
+     * @see SensibleTable#setTableData(List)
+     * @see SensibleTableDiff
+     */
+    public final void setTableData(List<R> newValue, DiffMode mode) {
+
+        checkTableDataWritable();
+
+        SensibleTableDiff diff = mode == DiffMode.BY_KEY && record != null
+            ? SensibleTableDiff.compute(record, tableData, newValue) : null;
+
+        if (diff == null) {
+            setTableData(newValue);
+            return;
+        }
+
+        List<R> oldValue = tableData;
+
+        tableData = newValue;
+
+        beginBatch();
+
+        try {
+            if (diff.isStructural()) {
+                if (keyIndex != null) {
+                    keyIndex.rebuild(tableData);
+                }
+
+                if (filterIndex != null) {
+                    filterIndex.clear();
+                }
+
+                if (aggregates != null) {
+                    aggregates.rebuild();
+                }
+            } else {
+                // the rows keep their positions and keys, so only the rows updated are indexed
+                BitSet updated = diff.getUpdatedRows();
+                for (int row = updated.nextSetBit(0); row >= 0; row = updated.nextSetBit(row + 1)) {
+                    indexRowUpdated(row);
+                }
+            }
+
+            diff.register(batch);
+
+            if (journal != null) {
+                journal.clear();
+            }
+
+            if (lastSelectedRow != -1) {
+                int row = diff.newRowOf(lastSelectedRow);
+
+                if (row == -1) {
+                    batch.select(SensibleTableBatch.SELECTION_CLEARED);
+                } else {
+                    batch.select(row);
+
+                    // the record is only read again if the values of the row selected changed,
+                    // while in cursor mode it is bound again to the new row instance
+                    lastSelectedRow = cursorMode
+                        || oldValue.get(lastSelectedRow).equals(tableData.get(row)) ? row : -1;
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        firePropertyChange(JAVA_BEAN_PROPERTY_TABLE_DATA, oldValue, newValue);
+    }
+
     /**
      * Changes the <code>tableData</code> property value using the given array and fires the
-     * property change event.
+     * property change event.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
      * @param newValue the property new value
      *
@@ -1001,6 +2486,8 @@ public class SensibleTable<R extends SensibleObject>
      */
     public final void setTableData(R[] newValue) {
 
+        checkTableDataWritable();
+
         List<R> oldValue = tableData;
 
         tableData = new ArrayList<R>();
@@ -1009,6 +2496,22 @@ public class SensibleTable<R extends SensibleObject>
             tableData.add(newValue[i]);
         }
 
+        if (keyIndex != null) {
+            keyIndex.rebuild(tableData);
+        }
+
+        if (filterIndex != null) {
+            filterIndex.clear();
+        }
+
+        if (aggregates != null) {
+            aggregates.rebuild();
+        }
+
+        if (journal != null) {
+            journal.clear();
+        }
+
         getModel().fireTableDataChanged();
 
         firePropertyChange(JAVA_BEAN_PROPERTY_TABLE_DATA, oldValue, tableData);
@@ -1026,7 +2529,7 @@ public class SensibleTable<R extends SensibleObject>
      */
     public boolean updateRecord(R existingRecord, R newValue) {
 
-        int row = tableData.indexOf(existingRecord);
+        int row = indexOf(existingRecord);
 
         return updateRecord(row, newValue, CLONE);
     }
@@ -1046,7 +2549,7 @@ public class SensibleTable<R extends SensibleObject>
      */
     public boolean updateRecord(R existingRecord, R newValue, boolean clone) {
 
-        int row = tableData.indexOf(existingRecord);
+        int row = indexOf(existingRecord);
 
         return updateRecord(row, newValue, clone);
     }
@@ -1068,7 +2571,9 @@ public class SensibleTable<R extends SensibleObject>
 
     /**
      * Updates a record from the given new value choosing whether to clone the source object and
-     * fires the table rows updated event.
+     * fires the table rows updated event.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
      *
      * @param row the row to be updated
      * @param newValue the new value for the record
@@ -1081,27 +2586,107 @@ public class SensibleTable<R extends SensibleObject>
      */
     public boolean updateRecord(int row, R newValue, boolean clone) {
 
+        checkTableDataWritable();
+
         if (row == -1) {
             return false;
         }
 
+        if (keyIndex != null) {
+            keyIndex.updating(tableData, row);
+        }
+
+        R oldValue;
+
         if (clone) {
-            tableData.remove(row);
             @SuppressWarnings("unchecked")
             R clonedValue = (R) newValue.returnCopy();
-            tableData.add(row, clonedValue);
+            oldValue = tableData.set(row, clonedValue);
         } else {
-            tableData.remove(row);
-            tableData.add(row, newValue);
+            oldValue = tableData.set(row, newValue);
+        }
+
+        if (journal != null) {
+            journal.rowUpdated(this, row, oldValue, tableData.get(row));
+        }
+
+        if (keyIndex != null) {
+            keyIndex.updated(tableData, row);
         }
 
-        getModel().fireTableRowsUpdated(row, row);
+        indexRowUpdated(row);
 
-        setRowSelectionInterval(row, row);
+        if (batch == null) {
+            getModel().fireTableRowsUpdated(row, row);
+            selectModelRow(row);
+            updateRecordFromSelection();
+        } else {
+            batch.rowsUpdated(row, row);
+            batch.select(row);
+        }
 
         return true;
     }
 
+    /**
+     * Updates the given rows from the new values in the map cloning the source objects.
+     *
+     * @param newValues the new values for the records, by row
+     *
+     * @return the number of rows updated
+     *
+     * @see SensibleTable#updateRecords(Map, boolean)
+     */
+    public int updateRecords(Map<Integer, ? extends R> newValues) {
+
+        return updateRecords(newValues, CLONE);
+    }
+
+    /**
+     * Updates the given rows from the new values in the map choosing whether to clone the source
+     * objects. The rows are updated in a batch so the table model events are coalesced into one
+     * rows updated event for each range of contiguous rows and the selection is updated once, to
+     * the highest row updated whatever the iteration order of the map. Rows equal to
+     * <code>-1</code> are ignored.<br>
+     *
+     * An <code>IllegalStateException</code> exception is thrown if a row provider is set.
+     *
+     * @param newValues the new values for the records, by row
+     * @param clone whether to clone the source objects
+     *
+     * @return the number of rows updated
+     *
+     * @see SensibleTable#beginBatch()
+     * @see SensibleTable#CLONE
+     * @see SensibleTable#DONT_CLONE
+     */
+    public int updateRecords(Map<Integer, ? extends R> newValues, boolean clone) {
+
+        checkTableDataWritable();
+
+        int updated = 0;
+        int selected = -1;
+
+        beginBatch();
+
+        try {
+            for (Map.Entry<Integer, ? extends R> entry : newValues.entrySet()) {
+                if (updateRecord(entry.getKey(), entry.getValue(), clone)) {
+                    updated++;
+                    selected = Math.max(selected, entry.getKey());
+                }
+            }
+
+            if (selected != -1) {
+                batch.select(selected);
+            }
+        } finally {
+            endBatch();
+        }
+
+        return updated;
+    }
+
     /**
      * List selection event handler. This method changes the <code>record</code> property with the
      * row selected and fires the property change events for the <code>rowSelected</code> and
@@ -1116,9 +2701,42 @@ public class SensibleTable<R extends SensibleObject>
 
         super.valueChanged(event);
 
+        if (firingBatch == null) {
+            updateRecordFromSelection();
+        }
+    }
+
+    /**
+     * Changes the <code>record</code> property with the row selected, if it changed since the
+     * last time, and fires the property change events for the <code>rowSelected</code> and
+     * <code>record</code> properties. If the <code>cursorMode</code> property is set, the record
+     * is bound to the row selected and only the event for the <code>cursorRow</code> property is
+     * fired.
+     */
+    private void updateRecordFromSelection() {
+
         int row = getSelectionModel().getMinSelectionIndex();
 
-        if (lastSelectedRow != row) {
+        if (row != -1) {
+            row = convertRowIndexToModel(row);
+        }
+
+        if (cursorMode) {
+            // the row is bound again if it was replaced in the table data
+            if (lastSelectedRow != row || row != -1 && !record.isBoundTo(getRecordAt(row))) {
+                int oldRow = lastSelectedRow;
+                lastSelectedRow = row;
+                rowSelected = row != -1;
+
+                if (row == -1) {
+                    record.unbindFields();
+                } else {
+                    record.bindFields(getRecordAt(row));
+                }
+
+                firePropertyChange(JAVA_BEAN_PROPERTY_CURSOR_ROW, oldRow, row);
+            }
+        } else if (lastSelectedRow != row) {
             lastSelectedRow = row;
 
             @SuppressWarnings("unchecked")
@@ -1128,7 +2746,7 @@ public class SensibleTable<R extends SensibleObject>
                 record.clear();
             } else {
                 rowSelected = true;
-                record.setValue(tableData.get(row));
+                record.setValue(getRecordAt(row));
             }
 
             firePropertyChange(JAVA_BEAN_PROPERTY_ROW_SELECTED, !rowSelected, rowSelected);
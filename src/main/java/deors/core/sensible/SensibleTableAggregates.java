@@ -0,0 +1,131 @@
+package deors.core.sensible;
+
+import java.util.BitSet;
+
+/**
+ * Aggregates of the columns of a <code>SensibleTable</code> object.<br>
+ *
+ * There is one <code>SensibleTableColumnAggregate</code> object for each column summarized,
+ * created the first time the column aggregates are requested. The aggregates are kept up to date
+ * by the table methods that change the table data, and read again from the rows when the table
+ * data is replaced, so the objects returned to the application remain valid until the record
+ * that defines the table model changes.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableAggregates {
+
+    /**
+     * The table.
+     */
+    private final SensibleTable<?> table;
+
+    /**
+     * The column aggregates, or <code>null</code> for the columns not summarized.
+     */
+    private SensibleTableColumnAggregate[] columns;
+
+    /**
+     * Constructor that sets the table to be summarized.
+     *
+     * @param table the table
+     */
+    SensibleTableAggregates(SensibleTable<?> table) {
+
+        super();
+
+        this.table = table;
+
+        clear();
+    }
+
+    /**
+     * Discards all the column aggregates.
+     */
+    void clear() {
+
+        SensibleObject record = table.getRecord();
+
+        columns = new SensibleTableColumnAggregate[record == null ? 0 : record.getFieldCount()];
+    }
+
+    /**
+     * Returns the aggregates of the given column, reading the column values if needed.
+     *
+     * @param column the column index
+     *
+     * @return the column aggregates
+     */
+    SensibleTableColumnAggregate getColumnAggregate(int column) {
+
+        if (columns[column] == null) {
+            columns[column] = new SensibleTableColumnAggregate(table, column);
+        }
+
+        return columns[column];
+    }
+
+    /**
+     * Reads again the values of all the columns summarized.
+     */
+    void rebuild() {
+
+        for (SensibleTableColumnAggregate aggregate : columns) {
+            if (aggregate != null) {
+                aggregate.rebuild();
+            }
+        }
+    }
+
+    /**
+     * Updates the column aggregates after a row was inserted in the table.
+     *
+     * @param row the row inserted
+     */
+    void inserted(int row) {
+
+        for (SensibleTableColumnAggregate aggregate : columns) {
+            if (aggregate != null) {
+                aggregate.inserted(row);
+            }
+        }
+    }
+
+    /**
+     * Updates the column aggregates after a row was updated in the table.
+     *
+     * @param row the row updated
+     */
+    void updated(int row) {
+
+        for (SensibleTableColumnAggregate aggregate : columns) {
+            if (aggregate != null) {
+                aggregate.updated(row);
+            }
+        }
+    }
+
+    /**
+     * Updates the column aggregates after some rows were deleted from the table. The rows are
+     * given in the positions they had before any of them was deleted.
+     *
+     * @param rows the rows deleted
+     */
+    void deleted(BitSet rows) {
+
+        int[] newRows = null;
+
+        for (SensibleTableColumnAggregate aggregate : columns) {
+            if (aggregate != null) {
+                if (newRows == null) {
+                    newRows = new int[aggregate.size()];
+                    for (int row = 0, target = 0; row < newRows.length; row++) {
+                        newRows[row] = rows.get(row) ? -1 : target++;
+                    }
+                }
+                aggregate.deleted(newRows);
+            }
+        }
+    }
+}
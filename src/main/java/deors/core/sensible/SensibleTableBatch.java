@@ -0,0 +1,257 @@
+package deors.core.sensible;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Pending changes of a <code>SensibleTable</code> object while a batch is open.<br>
+ *
+ * The table model events are not fired while the batch is open. Instead, the rows inserted,
+ * updated and deleted are registered here, merging each change with the previous one when both
+ * are of the same type and the ranges are contiguous, so a sequence of appends or of deletions
+ * of consecutive rows becomes a single event. When the batch only contains updates, the rows
+ * updated are tracked in a bit set and one event is fired for each contiguous range of rows.
+ * The events are fired in the order they were registered, so the listeners always see a
+ * consistent sequence of changes.<br>
+ *
+ * The selection requested by the last change is also kept so the table selection is only
+ * updated once when the batch is closed.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableBatch {
+
+    /**
+     * Rows inserted event type.
+     */
+    private static final int INSERT = 0;
+
+    /**
+     * Rows updated event type.
+     */
+    private static final int UPDATE = 1;
+
+    /**
+     * Rows deleted event type.
+     */
+    private static final int DELETE = 2;
+
+    /**
+     * Selection value meaning that no change in the selection was requested.
+     */
+    static final int SELECTION_UNCHANGED = -2;
+
+    /**
+     * Selection value meaning that the selection must be cleared.
+     */
+    static final int SELECTION_CLEARED = -1;
+
+    /**
+     * The type of each pending event.
+     */
+    private int[] types = new int[16];
+
+    /**
+     * The first row of each pending event.
+     */
+    private int[] firsts = new int[16];
+
+    /**
+     * The last row of each pending event.
+     */
+    private int[] lasts = new int[16];
+
+    /**
+     * The number of pending events.
+     */
+    private int count;
+
+    /**
+     * Whether any row was inserted or deleted.
+     */
+    private boolean structural;
+
+    /**
+     * The rows updated, used when the batch only contains updates.
+     */
+    private final BitSet updatedRows = new BitSet();
+
+    /**
+     * The row to be selected when the batch is closed.
+     */
+    private int selection = SELECTION_UNCHANGED;
+
+    /**
+     * Default constructor.
+     */
+    SensibleTableBatch() {
+
+        super();
+    }
+
+    /**
+     * Registers rows inserted in the table data.
+     *
+     * @param first the first row inserted
+     * @param last the last row inserted
+     */
+    void rowsInserted(int first, int last) {
+
+        structural = true;
+
+        if (count > 0 && types[count - 1] == INSERT
+            && first >= firsts[count - 1] && first <= lasts[count - 1] + 1) {
+            lasts[count - 1] += last - first + 1;
+        } else {
+            add(INSERT, first, last);
+        }
+    }
+
+    /**
+     * Registers rows updated in the table data.
+     *
+     * @param first the first row updated
+     * @param last the last row updated
+     */
+    void rowsUpdated(int first, int last) {
+
+        updatedRows.set(first, last + 1);
+
+        if (count > 0 && types[count - 1] == UPDATE
+            && first <= lasts[count - 1] + 1 && last >= firsts[count - 1] - 1) {
+            firsts[count - 1] = Math.min(first, firsts[count - 1]);
+            lasts[count - 1] = Math.max(last, lasts[count - 1]);
+        } else {
+            add(UPDATE, first, last);
+        }
+    }
+
+    /**
+     * Registers rows deleted from the table data. The rows are given in the positions they had
+     * just before they were deleted.
+     *
+     * @param first the first row deleted
+     * @param last the last row deleted
+     */
+    void rowsDeleted(int first, int last) {
+
+        structural = true;
+
+        // after the previous deletion the rows that followed it moved to its first position,
+        // so a deletion that touches that position extends the same range of original rows
+        if (count > 0 && types[count - 1] == DELETE
+            && first <= firsts[count - 1] && firsts[count - 1] <= last + 1) {
+            lasts[count - 1] = last + lasts[count - 1] - firsts[count - 1] + 1;
+            firsts[count - 1] = first;
+        } else {
+            add(DELETE, first, last);
+        }
+    }
+
+    /**
+     * Adds a new pending event.
+     *
+     * @param type the event type
+     * @param first the first row
+     * @param last the last row
+     */
+    private void add(int type, int first, int last) {
+
+        if (count == types.length) {
+            types = Arrays.copyOf(types, count * 2);
+            firsts = Arrays.copyOf(firsts, count * 2);
+            lasts = Arrays.copyOf(lasts, count * 2);
+        }
+
+        types[count] = type;
+        firsts[count] = first;
+        lasts[count] = last;
+        count++;
+    }
+
+    /**
+     * Registers the row to be selected when the batch is closed.
+     *
+     * @param row the row to be selected or <code>SELECTION_CLEARED</code> to clear the selection
+     */
+    void select(int row) {
+
+        selection = row;
+    }
+
+    /**
+     * Returns the row to be selected when the batch is closed.
+     *
+     * @return the row to be selected, <code>SELECTION_CLEARED</code> if the selection must be
+     *         cleared or <code>SELECTION_UNCHANGED</code> if the selection was not changed
+     */
+    int getSelection() {
+
+        return selection;
+    }
+
+    /**
+     * Returns the number of events that will be fired.
+     *
+     * @return the number of events
+     */
+    int getEventCount() {
+
+        if (structural) {
+            return count;
+        }
+
+        int events = 0;
+
+        for (int i = updatedRows.nextSetBit(0); i >= 0; i = updatedRows.nextSetBit(i)) {
+            events++;
+            i = updatedRows.nextClearBit(i);
+        }
+
+        return events;
+    }
+
+    /**
+     * Returns whether any row was inserted or deleted.
+     *
+     * @return whether any row was inserted or deleted
+     */
+    boolean isStructural() {
+
+        return structural;
+    }
+
+    /**
+     * Fires the pending events in the given table model.
+     *
+     * @param model the table model
+     */
+    void fire(AbstractTableModel model) {
+
+        if (!structural) {
+            for (int i = updatedRows.nextSetBit(0); i >= 0; i = updatedRows.nextSetBit(i)) {
+                int last = updatedRows.nextClearBit(i);
+                model.fireTableRowsUpdated(i, last - 1);
+                i = last;
+            }
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            switch (types[i]) {
+                case INSERT:
+                    model.fireTableRowsInserted(firsts[i], lasts[i]);
+                    break;
+                case UPDATE:
+                    model.fireTableRowsUpdated(firsts[i], lasts[i]);
+                    break;
+                default:
+                    model.fireTableRowsDeleted(firsts[i], lasts[i]);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,706 @@
+package deors.core.sensible;
+
+import static deors.core.sensible.SensibleContext.getConfigurationProperty;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.JToggleButton;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Definition for a flyweight cell renderer for <code>SensibleDataType</code> values.<br>
+ *
+ * The renderer keeps one reusable component for each kind of data type: a check box for
+ * <code>SensibleBoolean</code> values, a right-aligned text for numeric values, a centered text
+ * for date and time values, and a left-aligned text for the rest of the data types. Rendering a
+ * cell only changes the state of the component for the value type, so no objects are created
+ * while the table is painted.<br>
+ *
+ * The text components do not use a <code>String</code> object for the text. The characters are
+ * copied from the data type value, or formatted in the case of <code>SensibleInteger</code> and
+ * <code>SensibleLong</code> values which are shown with group separators, into a buffer owned by
+ * the component, which paints them directly. <code>SensibleBigDecimal</code> values are already
+ * stored with their own group separator and are shown as they are.<br>
+ *
+ * As in <code>DefaultTableCellRenderer</code>, the components override the methods that
+ * validate, repaint and fire property change events, because they are only used as rubber
+ * stamps.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+public class SensibleTableCellRenderer
+    implements TableCellRenderer, java.io.Serializable {
+
+    /**
+     * Serialization ID.
+     */
+    private static final long serialVersionUID = -5322906817853624516L;
+
+    /**
+     * The default group separator used for integer and long values. Configurable in the
+     * properties file using the key <code>format.defaultGroupSeparator</code>, the same used by
+     * <code>SensibleBigDecimal</code>. Default value is <code>'.'</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, char)
+     */
+    private static final char DEFAULT_GROUP_SEPARATOR =
+        getConfigurationProperty("format.defaultGroupSeparator", '.'); //$NON-NLS-1$
+
+    /**
+     * The space left between the cell border and the text.
+     */
+    private static final int TEXT_GAP = 2;
+
+    /**
+     * The component used for boolean values.
+     */
+    private final CheckComponent checkComponent = new CheckComponent();
+
+    /**
+     * The component used for numeric values.
+     */
+    private final TextComponent numberComponent = new TextComponent(SwingConstants.RIGHT);
+
+    /**
+     * The component used for date and time values.
+     */
+    private final TextComponent temporalComponent = new TextComponent(SwingConstants.CENTER);
+
+    /**
+     * The component used for the rest of values.
+     */
+    private final TextComponent textComponent = new TextComponent(SwingConstants.LEFT);
+
+    /**
+     * The group separator used for integer and long values.
+     *
+     * @see SensibleTableCellRenderer#getGroupSeparator()
+     * @see SensibleTableCellRenderer#setGroupSeparator(char)
+     */
+    private char groupSeparator = DEFAULT_GROUP_SEPARATOR;
+
+    /**
+     * Definition for the text component.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    static final class TextComponent
+        extends JComponent {
+
+        /**
+         * Serialization ID.
+         */
+        private static final long serialVersionUID = 4204637616830155567L;
+
+        /**
+         * The maximum number of characters of a long value formatted with group separators.
+         */
+        private static final int NUMBER_LENGTH = 32;
+
+        /**
+         * The text alignment.
+         */
+        private final int alignment;
+
+        /**
+         * The buffer with the text characters.
+         */
+        private char[] chars = new char[NUMBER_LENGTH];
+
+        /**
+         * The position of the first character of the text in the buffer.
+         */
+        private int offset;
+
+        /**
+         * The number of characters of the text.
+         */
+        private int length;
+
+        /**
+         * Whether the cell has the focus.
+         */
+        private boolean focused;
+
+        /**
+         * Constructor that sets the text alignment.
+         *
+         * @param alignment the text alignment, one of <code>SwingConstants.LEFT</code>,
+         *                  <code>SwingConstants.CENTER</code> or <code>SwingConstants.RIGHT</code>
+         */
+        TextComponent(int alignment) {
+
+            super();
+
+            this.alignment = alignment;
+
+            setOpaque(true);
+            setBorder(FocusBorders.NO_FOCUS);
+        }
+
+        /**
+         * Changes whether the cell has the focus.
+         *
+         * @param newValue whether the cell has the focus
+         */
+        void setFocused(boolean newValue) {
+
+            focused = newValue;
+        }
+
+        /**
+         * Paints the focus border if the cell has the focus. The border is painted here instead
+         * of being set in the component because setting a border computes its insets.
+         *
+         * @param g the graphics context
+         */
+        @Override
+        protected void paintBorder(Graphics g) {
+
+            if (focused) {
+                FocusBorders.FOCUS.paintBorder(this, g, 0, 0, getWidth(), getHeight());
+            }
+        }
+
+        /**
+         * Returns the text being rendered. This method creates a new string and is not used
+         * while painting.
+         *
+         * @return the text
+         */
+        String getText() {
+
+            return new String(chars, offset, length);
+        }
+
+        /**
+         * Sets the text from the given string.
+         *
+         * @param text the text
+         */
+        void setText(String text) {
+
+            int n = text.length();
+
+            if (n > chars.length) {
+                chars = new char[Math.max(n, chars.length * 2)];
+            }
+
+            text.getChars(0, n, chars, 0);
+            offset = 0;
+            length = n;
+        }
+
+        /**
+         * Sets the text from the given number, formatted with the given group separator.
+         *
+         * @param number the number
+         * @param separator the group separator
+         */
+        void setNumber(long number, char separator) {
+
+            int position = chars.length;
+            boolean negative = number < 0;
+            long n = negative ? number : -number;
+            int digits = 0;
+
+            // the number is handled as negative so the minimum long value can be formatted
+            do {
+                if (digits > 0 && digits % 3 == 0) {
+                    chars[--position] = separator;
+                }
+                chars[--position] = (char) ('0' - n % 10);
+                n /= 10;
+                digits++;
+            } while (n != 0);
+
+            if (negative) {
+                chars[--position] = '-';
+            }
+
+            offset = position;
+            length = chars.length - position;
+        }
+
+        /**
+         * Paints the background and the text.
+         *
+         * @param g the graphics context
+         */
+        @Override
+        protected void paintComponent(Graphics g) {
+
+            int width = getWidth();
+            int height = getHeight();
+
+            if (isOpaque()) {
+                g.setColor(getBackground());
+                g.fillRect(0, 0, width, height);
+            }
+
+            if (length == 0) {
+                return;
+            }
+
+            Font font = getFont();
+            FontMetrics metrics = getFontMetrics(font);
+
+            int x;
+            if (alignment == SwingConstants.RIGHT) {
+                x = width - TEXT_GAP - metrics.charsWidth(chars, offset, length);
+            } else if (alignment == SwingConstants.CENTER) {
+                x = (width - metrics.charsWidth(chars, offset, length)) / 2;
+            } else {
+                x = TEXT_GAP;
+            }
+
+            int y = (height - metrics.getHeight()) / 2 + metrics.getAscent();
+
+            g.setFont(font);
+            g.setColor(getForeground());
+            g.drawChars(chars, offset, length, x, y);
+        }
+
+        /**
+         * Returns the preferred size of the component, wide enough for the current text.
+         *
+         * @return the preferred size
+         */
+        @Override
+        public Dimension getPreferredSize() {
+
+            FontMetrics metrics = getFontMetrics(getFont());
+
+            return new Dimension(metrics.charsWidth(chars, offset, length) + TEXT_GAP * 2,
+                metrics.getHeight() + TEXT_GAP);
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void invalidate() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void validate() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void revalidate() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param tm not used
+         * @param x not used
+         * @param y not used
+         * @param width not used
+         * @param height not used
+         */
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param r not used
+         */
+        @Override
+        public void repaint(Rectangle r) {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void repaint() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param propertyName not used
+         * @param oldValue not used
+         * @param newValue not used
+         */
+        @Override
+        protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param propertyName not used
+         * @param oldValue not used
+         * @param newValue not used
+         */
+        @Override
+        public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+            // the component is a rubber stamp
+        }
+    }
+
+    /**
+     * Definition for the check box component.<br>
+     *
+     * The button model changes its state without firing events, because the default model
+     * creates an item event each time the selection changes.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    static final class CheckComponent
+        extends JCheckBox {
+
+        /**
+         * Serialization ID.
+         */
+        private static final long serialVersionUID = -4086297826335325113L;
+
+        /**
+         * Whether the cell has the focus.
+         */
+        private boolean focused;
+
+        /**
+         * Default constructor.
+         */
+        CheckComponent() {
+
+            super();
+
+            setModel(new JToggleButton.ToggleButtonModel() {
+
+                private static final long serialVersionUID = 2271838547426412380L;
+
+                @Override
+                public void setSelected(boolean b) {
+
+                    stateMask = b ? stateMask | SELECTED : stateMask & ~SELECTED;
+                }
+
+                @Override
+                public void setEnabled(boolean b) {
+
+                    stateMask = b ? stateMask | ENABLED : stateMask & ~ENABLED;
+                }
+            });
+
+            setHorizontalAlignment(SwingConstants.CENTER);
+            setBorder(FocusBorders.NO_FOCUS);
+            setBorderPainted(true);
+            setOpaque(true);
+        }
+
+        /**
+         * Changes whether the cell has the focus.
+         *
+         * @param newValue whether the cell has the focus
+         */
+        void setFocused(boolean newValue) {
+
+            focused = newValue;
+        }
+
+        /**
+         * Paints the focus border if the cell has the focus. The border is painted here instead
+         * of being set in the component because setting a border computes its insets.
+         *
+         * @param g the graphics context
+         */
+        @Override
+        protected void paintBorder(Graphics g) {
+
+            if (focused) {
+                FocusBorders.FOCUS.paintBorder(this, g, 0, 0, getWidth(), getHeight());
+            }
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void invalidate() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void validate() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void revalidate() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param tm not used
+         * @param x not used
+         * @param y not used
+         * @param width not used
+         * @param height not used
+         */
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param r not used
+         */
+        @Override
+        public void repaint(Rectangle r) {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         */
+        @Override
+        public void repaint() {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param propertyName not used
+         * @param oldValue not used
+         * @param newValue not used
+         */
+        @Override
+        protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+            // the component is a rubber stamp
+        }
+
+        /**
+         * Overridden for performance reasons.
+         *
+         * @param propertyName not used
+         * @param oldValue not used
+         * @param newValue not used
+         */
+        @Override
+        public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+            // the component is a rubber stamp
+        }
+    }
+
+    /**
+     * Default constructor.
+     */
+    public SensibleTableCellRenderer() {
+
+        super();
+    }
+
+    /**
+     * Returns the <code>groupSeparator</code> property value.
+     *
+     * @return the property value
+     *
+     * @see SensibleTableCellRenderer#groupSeparator
+     * @see SensibleTableCellRenderer#setGroupSeparator(char)
+     */
+    public char getGroupSeparator() {
+
+        return groupSeparator;
+    }
+
+    /**
+     * Returns the component used to render the cell referenced by the given parameters. The
+     * component returned is one of the components owned by the renderer, chosen by the value
+     * type, and it is configured with the value, the table colors and the table font.
+     *
+     * @param table the table being painted
+     * @param value the value being painted
+     * @param isSelected whether the cell is selected
+     * @param hasFocus whether the cell has the focus
+     * @param row the row being painted
+     * @param column the column being painted
+     *
+     * @return the renderer component
+     */
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value,
+                                                   boolean isSelected, boolean hasFocus,
+                                                   int row, int column) {
+
+        JComponent component;
+
+        if (value instanceof SensibleBoolean) {
+            SensibleBoolean flag = (SensibleBoolean) value;
+            checkComponent.setSelected(flag.booleanValue());
+            checkComponent.setEnabled(!flag.readOnly);
+            checkComponent.setFocused(hasFocus);
+            component = checkComponent;
+        } else {
+            TextComponent text = prepareText(value);
+            text.setFocused(hasFocus);
+            component = text;
+        }
+
+        Color foreground;
+        Color background;
+
+        if (isSelected) {
+            foreground = table.getSelectionForeground();
+            background = table.getSelectionBackground();
+        } else {
+            foreground = table.getForeground();
+            background = table.getBackground();
+        }
+
+        component.setForeground(foreground);
+        component.setBackground(background);
+        component.setFont(table.getFont());
+
+        return component;
+    }
+
+    /**
+     * Sets the text of the component for the given value type and returns it.
+     *
+     * @param value the value being painted
+     *
+     * @return the text component for the value type
+     */
+    private TextComponent prepareText(Object value) {
+
+        TextComponent component;
+
+        if (value instanceof SensibleInteger) {
+            setNumber(numberComponent, (SensibleInteger) value, ((SensibleInteger) value).intValue());
+            component = numberComponent;
+        } else if (value instanceof SensibleLong) {
+            setNumber(numberComponent, (SensibleLong) value, ((SensibleLong) value).longValue());
+            component = numberComponent;
+        } else if (value instanceof SensibleBigDecimal) {
+            numberComponent.setText(((SensibleDataType) value).value);
+            component = numberComponent;
+        } else if (value instanceof SensibleDate || value instanceof SensibleTime
+            || value instanceof SensibleDateTime) {
+            temporalComponent.setText(((SensibleDataType) value).value);
+            component = temporalComponent;
+        } else if (value instanceof SensibleDataType) {
+            textComponent.setText(((SensibleDataType) value).value);
+            component = textComponent;
+        } else {
+            textComponent.setText(value == null ? "" : value.toString()); //$NON-NLS-1$
+            component = textComponent;
+        }
+
+        return component;
+    }
+
+    /**
+     * Sets the text of the given component from a numeric data type value. Valid values are
+     * formatted with the group separator while clear or invalid values are shown as they are.
+     *
+     * @param component the component
+     * @param field the data type
+     * @param number the numeric value
+     */
+    private void setNumber(TextComponent component, SensibleDataType field, long number) {
+
+        if (field.valid && !field.isClear()) {
+            component.setNumber(number, groupSeparator);
+        } else {
+            component.setText(field.value);
+        }
+    }
+
+    /**
+     * Changes the <code>groupSeparator</code> property value.
+     *
+     * @param newValue the property new value
+     *
+     * @see SensibleTableCellRenderer#groupSeparator
+     * @see SensibleTableCellRenderer#getGroupSeparator()
+     */
+    public void setGroupSeparator(char newValue) {
+
+        groupSeparator = newValue;
+    }
+
+    /**
+     * Borders used to show the cell with the focus, read once from the look and feel.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class FocusBorders {
+
+        /**
+         * The border used when the cell has the focus.
+         */
+        static final Border FOCUS = focusBorder();
+
+        /**
+         * The border used when the cell does not have the focus.
+         */
+        static final Border NO_FOCUS = new EmptyBorder(1, 1, 1, 1);
+
+        /**
+         * Private constructor to avoid instantiation.
+         */
+        private FocusBorders() {
+
+            super();
+        }
+
+        /**
+         * Returns the look and feel border for the cell with the focus.
+         *
+         * @return the border
+         */
+        private static Border focusBorder() {
+
+            Border border = UIManager.getBorder("Table.focusCellHighlightBorder"); //$NON-NLS-1$
+
+            return border == null ? new EmptyBorder(1, 1, 1, 1) : border;
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package deors.core.sensible;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sum, count, minimum and maximum of the values of a numeric column of a
+ * <code>SensibleTable</code> object.<br>
+ *
+ * The aggregates are returned by the <code>getColumnAggregate()</code> method of the table and
+ * kept up to date by the table methods that change the table data, including the changes made in
+ * a batch, so reading them does not scan the rows. Fields with an empty value are not counted.<br>
+ *
+ * The values are the typed keys of the column, as built by a
+ * <code>SensibleTableColumnKeys</code> object. For integer, long and big decimal columns whose
+ * precision fits in a <code>long</code> value, the values are <code>long</code> numbers scaled by
+ * the maximum number of fractional digits and the sum is kept exactly in a 128 bits accumulator,
+ * so changing a row does not allocate any object. For big decimal columns with no precision limit
+ * the sum is kept as a <code>BigDecimal</code> number. The minimum and the maximum are kept in
+ * heaps where the values removed are discarded when they reach the top.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleTable#getColumnAggregate(int)
+ */
+public final class SensibleTableColumnAggregate {
+
+    /**
+     * The key of the fields with an empty value in columns with <code>long</code> keys.
+     */
+    private static final long CLEAR = Long.MIN_VALUE;
+
+    /**
+     * The minimum number of values removed before the heaps are compacted.
+     */
+    private static final int MIN_COMPACT_SIZE = 64;
+
+    /**
+     * The table.
+     */
+    private final SensibleTable<?> table;
+
+    /**
+     * The column index.
+     */
+    private final int column;
+
+    /**
+     * The column keys, by model row.
+     */
+    private SensibleTableColumnKeys keys;
+
+    /**
+     * The number of rows with a value.
+     */
+    private int count;
+
+    /**
+     * The high 64 bits of the sum of the <code>long</code> keys.
+     */
+    private long sumHigh;
+
+    /**
+     * The low 64 bits of the sum of the <code>long</code> keys.
+     */
+    private long sumLow;
+
+    /**
+     * The sum of the object keys.
+     */
+    private BigDecimal objectSum;
+
+    /**
+     * The <code>long</code> keys, ordered from the minimum.
+     */
+    private LongHeap minLongs;
+
+    /**
+     * The <code>long</code> keys, ordered from the maximum.
+     */
+    private LongHeap maxLongs;
+
+    /**
+     * The object keys, ordered from the minimum.
+     */
+    private ObjectHeap minObjects;
+
+    /**
+     * The object keys, ordered from the maximum.
+     */
+    private ObjectHeap maxObjects;
+
+    /**
+     * Heap of <code>long</code> values that supports removing any value. The values removed are
+     * kept in other heap with the same order and both tops are discarded while they are equal.
+     * When the values removed are many, both heaps are sorted and the values removed are dropped
+     * at once, as a sorted array is also a valid heap.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class LongHeap {
+
+        /**
+         * Whether the top is the maximum value. In that case the heap keeps the bitwise
+         * complement of the values, which reverses their order without overflow.
+         */
+        private final boolean reversed;
+
+        /**
+         * The values, as a binary heap with the least value on top.
+         */
+        private long[] values = new long[16];
+
+        /**
+         * The number of values, including the ones removed but not yet discarded.
+         */
+        private int size;
+
+        /**
+         * The values removed, as a binary heap with the least value on top.
+         */
+        private long[] removed = new long[16];
+
+        /**
+         * The number of values removed but not yet discarded.
+         */
+        private int removedSize;
+
+        /**
+         * Constructor that sets the order of the heap.
+         *
+         * @param reversed whether the top is the maximum value
+         */
+        LongHeap(boolean reversed) {
+
+            super();
+
+            this.reversed = reversed;
+        }
+
+        /**
+         * Adds a value.
+         *
+         * @param value the value
+         */
+        void add(long value) {
+
+            values = push(values, size++, reversed ? ~value : value);
+        }
+
+        /**
+         * Removes a value previously added.
+         *
+         * @param value the value
+         */
+        void remove(long value) {
+
+            removed = push(removed, removedSize++, reversed ? ~value : value);
+
+            if (removedSize >= MIN_COMPACT_SIZE && removedSize * 2 > size) {
+                compact();
+            }
+        }
+
+        /**
+         * Returns the value on top. Only valid if there are values not removed.
+         *
+         * @return the minimum or maximum value
+         */
+        long peek() {
+
+            while (removedSize > 0 && values[0] == removed[0]) {
+                pop(values, size--);
+                pop(removed, removedSize--);
+            }
+
+            return reversed ? ~values[0] : values[0];
+        }
+
+        /**
+         * Drops the values removed.
+         */
+        private void compact() {
+
+            Arrays.sort(values, 0, size);
+            Arrays.sort(removed, 0, removedSize);
+
+            int target = 0;
+
+            for (int i = 0, j = 0; i < size; i++) {
+                if (j < removedSize && values[i] == removed[j]) {
+                    j++;
+                } else {
+                    values[target++] = values[i];
+                }
+            }
+
+            size = target;
+            removedSize = 0;
+        }
+
+        /**
+         * Adds a value to a binary heap.
+         *
+         * @param heap the heap
+         * @param size the number of values in the heap
+         * @param value the value
+         *
+         * @return the heap, grown if it was full
+         */
+        private static long[] push(long[] heap, int size, long value) {
+
+            long[] result = size == heap.length ? Arrays.copyOf(heap, size * 2) : heap;
+            int i = size;
+
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (result[parent] <= value) {
+                    break;
+                }
+                result[i] = result[parent];
+                i = parent;
+            }
+
+            result[i] = value;
+
+            return result;
+        }
+
+        /**
+         * Removes the value on top of a binary heap.
+         *
+         * @param heap the heap
+         * @param size the number of values in the heap before removing the top
+         */
+        private static void pop(long[] heap, int size) {
+
+            int n = size - 1;
+            long last = heap[n];
+            int i = 0;
+
+            while (2 * i + 1 < n) {
+                int child = 2 * i + 1;
+                if (child + 1 < n && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+
+            heap[i] = last;
+        }
+    }
+
+    /**
+     * Heap of <code>BigDecimal</code> values that supports removing any value, discarding the
+     * values removed when they reach the top.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class ObjectHeap {
+
+        /**
+         * The order of the heap.
+         */
+        private final Comparator<BigDecimal> order;
+
+        /**
+         * The values, including the ones removed but not yet discarded.
+         */
+        private PriorityQueue<BigDecimal> values;
+
+        /**
+         * The values removed but not yet discarded.
+         */
+        private PriorityQueue<BigDecimal> removed;
+
+        /**
+         * Constructor that sets the order of the heap.
+         *
+         * @param reversed whether the top is the maximum value
+         */
+        ObjectHeap(boolean reversed) {
+
+            super();
+
+            this.order = reversed ? Collections.reverseOrder() : Comparator.naturalOrder();
+            this.values = new PriorityQueue<BigDecimal>(order);
+            this.removed = new PriorityQueue<BigDecimal>(order);
+        }
+
+        /**
+         * Adds a value.
+         *
+         * @param value the value
+         */
+        void add(BigDecimal value) {
+
+            values.add(value);
+        }
+
+        /**
+         * Removes a value previously added.
+         *
+         * @param value the value
+         */
+        void remove(BigDecimal value) {
+
+            removed.add(value);
+
+            if (removed.size() >= MIN_COMPACT_SIZE && removed.size() * 2 > values.size()) {
+                compact();
+            }
+        }
+
+        /**
+         * Returns the value on top. Only valid if there are values not removed.
+         *
+         * @return the minimum or maximum value
+         */
+        BigDecimal peek() {
+
+            while (!removed.isEmpty() && order.compare(values.peek(), removed.peek()) == 0) {
+                values.poll();
+                removed.poll();
+            }
+
+            return values.peek();
+        }
+
+        /**
+         * Drops the values removed.
+         */
+        private void compact() {
+
+            List<BigDecimal> sortedValues = new ArrayList<BigDecimal>(values);
+            List<BigDecimal> sortedRemoved = new ArrayList<BigDecimal>(removed);
+            sortedValues.sort(order);
+            sortedRemoved.sort(order);
+
+            List<BigDecimal> kept = new ArrayList<BigDecimal>(sortedValues.size());
+
+            for (int i = 0, j = 0, n = sortedValues.size(); i < n; i++) {
+                if (j < sortedRemoved.size()
+                    && order.compare(sortedValues.get(i), sortedRemoved.get(j)) == 0) {
+                    j++;
+                } else {
+                    kept.add(sortedValues.get(i));
+                }
+            }
+
+            values = new PriorityQueue<BigDecimal>(Math.max(1, kept.size()), order);
+            values.addAll(kept);
+            removed.clear();
+        }
+    }
+
+    /**
+     * Constructor that reads the values of the given column.
+     *
+     * @param table the table
+     * @param column the column index
+     */
+    SensibleTableColumnAggregate(SensibleTable<?> table, int column) {
+
+        super();
+
+        this.table = table;
+        this.column = column;
+
+        rebuild();
+    }
+
+    /**
+     * Returns whether the given field is of a type that can be summarized.
+     *
+     * @param field the field
+     *
+     * @return whether the field is an integer, long or big decimal field
+     */
+    static boolean isNumeric(SensibleDataType field) {
+
+        return field instanceof SensibleInteger || field instanceof SensibleLong
+            || field instanceof SensibleBigDecimal;
+    }
+
+    /**
+     * Reads again the values of all the rows in the table.
+     */
+    void rebuild() {
+
+        keys = new SensibleTableColumnKeys(table.getRecord(), column);
+        keys.extract(table, table.getModel().getRowCount());
+
+        count = 0;
+        sumHigh = 0;
+        sumLow = 0;
+        objectSum = BigDecimal.ZERO;
+
+        if (keys.isPrimitive()) {
+            minLongs = new LongHeap(false);
+            maxLongs = new LongHeap(true);
+        } else {
+            minObjects = new ObjectHeap(false);
+            maxObjects = new ObjectHeap(true);
+        }
+
+        for (int row = 0, n = keys.size(); row < n; row++) {
+            add(row);
+        }
+    }
+
+    /**
+     * Updates the aggregates after a row was inserted in the table.
+     *
+     * @param row the row inserted
+     */
+    void inserted(int row) {
+
+        keys.inserted(table, row);
+        add(row);
+    }
+
+    /**
+     * Updates the aggregates after a row was updated in the table.
+     *
+     * @param row the row updated
+     */
+    void updated(int row) {
+
+        remove(row);
+        keys.extract(table, row, row);
+        add(row);
+    }
+
+    /**
+     * Updates the aggregates after some rows were deleted from the table.
+     *
+     * @param newRows the new position of each row, or <code>-1</code> for the rows deleted
+     */
+    void deleted(int[] newRows) {
+
+        for (int row = 0; row < newRows.length; row++) {
+            if (newRows[row] == -1) {
+                remove(row);
+            }
+        }
+
+        keys.deleted(newRows);
+    }
+
+    /**
+     * Returns the number of rows read.
+     *
+     * @return the number of rows
+     */
+    int size() {
+
+        return keys.size();
+    }
+
+    /**
+     * Adds the value of a row to the aggregates.
+     *
+     * @param row the row
+     */
+    private void add(int row) {
+
+        if (keys.isPrimitive()) {
+            long value = keys.longAt(row);
+
+            if (value != CLEAR) {
+                count++;
+
+                // the carry of the low bits is added to the high bits
+                long low = sumLow + value;
+                sumHigh += (value >> 63) + (Long.compareUnsigned(low, sumLow) < 0 ? 1 : 0);
+                sumLow = low;
+
+                minLongs.add(value);
+                maxLongs.add(value);
+            }
+        } else {
+            BigDecimal value = (BigDecimal) keys.objectAt(row);
+
+            if (value != null) {
+                count++;
+                objectSum = objectSum.add(value);
+                minObjects.add(value);
+                maxObjects.add(value);
+            }
+        }
+    }
+
+    /**
+     * Removes the value of a row from the aggregates.
+     *
+     * @param row the row
+     */
+    private void remove(int row) {
+
+        if (keys.isPrimitive()) {
+            long value = keys.longAt(row);
+
+            if (value != CLEAR) {
+                count--;
+
+                // the borrow of the low bits is subtracted from the high bits
+                long low = sumLow - value;
+                sumHigh -= (value >> 63) + (Long.compareUnsigned(sumLow, value) < 0 ? 1 : 0);
+                sumLow = low;
+
+                minLongs.remove(value);
+                maxLongs.remove(value);
+            }
+        } else {
+            BigDecimal value = (BigDecimal) keys.objectAt(row);
+
+            if (value != null) {
+                count--;
+                objectSum = objectSum.subtract(value);
+                minObjects.remove(value);
+                maxObjects.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the column index.
+     *
+     * @return the column index
+     */
+    public int getColumn() {
+
+        return column;
+    }
+
+    /**
+     * Returns the number of rows with a value in the column.
+     *
+     * @return the number of values
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * Returns the sum of the values in the column.
+     *
+     * @return the sum, zero if there are no values
+     */
+    public BigDecimal getSum() {
+
+        if (!keys.isPrimitive()) {
+            return objectSum;
+        }
+
+        if (sumHigh == sumLow >> 63) {
+            return BigDecimal.valueOf(sumLow, keys.getScale());
+        }
+
+        BigInteger low = BigInteger.valueOf(sumLow & Long.MAX_VALUE);
+
+        if (sumLow < 0) {
+            low = low.setBit(63);
+        }
+
+        return new BigDecimal(BigInteger.valueOf(sumHigh).shiftLeft(64).add(low), keys.getScale());
+    }
+
+    /**
+     * Returns the minimum value in the column.
+     *
+     * @return the minimum value or <code>null</code> if there are no values
+     */
+    public BigDecimal getMin() {
+
+        if (count == 0) {
+            return null;
+        }
+
+        return keys.isPrimitive()
+            ? BigDecimal.valueOf(minLongs.peek(), keys.getScale()) : minObjects.peek();
+    }
+
+    /**
+     * Returns the maximum value in the column.
+     *
+     * @return the maximum value or <code>null</code> if there are no values
+     */
+    public BigDecimal getMax() {
+
+        if (count == 0) {
+            return null;
+        }
+
+        return keys.isPrimitive()
+            ? BigDecimal.valueOf(maxLongs.peek(), keys.getScale()) : maxObjects.peek();
+    }
+}
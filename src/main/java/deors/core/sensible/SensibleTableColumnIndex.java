@@ -0,0 +1,892 @@
+package deors.core.sensible;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Index of the rows in a <code>SensibleTable</code> object by the value of one column, used to
+ * evaluate the row filters.<br>
+ *
+ * The index keeps the typed keys of the column, as built by a
+ * <code>SensibleTableColumnKeys</code> object with case insensitive strings, and the rows sorted
+ * by key, so the rows with a value in a range or starting with a prefix are found with binary
+ * searches. For string columns, a trigram index maps each sequence of three characters to the
+ * sorted list of rows that contain it, so the rows containing a text are only looked for among
+ * the rows that contain its least frequent trigram. The trigram index is built the first time it
+ * is needed.<br>
+ *
+ * For the columns that do not use string keys, the prefixes and texts are looked for in the
+ * <code>toString()</code> representation of the fields, as shown in the table. Those strings are
+ * kept in a second index of the column, with case sensitive string keys, built the first time a
+ * prefix or a text is looked for, so the searches use the same sorted rows and trigram index as
+ * the string columns instead of building the string of each field on every search.<br>
+ *
+ * The index is kept up to date by the table methods that change the table data. The rows
+ * inserted or updated are kept apart and merged at once in the sorted rows on the next search.
+ * Appending a row is a constant time operation while inserting or deleting a row in the middle of
+ * the table renumbers the sorted rows after it, which has the same cost as shifting the rows in
+ * the list. The lists of the trigram index are not renumbered when a row is inserted: the rows
+ * inserted are logged and each list applies the log the next time it is read or changed, and all
+ * of them apply it when the log is full or when rows are deleted.<br>
+ *
+ * Some searches are still linear in the number of rows: looking for a text shorter than three
+ * characters compares the key of every row, and building the trigram index or the index of the
+ * string representations reads every row once.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableColumnIndex {
+
+    /**
+     * The number of characters in the sequences of the trigram index.
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * The initial number of slots in the trigram index.
+     */
+    private static final int INITIAL_GRAM_SLOTS = 1024;
+
+    /**
+     * The maximum number of rows inserted that are logged before all the lists of the trigram
+     * index are renumbered.
+     */
+    private static final int MAX_PENDING_SHIFTS = 256;
+
+    /**
+     * The table.
+     */
+    private final SensibleTable<?> table;
+
+    /**
+     * The column index.
+     */
+    private final int column;
+
+    /**
+     * The column keys, by model row.
+     */
+    private final SensibleTableColumnKeys keys;
+
+    /**
+     * The rows sorted by key. The rows inserted or updated since the last search are not in
+     * order yet.
+     */
+    private int[] sorted;
+
+    /**
+     * The number of rows in the <code>sorted</code> array.
+     */
+    private int sortedCount;
+
+    /**
+     * The rows inserted or updated since the last search.
+     */
+    private BitSet pending = new BitSet();
+
+    /**
+     * The trigrams in the trigram index, plus one so zero marks the empty slots, in an open
+     * addressing hash table, or <code>null</code> if the trigram index is not built.
+     */
+    private long[] gramKeys;
+
+    /**
+     * The rows that contain each trigram, in the same slot as the trigram.
+     */
+    private Postings[] gramPostings;
+
+    /**
+     * The number of trigrams in the trigram index.
+     */
+    private int gramCount;
+
+    /**
+     * The rows inserted since all the lists of the trigram index were renumbered, in the order
+     * they were inserted, with their current row index.
+     */
+    private final int[] shifts = new int[MAX_PENDING_SHIFTS];
+
+    /**
+     * The number of rows in the <code>shifts</code> log.
+     */
+    private int shiftCount;
+
+    /**
+     * The rows in the <code>shifts</code> log from <code>sortedShiftsFrom</code> on, sorted, or
+     * <code>null</code> if they must be sorted again. Most lists apply the same rows, so they
+     * are sorted once.
+     */
+    private int[] sortedShifts;
+
+    /**
+     * The position in the <code>shifts</code> log of the first row in
+     * <code>sortedShifts</code>.
+     */
+    private int sortedShiftsFrom;
+
+    /**
+     * The number of rows inserted before the first one in the <code>shifts</code> log, since the
+     * trigram index was built.
+     */
+    private int shiftBase;
+
+    /**
+     * The index of the <code>toString()</code> representation of the fields, for the columns
+     * that do not use string keys, or <code>null</code> if it is not built.
+     */
+    private SensibleTableColumnIndex displayIndex;
+
+    /**
+     * The merge sort that compares the rows using the column keys.
+     */
+    private final SensibleTableRowMergeSort rowSort = new SensibleTableRowMergeSort() {
+        @Override
+        int compareRows(int row1, int row2) {
+            return keys.compare(row1, row2);
+        }
+    };
+
+    /**
+     * Sorted list of the rows that contain a trigram.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class Postings {
+
+        /**
+         * The rows.
+         */
+        private int[] rows = new int[4];
+
+        /**
+         * The number of rows.
+         */
+        private int size;
+
+        /**
+         * The number of rows inserted, since the trigram index was built, that are already
+         * applied to the rows.
+         */
+        private int applied;
+
+        /**
+         * Default constructor.
+         */
+        Postings() {
+
+            super();
+        }
+
+        /**
+         * Adds a row to the list, if it is not already in it.
+         *
+         * @param row the row
+         */
+        void add(int row) {
+
+            int position = size > 0 && rows[size - 1] < row
+                ? size : Arrays.binarySearch(rows, 0, size, row);
+
+            if (position < 0) {
+                position = -position - 1;
+            } else if (position < size) {
+                return;
+            }
+
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        /**
+         * Removes a row from the list.
+         *
+         * @param row the row
+         */
+        void remove(int row) {
+
+            int position = Arrays.binarySearch(rows, 0, size, row);
+
+            if (position >= 0) {
+                System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+                size--;
+            }
+        }
+
+        /**
+         * Moves the rows to their new positions after some rows were deleted.
+         *
+         * @param newRows the new position of each row, or <code>-1</code> for the rows deleted
+         */
+        void remap(int[] newRows) {
+
+            int target = 0;
+
+            for (int i = 0; i < size; i++) {
+                int row = newRows[rows[i]];
+                if (row != -1) {
+                    rows[target++] = row;
+                }
+            }
+
+            size = target;
+        }
+    }
+
+    /**
+     * Constructor that indexes all the rows in the given table.
+     *
+     * @param table the table
+     * @param column the column index
+     */
+    SensibleTableColumnIndex(SensibleTable<?> table, int column) {
+
+        this(table, column, new SensibleTableColumnKeys(table.getRecord(), column, true));
+    }
+
+    /**
+     * Constructor that indexes all the rows in the given table with the given column keys.
+     *
+     * @param table the table
+     * @param column the column index
+     * @param keys the column keys
+     */
+    private SensibleTableColumnIndex(SensibleTable<?> table, int column,
+                                     SensibleTableColumnKeys keys) {
+
+        super();
+
+        this.table = table;
+        this.column = column;
+        this.keys = keys;
+
+        int rowCount = table.getModel().getRowCount();
+
+        keys.extract(table, rowCount);
+
+        sorted = new int[rowCount];
+
+        for (int i = 0; i < rowCount; i++) {
+            sorted[i] = i;
+        }
+
+        rowSort.sort(sorted);
+        sortedCount = rowCount;
+    }
+
+    /**
+     * Updates the index after a row was inserted in the table.
+     *
+     * @param row the row inserted
+     */
+    void inserted(int row) {
+
+        if (row < keys.size()) {
+            // the sorted rows are in key order, so the rows moved are taken without branches
+            for (int i = 0; i < sortedCount; i++) {
+                sorted[i] += (row - 1 - sorted[i]) >>> 31;
+            }
+
+            if (pending.length() > row) {
+                pending = shiftedFrom(pending, row);
+            }
+
+            if (gramKeys != null) {
+                if (shiftCount == MAX_PENDING_SHIFTS) {
+                    applyShifts();
+                }
+
+                for (int i = 0; i < shiftCount; i++) {
+                    if (shifts[i] >= row) {
+                        shifts[i]++;
+                    }
+                }
+
+                shifts[shiftCount++] = row;
+                sortedShifts = null;
+            }
+        }
+
+        keys.inserted(table, row);
+        pending.set(row);
+
+        if (gramKeys != null) {
+            addGrams(row);
+        }
+
+        if (displayIndex != null) {
+            displayIndex.inserted(row);
+        }
+    }
+
+    /**
+     * Updates the index after a row was updated in the table.
+     *
+     * @param row the row updated
+     */
+    void updated(int row) {
+
+        if (gramKeys != null) {
+            removeGrams(row);
+        }
+
+        keys.extract(table, row, row);
+        pending.set(row);
+
+        if (gramKeys != null) {
+            addGrams(row);
+        }
+
+        if (displayIndex != null) {
+            displayIndex.updated(row);
+        }
+    }
+
+    /**
+     * Updates the index after some rows were deleted from the table.
+     *
+     * @param newRows the new position of each row, or <code>-1</code> for the rows deleted
+     */
+    void deleted(int[] newRows) {
+
+        int target = 0;
+
+        for (int i = 0; i < sortedCount; i++) {
+            int row = newRows[sorted[i]];
+            if (row != -1) {
+                sorted[target++] = row;
+            }
+        }
+
+        sortedCount = target;
+
+        BitSet newPending = new BitSet();
+
+        for (int row = pending.nextSetBit(0); row >= 0; row = pending.nextSetBit(row + 1)) {
+            if (newRows[row] != -1) {
+                newPending.set(newRows[row]);
+            }
+        }
+
+        pending = newPending;
+
+        if (gramKeys != null) {
+            applyShifts();
+
+            for (Postings postings : gramPostings) {
+                if (postings != null) {
+                    postings.remap(newRows);
+                }
+            }
+        }
+
+        keys.deleted(newRows);
+
+        if (displayIndex != null) {
+            displayIndex.deleted(newRows);
+        }
+    }
+
+    /**
+     * Returns a copy of the given bits with the bits from the given one on moved one position,
+     * after a row was inserted there. The bits are moved a word at a time.
+     *
+     * @param bits the bits
+     * @param row the row inserted
+     *
+     * @return the bits moved
+     */
+    private static BitSet shiftedFrom(BitSet bits, int row) {
+
+        long[] words = bits.toLongArray();
+        long[] moved = Arrays.copyOf(words, words.length + 1);
+        int first = row >>> 6;
+
+        for (int i = words.length; i > first; i--) {
+            moved[i] = (i < words.length ? words[i] << 1 : 0) | words[i - 1] >>> 63;
+        }
+
+        long kept = (1L << (row & 63)) - 1;
+        moved[first] = words[first] & kept | (words[first] & ~kept) << 1;
+
+        return BitSet.valueOf(moved);
+    }
+
+    /**
+     * Applies the rows inserted in the log to all the lists of the trigram index and clears
+     * the log.
+     */
+    private void applyShifts() {
+
+        for (Postings postings : gramPostings) {
+            if (postings != null) {
+                shifted(postings);
+            }
+        }
+
+        shiftBase += shiftCount;
+        shiftCount = 0;
+        sortedShifts = null;
+    }
+
+    /**
+     * Applies to the given list of the trigram index the rows inserted in the log that are not
+     * applied yet. The rows of the list keep their order and take, in that order, the current
+     * row indexes that are not rows inserted after the list was renumbered, so all of them are
+     * applied in one pass.
+     *
+     * @param postings the list of rows
+     *
+     * @return the list of rows, renumbered
+     */
+    private Postings shifted(Postings postings) {
+
+        int from = postings.applied - shiftBase;
+
+        if (from == shiftCount) {
+            return postings;
+        }
+
+        if (sortedShifts == null || sortedShiftsFrom != from) {
+            sortedShifts = Arrays.copyOfRange(shifts, from, shiftCount);
+            sortedShiftsFrom = from;
+            Arrays.sort(sortedShifts);
+        }
+
+        int[] inserted = sortedShifts;
+        int skipped = 0;
+
+        for (int i = 0; i < postings.size; i++) {
+            int row = postings.rows[i];
+
+            while (skipped < inserted.length && inserted[skipped] <= row + skipped) {
+                skipped++;
+            }
+
+            postings.rows[i] = row + skipped;
+        }
+
+        postings.applied = shiftBase + shiftCount;
+
+        return postings;
+    }
+
+    /**
+     * Returns the index of the <code>toString()</code> representation of the fields, building
+     * it the first time it is needed.
+     *
+     * @return the index
+     */
+    private SensibleTableColumnIndex displayIndex() {
+
+        if (displayIndex == null) {
+            displayIndex = new SensibleTableColumnIndex(table, column,
+                new SensibleTableColumnKeys(column));
+        }
+
+        return displayIndex;
+    }
+
+    /**
+     * Returns the number of rows in the index.
+     *
+     * @return the number of rows
+     */
+    int size() {
+
+        return keys.size();
+    }
+
+    /**
+     * Returns the rows with a value between the given ones, both included. Rows with an empty
+     * value are only returned if they are explicitly included in the range.
+     *
+     * @param from the first value or <code>null</code> for no lower limit
+     * @param to the last value or <code>null</code> for no upper limit
+     *
+     * @return the rows, or no rows if any of the values is not valid for the column type
+     */
+    BitSet between(String from, String to) {
+
+        BitSet result = new BitSet();
+
+        int start;
+        int end;
+
+        try {
+            start = from == null ? upperBound(keys.clearKey()) : lowerBound(keyOf(from));
+            end = to == null ? sortedCount : upperBound(keyOf(to));
+        } catch (IllegalArgumentException iae) {
+            return result;
+        }
+
+        for (int i = start; i < end; i++) {
+            result.set(sorted[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the rows with a value starting with the given prefix, ignoring case. For columns
+     * that do not use string keys, the prefix is looked for in the field string value, with
+     * case.
+     *
+     * @param prefix the prefix
+     *
+     * @return the rows
+     */
+    BitSet startsWith(String prefix) {
+
+        if (!keys.isText()) {
+            return displayIndex().startsWith(prefix);
+        }
+
+        BitSet result = new BitSet();
+
+        if (prefix.isEmpty()) {
+            result.set(0, size());
+        } else {
+            String key = textKey(prefix);
+
+            for (int i = lowerBound(key); i < sortedCount; i++) {
+                if (!keys.textAt(sorted[i]).startsWith(key)) {
+                    break;
+                }
+                result.set(sorted[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the rows with a value containing the given text, ignoring case. For columns that
+     * do not use string keys, the text is looked for in the field string value, with case. A
+     * text shorter than three characters is looked for in the key of every row.
+     *
+     * @param text the text
+     *
+     * @return the rows
+     */
+    BitSet contains(String text) {
+
+        if (!keys.isText()) {
+            return displayIndex().contains(text);
+        }
+
+        BitSet result = new BitSet();
+
+        if (text.isEmpty()) {
+            result.set(0, size());
+        } else if (text.length() < GRAM_LENGTH) {
+            String key = textKey(text);
+
+            for (int row = 0, n = size(); row < n; row++) {
+                String value = keys.textAt(row);
+                if (value != null && value.contains(key)) {
+                    result.set(row);
+                }
+            }
+        } else {
+            String key = textKey(text);
+
+            if (gramKeys == null) {
+                buildGrams();
+            }
+
+            // the candidates are the rows in the shortest list of the trigrams in the text
+            Postings candidates = null;
+
+            for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+                Postings postings = postingsOf(gram(key, i), false);
+
+                if (postings == null || postings.size == 0) {
+                    return result;
+                } else if (candidates == null || postings.size < candidates.size) {
+                    candidates = postings;
+                }
+            }
+
+            for (int i = 0; i < candidates.size; i++) {
+                int row = candidates.rows[i];
+                if (keys.textAt(row).contains(key)) {
+                    result.set(row);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the key of the given value, parsing it with a new field of the column type.
+     *
+     * @param value the value
+     *
+     * @return the key
+     */
+    private Object keyOf(String value) {
+
+        if (keys.isText()) {
+            return value.isEmpty() ? null : textKey(value);
+        }
+
+        SensibleDataType field = table.getRecord().getField(column).returnNew();
+        field.changeValue(value);
+
+        return keys.keyOf(field);
+    }
+
+    /**
+     * Returns the string key of the given text, converted to lower case if the keys are case
+     * insensitive.
+     *
+     * @param text the text
+     *
+     * @return the key
+     */
+    private String textKey(String text) {
+
+        return keys.isFoldCase() ? text.toLowerCase(Locale.ROOT) : text;
+    }
+
+    /**
+     * Returns the position in the sorted rows of the first row with a key greater than or
+     * equal to the given one.
+     *
+     * @param key the key
+     *
+     * @return the position
+     */
+    private int lowerBound(Object key) {
+
+        refresh();
+
+        int low = 0;
+        int high = sortedCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys.compareKey(sorted[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the position in the sorted rows of the first row with a key greater than the given
+     * one.
+     *
+     * @param key the key
+     *
+     * @return the position
+     */
+    private int upperBound(Object key) {
+
+        refresh();
+
+        int low = 0;
+        int high = sortedCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys.compareKey(sorted[middle], key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Merges the rows inserted or updated since the last search in the sorted rows.
+     */
+    private void refresh() {
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int[] added = new int[pending.cardinality()];
+        int n = 0;
+
+        for (int row = pending.nextSetBit(0); row >= 0; row = pending.nextSetBit(row + 1)) {
+            added[n++] = row;
+        }
+
+        rowSort.sort(added);
+
+        // the rows updated are dropped from their old positions while merging
+        int[] merged = new int[keys.size()];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+
+        while (i < sortedCount || j < added.length) {
+            if (i < sortedCount && pending.get(sorted[i])) {
+                i++;
+            } else if (j >= added.length
+                || i < sortedCount && keys.compare(sorted[i], added[j]) <= 0) {
+                merged[k++] = sorted[i++];
+            } else {
+                merged[k++] = added[j++];
+            }
+        }
+
+        sorted = merged;
+        sortedCount = k;
+        pending.clear();
+    }
+
+    /**
+     * Builds the trigram index from the keys of all the rows.
+     */
+    private void buildGrams() {
+
+        gramKeys = new long[INITIAL_GRAM_SLOTS];
+        gramPostings = new Postings[INITIAL_GRAM_SLOTS];
+        gramCount = 0;
+        shiftCount = 0;
+        shiftBase = 0;
+        sortedShifts = null;
+
+        for (int row = 0, n = size(); row < n; row++) {
+            addGrams(row);
+        }
+    }
+
+    /**
+     * Adds a row to the lists of the trigrams in its key.
+     *
+     * @param row the row
+     */
+    private void addGrams(int row) {
+
+        String value = keys.textAt(row);
+
+        if (value == null) {
+            return;
+        }
+
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            postingsOf(gram(value, i), true).add(row);
+        }
+    }
+
+    /**
+     * Removes a row from the lists of the trigrams in its key.
+     *
+     * @param row the row
+     */
+    private void removeGrams(int row) {
+
+        String value = keys.textAt(row);
+
+        if (value == null) {
+            return;
+        }
+
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            Postings postings = postingsOf(gram(value, i), false);
+
+            if (postings != null) {
+                postings.remove(row);
+            }
+        }
+    }
+
+    /**
+     * Returns the list of rows of a trigram, with the rows inserted in the log applied. The
+     * trigrams are never removed from the index, so their lists can be empty.
+     *
+     * @param gram the trigram
+     * @param create whether to add the trigram to the index if it is not in it
+     *
+     * @return the list of rows or <code>null</code> if the trigram is not in the index and it is
+     *         not created
+     */
+    private Postings postingsOf(long gram, boolean create) {
+
+        if (create && gramCount * 2 >= gramKeys.length) {
+            // the table is kept at most half full
+            long[] oldKeys = gramKeys;
+            Postings[] oldPostings = gramPostings;
+
+            gramKeys = new long[oldKeys.length * 2];
+            gramPostings = new Postings[oldKeys.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slotOf(oldKeys[i]);
+                    gramKeys[slot] = oldKeys[i];
+                    gramPostings[slot] = oldPostings[i];
+                }
+            }
+        }
+
+        int slot = slotOf(gram + 1);
+
+        if (gramKeys[slot] == 0) {
+            if (!create) {
+                return null;
+            }
+
+            gramKeys[slot] = gram + 1;
+            gramPostings[slot] = new Postings();
+            gramPostings[slot].applied = shiftBase + shiftCount;
+            gramCount++;
+        }
+
+        return shifted(gramPostings[slot]);
+    }
+
+    /**
+     * Returns the slot of the trigram index that holds the given key, or the empty slot where it
+     * would be added.
+     *
+     * @param key the trigram plus one
+     *
+     * @return the slot
+     */
+    private int slotOf(long key) {
+
+        int mask = gramKeys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+
+        while (gramKeys[slot] != 0 && gramKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns the trigram starting at the given position of a string, with its three characters
+     * packed in a number.
+     *
+     * @param value the string
+     * @param position the position
+     *
+     * @return the trigram
+     */
+    private static long gram(String value, int position) {
+
+        return ((long) value.charAt(position) << 32)
+            | ((long) value.charAt(position + 1) << 16)
+            | value.charAt(position + 2);
+    }
+}
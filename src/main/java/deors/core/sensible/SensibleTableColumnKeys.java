@@ -0,0 +1,489 @@
+package deors.core.sensible;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Typed sort keys of a table column.<br>
+ *
+ * The keys are extracted once from each row, so sorting compares primitive values or
+ * already built objects instead of building the <code>toStringForSort()</code> representation
+ * of both fields on every comparison. The key type depends on the type of the column field:
+ *
+ * <ul>
+ * <li><code>SensibleBoolean</code>, <code>SensibleInteger</code> and <code>SensibleLong</code>
+ * fields use their value as a <code>long</code> key.</li>
+ * <li><code>SensibleDate</code>, <code>SensibleTime</code> and <code>SensibleDateTime</code>
+ * fields use a <code>long</code> key with the digits of the date and time fields, from the
+ * year to the second.</li>
+ * <li><code>SensibleBigDecimal</code> fields use the number scaled by the maximum number of
+ * fractional digits as a <code>long</code> key when the precision fits in it, and the
+ * <code>BigDecimal</code> number otherwise.</li>
+ * <li>The rest of the fields use their <code>toStringForSort()</code> representation, converted
+ * to lower case if the keys are case insensitive.</li>
+ * </ul>
+ *
+ * The keys can also be built from the <code>toString()</code> representation of the fields,
+ * whatever the column type, to look for text in the values as shown in the table.<br>
+ *
+ * Fields with an empty value are sorted before any other value.<br>
+ *
+ * The keys can be kept up to date while rows are inserted, updated and deleted, as done by the
+ * filter indexes of the table.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableColumnKeys {
+
+    /**
+     * The key used for clear fields with <code>long</code> keys.
+     */
+    private static final long CLEAR = Long.MIN_VALUE;
+
+    /**
+     * The maximum number of digits of a number that fits in a <code>long</code> key.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    /**
+     * The column index.
+     */
+    private final int column;
+
+    /**
+     * Whether the column uses <code>long</code> keys.
+     */
+    private final boolean primitive;
+
+    /**
+     * Whether the column uses string keys.
+     */
+    private final boolean text;
+
+    /**
+     * Whether the string keys are converted to lower case.
+     */
+    private final boolean foldCase;
+
+    /**
+     * Whether the string keys are the <code>toString()</code> representation of the fields.
+     */
+    private final boolean display;
+
+    /**
+     * The number of fractional digits of big decimal <code>long</code> keys.
+     */
+    private final int scale;
+
+    /**
+     * The <code>long</code> keys, by model row.
+     */
+    private long[] longKeys;
+
+    /**
+     * The object keys, by model row.
+     */
+    private Comparable<Object>[] objectKeys;
+
+    /**
+     * The number of rows with keys.
+     */
+    private int rowCount;
+
+    /**
+     * Constructor that chooses the key type from the field type in the given record. String keys
+     * are case sensitive.
+     *
+     * @param record the record that defines the table model
+     * @param column the column index
+     */
+    SensibleTableColumnKeys(SensibleObject record, int column) {
+
+        this(record, column, false);
+    }
+
+    /**
+     * Constructor that chooses the key type from the field type in the given record and whether
+     * string keys are case insensitive.
+     *
+     * @param record the record that defines the table model
+     * @param column the column index
+     * @param foldCase whether string keys are converted to lower case
+     */
+    SensibleTableColumnKeys(SensibleObject record, int column, boolean foldCase) {
+
+        super();
+
+        this.column = column;
+        this.foldCase = foldCase;
+        this.display = false;
+
+        SensibleDataType field = record.getField(column);
+
+        if (field instanceof SensibleBigDecimal) {
+            SensibleBigDecimal number = (SensibleBigDecimal) field;
+            int integerDigits = number.getMaxIntegerDigits();
+            int fractionalDigits = number.getMaxFractionalDigits();
+            primitive = integerDigits != -1 && fractionalDigits != -1
+                && integerDigits + fractionalDigits <= MAX_LONG_DIGITS;
+            scale = fractionalDigits;
+        } else {
+            primitive = field instanceof SensibleBoolean
+                || field instanceof SensibleInteger || field instanceof SensibleLong
+                || field instanceof SensibleDate || field instanceof SensibleTime
+                || field instanceof SensibleDateTime;
+            scale = 0;
+        }
+
+        text = !primitive && !(field instanceof SensibleBigDecimal);
+    }
+
+    /**
+     * Constructor for case sensitive string keys built from the <code>toString()</code>
+     * representation of the fields, whatever the column type. Fields with an empty value also
+     * use that representation as the key, as it is not always empty.
+     *
+     * @param column the column index
+     */
+    SensibleTableColumnKeys(int column) {
+
+        super();
+
+        this.column = column;
+        this.foldCase = false;
+        this.display = true;
+        this.primitive = false;
+        this.scale = 0;
+        this.text = true;
+    }
+
+    /**
+     * Returns the column index.
+     *
+     * @return the column index
+     */
+    int getColumn() {
+
+        return column;
+    }
+
+    /**
+     * Returns whether the string keys are converted to lower case.
+     *
+     * @return whether the string keys are case insensitive
+     */
+    boolean isFoldCase() {
+
+        return foldCase;
+    }
+
+    /**
+     * Returns whether the column uses <code>long</code> keys.
+     *
+     * @return whether the keys are <code>long</code> values
+     */
+    boolean isPrimitive() {
+
+        return primitive;
+    }
+
+    /**
+     * Returns the number of fractional digits of big decimal <code>long</code> keys.
+     *
+     * @return the number of fractional digits, or <code>0</code> for other columns
+     */
+    int getScale() {
+
+        return scale;
+    }
+
+    /**
+     * Returns whether the column uses string keys.
+     *
+     * @return whether the keys are strings
+     */
+    boolean isText() {
+
+        return text;
+    }
+
+    /**
+     * Extracts the keys of all the rows in the table.
+     *
+     * @param table the table
+     * @param rowCount the number of rows in the table model
+     */
+    void extract(SensibleTable<?> table, int rowCount) {
+
+        if (primitive) {
+            longKeys = new long[rowCount];
+        } else {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Comparable<Object>[] keys = new Comparable[rowCount];
+            objectKeys = keys;
+        }
+
+        this.rowCount = rowCount;
+
+        extract(table, 0, rowCount - 1);
+    }
+
+    /**
+     * Extracts again the keys of the given rows.
+     *
+     * @param table the table
+     * @param firstRow the first row
+     * @param lastRow the last row
+     */
+    void extract(SensibleTable<?> table, int firstRow, int lastRow) {
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            SensibleDataType field = table.getRecordAt(row).getField(column);
+            boolean clear = !display && field.value.length() == 0;
+
+            if (primitive) {
+                longKeys[row] = clear ? CLEAR : longKey(field);
+            } else {
+                objectKeys[row] = clear ? null : objectKey(field);
+            }
+        }
+    }
+
+    /**
+     * Inserts the key of a row inserted in the table. The keys of the rows after it are moved
+     * one position.
+     *
+     * @param table the table
+     * @param row the row inserted
+     */
+    void inserted(SensibleTable<?> table, int row) {
+
+        if (primitive) {
+            if (rowCount == longKeys.length) {
+                longKeys = Arrays.copyOf(longKeys, Math.max(16, rowCount * 2));
+            }
+            System.arraycopy(longKeys, row, longKeys, row + 1, rowCount - row);
+        } else {
+            if (rowCount == objectKeys.length) {
+                objectKeys = Arrays.copyOf(objectKeys, Math.max(16, rowCount * 2));
+            }
+            System.arraycopy(objectKeys, row, objectKeys, row + 1, rowCount - row);
+        }
+
+        rowCount++;
+
+        extract(table, row, row);
+    }
+
+    /**
+     * Removes the keys of the rows deleted from the table. The keys of the rows kept are moved
+     * to their new positions.
+     *
+     * @param newRows the new position of each row, or <code>-1</code> for the rows deleted
+     */
+    void deleted(int[] newRows) {
+
+        int target = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            if (newRows[row] != -1) {
+                if (primitive) {
+                    longKeys[target++] = longKeys[row];
+                } else {
+                    objectKeys[target++] = objectKeys[row];
+                }
+            }
+        }
+
+        if (!primitive) {
+            Arrays.fill(objectKeys, target, rowCount, null);
+        }
+
+        rowCount = target;
+    }
+
+    /**
+     * Returns the number of rows with keys.
+     *
+     * @return the number of rows
+     */
+    int size() {
+
+        return rowCount;
+    }
+
+    /**
+     * Returns the key of the given field, a <code>Long</code> object for columns with
+     * <code>long</code> keys.
+     *
+     * @param field a field of the same type as the column
+     *
+     * @return the key
+     */
+    Object keyOf(SensibleDataType field) {
+
+        boolean clear = !display && field.value.length() == 0;
+
+        if (primitive) {
+            return clear ? CLEAR : longKey(field);
+        }
+
+        return clear ? null : objectKey(field);
+    }
+
+    /**
+     * Returns the key of the fields with an empty value.
+     *
+     * @return the key
+     */
+    Object clearKey() {
+
+        return primitive ? Long.valueOf(CLEAR) : null;
+    }
+
+    /**
+     * Returns the <code>long</code> key of the given row. Only valid for columns with
+     * <code>long</code> keys.
+     *
+     * @param row the row
+     *
+     * @return the key or <code>Long.MIN_VALUE</code> if the field is empty
+     */
+    long longAt(int row) {
+
+        return longKeys[row];
+    }
+
+    /**
+     * Returns the object key of the given row. Only valid for columns without <code>long</code>
+     * keys.
+     *
+     * @param row the row
+     *
+     * @return the key or <code>null</code> if the field is empty
+     */
+    Object objectAt(int row) {
+
+        return objectKeys[row];
+    }
+
+    /**
+     * Returns the string key of the given row. Only valid for columns with string keys.
+     *
+     * @param row the row
+     *
+     * @return the key or <code>null</code> if the field is empty
+     */
+    String textAt(int row) {
+
+        return (String) (Object) objectKeys[row];
+    }
+
+    /**
+     * Compares the keys of the given rows.
+     *
+     * @param row1 the first row
+     * @param row2 the second row
+     *
+     * @return a negative integer, zero, or a positive integer as the first row key is less than,
+     *         equal to, or greater than the second row key
+     */
+    int compare(int row1, int row2) {
+
+        if (primitive) {
+            return Long.compare(longKeys[row1], longKeys[row2]);
+        }
+
+        Comparable<Object> key1 = objectKeys[row1];
+        Comparable<Object> key2 = objectKeys[row2];
+
+        if (key1 == null) {
+            return key2 == null ? 0 : -1;
+        } else if (key2 == null) {
+            return 1;
+        }
+
+        return key1.compareTo(key2);
+    }
+
+    /**
+     * Compares the key of the given row with a key.
+     *
+     * @param row the row
+     * @param key the key, as returned by <code>keyOf()</code>
+     *
+     * @return a negative integer, zero, or a positive integer as the row key is less than,
+     *         equal to, or greater than the given key
+     */
+    int compareKey(int row, Object key) {
+
+        if (primitive) {
+            return Long.compare(longKeys[row], (Long) key);
+        }
+
+        Comparable<Object> rowKey = objectKeys[row];
+
+        if (rowKey == null) {
+            return key == null ? 0 : -1;
+        } else if (key == null) {
+            return 1;
+        }
+
+        return rowKey.compareTo(key);
+    }
+
+    /**
+     * Returns the <code>long</code> key of a field.
+     *
+     * @param field the field
+     *
+     * @return the key
+     */
+    private long longKey(SensibleDataType field) {
+
+        if (field instanceof SensibleInteger) {
+            return ((SensibleInteger) field).intValue();
+        } else if (field instanceof SensibleLong) {
+            return ((SensibleLong) field).longValue();
+        } else if (field instanceof SensibleBoolean) {
+            return ((SensibleBoolean) field).booleanValue() ? 1 : 0;
+        } else if (field instanceof SensibleDate) {
+            SensibleDate date = (SensibleDate) field;
+            return date.getYear() * 10000L + date.getMonth() * 100L + date.getDay();
+        } else if (field instanceof SensibleTime) {
+            SensibleTime time = (SensibleTime) field;
+            return time.getHour() * 10000L + time.getMinute() * 100L + time.getSecond();
+        } else if (field instanceof SensibleDateTime) {
+            SensibleDateTime dateTime = (SensibleDateTime) field;
+            return (dateTime.getYear() * 10000L + dateTime.getMonth() * 100L + dateTime.getDay())
+                * 1000000L
+                + dateTime.getHour() * 10000L + dateTime.getMinute() * 100L + dateTime.getSecond();
+        }
+
+        return ((SensibleBigDecimal) field).getNumber().movePointRight(scale).longValue();
+    }
+
+    /**
+     * Returns the object key of a field.
+     *
+     * @param field the field
+     *
+     * @return the key
+     */
+    @SuppressWarnings("unchecked")
+    private Comparable<Object> objectKey(SensibleDataType field) {
+
+        if (display) {
+            return (Comparable<Object>) (Comparable<?>) field.toString();
+        }
+
+        if (field instanceof SensibleBigDecimal) {
+            return (Comparable<Object>) (Comparable<?>) ((SensibleBigDecimal) field).getNumber();
+        }
+
+        String key = field.toStringForSort();
+
+        return (Comparable<Object>) (Comparable<?>) (foldCase ? key.toLowerCase(Locale.ROOT) : key);
+    }
+}
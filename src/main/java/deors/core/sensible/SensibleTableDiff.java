@@ -0,0 +1,250 @@
+package deors.core.sensible;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between the rows of a <code>SensibleTable</code> object and a new list of rows,
+ * matched by the value of their key fields.<br>
+ *
+ * The old rows are indexed by key in a hash map and each new row is looked for in it, so the
+ * rows are matched in linear time. The matched rows that keep their relative order are the
+ * longest increasing subsequence of their old positions taken in the new order, found by
+ * patience sorting, which takes linear time when the rows are not reordered. The other matched
+ * rows are moved, that is, deleted from their old positions and inserted in the new ones. The
+ * old rows not matched are deleted, the new rows not matched are inserted and the rows kept with
+ * different values are updated.<br>
+ *
+ * The changes are registered in a batch as a sequence of deletions in descending order, so each
+ * row keeps its old position, insertions in ascending order, so each row takes its new position,
+ * and updates in the new positions, so the batch coalesces them into one event for each range of
+ * contiguous rows.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableDiff {
+
+    /**
+     * The new position of each old row, or <code>-1</code> for the rows deleted.
+     */
+    private final int[] newRows;
+
+    /**
+     * The old rows kept, neither deleted nor moved.
+     */
+    private final BitSet keptOld = new BitSet();
+
+    /**
+     * The new rows kept, neither inserted nor moved.
+     */
+    private final BitSet keptNew = new BitSet();
+
+    /**
+     * The new rows kept with different values.
+     */
+    private final BitSet changed = new BitSet();
+
+    /**
+     * The number of new rows.
+     */
+    private final int newSize;
+
+    /**
+     * Constructor that sets the number of old and new rows.
+     *
+     * @param oldSize the number of old rows
+     * @param newSize the number of new rows
+     */
+    private SensibleTableDiff(int oldSize, int newSize) {
+
+        super();
+
+        this.newRows = new int[oldSize];
+        this.newSize = newSize;
+    }
+
+    /**
+     * Computes the differences between two lists of rows.
+     *
+     * @param <R> a SensibleObject type that models the table behavior and data
+     * @param record the record that defines the table model and its key fields
+     * @param oldRows the old rows
+     * @param newRows the new rows
+     *
+     * @return the differences, or <code>null</code> if the rows cannot be matched because two old
+     *         rows or two new rows have the same key
+     */
+    static <R extends SensibleObject> SensibleTableDiff compute(
+            SensibleObject record, List<R> oldRows, List<R> newRows) {
+
+        SensibleTableKeyIndex<R> keys = new SensibleTableKeyIndex<R>(record);
+
+        int oldSize = oldRows.size();
+        int newSize = newRows.size();
+
+        Map<SensibleTableKeyIndex.Key, Integer> oldKeys =
+            new HashMap<SensibleTableKeyIndex.Key, Integer>(Math.max(16, oldSize * 4 / 3 + 1));
+
+        for (int i = 0; i < oldSize; i++) {
+            if (oldKeys.put(keys.keyOf(oldRows.get(i)), i) != null) {
+                return null;
+            }
+        }
+
+        SensibleTableDiff diff = new SensibleTableDiff(oldSize, newSize);
+        Arrays.fill(diff.newRows, -1);
+
+        // the old position of each matched row, in the new order
+        int[] matchedOld = new int[Math.min(oldSize, newSize)];
+        int[] matchedNew = new int[matchedOld.length];
+        int matched = 0;
+
+        for (int j = 0; j < newSize; j++) {
+            Integer i = oldKeys.get(keys.keyOf(newRows.get(j)));
+
+            if (i != null) {
+                if (diff.newRows[i] != -1) {
+                    return null;
+                }
+                diff.newRows[i] = j;
+                matchedOld[matched] = i;
+                matchedNew[matched] = j;
+                matched++;
+            }
+        }
+
+        for (int k : longestIncreasing(matchedOld, matched)) {
+            int i = matchedOld[k];
+            int j = matchedNew[k];
+
+            diff.keptOld.set(i);
+            diff.keptNew.set(j);
+
+            if (!oldRows.get(i).equals(newRows.get(j))) {
+                diff.changed.set(j);
+            }
+        }
+
+        return diff;
+    }
+
+    /**
+     * Returns the positions of a longest increasing subsequence of the given values.
+     *
+     * @param values the values, all different
+     * @param size the number of values
+     *
+     * @return the positions of the subsequence, in ascending order
+     */
+    private static int[] longestIncreasing(int[] values, int size) {
+
+        int[] result;
+
+        int k = 1;
+        while (k < size && values[k - 1] < values[k]) {
+            k++;
+        }
+
+        if (k >= size) {
+            // the rows were not reordered
+            result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = i;
+            }
+            return result;
+        }
+
+        // tails[l] is the position of the smallest last value of the subsequences of length l + 1
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int length = 0;
+
+        for (int i = 0; i < size; i++) {
+            int low = 0;
+            int high = length;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+
+            if (low == length) {
+                length++;
+            }
+        }
+
+        result = new int[length];
+
+        for (int i = length - 1, position = tails[length - 1]; i >= 0; i--) {
+            result[i] = position;
+            position = previous[position];
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns whether any row is inserted, deleted or moved.
+     *
+     * @return whether the differences change the rows in the table
+     */
+    boolean isStructural() {
+
+        return keptOld.cardinality() != newRows.length || newRows.length != newSize;
+    }
+
+    /**
+     * Returns the new position of an old row.
+     *
+     * @param oldRow the old row
+     *
+     * @return the new position or <code>-1</code> if the row is deleted
+     */
+    int newRowOf(int oldRow) {
+
+        return newRows[oldRow];
+    }
+
+    /**
+     * Returns the new rows kept with different values.
+     *
+     * @return the new positions of the rows updated
+     */
+    BitSet getUpdatedRows() {
+
+        return changed;
+    }
+
+    /**
+     * Registers the differences in a batch.
+     *
+     * @param batch the batch
+     */
+    void register(SensibleTableBatch batch) {
+
+        for (int i = newRows.length - 1; i >= 0; i--) {
+            if (!keptOld.get(i)) {
+                batch.rowsDeleted(i, i);
+            }
+        }
+
+        for (int j = keptNew.nextClearBit(0); j < newSize; j = keptNew.nextClearBit(j + 1)) {
+            batch.rowsInserted(j, j);
+        }
+
+        for (int j = changed.nextSetBit(0); j >= 0; j = changed.nextSetBit(j + 1)) {
+            batch.rowsUpdated(j, j);
+        }
+    }
+}
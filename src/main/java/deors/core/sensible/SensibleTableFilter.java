@@ -0,0 +1,508 @@
+package deors.core.sensible;
+
+import java.util.BitSet;
+
+/**
+ * Definition for a row filter for <code>SensibleTable</code> objects.<br>
+ *
+ * Filters are created with the static methods of this class, which define predicates on the
+ * value of one column (<code>equalTo()</code>, <code>between()</code>,
+ * <code>startsWith()</code> and <code>contains()</code>) and combine other filters
+ * (<code>and()</code>, <code>or()</code> and <code>not()</code>). The values are given as
+ * strings in the same format used to set the field values, and they are converted to the type of
+ * the column when the filter is evaluated. Values not valid for the column type match no rows.
+ * Strings are compared ignoring case.<br>
+ *
+ * A filter is set in the table with the <code>rowFilter</code> property. The table keeps an
+ * index for each column filtered, so each predicate is resolved with binary searches over the
+ * rows sorted by value, or a trigram index for the <code>contains()</code> predicate on string
+ * columns, and the predicates are combined as bit sets of rows.<br>
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleTable#setRowFilter(SensibleTableFilter)
+ */
+public abstract class SensibleTableFilter {
+
+    /**
+     * Default constructor.
+     */
+    SensibleTableFilter() {
+
+        super();
+    }
+
+    /**
+     * Returns a filter that matches the rows where the column has the given value. An empty value
+     * matches the rows where the column is empty.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the value is
+     * <code>null</code>.
+     *
+     * @param column the column index
+     * @param value the value
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter equalTo(int column, String value) {
+
+        checkNotNull(value);
+
+        return new Between(column, value, value);
+    }
+
+    /**
+     * Returns a filter that matches the rows where the column value is between the given ones,
+     * both included. Rows where the column is empty are not matched when there is no lower
+     * limit.
+     *
+     * @param column the column index
+     * @param from the first value or <code>null</code> for no lower limit
+     * @param to the last value or <code>null</code> for no upper limit
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter between(int column, String from, String to) {
+
+        return new Between(column, from, to);
+    }
+
+    /**
+     * Returns a filter that matches the rows where the column value starts with the given
+     * prefix.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the prefix is
+     * <code>null</code>.
+     *
+     * @param column the column index
+     * @param prefix the prefix
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter startsWith(int column, String prefix) {
+
+        checkNotNull(prefix);
+
+        return new StartsWith(column, prefix);
+    }
+
+    /**
+     * Returns a filter that matches the rows where the column value contains the given text.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the text is
+     * <code>null</code>.
+     *
+     * @param column the column index
+     * @param text the text
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter contains(int column, String text) {
+
+        checkNotNull(text);
+
+        return new Contains(column, text);
+    }
+
+    /**
+     * Returns a filter that matches the rows matched by all the given filters.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if any of the filters is
+     * <code>null</code>.
+     *
+     * @param filters the filters
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter and(SensibleTableFilter... filters) {
+
+        checkNotNull((Object[]) filters);
+
+        return new Connector(true, filters.clone());
+    }
+
+    /**
+     * Returns a filter that matches the rows matched by any of the given filters.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if any of the filters is
+     * <code>null</code>.
+     *
+     * @param filters the filters
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter or(SensibleTableFilter... filters) {
+
+        checkNotNull((Object[]) filters);
+
+        return new Connector(false, filters.clone());
+    }
+
+    /**
+     * Returns a filter that matches the rows not matched by the given filter.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the filter is
+     * <code>null</code>.
+     *
+     * @param filter the filter
+     *
+     * @return the filter
+     */
+    public static SensibleTableFilter not(SensibleTableFilter filter) {
+
+        checkNotNull(filter);
+
+        return new Not(filter);
+    }
+
+    /**
+     * Checks that none of the given arguments is <code>null</code>.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if any of the arguments is
+     * <code>null</code>.
+     *
+     * @param arguments the arguments
+     */
+    private static void checkNotNull(Object... arguments) {
+
+        if (arguments == null) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage("TABLE_ERR_INVALID_FILTER")); //$NON-NLS-1$
+        }
+
+        for (Object argument : arguments) {
+            if (argument == null) {
+                throw new IllegalArgumentException(
+                    SensibleContext.getMessage("TABLE_ERR_INVALID_FILTER")); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Checks that the columns referenced by the filter are in the table.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if any column is not in the
+     * table.
+     *
+     * @param columnCount the number of columns in the table
+     */
+    abstract void checkColumns(int columnCount);
+
+    /**
+     * Returns the rows matched by the filter.
+     *
+     * @param index the filter indexes of the table
+     *
+     * @return the rows matched
+     */
+    abstract BitSet evaluate(SensibleTableFilterIndex index);
+
+    /**
+     * Filter on the value of one column.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private abstract static class ColumnFilter
+        extends SensibleTableFilter {
+
+        /**
+         * The column index.
+         */
+        protected final int column;
+
+        /**
+         * Constructor that sets the column filtered.
+         *
+         * @param column the column index
+         */
+        ColumnFilter(int column) {
+
+            super();
+
+            this.column = column;
+        }
+
+        /**
+         * Checks that the column is in the table.
+         *
+         * @param columnCount the number of columns in the table
+         */
+        @Override
+        void checkColumns(int columnCount) {
+
+            if (column < 0 || column >= columnCount) {
+                throw new IllegalArgumentException(
+                    SensibleContext.getMessage("TABLE_ERR_INVALID_FILTER")); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Filter that matches a range of values.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class Between
+        extends ColumnFilter {
+
+        /**
+         * The first value or <code>null</code> for no lower limit.
+         */
+        private final String from;
+
+        /**
+         * The last value or <code>null</code> for no upper limit.
+         */
+        private final String to;
+
+        /**
+         * Constructor that sets the range.
+         *
+         * @param column the column index
+         * @param from the first value
+         * @param to the last value
+         */
+        Between(int column, String from, String to) {
+
+            super(column);
+
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the rows with a value in the range.
+         *
+         * @param index the filter indexes of the table
+         *
+         * @return the rows matched
+         */
+        @Override
+        BitSet evaluate(SensibleTableFilterIndex index) {
+
+            return index.getColumnIndex(column).between(from, to);
+        }
+    }
+
+    /**
+     * Filter that matches a prefix.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class StartsWith
+        extends ColumnFilter {
+
+        /**
+         * The prefix.
+         */
+        private final String prefix;
+
+        /**
+         * Constructor that sets the prefix.
+         *
+         * @param column the column index
+         * @param prefix the prefix
+         */
+        StartsWith(int column, String prefix) {
+
+            super(column);
+
+            this.prefix = prefix;
+        }
+
+        /**
+         * Returns the rows with a value starting with the prefix.
+         *
+         * @param index the filter indexes of the table
+         *
+         * @return the rows matched
+         */
+        @Override
+        BitSet evaluate(SensibleTableFilterIndex index) {
+
+            return index.getColumnIndex(column).startsWith(prefix);
+        }
+    }
+
+    /**
+     * Filter that matches a text anywhere in the value.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class Contains
+        extends ColumnFilter {
+
+        /**
+         * The text.
+         */
+        private final String text;
+
+        /**
+         * Constructor that sets the text.
+         *
+         * @param column the column index
+         * @param text the text
+         */
+        Contains(int column, String text) {
+
+            super(column);
+
+            this.text = text;
+        }
+
+        /**
+         * Returns the rows with a value containing the text.
+         *
+         * @param index the filter indexes of the table
+         *
+         * @return the rows matched
+         */
+        @Override
+        BitSet evaluate(SensibleTableFilterIndex index) {
+
+            return index.getColumnIndex(column).contains(text);
+        }
+    }
+
+    /**
+     * Filter that combines other filters with the AND or the OR logic operator.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class Connector
+        extends SensibleTableFilter {
+
+        /**
+         * Whether the filters are combined with the AND logic operator.
+         */
+        private final boolean and;
+
+        /**
+         * The filters combined.
+         */
+        private final SensibleTableFilter[] filters;
+
+        /**
+         * Constructor that sets the logic operator and the filters combined.
+         *
+         * @param and whether the filters are combined with the AND logic operator
+         * @param filters the filters combined
+         */
+        Connector(boolean and, SensibleTableFilter[] filters) {
+
+            super();
+
+            this.and = and;
+            this.filters = filters;
+        }
+
+        /**
+         * Checks that the columns referenced by the filters are in the table.
+         *
+         * @param columnCount the number of columns in the table
+         */
+        @Override
+        void checkColumns(int columnCount) {
+
+            for (SensibleTableFilter filter : filters) {
+                filter.checkColumns(columnCount);
+            }
+        }
+
+        /**
+         * Returns the rows matched by all or any of the filters.
+         *
+         * @param index the filter indexes of the table
+         *
+         * @return the rows matched
+         */
+        @Override
+        BitSet evaluate(SensibleTableFilterIndex index) {
+
+            if (filters.length == 0) {
+                BitSet result = new BitSet();
+                if (and) {
+                    result.set(0, index.getRowCount());
+                }
+                return result;
+            }
+
+            BitSet result = filters[0].evaluate(index);
+
+            for (int i = 1; i < filters.length; i++) {
+                // with the AND operator there is nothing else to evaluate once no row is left
+                if (and && result.isEmpty()) {
+                    break;
+                }
+
+                if (and) {
+                    result.and(filters[i].evaluate(index));
+                } else {
+                    result.or(filters[i].evaluate(index));
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Filter that negates other filter.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private static final class Not
+        extends SensibleTableFilter {
+
+        /**
+         * The filter negated.
+         */
+        private final SensibleTableFilter filter;
+
+        /**
+         * Constructor that sets the filter negated.
+         *
+         * @param filter the filter negated
+         */
+        Not(SensibleTableFilter filter) {
+
+            super();
+
+            this.filter = filter;
+        }
+
+        /**
+         * Checks that the columns referenced by the filter are in the table.
+         *
+         * @param columnCount the number of columns in the table
+         */
+        @Override
+        void checkColumns(int columnCount) {
+
+            filter.checkColumns(columnCount);
+        }
+
+        /**
+         * Returns the rows not matched by the filter.
+         *
+         * @param index the filter indexes of the table
+         *
+         * @return the rows matched
+         */
+        @Override
+        BitSet evaluate(SensibleTableFilterIndex index) {
+
+            BitSet result = filter.evaluate(index);
+            result.flip(0, index.getRowCount());
+
+            return result;
+        }
+    }
+}
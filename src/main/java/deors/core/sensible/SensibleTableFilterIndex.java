@@ -0,0 +1,130 @@
+package deors.core.sensible;
+
+import java.util.BitSet;
+
+/**
+ * Indexes of the rows in a <code>SensibleTable</code> object used to evaluate the row
+ * filters.<br>
+ *
+ * There is one <code>SensibleTableColumnIndex</code> object for each column referenced by a
+ * filter, built the first time the column is filtered. The indexes are kept up to date by the
+ * table methods that change the table data and are kept when the filter changes, so a new
+ * filter on the same columns, like the ones set while typing in a quick filter box, is evaluated
+ * without indexing the rows again.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableFilterIndex {
+
+    /**
+     * The table.
+     */
+    private final SensibleTable<?> table;
+
+    /**
+     * The column indexes, or <code>null</code> for the columns not indexed yet.
+     */
+    private SensibleTableColumnIndex[] columns;
+
+    /**
+     * Constructor that sets the table to be indexed.
+     *
+     * @param table the table
+     */
+    SensibleTableFilterIndex(SensibleTable<?> table) {
+
+        super();
+
+        this.table = table;
+
+        clear();
+    }
+
+    /**
+     * Discards all the column indexes. They are built again the next time they are needed.
+     */
+    void clear() {
+
+        SensibleObject record = table.getRecord();
+
+        columns = new SensibleTableColumnIndex[record == null ? 0 : record.getFieldCount()];
+    }
+
+    /**
+     * Returns the index of the given column, building it if needed.
+     *
+     * @param column the column index
+     *
+     * @return the column index
+     */
+    SensibleTableColumnIndex getColumnIndex(int column) {
+
+        if (columns[column] == null) {
+            columns[column] = new SensibleTableColumnIndex(table, column);
+        }
+
+        return columns[column];
+    }
+
+    /**
+     * Returns the number of rows in the table model.
+     *
+     * @return the number of rows
+     */
+    int getRowCount() {
+
+        return table.getModel().getRowCount();
+    }
+
+    /**
+     * Updates the column indexes after a row was inserted in the table.
+     *
+     * @param row the row inserted
+     */
+    void inserted(int row) {
+
+        for (SensibleTableColumnIndex index : columns) {
+            if (index != null) {
+                index.inserted(row);
+            }
+        }
+    }
+
+    /**
+     * Updates the column indexes after a row was updated in the table.
+     *
+     * @param row the row updated
+     */
+    void updated(int row) {
+
+        for (SensibleTableColumnIndex index : columns) {
+            if (index != null) {
+                index.updated(row);
+            }
+        }
+    }
+
+    /**
+     * Updates the column indexes after some rows were deleted from the table. The rows are
+     * given in the positions they had before any of them was deleted.
+     *
+     * @param rows the rows deleted
+     */
+    void deleted(BitSet rows) {
+
+        int[] newRows = null;
+
+        for (SensibleTableColumnIndex index : columns) {
+            if (index != null) {
+                if (newRows == null) {
+                    newRows = new int[index.size()];
+                    for (int row = 0, target = 0; row < newRows.length; row++) {
+                        newRows[row] = rows.get(row) ? -1 : target++;
+                    }
+                }
+                index.deleted(newRows);
+            }
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package deors.core.sensible;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index of the rows in a <code>SensibleTable</code> object by the value of their key
+ * fields.<br>
+ *
+ * The key fields are the fields marked as key in the record that defines the table model. If the
+ * record has no key fields, all the fields are used as the key.<br>
+ *
+ * The index maps each key to the first row that has that key. It is kept up to date by the
+ * table methods that change the table data: appending a row is a constant time operation while
+ * inserting or deleting a row in the middle of the table renumbers the rows after it in place,
+ * without reading their keys again. Rows found in the index are verified against
+ * the table data so a stale entry, caused by a key field changed directly on a record, forces
+ * a full reindex instead of returning a wrong row.<br>
+ *
+ * The index also records whether the table data may have rows with the same key. While it may,
+ * changing the key of the first row with a key points the old key to the next row that has it,
+ * and a key not found in the index is searched scanning the table data, so the rows with
+ * duplicated keys are found as if the table data were scanned.<br>
+ *
+ * @param <R> a SensibleObject type that models the table behavior and data
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableKeyIndex<R extends SensibleObject> {
+
+    /**
+     * The indexes of the fields that form the key.
+     */
+    private final int[] keyFields;
+
+    /**
+     * The map from key to row.
+     */
+    private final Map<Key, Integer> rows = new HashMap<Key, Integer>();
+
+    /**
+     * Whether the table data may have rows with the same key. It is set when a duplicated key is
+     * found and it is reset only when all the table data is indexed again.
+     */
+    private boolean duplicates;
+
+    /**
+     * Key formed by the values of the key fields in a record.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    static final class Key {
+
+        /**
+         * The values of the key fields.
+         */
+        private final String[] values;
+
+        /**
+         * The hash code, computed once.
+         */
+        private final int hash;
+
+        /**
+         * Constructor that sets the key values.
+         *
+         * @param values the values of the key fields
+         */
+        Key(String[] values) {
+
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        /**
+         * Returns whether the given object is a key with the same values.
+         *
+         * @param target the target object
+         *
+         * @return whether both keys have the same values
+         */
+        @Override
+        public boolean equals(Object target) {
+
+            return this == target
+                || target instanceof Key && Arrays.equals(values, ((Key) target).values);
+        }
+
+        /**
+         * Returns the hash code of the key values.
+         *
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+    }
+
+    /**
+     * Constructor that reads the key fields from the record that defines the table model.
+     *
+     * @param record the record that defines the table model
+     */
+    SensibleTableKeyIndex(SensibleObject record) {
+
+        super();
+
+        int n = record.getFieldCount();
+        int[] keys = new int[n];
+        int count = 0;
+
+        for (int i = 0; i < n; i++) {
+            if (record.getField(i).isKey()) {
+                keys[count++] = i;
+            }
+        }
+
+        if (count == 0) {
+            for (int i = 0; i < n; i++) {
+                keys[i] = i;
+            }
+            count = n;
+        }
+
+        keyFields = Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Checks that the number of given values matches the number of key fields.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the number of values does
+     * not match the number of key fields.
+     *
+     * @param values the values of the key fields
+     */
+    void checkKeyValues(String[] values) {
+
+        if (values.length != keyFields.length) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage("TABLE_ERR_INVALID_KEY")); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the values of the key fields in the given record.
+     *
+     * @param record the record
+     *
+     * @return the values of the key fields
+     */
+    String[] keyValuesOf(SensibleObject record) {
+
+        String[] values = new String[keyFields.length];
+
+        for (int i = 0; i < keyFields.length; i++) {
+            values[i] = record.getField(keyFields[i]).getValue();
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the key of the given record.
+     *
+     * @param record the record
+     *
+     * @return the key of the record
+     */
+    Key keyOf(SensibleObject record) {
+
+        return new Key(keyValuesOf(record));
+    }
+
+    /**
+     * Returns the row with the same key as the given record.
+     *
+     * @param data the table data
+     * @param record the record
+     *
+     * @return the row index or <code>-1</code> if there is no row with that key
+     */
+    int find(List<R> data, SensibleObject record) {
+
+        return find(data, keyOf(record));
+    }
+
+    /**
+     * Returns the row with the given key values.
+     *
+     * @param data the table data
+     * @param values the values of the key fields
+     *
+     * @return the row index or <code>-1</code> if there is no row with that key
+     */
+    int find(List<R> data, String[] values) {
+
+        checkKeyValues(values);
+
+        return find(data, new Key(Arrays.copyOf(values, values.length)));
+    }
+
+    /**
+     * Returns the row with the given key, reindexing the table data if the entry found is stale.
+     *
+     * @param data the table data
+     * @param key the key
+     *
+     * @return the row index or <code>-1</code> if there is no row with that key
+     */
+    private int find(List<R> data, Key key) {
+
+        Integer row = rows.get(key);
+
+        if (row == null) {
+            return duplicates ? scan(data, key) : -1;
+        }
+
+        if (row < data.size() && key.equals(keyOf(data.get(row)))) {
+            return row;
+        }
+
+        rebuild(data);
+
+        row = rows.get(key);
+
+        if (row == null) {
+            return duplicates ? scan(data, key) : -1;
+        }
+
+        return row;
+    }
+
+    /**
+     * Returns whether the given record has the given key, without creating its key.
+     *
+     * @param record the record
+     * @param key the key
+     *
+     * @return whether the record has the key
+     */
+    private boolean hasKey(SensibleObject record, Key key) {
+
+        for (int i = 0; i < keyFields.length; i++) {
+            if (!key.values[i].equals(record.getField(keyFields[i]).getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Updates the index after a row was inserted in the table data.
+     *
+     * @param data the table data, with the row already inserted
+     * @param row the row inserted
+     */
+    void inserted(List<R> data, int row) {
+
+        if (row < data.size() - 1) {
+            // the rows after the inserted one move one position forward
+            rows.replaceAll((key, index) -> index >= row ? index + 1 : index);
+        }
+
+        updated(data, row);
+    }
+
+    /**
+     * Updates the index before a row is deleted from the table data.
+     *
+     * @param data the table data, with the row not yet deleted
+     * @param row the row to be deleted
+     */
+    void deleting(List<R> data, int row) {
+
+        // the next row with the key, if any, is now the first one
+        updating(data, row);
+    }
+
+    /**
+     * Updates the index after a row was deleted from the table data.
+     *
+     * @param data the table data, with the row already deleted
+     * @param row the row deleted
+     */
+    void deleted(List<R> data, int row) {
+
+        if (row < data.size()) {
+            // the rows after the deleted one move one position back
+            rows.replaceAll((key, index) -> index > row ? index - 1 : index);
+        }
+    }
+
+    /**
+     * Updates the index after some rows were deleted from the table data. The rows are given in
+     * the positions they had before any of them was deleted.
+     *
+     * @param data the table data, with the rows already deleted
+     * @param deletedRows the rows deleted
+     */
+    void deleted(List<R> data, BitSet deletedRows) {
+
+        int first = deletedRows.nextSetBit(0);
+
+        if (first == -1 || first >= data.size()) {
+            return;
+        }
+
+        // each row moves back as many positions as rows were deleted before it
+        int last = deletedRows.length();
+        int count = deletedRows.cardinality();
+        int[] newRows = new int[last - first];
+
+        for (int row = first, target = first; row < last; row++) {
+            newRows[row - first] = deletedRows.get(row) ? target : target++;
+        }
+
+        rows.replaceAll((key, index) -> index < first ? index
+            : index >= last ? index - count : newRows[index - first]);
+    }
+
+    /**
+     * Updates the index before a row is changed in the table data.
+     *
+     * @param data the table data, with the row not yet changed
+     * @param row the row to be changed
+     */
+    void updating(List<R> data, int row) {
+
+        Key key = keyOf(data.get(row));
+
+        if (rows.remove(key, row) && duplicates) {
+            // the next row with the old key, if any, is now the first one
+            int next = scan(data, key, row + 1);
+
+            if (next != -1) {
+                rows.put(key, next);
+            }
+        }
+    }
+
+    /**
+     * Updates the index after a row was changed in the table data.
+     *
+     * @param data the table data, with the row already changed
+     * @param row the row changed
+     */
+    void updated(List<R> data, int row) {
+
+        Key key = keyOf(data.get(row));
+        Integer existing = rows.get(key);
+
+        if (existing != null && existing != row) {
+            duplicates = true;
+        }
+
+        if (existing == null || existing > row) {
+            rows.put(key, row);
+        }
+    }
+
+    /**
+     * Discards the index and indexes again all the table data.
+     *
+     * @param data the table data
+     */
+    void rebuild(List<R> data) {
+
+        rows.clear();
+        duplicates = false;
+
+        if (data != null) {
+            // the rows are visited backwards so, for duplicated keys, the first row is kept
+            for (int i = data.size() - 1; i >= 0; i--) {
+                if (rows.put(keyOf(data.get(i)), i) != null) {
+                    duplicates = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first row with the given key scanning the table data.
+     *
+     * @param data the table data
+     * @param key the key
+     *
+     * @return the row index or <code>-1</code> if there is no row with that key
+     */
+    private int scan(List<R> data, Key key) {
+
+        return scan(data, key, 0);
+    }
+
+    /**
+     * Returns the first row with the given key scanning the table data from the given row.
+     *
+     * @param data the table data
+     * @param key the key
+     * @param from the first row to scan
+     *
+     * @return the row index or <code>-1</code> if there is no row with that key
+     */
+    private int scan(List<R> data, Key key, int from) {
+
+        for (int i = from, n = data.size(); i < n; i++) {
+            if (hasKey(data.get(i), key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,379 @@
+package deors.core.sensible;
+
+import static deors.core.sensible.SensibleContext.getConfigurationProperty;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Background load of rows into a <code>SensibleTable</code> object.<br>
+ *
+ * Loaders are created with the <code>loadRecords()</code> methods of the table. The rows are read
+ * from an iterator or a stream in a virtual thread, or received from a publisher, and kept in a
+ * bounded buffer, so a slow source never blocks the event dispatch thread and a fast source does
+ * not get far ahead of the table. The event dispatch thread takes the rows from the buffer in
+ * chunks and appends each chunk to the table in a batch, firing a single rows inserted event.
+ * The first chunk is small so the first rows are shown at once, and the size of the following
+ * chunks is adapted so appending a chunk takes about the frame time budget, leaving the event
+ * dispatch thread free to paint and to handle the user input between chunks.<br>
+ *
+ * The progress is notified, in the event dispatch thread, with the property change events of the
+ * <code>loadedRows</code> property, fired after each chunk, and the <code>done</code> property,
+ * fired once when the load completes, fails or is cancelled.<br>
+ *
+ * @param <R> a SensibleObject type that models the table behavior and data
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleTable#loadRecords(Iterator)
+ * @see SensibleTable#loadRecords(java.util.stream.Stream)
+ * @see SensibleTable#loadRecords(Flow.Publisher)
+ */
+public final class SensibleTableLoader<R extends SensibleObject>
+    extends BasicPropertyChangeSupport {
+
+    /**
+     * The time, in milliseconds, the event dispatch thread should spend appending each chunk of
+     * rows. Configurable in the properties file using the key
+     * <code>table.loaderFrameBudget</code>. Default value is <code>8</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, int)
+     */
+    private static final int FRAME_BUDGET =
+        getConfigurationProperty("table.loaderFrameBudget", 8); //$NON-NLS-1$
+
+    /**
+     * The maximum number of rows read from the source and not yet appended to the table.
+     * Configurable in the properties file using the key <code>table.loaderBufferSize</code>.
+     * Default value is <code>65536</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, int)
+     */
+    private static final int BUFFER_SIZE =
+        getConfigurationProperty("table.loaderBufferSize", 65536); //$NON-NLS-1$
+
+    /**
+     * The number of rows in the first chunk and the minimum number of rows in a chunk.
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    /**
+     * The "done" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_DONE = "done"; //$NON-NLS-1$
+
+    /**
+     * The "loadedRows" JavaBean property name.
+     */
+    private static final String JAVA_BEAN_PROPERTY_LOADED_ROWS = "loadedRows"; //$NON-NLS-1$
+
+    /**
+     * The table loaded.
+     */
+    private final SensibleTable<R> table;
+
+    /**
+     * The rows received and not yet appended to the table.
+     */
+    private final BlockingQueue<R> buffer = new ArrayBlockingQueue<R>(BUFFER_SIZE);
+
+    /**
+     * Whether a task to append the rows in the buffer is pending in the event dispatch thread.
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /**
+     * The thread that reads the rows from an iterator, or <code>null</code> if the rows are
+     * received from a publisher.
+     */
+    private volatile Thread producer;
+
+    /**
+     * The subscription to the publisher, or <code>null</code> if the rows are read from an
+     * iterator.
+     */
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * Whether the source has no more rows.
+     */
+    private volatile boolean sourceDone;
+
+    /**
+     * Whether the load was cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The error thrown while reading or appending the rows, or <code>null</code> if none.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Whether the load completed, failed or was cancelled. Changed in the event dispatch thread.
+     */
+    private volatile boolean done;
+
+    /**
+     * The number of rows appended to the table. Changed in the event dispatch thread.
+     */
+    private volatile int loadedRows;
+
+    /**
+     * The number of rows taken from the buffer in the next chunk.
+     */
+    private int chunkSize = MIN_CHUNK_SIZE;
+
+    /**
+     * Constructor that sets the table loaded.
+     *
+     * @param table the table
+     */
+    SensibleTableLoader(SensibleTable<R> table) {
+
+        super();
+
+        this.table = table;
+    }
+
+    /**
+     * Starts reading the rows from the given iterator in a new virtual thread.
+     *
+     * @param source the iterator
+     * @param onClose the action run when the reading ends, or <code>null</code> if none
+     */
+    void start(Iterator<? extends R> source, Runnable onClose) {
+
+        producer = Thread.ofVirtual().name("sensible-table-loader").unstarted(() -> { //$NON-NLS-1$
+            try {
+                while (!cancelled && source.hasNext()) {
+                    buffer.put(source.next());
+                    scheduleDrain();
+                }
+            } catch (InterruptedException ie) {
+                // the load was cancelled
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException re) {
+                failure = re;
+            } finally {
+                try {
+                    if (onClose != null) {
+                        onClose.run();
+                    }
+                } finally {
+                    sourceDone = true;
+                    scheduleDrain();
+                }
+            }
+        });
+
+        producer.start();
+    }
+
+    /**
+     * Subscribes to the given publisher. The rows are requested as the buffer has room for them.
+     *
+     * @param source the publisher
+     */
+    void start(Flow.Publisher<? extends R> source) {
+
+        source.subscribe(new Flow.Subscriber<R>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription newSubscription) {
+
+                subscription = newSubscription;
+
+                if (cancelled) {
+                    newSubscription.cancel();
+                } else {
+                    newSubscription.request(BUFFER_SIZE);
+                }
+            }
+
+            @Override
+            public void onNext(R item) {
+
+                // never full, as no more rows than the buffer room are requested
+                if (!cancelled && buffer.offer(item)) {
+                    scheduleDrain();
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+
+                failure = error;
+                sourceDone = true;
+                scheduleDrain();
+            }
+
+            @Override
+            public void onComplete() {
+
+                sourceDone = true;
+                scheduleDrain();
+            }
+        });
+    }
+
+    /**
+     * Cancels the load. The rows already appended are kept in the table and the rest are
+     * discarded. It can be invoked from any thread. Nothing is done if the load is already done.
+     */
+    public void cancel() {
+
+        if (done || cancelled) {
+            return;
+        }
+
+        cancelled = true;
+
+        Thread thread = producer;
+        if (thread != null) {
+            thread.interrupt();
+        }
+
+        Flow.Subscription currentSubscription = subscription;
+        if (currentSubscription != null) {
+            currentSubscription.cancel();
+            sourceDone = true;
+        }
+
+        scheduleDrain();
+    }
+
+    /**
+     * Returns the error thrown while reading or appending the rows.
+     *
+     * @return the error or <code>null</code> if none was thrown
+     */
+    public Throwable getFailure() {
+
+        return failure;
+    }
+
+    /**
+     * Returns the <code>loadedRows</code> property value, the number of rows appended to the table
+     * so far.
+     *
+     * @return the property value
+     */
+    public int getLoadedRows() {
+
+        return loadedRows;
+    }
+
+    /**
+     * Returns whether the load was cancelled.
+     *
+     * @return whether the load was cancelled
+     */
+    public boolean isCancelled() {
+
+        return cancelled;
+    }
+
+    /**
+     * Returns the <code>done</code> property value, which is <code>true</code> once all the rows
+     * are appended to the table, the load fails or it is cancelled.
+     *
+     * @return the property value
+     */
+    public boolean isDone() {
+
+        return done;
+    }
+
+    /**
+     * Schedules a task in the event dispatch thread to append the rows in the buffer, unless one
+     * is already pending.
+     */
+    private void scheduleDrain() {
+
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    /**
+     * Appends a chunk of rows from the buffer to the table and adapts the size of the next chunk
+     * to the time it took. If there are more rows in the buffer, other task is scheduled so the
+     * event dispatch thread can paint and handle the user input in between.
+     */
+    private void drain() {
+
+        drainScheduled.set(false);
+
+        if (done) {
+            return;
+        }
+
+        // the rows read before the source failed are still appended
+        if (!cancelled) {
+            List<R> chunk = new ArrayList<R>(Math.min(chunkSize, buffer.size()));
+            buffer.drainTo(chunk, chunkSize);
+
+            if (!chunk.isEmpty()) {
+                appendChunk(chunk);
+            }
+        }
+
+        if (cancelled) {
+            buffer.clear();
+        }
+
+        if (!buffer.isEmpty()) {
+            scheduleDrain();
+        } else if (sourceDone || cancelled) {
+            done = true;
+            firePropertyChange(JAVA_BEAN_PROPERTY_DONE, false, true);
+        }
+    }
+
+    /**
+     * Appends a chunk of rows to the table, notifies the progress and requests the same number of
+     * rows to the publisher, if any.
+     *
+     * @param chunk the rows
+     */
+    private void appendChunk(List<R> chunk) {
+
+        long start = System.nanoTime();
+
+        try {
+            table.appendRecords(chunk);
+        } catch (RuntimeException re) {
+            failure = re;
+            cancel();
+            return;
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        // the next chunk takes about the frame budget at the same time per row,
+        // but it never grows more than twice to react to occasional fast chunks
+        long nanosPerRow = Math.max(1L, elapsed / chunk.size());
+        long target = TimeUnit.MILLISECONDS.toNanos(FRAME_BUDGET) / nanosPerRow;
+        chunkSize = (int) Math.max(MIN_CHUNK_SIZE,
+            Math.min(Math.min(target, (long) chunkSize * 2), BUFFER_SIZE));
+
+        Flow.Subscription currentSubscription = subscription;
+        if (currentSubscription != null) {
+            currentSubscription.request(chunk.size());
+        }
+
+        int oldValue = loadedRows;
+        loadedRows += chunk.size();
+        firePropertyChange(JAVA_BEAN_PROPERTY_LOADED_ROWS, oldValue, loadedRows);
+    }
+}
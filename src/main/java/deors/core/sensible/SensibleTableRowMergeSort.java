@@ -0,0 +1,226 @@
+package deors.core.sensible;
+
+import static deors.core.sensible.SensibleContext.getConfigurationProperty;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort of arrays of row indexes.<br>
+ *
+ * The rows are compared with the <code>compareRows()</code> method, which subclasses implement
+ * using keys already extracted from the rows. Arrays with more rows than the parallel sort
+ * threshold are sorted in parallel in the common fork-join pool.<br>
+ *
+ * @author deors
+ * @version 1.0
+ */
+abstract class SensibleTableRowMergeSort {
+
+    /**
+     * The minimum number of rows to sort in parallel. Configurable in the properties file using
+     * the key <code>table.parallelSortThreshold</code>. Default value is <code>16384</code>.
+     *
+     * @see SensibleContext#getConfigurationProperty(String, int)
+     */
+    private static final int PARALLEL_SORT_THRESHOLD =
+        getConfigurationProperty("table.parallelSortThreshold", 16384); //$NON-NLS-1$
+
+    /**
+     * The number of rows below which the merge sort uses insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Default constructor.
+     */
+    SensibleTableRowMergeSort() {
+
+        super();
+    }
+
+    /**
+     * Compares two rows.
+     *
+     * @param row1 the first row
+     * @param row2 the second row
+     *
+     * @return a negative integer, zero, or a positive integer as the first row goes before, at
+     *         the same position, or after the second row
+     */
+    abstract int compareRows(int row1, int row2);
+
+    /**
+     * Sorts the given rows.
+     *
+     * @param rows the rows to be sorted
+     */
+    final void sort(int[] rows) {
+
+        sort(rows, rows.length);
+    }
+
+    /**
+     * Sorts the first rows of the given array.
+     *
+     * @param rows the rows to be sorted
+     * @param n the number of rows to be sorted
+     */
+    final void sort(int[] rows, int n) {
+
+        int[] buffer = new int[n];
+
+        if (n >= PARALLEL_SORT_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new MergeSortTask(rows, buffer, 0, n));
+        } else {
+            mergeSort(rows, buffer, 0, n);
+        }
+    }
+
+    /**
+     * Sorts a range of the given array with a stable merge sort.
+     *
+     * @param rows the rows to be sorted
+     * @param buffer a buffer of the same length as the rows array
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     */
+    private void mergeSort(int[] rows, int[] buffer, int from, int to) {
+
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(rows, from, to);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+
+        mergeSort(rows, buffer, from, middle);
+        mergeSort(rows, buffer, middle, to);
+        merge(rows, buffer, from, middle, to);
+    }
+
+    /**
+     * Sorts a small range of the given array with a stable insertion sort.
+     *
+     * @param rows the rows to be sorted
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     */
+    private void insertionSort(int[] rows, int from, int to) {
+
+        for (int i = from + 1; i < to; i++) {
+            int row = rows[i];
+            int j = i - 1;
+
+            while (j >= from && compareRows(rows[j], row) > 0) {
+                rows[j + 1] = rows[j];
+                j--;
+            }
+
+            rows[j + 1] = row;
+        }
+    }
+
+    /**
+     * Merges two consecutive sorted ranges of the given array.
+     *
+     * @param rows the rows being sorted
+     * @param buffer a buffer of the same length as the rows array
+     * @param from the first position of the first range, inclusive
+     * @param middle the first position of the second range
+     * @param to the last position of the second range, exclusive
+     */
+    private void merge(int[] rows, int[] buffer, int from, int middle, int to) {
+
+        // the ranges are already in order
+        if (compareRows(rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+
+        System.arraycopy(rows, from, buffer, from, to - from);
+
+        int i = from;
+        int j = middle;
+
+        for (int k = from; k < to; k++) {
+            if (j >= to || i < middle && compareRows(buffer[i], buffer[j]) <= 0) {
+                rows[k] = buffer[i++];
+            } else {
+                rows[k] = buffer[j++];
+            }
+        }
+    }
+
+    /**
+     * Fork-join task that sorts a range of rows, sorting both halves in parallel while the range
+     * is larger than the parallel sort threshold.<br>
+     *
+     * @author deors
+     * @version 1.0
+     */
+    private final class MergeSortTask
+        extends RecursiveAction {
+
+        /**
+         * Serialization ID.
+         */
+        private static final long serialVersionUID = 6338166017233702367L;
+
+        /**
+         * The rows being sorted.
+         */
+        private final int[] rows;
+
+        /**
+         * The merge buffer.
+         */
+        private final int[] buffer;
+
+        /**
+         * The first position, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The last position, exclusive.
+         */
+        private final int to;
+
+        /**
+         * Constructor that sets the range to be sorted.
+         *
+         * @param rows the rows being sorted
+         * @param buffer the merge buffer
+         * @param from the first position, inclusive
+         * @param to the last position, exclusive
+         */
+        MergeSortTask(int[] rows, int[] buffer, int from, int to) {
+
+            super();
+
+            this.rows = rows;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Sorts the range.
+         */
+        @Override
+        protected void compute() {
+
+            if (to - from <= PARALLEL_SORT_THRESHOLD / 2) {
+                mergeSort(rows, buffer, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(new MergeSortTask(rows, buffer, from, middle),
+                new MergeSortTask(rows, buffer, middle, to));
+
+            merge(rows, buffer, from, middle, to);
+        }
+    }
+}
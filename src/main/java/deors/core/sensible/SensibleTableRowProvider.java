@@ -0,0 +1,43 @@
+package deors.core.sensible;
+
+import java.util.List;
+
+/**
+ * Definition for a paged source of table rows.<br>
+ *
+ * A <code>SensibleTable</code> object can use a row provider instead of the list in the
+ * <code>tableData</code> property. In that case, the table only asks the provider for the number
+ * of rows and for the pages of rows needed to paint the rows currently visible, keeping a bounded
+ * window of materialized rows in memory.<br>
+ *
+ * Implementations are expected to return a stable number of rows until the table is told that
+ * the data changed by invoking <code>SensibleTable.refreshRowProvider()</code>.<br>
+ *
+ * @param <R> a SensibleObject type that models the table behavior and data
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleTable#setRowProvider(SensibleTableRowProvider)
+ * @see SensibleTable#refreshRowProvider()
+ */
+public interface SensibleTableRowProvider<R extends SensibleObject> {
+
+    /**
+     * Returns the number of rows available in the provider.
+     *
+     * @return the number of rows
+     */
+    int getRowCount();
+
+    /**
+     * Returns the rows in the given range. The returned list must contain exactly
+     * <code>toIndex - fromIndex</code> elements.
+     *
+     * @param fromIndex the first row in the range, inclusive
+     * @param toIndex the last row in the range, exclusive
+     *
+     * @return the rows in the given range
+     */
+    List<R> getRows(int fromIndex, int toIndex);
+}
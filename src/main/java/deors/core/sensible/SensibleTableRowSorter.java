@@ -0,0 +1,738 @@
+package deors.core.sensible;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+/**
+ * Definition for a row sorter for <code>SensibleTable</code> objects.<br>
+ *
+ * The sorter extracts a typed sort key once per row and column being sorted and then sorts the
+ * row indexes with a stable merge sort that only compares those keys, so sorting does not build
+ * the <code>toStringForSort()</code> representation of the fields on every comparison. Integer,
+ * long, boolean, big decimal, date and time fields use primitive keys. Tables with more rows than
+ * the parallel sort threshold are sorted in parallel in the common fork-join pool.<br>
+ *
+ * The sorter also hides the rows that do not match the table row filter. The rows matched are
+ * read from the filter indexes kept by the table, so they are not evaluated one by one.<br>
+ *
+ * When the table model changes, the keys are kept and shifted for the rows inserted and deleted,
+ * and only the keys of the rows inserted or updated are extracted. The rows deleted are removed
+ * from the view and the rows inserted or updated are placed in it by binary search, so a change
+ * of a few rows costs a linear pass over the view instead of sorting all the rows again. Changes
+ * of many rows at once are sorted again, and so are the events of a batch with several row
+ * insertions or deletions, which are sorted once when its first event is received. The sorter is
+ * installed in the table by setting the <code>sortable</code> or the <code>rowFilter</code>
+ * properties. While the table is sortable, the clicks on the table header toggle the sort order
+ * as with the standard Swing sorter.<br>
+ *
+ * @param <R> a SensibleObject type that models the table behavior and data
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see SensibleTable#setSortable(boolean)
+ * @see SensibleTable#setRowFilter(SensibleTableFilter)
+ */
+public class SensibleTableRowSorter<R extends SensibleObject>
+    extends RowSorter<SensibleTable<R>.SensibleTableModel> {
+
+    /**
+     * The maximum number of sort keys.
+     */
+    private static final int MAX_SORT_KEYS = 3;
+
+    /**
+     * The maximum number of rows inserted or updated at once that are placed in the view by
+     * binary search. The view is sorted again when more rows change at once.
+     */
+    private static final int MAX_INCREMENTAL_ROWS = 64;
+
+    /**
+     * The table being sorted.
+     */
+    private final SensibleTable<R> table;
+
+    /**
+     * The table model.
+     */
+    private final SensibleTable<R>.SensibleTableModel model;
+
+    /**
+     * The current sort keys.
+     */
+    private List<SortKey> sortKeys = Collections.emptyList();
+
+    /**
+     * The typed keys of the columns being sorted, in the same order as the sort keys.
+     */
+    private SensibleTableColumnKeys[] columnKeys = new SensibleTableColumnKeys[0];
+
+    /**
+     * Whether each column being sorted is sorted in descending order.
+     */
+    private boolean[] descending = new boolean[0];
+
+    /**
+     * The merge sort that compares the rows using the sort keys.
+     */
+    private final SensibleTableRowMergeSort rowSort = new SensibleTableRowMergeSort() {
+        @Override
+        int compareRows(int row1, int row2) {
+            return SensibleTableRowSorter.this.compareRows(row1, row2);
+        }
+    };
+
+    /**
+     * The model index of each view row, or <code>null</code> if the rows are neither sorted nor
+     * filtered.
+     */
+    private int[] viewToModel;
+
+    /**
+     * The view index of each model row (<code>-1</code> for the rows filtered out), or
+     * <code>null</code> if the rows are neither sorted nor filtered.
+     */
+    private int[] modelToView;
+
+    /**
+     * The number of rows in the model the last time it was read.
+     */
+    private int modelRowCount;
+
+    /**
+     * The last batch with several row insertions or deletions that was sorted when its first
+     * event was received, so the rest of its events are ignored.
+     *
+     * @see SensibleTable#getFiringStructuralBatch()
+     */
+    private SensibleTableBatch sortedBatch;
+
+    /**
+     * Constructor that sets the table to be sorted. The rows are filtered with the table row
+     * filter, if there is one.
+     *
+     * @param table the table to be sorted
+     */
+    public SensibleTableRowSorter(SensibleTable<R> table) {
+
+        super();
+
+        this.table = table;
+        this.model = table.getModel();
+        this.modelRowCount = model.getRowCount();
+
+        sort();
+    }
+
+    /**
+     * Notifies the sorter that all the rows changed and sorts and filters them again.
+     */
+    @Override
+    public void allRowsChanged() {
+
+        modelRowCount = model.getRowCount();
+        sort();
+    }
+
+    /**
+     * Returns the model index of the given view row.
+     *
+     * @param index the view row
+     *
+     * @return the model row
+     */
+    @Override
+    public int convertRowIndexToModel(int index) {
+
+        if (viewToModel == null) {
+            if (index < 0 || index >= model.getRowCount()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return index;
+        }
+
+        return viewToModel[index];
+    }
+
+    /**
+     * Returns the view index of the given model row.
+     *
+     * @param index the model row
+     *
+     * @return the view row or <code>-1</code> if the row is filtered out
+     */
+    @Override
+    public int convertRowIndexToView(int index) {
+
+        if (modelToView == null) {
+            if (index < 0 || index >= model.getRowCount()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return index;
+        }
+
+        return modelToView[index];
+    }
+
+    /**
+     * Returns the table model.
+     *
+     * @return the table model
+     */
+    @Override
+    public SensibleTable<R>.SensibleTableModel getModel() {
+
+        return model;
+    }
+
+    /**
+     * Returns the number of rows in the model.
+     *
+     * @return the number of rows in the model
+     */
+    @Override
+    public int getModelRowCount() {
+
+        return model.getRowCount();
+    }
+
+    /**
+     * Returns the current sort keys.
+     *
+     * @return the sort keys
+     */
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+
+        return sortKeys;
+    }
+
+    /**
+     * Returns the number of rows in the view.
+     *
+     * @return the number of rows in the view
+     */
+    @Override
+    public int getViewRowCount() {
+
+        return viewToModel == null ? model.getRowCount() : viewToModel.length;
+    }
+
+    /**
+     * Notifies the sorter that the model structure changed. The sort keys are discarded and the
+     * rows are filtered again.
+     */
+    @Override
+    public void modelStructureChanged() {
+
+        modelRowCount = model.getRowCount();
+        sortKeys = Collections.emptyList();
+        columnKeys = new SensibleTableColumnKeys[0];
+        descending = new boolean[0];
+        viewToModel = null;
+        modelToView = null;
+
+        sort();
+    }
+
+    /**
+     * Returns whether the keys and the view are consistent with the given number of rows in the
+     * model before the change being notified.
+     *
+     * @param previousRowCount the number of rows in the model before the change
+     *
+     * @return whether the change can be applied to the keys and the view
+     */
+    private boolean isConsistent(int previousRowCount) {
+
+        if (modelRowCount != previousRowCount) {
+            return false;
+        }
+
+        for (SensibleTableColumnKeys keys : columnKeys) {
+            if (keys.size() != previousRowCount) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether the change being notified belongs to a batch with several row insertions
+     * or deletions. The rows are sorted and filtered again when the first event of the batch is
+     * received, as the table data already has the changes of all of them, and the rest of its
+     * events are ignored.
+     *
+     * @return whether the change was already applied
+     *
+     * @see SensibleTable#getFiringStructuralBatch()
+     */
+    private boolean isBatchSorted() {
+
+        SensibleTableBatch firing = table.getFiringStructuralBatch();
+
+        if (firing == null) {
+            return false;
+        }
+
+        if (firing != sortedBatch) {
+            sortedBatch = firing;
+            sort();
+        }
+
+        return true;
+    }
+
+    /**
+     * Notifies the sorter that rows were deleted. The keys of the rows kept are moved to their
+     * new positions and the rows deleted are removed from the view, which keeps its order.
+     *
+     * @param firstRow the first row deleted
+     * @param endRow the last row deleted
+     */
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+
+        int rowCount = model.getRowCount();
+
+        if (viewToModel == null) {
+            modelRowCount = rowCount;
+            return;
+        }
+
+        if (isBatchSorted()) {
+            return;
+        }
+
+        int count = endRow - firstRow + 1;
+
+        if (!isConsistent(rowCount + count) || firstRow < 0 || endRow >= modelRowCount) {
+            sort();
+            return;
+        }
+
+        int[] newRows = new int[modelRowCount];
+
+        for (int row = 0; row < modelRowCount; row++) {
+            newRows[row] = row < firstRow ? row : row <= endRow ? -1 : row - count;
+        }
+
+        for (SensibleTableColumnKeys keys : columnKeys) {
+            keys.deleted(newRows);
+        }
+
+        int[] lastViewToModel = viewToModel;
+        int[] rows = new int[lastViewToModel.length];
+        int n = 0;
+
+        for (int row : lastViewToModel) {
+            if (newRows[row] != -1) {
+                rows[n++] = newRows[row];
+            }
+        }
+
+        viewToModel = n == rows.length ? rows : Arrays.copyOf(rows, n);
+        modelRowCount = rowCount;
+
+        updateModelToView();
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    /**
+     * Notifies the sorter that rows were inserted. The keys of the rows inserted are extracted
+     * and those matched by the filter are placed in the view by binary search.
+     *
+     * @param firstRow the first row inserted
+     * @param endRow the last row inserted
+     */
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+
+        int rowCount = model.getRowCount();
+
+        if (viewToModel == null) {
+            modelRowCount = rowCount;
+            return;
+        }
+
+        if (isBatchSorted()) {
+            return;
+        }
+
+        int count = endRow - firstRow + 1;
+
+        if (!isConsistent(rowCount - count) || firstRow < 0 || firstRow > modelRowCount
+            || count > MAX_INCREMENTAL_ROWS) {
+            sort();
+            return;
+        }
+
+        for (SensibleTableColumnKeys keys : columnKeys) {
+            for (int row = firstRow; row <= endRow; row++) {
+                keys.inserted(table, row);
+            }
+        }
+
+        int[] lastViewToModel = viewToModel;
+        int[] rows = new int[lastViewToModel.length + count];
+        int n = lastViewToModel.length;
+
+        for (int i = 0; i < n; i++) {
+            int row = lastViewToModel[i];
+            rows[i] = row < firstRow ? row : row + count;
+        }
+
+        modelRowCount = rowCount;
+
+        viewToModel = placeRows(rows, n, firstRow, endRow, table.filterRows());
+
+        updateModelToView();
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    /**
+     * Notifies the sorter that rows were updated. The keys of the rows updated are extracted
+     * again, and those rows are removed from the view and, if matched by the filter, placed in
+     * it again by binary search.
+     *
+     * @param firstRow the first row updated
+     * @param endRow the last row updated
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+
+        if (viewToModel == null || isBatchSorted()) {
+            return;
+        }
+
+        int rowCount = model.getRowCount();
+
+        if (!isConsistent(rowCount) || firstRow < 0 || endRow >= rowCount) {
+            sort();
+            return;
+        }
+
+        for (SensibleTableColumnKeys keys : columnKeys) {
+            keys.extract(table, firstRow, endRow);
+        }
+
+        BitSet matched = table.filterRows();
+        int[] lastViewToModel = viewToModel;
+
+        if (endRow - firstRow + 1 > MAX_INCREMENTAL_ROWS) {
+            viewToModel = matched == null ? viewToModel.clone() : matchedRows(matched, rowCount);
+            sortRows();
+            fireRowSorterChanged(lastViewToModel);
+            return;
+        }
+
+        int[] rows = new int[lastViewToModel.length + endRow - firstRow + 1];
+        int n = 0;
+
+        for (int row : lastViewToModel) {
+            if (row < firstRow || row > endRow) {
+                rows[n++] = row;
+            }
+        }
+
+        viewToModel = placeRows(rows, n, firstRow, endRow, matched);
+
+        updateModelToView();
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    /**
+     * Places the given model rows matched by the filter in the view by binary search. The view
+     * rows are in sort order, with the rows that have equal keys in model order as the merge sort
+     * is stable, and the same order is used to find the position of each row placed.
+     *
+     * @param rows the view rows, with room for the rows placed
+     * @param length the number of view rows
+     * @param firstRow the first model row to be placed
+     * @param endRow the last model row to be placed
+     * @param matched the rows matched by the filter or <code>null</code> if all the rows are
+     *                matched
+     *
+     * @return the view rows, trimmed to the number of rows
+     */
+    private int[] placeRows(int[] rows, int length, int firstRow, int endRow, BitSet matched) {
+
+        int n = length;
+
+        for (int row = firstRow; row <= endRow; row++) {
+            if (matched != null && !matched.get(row)) {
+                continue;
+            }
+
+            int low = 0;
+            int high = n;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int result = compareRows(rows[middle], row);
+
+                if (result < 0 || result == 0 && rows[middle] < row) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            System.arraycopy(rows, low, rows, low + 1, n - low);
+            rows[low] = row;
+            n++;
+        }
+
+        return n == rows.length ? rows : Arrays.copyOf(rows, n);
+    }
+
+    /**
+     * Notifies the sorter that cells in a column were updated. The rows are placed again in the
+     * view only if the column is being sorted or there is a row filter.
+     *
+     * @param firstRow the first row updated
+     * @param endRow the last row updated
+     * @param column the column updated
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+
+        if (table.getRowFilter() == null && !isSortedColumn(column)) {
+            return;
+        }
+
+        rowsUpdated(firstRow, endRow);
+    }
+
+    /**
+     * Returns whether the given column is being sorted.
+     *
+     * @param column the column index
+     *
+     * @return whether the column is being sorted
+     */
+    private boolean isSortedColumn(int column) {
+
+        for (SensibleTableColumnKeys keys : columnKeys) {
+            if (keys.getColumn() == column) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Changes the sort keys, fires the sort order changed event and sorts the rows. Unsorted
+     * keys are ignored and at most three keys are used.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if any of the keys is
+     * <code>null</code> or references a column not in the model.
+     *
+     * @param keys the new sort keys or <code>null</code> to leave the rows unsorted
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+
+        List<SortKey> newKeys = new ArrayList<SortKey>();
+
+        if (keys != null) {
+            for (SortKey key : keys) {
+                if (key == null || key.getColumn() < 0
+                    || key.getColumn() >= model.getColumnCount()) {
+                    throw new IllegalArgumentException(
+                        SensibleContext.getMessage("TABLE_ERR_INVALID_SORT_KEY")); //$NON-NLS-1$
+                }
+                newKeys.add(key);
+            }
+        }
+
+        if (newKeys.equals(sortKeys)) {
+            return;
+        }
+
+        sortKeys = Collections.unmodifiableList(newKeys);
+
+        fireSortOrderChanged();
+
+        sort();
+    }
+
+    /**
+     * Extracts the keys of all the rows, filters and sorts them and fires the sorter changed
+     * event.
+     */
+    public void sort() {
+
+        int[] lastViewToModel = viewToModel;
+
+        List<SensibleTableColumnKeys> keys = new ArrayList<SensibleTableColumnKeys>();
+        List<Boolean> orders = new ArrayList<Boolean>();
+
+        for (SortKey key : sortKeys) {
+            if (key.getSortOrder() != SortOrder.UNSORTED && keys.size() < MAX_SORT_KEYS) {
+                keys.add(new SensibleTableColumnKeys(table.getRecord(), key.getColumn()));
+                orders.add(key.getSortOrder() == SortOrder.DESCENDING);
+            }
+        }
+
+        int rowCount = model.getRowCount();
+        modelRowCount = rowCount;
+
+        columnKeys = keys.toArray(new SensibleTableColumnKeys[keys.size()]);
+        descending = new boolean[orders.size()];
+
+        BitSet matched = table.filterRows();
+
+        if (keys.isEmpty() && matched == null) {
+            if (viewToModel != null) {
+                viewToModel = null;
+                modelToView = null;
+                fireRowSorterChanged(lastViewToModel);
+            }
+            return;
+        }
+
+        for (int i = 0; i < descending.length; i++) {
+            columnKeys[i].extract(table, rowCount);
+            descending[i] = orders.get(i);
+        }
+
+        viewToModel = matchedRows(matched, rowCount);
+
+        sortRows();
+
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    /**
+     * Returns the model rows matched by the filter, in model order.
+     *
+     * @param matched the rows matched by the filter or <code>null</code> if all the rows are
+     *                matched
+     * @param rowCount the number of rows in the model
+     *
+     * @return the array with the rows matched
+     */
+    private static int[] matchedRows(BitSet matched, int rowCount) {
+
+        if (matched == null) {
+            int[] rows = new int[rowCount];
+
+            for (int i = 0; i < rowCount; i++) {
+                rows[i] = i;
+            }
+
+            return rows;
+        }
+
+        int[] rows = new int[matched.cardinality()];
+        int n = 0;
+
+        for (int row = matched.nextSetBit(0); row >= 0 && row < rowCount;
+             row = matched.nextSetBit(row + 1)) {
+            rows[n++] = row;
+        }
+
+        return n == rows.length ? rows : Arrays.copyOf(rows, n);
+    }
+
+    /**
+     * Sorts the rows in the <code>viewToModel</code> array using the extracted keys, if there
+     * are sort keys, and updates the <code>modelToView</code> array.
+     */
+    private void sortRows() {
+
+        if (columnKeys.length > 0) {
+            rowSort.sort(viewToModel);
+        }
+
+        updateModelToView();
+    }
+
+    /**
+     * Updates the <code>modelToView</code> array from the <code>viewToModel</code> array.
+     */
+    private void updateModelToView() {
+
+        modelToView = new int[modelRowCount];
+        Arrays.fill(modelToView, -1);
+
+        for (int i = 0; i < viewToModel.length; i++) {
+            modelToView[viewToModel[i]] = i;
+        }
+    }
+
+    /**
+     * Toggles the sort order of the given column. If the column is the primary sort key its
+     * order is reversed, otherwise the column becomes the primary sort key in ascending order.
+     * Nothing is done if the table is not sortable.
+     *
+     * @param column the column index
+     *
+     * @see SensibleTable#setSortable(boolean)
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+
+        if (!table.isSortable()) {
+            return;
+        }
+
+        List<SortKey> keys = new ArrayList<SortKey>(sortKeys);
+        int index = -1;
+
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).getColumn() == column) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index == 0) {
+            SortOrder order = keys.get(0).getSortOrder() == SortOrder.ASCENDING
+                ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            keys.set(0, new SortKey(column, order));
+        } else {
+            if (index != -1) {
+                keys.remove(index);
+            }
+            keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+        }
+
+        if (keys.size() > MAX_SORT_KEYS) {
+            keys = keys.subList(0, MAX_SORT_KEYS);
+        }
+
+        setSortKeys(keys);
+    }
+
+    /**
+     * Compares two model rows using the sort keys.
+     *
+     * @param row1 the first row
+     * @param row2 the second row
+     *
+     * @return a negative integer, zero, or a positive integer as the first row goes before, at
+     *         the same position, or after the second row
+     */
+    private int compareRows(int row1, int row2) {
+
+        for (int i = 0; i < columnKeys.length; i++) {
+            int result = columnKeys[i].compare(row1, row2);
+
+            if (result != 0) {
+                return descending[i] ? -result : result;
+            }
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,198 @@
+package deors.core.sensible;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded window of rows materialized from a <code>SensibleTableRowProvider</code> object.<br>
+ *
+ * Rows are fetched from the provider in pages of a fixed size. The pages are kept in a map
+ * ordered by access so the least recently used page is discarded when the maximum number of
+ * cached pages is reached. The page is discarded before the next one is fetched, and the last
+ * page used is always one of the pages in the map, so no more than that number of pages is
+ * kept at any time. As the table only asks for the rows being painted, the pages kept
+ * are the ones around the viewport and the memory used does not depend on the provider size.<br>
+ *
+ * @param <R> a SensibleObject type that models the table behavior and data
+ *
+ * @author deors
+ * @version 1.0
+ */
+final class SensibleTableRowWindow<R extends SensibleObject> {
+
+    /**
+     * The provider of the rows.
+     */
+    private final SensibleTableRowProvider<R> provider;
+
+    /**
+     * The number of rows in each page.
+     */
+    private final int pageSize;
+
+    /**
+     * The maximum number of pages kept in memory.
+     */
+    private final int maxPages;
+
+    /**
+     * The pages currently materialized, ordered by access.
+     */
+    private final Map<Integer, List<R>> pages;
+
+    /**
+     * The number of rows in the provider, or <code>-1</code> if it has not been read yet.
+     */
+    private int rowCount = -1;
+
+    /**
+     * The index of the last page used.
+     */
+    private int lastPageIndex = -1;
+
+    /**
+     * The last page used. Kept apart so consecutive reads in the same page do not touch the map.
+     */
+    private List<R> lastPage;
+
+    /**
+     * Constructor that sets the provider and the window dimensions.<br>
+     *
+     * An <code>IllegalArgumentException</code> exception is thrown if the page size or the
+     * maximum number of pages is not a positive number.
+     *
+     * @param provider the provider of the rows
+     * @param pageSize the number of rows in each page
+     * @param maxPages the maximum number of pages kept in memory
+     */
+    SensibleTableRowWindow(SensibleTableRowProvider<R> provider, int pageSize, int maxPages) {
+
+        super();
+
+        if (pageSize <= 0 || maxPages <= 0) {
+            throw new IllegalArgumentException(
+                SensibleContext.getMessage("TABLE_ERR_INVALID_WINDOW")); //$NON-NLS-1$
+        }
+
+        this.provider = provider;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pages = new LinkedHashMap<Integer, List<R>>(maxPages * 2, 0.75f, true);
+    }
+
+    /**
+     * Discards all the materialized rows and the cached row count.
+     */
+    void clear() {
+
+        pages.clear();
+        rowCount = -1;
+        lastPageIndex = -1;
+        lastPage = null;
+    }
+
+    /**
+     * Discards the least recently used page. The last page used is discarded too if it is that
+     * page.
+     */
+    private void discardEldestPage() {
+
+        Iterator<Integer> eldest = pages.keySet().iterator();
+
+        if (eldest.next() == lastPageIndex) {
+            lastPageIndex = -1;
+            lastPage = null;
+        }
+
+        eldest.remove();
+    }
+
+    /**
+     * Returns the number of pages currently materialized.
+     *
+     * @return the number of pages in memory
+     */
+    int getCachedPageCount() {
+
+        return pages.size();
+    }
+
+    /**
+     * Returns the number of rows in each page.
+     *
+     * @return the page size
+     */
+    int getPageSize() {
+
+        return pageSize;
+    }
+
+    /**
+     * Returns the maximum number of pages kept in memory.
+     *
+     * @return the maximum number of pages
+     */
+    int getMaxPages() {
+
+        return maxPages;
+    }
+
+    /**
+     * Returns the provider of the rows.
+     *
+     * @return the provider
+     */
+    SensibleTableRowProvider<R> getProvider() {
+
+        return provider;
+    }
+
+    /**
+     * Returns the row at the given position, fetching its page from the provider if needed.
+     *
+     * @param row the row index
+     *
+     * @return the row
+     */
+    R getRow(int row) {
+
+        int pageIndex = row / pageSize;
+
+        if (pageIndex != lastPageIndex) {
+            List<R> page = pages.get(pageIndex);
+
+            if (page == null) {
+                if (pages.size() >= maxPages) {
+                    discardEldestPage();
+                }
+
+                int from = pageIndex * pageSize;
+                int to = Math.min(from + pageSize, getRowCount());
+                page = provider.getRows(from, to);
+                pages.put(pageIndex, page);
+            }
+
+            lastPageIndex = pageIndex;
+            lastPage = page;
+        }
+
+        return lastPage.get(row - pageIndex * pageSize);
+    }
+
+    /**
+     * Returns the number of rows in the provider. The value is read once and cached until the
+     * window is cleared.
+     *
+     * @return the number of rows
+     */
+    int getRowCount() {
+
+        if (rowCount == -1) {
+            rowCount = provider.getRowCount();
+        }
+
+        return rowCount;
+    }
+}
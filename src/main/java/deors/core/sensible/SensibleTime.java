@@ -615,6 +615,20 @@ public final class SensibleTime
         proposedSecond = 0;
     }
 
+    /**
+     * Returns the immutable state of the data value, where the components are the hour, minute
+     * and second.
+     *
+     * @return the state of the data value
+     *
+     * @see SensibleDataType#createState()
+     */
+    @Override
+    SensibleDataState createState() {
+
+        return new SensibleDataState(value, valid, complete, null, getTime());
+    }
+
     /**
      * Compares this <code>SensibleTime</code> object with the given integer values and returns
      * whether both object and values represent the same time.
@@ -818,6 +832,17 @@ public final class SensibleTime
         return hour * minute * second;
     }
 
+    /**
+     * Returns whether the data value is a complete time formatted with the current format, so
+     * setting the time again gives the same data value.
+     *
+     * @return whether the data value is a complete time formatted
+     */
+    boolean isFormatted() {
+
+        return complete && value.equals(formatTime(hour, minute, second));
+    }
+
     /**
      * Returns <code>true</code> if the data value is clear. Actually it checks that the hour,
      * minute and second are all equal to zero.
@@ -1106,4 +1131,43 @@ public final class SensibleTime
 
         return '\'' + toString() + '\'';
     }
+
+    /**
+     * Checks whether the given string is a valid and complete time value, as the setter methods
+     * require it, without changing the data value and without throwing exceptions, and stores the
+     * result code and the hour, minute and second in the given result object. The string is parsed with the
+     * same parser used by the setter methods.
+     *
+     * @param source the string to be checked
+     * @param result the result object, or <code>null</code> if only the result code is needed
+     *
+     * @return the result code
+     *
+     * @see SensibleDataType#tryParse(CharSequence, SensibleParseResult)
+     * @see SensibleTime#checkTime(String)
+     */
+    @Override
+    public int tryParse(CharSequence source, SensibleParseResult result) {
+
+        final int itemCount = 3;
+
+        String s = source.toString();
+
+        if (s.length() == 0) {
+            return SensibleParseResult.complete(result, SensibleParseResult.VALID, null,
+                itemCount, 0, 0, 0, 0, 0, 0);
+        }
+
+        // the parsed values are left in the proposed values, which are emptied afterwards
+        int code = checkTime(s) && proposedValid
+            ? SensibleParseResult.VALID : SensibleParseResult.INVALID_FORMAT;
+
+        SensibleParseResult.complete(result, code, "TIME_ERR_INVALID_TIME_FORMAT", //$NON-NLS-1$
+            itemCount, proposedHour, proposedMinute, proposedSecond,
+            0, 0, 0);
+
+        emptyProposed();
+
+        return code;
+    }
 }
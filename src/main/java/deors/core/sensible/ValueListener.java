@@ -0,0 +1,33 @@
+package deors.core.sensible;
+
+import java.util.EventListener;
+
+/**
+ * Definition for the listeners of the changes in a property of a bean whose values are objects,
+ * like the <code>value</code> property of the data types or the <code>number</code> property of
+ * the <code>SensibleBigDecimal</code> data type.<br>
+ *
+ * The listeners are notified with the old and new values, without creating a property change
+ * event. As with the property change events, the listeners are not notified if both values are
+ * equal and not <code>null</code>.<br>
+ *
+ * @param <T> the type of the property values
+ *
+ * @author deors
+ * @version 1.0
+ *
+ * @see BasicPropertyChangeSupport#addValueListener(String, ValueListener)
+ */
+@FunctionalInterface
+public interface ValueListener<T>
+    extends EventListener {
+
+    /**
+     * Notifies a change in a property.
+     *
+     * @param source the bean whose property changed
+     * @param oldValue the property old value
+     * @param newValue the property new value
+     */
+    void valueChanged(Object source, T oldValue, T newValue);
+}
@@ -0,0 +1,17 @@
+package deors.core.sensible;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@SensibleRecord
+record Contact(
+    @SensibleField(key = true, required = true, minValue = 0, maxValue = 10000) int id,
+    @SensibleField(key = true, required = true, maxLength = 100, casingMode = "UC") String lastName,
+    @SensibleField(maxLength = 100) String firstName,
+    @SensibleField(maxIntegerDigits = 8, maxFractionalDigits = 2, negativeValuesAllowed = false)
+        BigDecimal balance,
+    LocalDate birthDate,
+    @SensibleField(timeWithSeconds = false) LocalTime callTime,
+    boolean active) {
+}
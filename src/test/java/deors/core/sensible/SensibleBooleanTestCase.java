@@ -335,4 +335,21 @@ public class SensibleBooleanTestCase {
 
         assertTrue(props.contains("flag"));
     }
+
+    @Test
+    public void testTryParse() {
+
+        SensibleBoolean b = new SensibleBoolean();
+        SensibleParseResult result = new SensibleParseResult();
+
+        assertEquals(SensibleParseResult.VALID, b.tryParse("TRUE", result));
+        assertEquals(1, result.getNumber());
+        assertEquals(Boolean.TRUE, result.getValue());
+        assertEquals(SensibleParseResult.VALID, b.tryParse(new StringBuilder("False"), result));
+        assertEquals(0, result.getNumber());
+        assertEquals(SensibleParseResult.INVALID_FORMAT, b.tryParse("yes", result));
+        assertEquals(SensibleContext.getMessage("BOOL_ERR_INVALID_STRING"), result.getMessage());
+        assertEquals(SensibleParseResult.INVALID_FORMAT, b.validate("truth"));
+        assertFalse(b.isFlag());
+    }
 }
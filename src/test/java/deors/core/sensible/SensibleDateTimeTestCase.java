@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.Calendar;
 
 import org.junit.jupiter.api.Test;
@@ -1012,4 +1013,45 @@ public class SensibleDateTimeTestCase {
 
         assertFalse(dt.allowRemove(0, 0, stf, (SensibleTextField.SensibleTextFieldDocument) stf.getDocument()));
     }
+
+    @Test
+    public void testState() {
+
+        SensibleDateTime dt = new SensibleDateTime(2008, 1, 12, 12, 25, 35);
+        SensibleDataState state = new SensibleConcurrentValue<SensibleDateTime>(dt).getState();
+
+        assertEquals(dt.toString(), state.getValue());
+        assertTrue(state.isValid());
+        assertTrue(state.isComplete());
+        assertEquals(null, state.getParsedValue());
+        assertEquals(Arrays.toString(new int[] {2008, 1, 12, 12, 25, 35}),
+            Arrays.toString(state.getComponents()));
+
+        state.getComponents()[0] = 0;
+        assertEquals(2008, state.getComponents()[0]);
+    }
+
+    @Test
+    public void testTryParse() {
+
+        SensibleDateTime dt = new SensibleDateTime(2010, 12, 25, 12, 10, 50);
+        SensibleParseResult result = new SensibleParseResult();
+
+        assertEquals(SensibleParseResult.VALID, dt.tryParse("12/1/2008 12:25:35", result));
+        assertEquals(6, result.getComponentCount());
+        assertEquals(2008, result.getComponent(0));
+        assertEquals(1, result.getComponent(1));
+        assertEquals(12, result.getComponent(2));
+        assertEquals(35, result.getComponent(5));
+        assertEquals(SensibleParseResult.INVALID_FORMAT, dt.tryParse("32/1/2008 12:25:35", result));
+        assertEquals(0, result.getComponentCount());
+        assertEquals(SensibleContext.getMessage("DTTM_ERR_INVALID_DTTM_FORMAT"), result.getMessage());
+        assertEquals(SensibleParseResult.INVALID_FORMAT, dt.validate("12/1"));
+        assertEquals(SensibleParseResult.VALID, dt.validate(""));
+
+        // the data value is not changed
+        assertEquals(2010, dt.getYear());
+        assertEquals(50, dt.getSecond());
+        assertTrue(dt.isComplete());
+    }
 }
@@ -7,6 +7,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 
@@ -418,4 +421,112 @@ public class SensibleIntegerTestCase {
         assertTrue(props.contains("minValue"));
         assertTrue(props.contains("maxValue"));
     }
+
+    @Test
+    public void testConcurrentValue() throws Exception {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SensibleConcurrentValue<SensibleInteger> ci =
+            new SensibleConcurrentValue<SensibleInteger>(new SensibleInteger(0, 100000), executor);
+        final List<Integer> notified = new ArrayList<>();
+        ci.<SensibleDataState>addValueListener("state", (source, oldState, newState) -> {
+            notified.add((Integer) newState.getParsedValue());
+        });
+
+        assertEquals("", ci.getState().getValue());
+        assertFalse(ci.getState().isComplete());
+        assertEquals(executor, ci.getExecutor());
+
+        // the writers are serialized, and the readers always see a consistent state
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int n = 0; n < 10000; n++) {
+                    ci.update(target -> target.setNumber(target.getNumber() + 1));
+                }
+            });
+            writers[t].start();
+        }
+        int last = 0;
+        for (int n = 0; n < 10000; n++) {
+            SensibleDataState state = ci.getState();
+            int number = state.getValue().length() == 0 ? 0 : Integer.parseInt(state.getValue());
+            assertEquals(number, ((Integer) state.getParsedValue()).intValue());
+            assertTrue(state.isValid());
+            assertTrue(number >= last);
+            last = number;
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals("40000", ci.getState().getValue());
+        assertEquals(40000, ci.read(SensibleInteger::getNumber).intValue());
+        assertEquals(40000, ci.copy().getNumber());
+
+        // the listeners are notified in order and the last state is always notified
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(notified.isEmpty());
+        assertEquals(40000, notified.get(notified.size() - 1).intValue());
+        for (int n = 1; n < notified.size(); n++) {
+            assertTrue(notified.get(n) > notified.get(n - 1));
+        }
+
+        // the listeners are notified in the thread that changed the value by default
+        SensibleConcurrentValue<SensibleInteger> cj =
+            new SensibleConcurrentValue<SensibleInteger>(new SensibleInteger(0, 10));
+        final List<String> states = new ArrayList<>();
+        cj.addPropertyChangeListener("state", event -> states.add(event.getNewValue().toString()));
+        cj.setValue("5");
+        assertThrows(IllegalArgumentException.class, () -> cj.setValue("20"));
+        assertEquals("5", cj.getState().getValue());
+        cj.update(target -> target.setValid(false));
+        assertFalse(cj.getState().isValid());
+        cj.clear();
+        assertEquals("", cj.getState().getValue());
+        assertEquals("[5, 5, ]", states.toString());
+    }
+
+    @Test
+    public void testTryParse() {
+
+        SensibleInteger i = new SensibleInteger();
+        SensibleParseResult result = new SensibleParseResult();
+
+        // the same strings are numbers as for the Integer.parseInt method
+        String[] sources = {"0", "+5", "-5", "007", "2147483647", "2147483648", "-2147483648",
+            "-2147483649", "+", "1a", "--1", "+-1", " 1", "\u0663"};
+        for (String source : sources) {
+            int code = i.tryParse(source, result);
+            assertEquals(code, result.getCode());
+            try {
+                int expected = Integer.parseInt(source);
+                assertEquals(SensibleParseResult.VALID, code, source);
+                assertEquals(expected, result.getNumber(), source);
+                assertEquals(null, result.getMessage());
+            } catch (NumberFormatException nfe) {
+                assertEquals(SensibleParseResult.INVALID_FORMAT, code, source);
+                assertEquals(SensibleContext.getMessage("INT_ERR_INVALID_STRING"), result.getMessage());
+            }
+        }
+
+        // the number out of range is kept in the result
+        SensibleInteger j = new SensibleInteger(1, 100);
+        assertEquals(SensibleParseResult.NOT_IN_RANGE, j.tryParse("101", result));
+        assertEquals(101, result.getNumber());
+        assertFalse(result.isValid());
+        assertEquals(SensibleContext.getMessage("INT_ERR_VALUE_NOT_IN_RANGE"), result.getMessage());
+        assertEquals(SensibleParseResult.NOT_IN_RANGE, j.validate(""));
+        assertEquals(SensibleParseResult.VALID, j.validate(new StringBuilder("42")));
+        assertTrue(j.isClear());
+
+        // the setters are built on the same check
+        IllegalArgumentException iae = assertThrows(IllegalArgumentException.class, () -> j.setNumber("101"));
+        assertEquals(SensibleContext.getMessage("INT_ERR_VALUE_NOT_IN_RANGE"), iae.getMessage());
+        iae = assertThrows(IllegalArgumentException.class, () -> j.setNumber("1a"));
+        assertEquals(SensibleContext.getMessage("INT_ERR_INVALID_STRING"), iae.getMessage());
+        j.setNumber("+007");
+        assertEquals("7", j.toString());
+    }
 }
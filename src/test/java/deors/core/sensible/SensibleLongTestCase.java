@@ -417,4 +417,22 @@ public class SensibleLongTestCase {
         assertTrue(props.contains("minValue"));
         assertTrue(props.contains("maxValue"));
     }
+
+    @Test
+    public void testTryParse() {
+
+        SensibleLong l = new SensibleLong(-10, Long.MAX_VALUE);
+        SensibleParseResult result = new SensibleParseResult();
+
+        assertEquals(SensibleParseResult.VALID, l.tryParse("9223372036854775807", result));
+        assertEquals(Long.MAX_VALUE, result.getNumber());
+        assertEquals(SensibleParseResult.INVALID_FORMAT, l.tryParse("9223372036854775808", result));
+        assertEquals(SensibleParseResult.NOT_IN_RANGE, l.tryParse("-9223372036854775808", result));
+        assertEquals(Long.MIN_VALUE, result.getNumber());
+        assertEquals(SensibleContext.getMessage("LONG_ERR_VALUE_NOT_IN_RANGE"), result.getMessage());
+        assertEquals(SensibleParseResult.INVALID_FORMAT, l.validate("-9223372036854775809"));
+        assertEquals(SensibleParseResult.VALID, l.validate("-"));
+        assertEquals(SensibleParseResult.INVALID_FORMAT, l.validate("1.5"));
+        assertTrue(l.isClear());
+    }
 }
@@ -1,17 +1,35 @@
 package deors.core.sensible;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
 
 import org.junit.jupiter.api.Test;
 
 import deors.core.commons.StringToolkit;
+import deors.core.sensible.SensibleTableTestCase.AllTypesObject;
 
 public class SensibleObjectTestCase implements PropertyChangeListener {
 
@@ -669,6 +687,73 @@ public class SensibleObjectTestCase implements PropertyChangeListener {
         assertTrue(o2.compareTo(o1) > 0);
     }
 
+    @Test
+    public void testCompareToTyped() {
+
+        SignedKeyObject o1 = new SignedKeyObject();
+        o1.setField(0, "-20");
+        o1.setField(1, new SensibleDate(2024, 12, 31));
+
+        SignedKeyObject o2 = new SignedKeyObject();
+        o2.setField(0, "-3");
+        o2.setField(1, new SensibleDate(2024, 12, 31));
+
+        // the sort strings of negative numbers do not follow the numeric order
+        assertTrue(o1.toStringForSort().compareTo(o2.toStringForSort()) > 0);
+        assertTrue(o1.compareTo(o2) < 0);
+        assertTrue(o2.compareTo(o1) > 0);
+
+        // the dates are compared by their values when the first keys are equal
+        o2.setField(0, "-20");
+        o2.setField(1, new SensibleDate(2025, 1, 1));
+        assertTrue(o1.compareTo(o2) < 0);
+        assertTrue(o2.compareTo(o1) > 0);
+        o2.setField(1, new SensibleDate(2024, 12, 31));
+        assertEquals(0, o1.compareTo(o2));
+
+        // the objects with less key fields are less when the common keys are equal
+        IdNameObject o3 = new IdNameObject();
+        o3.setField(0, "5");
+        SignedKeyObject o4 = new SignedKeyObject();
+        o4.setField(0, "5");
+        assertTrue(o3.compareTo(o4) < 0);
+        assertTrue(o4.compareTo(o3) > 0);
+    }
+
+    @Test
+    public void testHashCodeCached() {
+
+        NamePhoneObject o1 = new NamePhoneObject();
+        o1.setId(new SensibleInteger(100));
+        o1.setName(new SensibleString("name1"));
+
+        NamePhoneObject o2 = (NamePhoneObject) o1.returnCopy();
+        o1.setHashCodeCached(true);
+
+        assertTrue(o1.isHashCodeCached());
+        assertFalse(o2.isHashCodeCached());
+        assertEquals(o1.hashCode(), o2.hashCode());
+
+        // the cached hash code is discarded when a field changes
+        o1.setField(1, "name2");
+        assertFalse(o1.hashCode() == o2.hashCode());
+        o1.getField(1).setValue("name1");
+        assertEquals(o1.hashCode(), o2.hashCode());
+
+        // the copies keep the property and listen their own fields
+        NamePhoneObject o3 = (NamePhoneObject) o1.returnCopy();
+        assertTrue(o3.isHashCodeCached());
+        assertEquals(o1.hashCode(), o3.hashCode());
+        o3.changeField(2, "phone3");
+        assertFalse(o1.hashCode() == o3.hashCode());
+
+        Set<NamePhoneObject> set = new HashSet<NamePhoneObject>();
+        set.add(o1);
+        set.add(o2);
+        set.add(o3);
+        assertEquals(2, set.size());
+    }
+
     @Test
     public void testChangeValueObject() {
 
@@ -751,6 +836,21 @@ public class SensibleObjectTestCase implements PropertyChangeListener {
         assertEquals(SensibleContext.getMessage("DTYPE_ERR_INVALID_OBJECT"), ex.getMessage());
     }
 
+    @Test
+    public void testSetFieldRejected() {
+
+        SignedKeyObject o1 = new SignedKeyObject();
+        SensibleDate date = (SensibleDate) o1.getField(1);
+
+        assertThrows(IllegalArgumentException.class, () -> o1.setField(1, "not a date"));
+        assertFalse(date.valueChangingInSet);
+
+        // a partial date typed in a text field is accepted after the rejected value
+        date.changeValue("1");
+        assertEquals("1", date.getValue());
+        assertFalse(date.isComplete());
+    }
+
     @Test
     public void testListeners() {
 
@@ -779,6 +879,767 @@ public class SensibleObjectTestCase implements PropertyChangeListener {
         o1.addPropertyChangeListener(o1);
     }
 
+    @Test
+    public void testSchema() {
+
+        NamePhoneObject o1 = new NamePhoneObject();
+        NamePhoneObject o2 = new NamePhoneObject();
+        SensibleObjectSchema schema = o1.getSchema();
+
+        assertTrue(schema == o2.getSchema());
+        assertTrue(schema == o1.returnCopy().getSchema());
+        assertFalse(schema == new IdNameObject().getSchema());
+
+        assertEquals(4, schema.getFieldCount());
+        assertEquals(2, schema.getFieldIndex("phone"));
+        assertEquals(-1, schema.getFieldIndex("fax"));
+        assertEquals("email", schema.getFieldName(3));
+        assertEquals(SensibleInteger.class, schema.getFieldType(0));
+        assertTrue(schema.isKey(0));
+        assertFalse(schema.isKey(1));
+        assertThrows(IllegalArgumentException.class, () -> schema.getFieldName(4));
+
+        assertEquals(2, o2.getFieldIndex("phone"));
+        assertThrows(IllegalArgumentException.class, () -> o2.getFieldIndex("fax"));
+    }
+
+    @Test
+    public void testSchemaResolvedInConstructor() {
+
+        EarlySchemaObject o1 = new EarlySchemaObject();
+        EarlySchemaObject o2 = new EarlySchemaObject();
+        SensibleObjectSchema schema = o1.getSchema();
+
+        // the schema resolved before the listeners were added is neither kept nor shared
+        assertTrue(schema == o2.getSchema());
+        assertTrue(schema.isKey(0));
+        assertTrue(schema.isDerived(1));
+        assertEquals(1, o1.getFieldIndex("copy"));
+
+        o1.setField(0, "abc");
+
+        assertEquals("abc", o1.getField(1).getValue());
+    }
+
+    @Test
+    public void testUpdate() {
+
+        NamePhoneObject o1 = new NamePhoneObject();
+        java.util.List<PropertyChangeEvent> events = new java.util.ArrayList<PropertyChangeEvent>();
+        o1.addPropertyChangeListener(events::add);
+        events.clear();
+
+        o1.beginUpdate();
+        o1.setField(0, "100");
+        o1.setField(2, new SensibleString("phone1"));
+
+        o1.update(o -> {
+            o.setField(1, "name1");
+            o.setField(3, "name1@example.com");
+            o.setField(2, "phone1");
+        });
+
+        assertTrue(events.isEmpty());
+        assertFalse(o1.isDataComplete());
+
+        o1.commit();
+
+        assertEquals(2, events.size());
+        assertEquals("dataComplete", events.get(0).getPropertyName());
+        assertEquals(Boolean.TRUE, events.get(0).getNewValue());
+        assertEquals("fields", events.get(1).getPropertyName());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, (int[]) events.get(1).getNewValue());
+        assertTrue(o1.isDataComplete());
+        assertEquals("100//name1//phone1//name1@example.com//", o1.toString());
+
+        // an update without changes fires no event
+        events.clear();
+        o1.update(o -> o.setField(1, "name1"));
+
+        assertTrue(events.isEmpty());
+
+        // outside an update each change fires its own event
+        o1.setField(1, "name2");
+
+        assertEquals(1, events.size());
+        assertEquals("name", events.get(0).getPropertyName());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, o1::commit);
+        assertEquals(SensibleContext.getMessage("DTYPE_ERR_NO_UPDATE"), ex.getMessage());
+    }
+
+    @Test
+    public void testInvalidFields() {
+
+        NamePhoneObject o1 = new NamePhoneObject();
+
+        assertEquals("{0, 1, 2, 3}", o1.getInvalidFields().toString());
+        assertFalse(o1.isDataComplete());
+
+        o1.setField(0, "100");
+        o1.setField(1, "name1");
+        o1.getInvalidFields().clear();
+
+        assertEquals("{2, 3}", o1.getInvalidFields().toString());
+
+        o1.setField(2, "phone1");
+        o1.setField(3, "not an email");
+
+        assertEquals("{3}", o1.getInvalidFields().toString());
+        assertFalse(o1.isDataComplete());
+
+        o1.setField(3, "name1@example.com");
+
+        assertTrue(o1.getInvalidFields().isEmpty());
+        assertTrue(o1.isDataComplete());
+
+        o1.getField(1).setReadOnly(true);
+        o1.getField(2).setValid(false);
+
+        assertEquals("{2}", o1.getInvalidFields().toString());
+        assertFalse(o1.isDataComplete());
+
+        o1.setField(1, "");
+
+        assertEquals("{1, 2}", o1.getInvalidFields().toString());
+    }
+
+    @Test
+    public void testBoundFieldsValidity() {
+
+        NamePhoneObject row = new NamePhoneObject();
+        row.setField(0, "100");
+        row.setField(1, "name1");
+        row.setField(2, "phone1");
+        row.setField(3, "name1@example.com");
+        NamePhoneObject view = new NamePhoneObject();
+        List<Object> completeEvents = new ArrayList<Object>();
+        view.addPropertyChangeListener("dataComplete", e -> completeEvents.add(e.getNewValue()));
+        completeEvents.clear();
+
+        view.bindFields(row);
+
+        assertTrue(view.isDataComplete());
+        assertTrue(view.getInvalidFields().isEmpty());
+        assertEquals(List.of(true), completeEvents);
+
+        // the row listens to the fields bound, and the view follows it
+        view.getField(3).setValue("not an email");
+
+        assertFalse(view.isDataComplete());
+        assertEquals("{3}", view.getInvalidFields().toString());
+        assertEquals(List.of(true, false), completeEvents);
+
+        view.unbindFields();
+        row.setField(3, "name1@example.com");
+
+        assertTrue(row.isDataComplete());
+        assertFalse(view.isDataComplete());
+        assertEquals("{0, 1, 2, 3}", view.getInvalidFields().toString());
+        assertEquals(List.of(true, false), completeEvents);
+    }
+
+    @Test
+    public void testReturnNewFactory() {
+
+        NamePhoneObject o1 = new NamePhoneObject();
+        o1.setId(new SensibleInteger(100));
+
+        SensibleObject o2 = o1.returnNew();
+        assertTrue(o2 instanceof NamePhoneObject);
+        assertTrue(o2.isClear());
+        assertEquals(o1, o1.returnCopy());
+        assertTrue(new SensibleString(10).returnNew() instanceof SensibleString);
+        assertNull(SensibleInstanceFactory.newInstance(SensibleObject.class));
+
+        int[] created = new int[1];
+        SensibleInstanceFactory.register(IdNameObject.class, () -> {
+            created[0]++;
+            return new IdNameObject();
+        });
+
+        try {
+            IdNameObject o3 = new IdNameObject();
+            o3.changeField(0, "3");
+            o3.changeField(1, "name");
+
+            assertTrue(o3.returnNew() instanceof IdNameObject);
+            assertEquals(o3, o3.returnCopy());
+            assertEquals(2, created[0]);
+        } finally {
+            SensibleInstanceFactory.unregister(IdNameObject.class);
+        }
+
+        new IdNameObject().returnNew();
+
+        assertEquals(2, created[0]);
+
+        // a class that is not public, with a public constructor
+        HiddenObject o4 = new HiddenObject();
+        o4.changeField(0, "hidden");
+        assertTrue(o4.returnNew() instanceof HiddenObject);
+        assertEquals(o4, o4.returnCopy());
+    }
+
+    @Test
+    public void testSchemaWideObject() {
+
+        WideObject o = new WideObject();
+        SensibleObjectSchema schema = o.getSchema();
+
+        assertEquals(WideObject.FIELDS + 2, schema.getFieldCount());
+
+        for (int i = 0; i < WideObject.FIELDS; i++) {
+            assertEquals(i, schema.getFieldIndex("field" + i));
+            assertEquals(i, o.getFieldIndex("field" + i));
+            assertTrue(o.getField(i) == o.getField("field" + i));
+        }
+
+        // both names have the same hash code
+        assertEquals(WideObject.FIELDS, schema.getFieldIndex("Aa"));
+        assertEquals(WideObject.FIELDS + 1, schema.getFieldIndex("BB"));
+        assertEquals(-1, schema.getFieldIndex("field" + WideObject.FIELDS));
+        assertEquals(-1, schema.getFieldIndex(""));
+    }
+
+    @Test
+    public void testCodec() throws IOException {
+
+        List<AllTypesObject> records = new ArrayList<AllTypesObject>();
+
+        for (int i = 0; i < 5000; i++) {
+            AllTypesObject r = new AllTypesObject();
+            r.getSstring().setString("name" + (i % 50));
+            r.getSinteger().setNumber(i % 1000);
+            if (i % 7 != 0) {
+                r.getSlong().setNumber(i * 37L % 1000000);
+            }
+            r.getSboolean().setFlag(i % 2 == 0);
+            r.getSbigdecimal().setNumber(BigDecimal.valueOf(i * 13L - 5000, 2));
+            r.getSdate().setDate(1990 + i % 30, 1 + i % 12, 1 + i % 28);
+            r.getStime1().setTime(i % 24, i % 60, i % 60);
+            r.getStime2().setTime(i % 24, i % 60, 0);
+            r.getSdatetime1().setDateTime(2000 + i % 20, 1 + i % 12, 1 + i % 28, i % 24, i % 60, 0);
+            if (i % 5 == 0) {
+                // an incomplete value is kept as typed
+                r.getSdatetime2().changeValue("01/0");
+            }
+            r.getSpassword().setString("pw" + i);
+            records.add(r);
+        }
+
+        SensibleObjectCodec<AllTypesObject> codec =
+            new SensibleObjectCodec<AllTypesObject>(new AllTypesObject());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SensibleObjectCodec<AllTypesObject>.Encoder encoder = codec.encoder(bytes);
+        for (AllTypesObject r : records) {
+            encoder.write(r);
+        }
+        encoder.flush();
+
+        SensibleObjectCodec<AllTypesObject>.Decoder decoder =
+            codec.decoder(new ByteArrayInputStream(bytes.toByteArray()));
+        for (AllTypesObject r : records) {
+            assertTrue(decoder.hasNext());
+            AllTypesObject read = decoder.read();
+            assertEquals(r, read);
+            assertEquals(r.isDataComplete(), read.isDataComplete());
+        }
+        assertFalse(decoder.hasNext());
+        assertThrows(EOFException.class, () -> decoder.read());
+
+        // the buffer holds the same bytes, read in a single reused object
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.size());
+        SensibleObjectCodec<AllTypesObject>.Encoder bufferEncoder = codec.encoder(buffer);
+        for (AllTypesObject r : records) {
+            bufferEncoder.write(r);
+        }
+        assertArrayEquals(bytes.toByteArray(), buffer.array());
+
+        buffer.flip();
+        SensibleObjectCodec<AllTypesObject>.Decoder bufferDecoder = codec.decoder(buffer);
+        AllTypesObject target = new AllTypesObject();
+        for (AllTypesObject r : records) {
+            bufferDecoder.read(target);
+            assertEquals(r, target);
+        }
+        assertFalse(bufferDecoder.hasNext());
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(records);
+        }
+
+        assertTrue(bytes.size() * 10 < serialized.size());
+    }
+
+    @Test
+    public void testGeneratedObject() throws IOException {
+
+        ContactObject o = new ContactObject();
+        SensibleObjectSchema schema = o.getSchema();
+
+        assertEquals(7, schema.getFieldCount());
+        assertEquals(ContactObject.LAST_NAME, schema.getFieldIndex("lastName"));
+        assertEquals(SensibleString.class, schema.getFieldType(ContactObject.LAST_NAME));
+        assertEquals(SensibleTime.class, schema.getFieldType(ContactObject.CALL_TIME));
+        assertTrue(schema.isKey(ContactObject.ID));
+        assertTrue(schema.isKey(ContactObject.LAST_NAME));
+        assertFalse(schema.isKey(ContactObject.FIRST_NAME));
+        assertEquals(10000, o.getId().getMaxValue());
+        assertEquals(100, o.getLastName().getMaxLength());
+        assertEquals("UC", o.getLastName().getCasingMode());
+        assertFalse(o.getBalance().isNegativeValuesAllowed());
+        assertFalse(o.getCallTime().isTimeWithSeconds());
+        assertFalse(o.isDataComplete());
+
+        o.setId(new SensibleInteger(9));
+        o.setField(ContactObject.LAST_NAME, "SMITH");
+        o.getBalance().setNumber(new BigDecimal("12.50"));
+        assertTrue(o.isDataComplete());
+
+        ContactObject other = o.returnNew();
+        other.setValue(o);
+        assertEquals(o, other);
+        assertEquals(o.hashCode(), other.hashCode());
+        assertEquals(0, o.compareKeys(other));
+
+        // the order only depends on the key fields
+        other.setFirstName(new SensibleString("JOHN"));
+        assertFalse(o.equals(other));
+        assertEquals(0, ContactObject.KEY_ORDER.compare(o, other));
+        assertEquals(0, o.compareTo(other));
+
+        // the keys are compared as numbers
+        other.setField(ContactObject.ID, "10");
+        assertTrue(o.compareKeys(other) < 0);
+        assertTrue(ContactObject.KEY_ORDER.compare(other, o) > 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SensibleObjectCodec<ContactObject>.Encoder encoder = ContactObject.codec().encoder(bytes);
+        encoder.write(o);
+        encoder.write(other);
+        encoder.flush();
+
+        SensibleObjectCodec<ContactObject>.Decoder decoder =
+            ContactObject.codec().decoder(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(o, decoder.read());
+        assertEquals(other, decoder.read());
+        assertFalse(decoder.hasNext());
+    }
+
+    @Test
+    public void testSnapshot() {
+
+        NamePhoneObject o1 = new NamePhoneObject(
+            new SensibleInteger(192), new SensibleString("name2"),
+            new SensibleString("phone2"), new SensibleString("email2"));
+
+        SensibleObjectSnapshot<NamePhoneObject> s1 = SensibleObjectSnapshot.of(o1);
+
+        assertEquals(NamePhoneObject.class, s1.getType());
+        assertEquals(o1.getSchema(), s1.getSchema());
+        assertEquals("192", s1.getValue(0));
+        assertEquals("phone2", s1.getValue("phone"));
+        assertEquals(o1.toString(), s1.toString());
+        assertEquals(o1.hashCode(), s1.hashCode());
+
+        // the snapshot does not follow the changes of the object
+        o1.setField(1, "name3");
+        assertEquals("name2", s1.getValue(1));
+
+        NamePhoneObject o2 = s1.thaw();
+        assertEquals("192//name2//phone2//email2//", o2.toString());
+        assertTrue(o2.getId().equals(192));
+        assertFalse(o2.getEmail().isValid());
+        assertFalse(o2.isDataComplete());
+        assertEquals(s1, SensibleObjectSnapshot.of(o2));
+
+        // the values are changed in a single update
+        List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+        o1.addPropertyChangeListener(events::add);
+        s1.thaw(o1);
+        assertEquals(2, events.size());
+        assertEquals("dataComplete", events.get(0).getPropertyName());
+        assertEquals("fields", events.get(1).getPropertyName());
+        assertArrayEquals(new int[] {1}, (int[]) events.get(1).getNewValue());
+        assertEquals(o2, o1);
+
+        // the values not valid are kept
+        SignedKeyObject o3 = new SignedKeyObject();
+        o3.getField(1).changeValue("12/");
+        SignedKeyObject o4 = SensibleObjectSnapshot.of(o3).thaw();
+        assertEquals("//12///", o4.toString());
+        assertFalse(o4.getField(1).isValid());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> s1.getValue("invalid"));
+        assertEquals(SensibleContext.getMessage("DTYPE_ERR_FIELD_NOT_DEFINED", "invalid"), ex.getMessage());
+
+        List<SensibleObjectSnapshot<NamePhoneObject>> snapshots =
+            new ArrayList<SensibleObjectSnapshot<NamePhoneObject>>();
+        snapshots.add(s1);
+        snapshots.add(SensibleObjectSnapshot.of(o1));
+        snapshots.add(SensibleObjectSnapshot.of(new NamePhoneObject()));
+
+        SensibleTableRowProvider<NamePhoneObject> provider = SensibleObjectSnapshot.provider(snapshots);
+        assertEquals(3, provider.getRowCount());
+
+        List<NamePhoneObject> rows = provider.getRows(1, 3);
+        assertEquals(2, rows.size());
+        assertEquals(o1, rows.get(0));
+        assertTrue(rows.get(0) == rows.get(0));
+        assertTrue(rows.get(1).isClear());
+    }
+
+    @Test
+    public void testSnapshotThawNotCreated() {
+
+        SensibleObjectSnapshot<NamedObject> snapshot =
+            SensibleObjectSnapshot.of(new NamedObject("name"));
+
+        // the class has no no-argument constructor, so no new object can be created
+        IllegalStateException ex = assertThrows(IllegalStateException.class, snapshot::thaw);
+        assertEquals(SensibleContext.getMessage("DTYPE_ERR_INVALID_OBJECT"), ex.getMessage());
+
+        NamedObject o1 = new NamedObject("other");
+        snapshot.thaw(o1);
+        assertEquals("name", o1.getField(0).getValue());
+    }
+
+    @Test
+    public void testDerivedFields() {
+
+        LineObject o1 = new LineObject();
+        SensibleObjectSchema schema = o1.getSchema();
+
+        assertTrue(schema.isDerived(LineObject.TOTAL));
+        assertFalse(schema.isDerived(LineObject.QUANTITY));
+        assertArrayEquals(new int[] {LineObject.TOTAL, LineObject.DISCOUNT},
+            schema.getDerivedInputs(LineObject.NET));
+        assertArrayEquals(new int[0], schema.getDerivedInputs(LineObject.PRICE));
+        assertTrue(o1.getField(LineObject.NET).isReadOnly());
+        assertTrue(o1.getField(LineObject.NET).isClear());
+
+        o1.setField(LineObject.QUANTITY, "3");
+        o1.setField(LineObject.PRICE, new SensibleBigDecimal(new BigDecimal("2.50")));
+        assertEquals(0, new BigDecimal("7.50").compareTo(o1.getNumber(LineObject.TOTAL)));
+        assertEquals(0, new BigDecimal("7.50").compareTo(o1.getNumber(LineObject.NET)));
+
+        // only the derived fields that depend on the field changed are computed, once each
+        o1.computed.clear();
+        o1.setField(LineObject.DISCOUNT, new SensibleBigDecimal(BigDecimal.ONE));
+        assertEquals("[" + LineObject.NET + "]", o1.computed.toString());
+        assertEquals(0, new BigDecimal("6.50").compareTo(o1.getNumber(LineObject.NET)));
+
+        o1.computed.clear();
+        o1.setField(LineObject.QUANTITY, "4");
+        assertEquals("[" + LineObject.TOTAL + ", " + LineObject.NET + "]", o1.computed.toString());
+        assertEquals(0, new BigDecimal("9.00").compareTo(o1.getNumber(LineObject.NET)));
+
+        // inside an update the derived fields are computed once, when it is committed
+        List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+        o1.addPropertyChangeListener(events::add);
+        o1.computed.clear();
+        o1.update(o -> {
+            o.setField(LineObject.QUANTITY, "2");
+            o.setField(LineObject.PRICE, new SensibleBigDecimal(new BigDecimal("5")));
+            o.setField(LineObject.DISCOUNT, new SensibleBigDecimal(BigDecimal.ZERO));
+            assertTrue(o1.computed.isEmpty());
+        });
+        assertEquals("[" + LineObject.TOTAL + ", " + LineObject.NET + "]", o1.computed.toString());
+        assertEquals(0, new BigDecimal("10").compareTo(o1.getNumber(LineObject.NET)));
+        PropertyChangeEvent last = events.get(events.size() - 1);
+        assertEquals("fields", last.getPropertyName());
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, (int[]) last.getNewValue());
+
+        // the copies compute their own derived fields
+        LineObject o2 = (LineObject) o1.returnCopy();
+        assertEquals(o1, o2);
+        o2.setField(LineObject.QUANTITY, "1");
+        assertEquals(0, new BigDecimal("5").compareTo(o2.getNumber(LineObject.NET)));
+        assertEquals(0, new BigDecimal("10").compareTo(o1.getNumber(LineObject.NET)));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, CycleObject::new);
+        assertEquals(SensibleContext.getMessage("DTYPE_ERR_DERIVED_CYCLE", "a"), ex.getMessage());
+
+        IllegalStateException ise = assertThrows(IllegalStateException.class,
+            () -> o1.deriveField(LineObject.NET, (o, t) -> t.clear(), LineObject.TOTAL));
+        assertEquals(SensibleContext.getMessage("DTYPE_ERR_DERIVED_AFTER_LISTENERS"), ise.getMessage());
+    }
+
+    @Test
+    public void testJournal() {
+
+        SensibleJournal journal = new SensibleJournal();
+        List<String> states = new ArrayList<String>();
+        journal.addPropertyChangeListener(
+            e -> states.add(e.getPropertyName() + "=" + e.getNewValue()));
+
+        LineObject o1 = new LineObject();
+        o1.setJournal(journal);
+        assertFalse(journal.undo());
+
+        o1.setField(LineObject.QUANTITY, "3");
+        o1.setField(LineObject.PRICE, new SensibleBigDecimal(new BigDecimal("2.50")));
+        journal.group(() -> {
+            o1.setField(LineObject.QUANTITY, "4");
+            o1.setField(LineObject.DISCOUNT, new SensibleBigDecimal(BigDecimal.ONE));
+        });
+
+        // the derived fields are not recorded, they are computed again when undone
+        assertEquals(4, journal.getDeltaCount());
+        assertEquals(0, new BigDecimal("9").compareTo(o1.getNumber(LineObject.NET)));
+        assertEquals("[undoable=true]", states.toString());
+
+        // a group is undone at once and in a single update of the object
+        List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+        o1.addPropertyChangeListener(e -> {
+            if ("fields".equals(e.getPropertyName())) {
+                events.add(e);
+            }
+        });
+        assertTrue(journal.undo());
+        assertEquals("3", o1.getField(LineObject.QUANTITY).getValue());
+        assertTrue(o1.getField(LineObject.DISCOUNT).isClear());
+        assertEquals(0, new BigDecimal("7.50").compareTo(o1.getNumber(LineObject.NET)));
+        assertEquals(2, events.size());
+        assertTrue(journal.canRedo());
+
+        assertTrue(journal.undo());
+        assertTrue(journal.undo());
+        assertFalse(journal.undo());
+        assertTrue(o1.getField(LineObject.QUANTITY).isClear());
+        assertTrue(o1.getField(LineObject.NET).isClear());
+        assertEquals("[undoable=true, redoable=true, undoable=false]", states.toString());
+
+        assertTrue(journal.redo());
+        assertTrue(journal.redo());
+        assertTrue(journal.redo());
+        assertFalse(journal.redo());
+        assertEquals(0, new BigDecimal("9").compareTo(o1.getNumber(LineObject.NET)));
+
+        // a new change discards the changes undone
+        journal.undo();
+        o1.setField(LineObject.QUANTITY, "5");
+        assertFalse(journal.canRedo());
+        assertEquals(3, journal.getDeltaCount());
+        journal.undo();
+        assertEquals("2.50", o1.getField(LineObject.PRICE).getValue().replace(',', '.'));
+
+        // the oldest changes are discarded when the capacity or the budget are reached
+        SensibleJournal small = new SensibleJournal(3, SensibleJournal.DEFAULT_MEMORY_BUDGET);
+        o1.setJournal(small);
+        for (int i = 1; i <= 5; i++) {
+            o1.setField(LineObject.QUANTITY, Integer.toString(i));
+        }
+        assertEquals(3, small.getDeltaCount());
+        assertTrue(small.undo());
+        assertTrue(small.undo());
+        assertTrue(small.undo());
+        assertFalse(small.undo());
+        assertEquals("2", o1.getField(LineObject.QUANTITY).getValue());
+
+        small.clear();
+        small.setMemoryBudget(small.getMemoryUsage());
+        o1.setField(LineObject.QUANTITY, "10");
+        assertEquals(0, small.getDeltaCount());
+        small.setMemoryBudget(150);
+        small.group(() -> {
+            for (int i = 11; i <= 15; i++) {
+                o1.setField(LineObject.QUANTITY, Integer.toString(i));
+            }
+        });
+        assertEquals(0, small.getDeltaCount());
+        o1.setField(LineObject.QUANTITY, "16");
+        o1.setField(LineObject.QUANTITY, "17");
+        assertEquals(2, small.getDeltaCount());
+        assertTrue(small.getMemoryUsage() <= 150);
+        small.setMemoryBudget(small.getMemoryUsage() - 1);
+        assertEquals(1, small.getDeltaCount());
+
+        o1.setJournal(null);
+        o1.setField(LineObject.QUANTITY, "18");
+        assertEquals(1, small.getDeltaCount());
+
+        small.beginGroup();
+        IllegalStateException ise = assertThrows(IllegalStateException.class, small::undo);
+        assertEquals(SensibleContext.getMessage("JOURNAL_ERR_GROUP_OPEN"), ise.getMessage());
+        small.endGroup();
+        ise = assertThrows(IllegalStateException.class, small::endGroup);
+        assertEquals(SensibleContext.getMessage("JOURNAL_ERR_NO_GROUP"), ise.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new SensibleJournal(0, 1));
+    }
+
+    @Test
+    public void testListenerRegistry() {
+
+        SensibleString field = new SensibleString(10);
+        List<String> events = new ArrayList<String>();
+        PropertyChangeListener all = e -> events.add("all:" + e.getPropertyName());
+        PropertyChangeListener value = e -> events.add("value:" + e.getNewValue());
+
+        // without listeners there is nothing to notify
+        assertFalse(field.hasListeners("value"));
+        field.setString("a");
+
+        field.addPropertyChangeListener(new String("value"), value);
+        field.addPropertyChangeListener(all);
+        assertTrue(field.hasListeners("value"));
+        assertTrue(field.hasListeners("valid"));
+        field.setString("b");
+        assertEquals("[all:string, all:value, value:b]", events.toString());
+
+        // equal values are not notified
+        events.clear();
+        field.firePropertyChange("value", "b", "b");
+        field.firePropertyChange("valid", true, true);
+        assertTrue(events.isEmpty());
+
+        // the listeners can be removed while an event is fired
+        field.addPropertyChangeListener("value", e -> field.removePropertyChangeListener(all));
+        field.setString("c");
+        assertEquals("[all:string, all:value, value:c]", events.toString());
+        events.clear();
+        field.setString("d");
+        assertEquals("[value:d]", events.toString());
+        assertFalse(field.hasListeners("valid"));
+
+        field.removePropertyChangeListener("valid", value);
+        field.removePropertyChangeListener("value", value);
+        events.clear();
+        field.setString("e");
+        assertTrue(events.isEmpty());
+
+        NamePhoneObject o1 = new NamePhoneObject();
+        o1.addPropertyChangeListener("dataComplete", all);
+        assertEquals("[all:dataComplete]", events.toString());
+        assertTrue(o1.hasListeners("dataComplete"));
+        o1.removePropertyChangeListener("dataComplete", all);
+        events.clear();
+        o1.firePropertyChange("dataComplete", false, true);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testTypedListeners() {
+
+        List<String> events = new ArrayList<String>();
+
+        SensibleInteger si = new SensibleInteger(0, 100);
+        IntValueListener number = (source, oldValue, newValue) -> events.add(oldValue + "->" + newValue);
+        si.addIntValueListener("number", number);
+        BooleanPropertyListener valid = (source, name, newValue) -> events.add(name + "=" + newValue);
+        si.addBooleanPropertyListener(null, valid);
+        ValueListener<String> value = (source, oldValue, newValue) -> events.add("'" + newValue + "'");
+        si.addValueListener("value", value);
+
+        // the typed listeners are not property change listeners
+        assertFalse(si.hasListeners("number"));
+
+        si.setNumber(5);
+        si.setValue("7");
+        si.setRequired(true);
+        assertEquals("[0->5, '5', 5->7, '7', required=true]", events.toString());
+
+        si.removeIntValueListener("number", number);
+        si.removeBooleanPropertyListener(null, valid);
+        si.removeValueListener("value", value);
+        events.clear();
+        si.setNumber(8);
+        si.setRequired(false);
+        assertTrue(events.isEmpty());
+
+        SensibleLong sl = new SensibleLong(0L, 10_000_000_000L);
+        sl.addLongValueListener("number", (source, oldValue, newValue) -> events.add(oldValue + "->" + newValue));
+        sl.setNumber(5_000_000_000L);
+        assertEquals("[0->5000000000]", events.toString());
+
+        // the typed listeners are notified before the property change listeners
+        events.clear();
+        sl.addPropertyChangeListener("required", e -> events.add("event"));
+        sl.addBooleanPropertyListener("required", (source, name, newValue) -> events.add("typed"));
+        sl.setRequired(true);
+        assertEquals("[typed, event]", events.toString());
+
+        NamePhoneObject o1 = new NamePhoneObject();
+        events.clear();
+        o1.addBooleanPropertyListener("dataComplete", valid);
+        assertTrue(events.isEmpty());
+        o1.setField("id", "1");
+        o1.setField("name", "name");
+        o1.setField("phone", "phone");
+        o1.setField("email", "a@b.com");
+        assertEquals("[dataComplete=true]", events.toString());
+        o1.removeBooleanPropertyListener("dataComplete", valid);
+        o1.setField("email", "");
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testEventDispatcher() throws Exception {
+
+        // the latency is long enough for the changes to be delivered only when asked
+        SensibleEventDispatcher dispatcher = new SensibleEventDispatcher(600000);
+        List<String> events = new ArrayList<String>();
+
+        SensibleInteger si = new SensibleInteger(0, 100000);
+        si.addPropertyChangeListener("value", e -> events.add(e.getOldValue() + "->" + e.getNewValue()));
+        si.addIntValueListener("number", (source, oldValue, newValue) -> events.add("#" + newValue));
+        si.addBooleanPropertyListener("required", (source, name, newValue) -> events.add(name));
+        si.setNumber(1);
+        si.setEventDispatcher(dispatcher);
+        assertEquals(dispatcher, si.getEventDispatcher());
+        events.clear();
+
+        // the changes made in a background thread are delivered once, with the latest value
+        Thread feed = new Thread(() -> {
+            for (int i = 2; i <= 10000; i++) {
+                si.setNumber(i);
+            }
+            si.setRequired(true);
+            si.setRequired(false);
+        });
+        feed.start();
+        feed.join();
+        assertTrue(events.isEmpty());
+        assertEquals(3, dispatcher.getPendingCount());
+        SwingUtilities.invokeAndWait(dispatcher::deliver);
+
+        assertEquals("[#10000, 1->10000]", events.toString());
+        assertTrue(dispatcher.getPostedCount() >= 2 * 9999 + 2);
+        assertEquals(dispatcher.getPostedCount(),
+            dispatcher.getDeliveredCount() + dispatcher.getCoalescedCount());
+        assertEquals(0, dispatcher.getPendingCount());
+
+        dispatcher.resetCounters();
+        assertEquals(0, dispatcher.getPostedCount());
+
+        // without the dispatcher the changes are notified when they happen
+        si.setEventDispatcher(null);
+        events.clear();
+        si.setNumber(5);
+        assertEquals("[#5, 10000->5]", events.toString());
+
+        // the changes are delivered in the event dispatch thread after the latency
+        NamePhoneObject o1 = new NamePhoneObject();
+        o1.setEventDispatcher(new SensibleEventDispatcher(5));
+        CountDownLatch delivered = new CountDownLatch(1);
+        o1.addBooleanPropertyListener("dataComplete", (source, name, newValue) -> {
+            if (SwingUtilities.isEventDispatchThread()) {
+                delivered.countDown();
+            }
+        });
+        o1.setField("id", "1");
+        o1.setField("name", "name");
+        o1.setField("phone", "phone");
+        o1.setField("email", "a@b.com");
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+
+        assertThrows(IllegalArgumentException.class, () -> new SensibleEventDispatcher(-1));
+    }
+
     public void propertyChange(java.beans.PropertyChangeEvent event) {
 
         System.out.println("a property value has been changed");
@@ -920,4 +1781,204 @@ public class SensibleObjectTestCase implements PropertyChangeListener {
             addListeners();
         }
     }
+
+    public static class SignedKeyObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = 4810375227391860413L;
+
+        public SignedKeyObject() {
+
+            super();
+
+            SensibleInteger id = new SensibleInteger(-1000, 1000);
+            SensibleDate date = new SensibleDate();
+
+            id.setKey(true);
+            date.setKey(true);
+
+            fields = new SensibleDataType[] {id, date};
+            fieldNames = new String[] {"id", "date"};
+
+            // the object listens itself
+            addListeners();
+        }
+    }
+
+    static class HiddenObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = 2630964853175118742L;
+
+        public HiddenObject() {
+
+            super();
+
+            SensibleString name = new SensibleString(100);
+
+            fields = new SensibleDataType[] {name};
+            fieldNames = new String[] {"name"};
+
+            // the object listens itself
+            addListeners();
+        }
+    }
+
+    public static class NamedObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = -5170937612286452011L;
+
+        public NamedObject(String name) {
+
+            super();
+
+            SensibleString nameField = new SensibleString(100, name);
+
+            fields = new SensibleDataType[] {nameField};
+            fieldNames = new String[] {"name"};
+
+            // the object listens itself
+            addListeners();
+        }
+    }
+
+    public static class LineObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = -3021650187203561847L;
+
+        static final int QUANTITY = 0;
+
+        static final int PRICE = 1;
+
+        static final int TOTAL = 2;
+
+        static final int DISCOUNT = 3;
+
+        static final int NET = 4;
+
+        final transient List<Integer> computed = new ArrayList<Integer>();
+
+        public LineObject() {
+
+            super();
+
+            SensibleInteger quantity = new SensibleInteger(0, 1000);
+            SensibleBigDecimal price = new SensibleBigDecimal(8, 2);
+            SensibleBigDecimal total = new SensibleBigDecimal(10, 2);
+            SensibleBigDecimal discount = new SensibleBigDecimal(8, 2);
+            SensibleBigDecimal net = new SensibleBigDecimal(10, 2);
+
+            fields = new SensibleDataType[] {quantity, price, total, discount, net};
+            fieldNames = new String[] {"quantity", "price", "total", "discount", "net"};
+
+            deriveField(NET, (o, t) -> ((LineObject) o).computeNet((SensibleBigDecimal) t),
+                TOTAL, DISCOUNT);
+            deriveField(TOTAL, (o, t) -> ((LineObject) o).computeTotal((SensibleBigDecimal) t),
+                QUANTITY, PRICE);
+
+            // the object listens itself
+            addListeners();
+        }
+
+        BigDecimal getNumber(int index) {
+
+            return ((SensibleBigDecimal) getField(index)).getNumber();
+        }
+
+        private void computeTotal(SensibleBigDecimal total) {
+
+            computed.add(TOTAL);
+
+            if (getField(QUANTITY).isClear() || getField(PRICE).isClear()) {
+                total.clear();
+            } else {
+                int quantity = ((SensibleInteger) getField(QUANTITY)).getNumber();
+                total.setNumber(getNumber(PRICE).multiply(BigDecimal.valueOf(quantity)));
+            }
+        }
+
+        private void computeNet(SensibleBigDecimal net) {
+
+            computed.add(NET);
+
+            if (getField(TOTAL).isClear()) {
+                net.clear();
+            } else if (getField(DISCOUNT).isClear()) {
+                net.setNumber(getNumber(TOTAL));
+            } else {
+                net.setNumber(getNumber(TOTAL).subtract(getNumber(DISCOUNT)));
+            }
+        }
+    }
+
+    public static class EarlySchemaObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = -2866519418062539318L;
+
+        public EarlySchemaObject() {
+
+            super();
+
+            SensibleString name = new SensibleString(10);
+
+            fields = new SensibleDataType[] {name, new SensibleString(10)};
+            fieldNames = new String[] {"name", "copy"};
+
+            // the schema is resolved before the object definition is complete
+            int copy = getFieldIndex("copy");
+
+            name.setKey(true);
+            deriveField(copy, (o, t) -> t.setValue(o.getField(0).getValue()), 0);
+
+            addListeners();
+        }
+    }
+
+    public static class CycleObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = 6310928347506142395L;
+
+        public CycleObject() {
+
+            super();
+
+            fields = new SensibleDataType[] {new SensibleString(), new SensibleString()};
+            fieldNames = new String[] {"a", "b"};
+
+            deriveField(0, (o, t) -> t.clear(), 1);
+            deriveField(1, (o, t) -> t.clear(), 0);
+
+            addListeners();
+        }
+    }
+
+    public static class WideObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = 4179542616913398415L;
+
+        static final int FIELDS = 100;
+
+        public WideObject() {
+
+            super();
+
+            fields = new SensibleDataType[FIELDS + 2];
+            fieldNames = new String[FIELDS + 2];
+
+            for (int i = 0; i < FIELDS + 2; i++) {
+                fields[i] = new SensibleString(10);
+                fieldNames[i] = "field" + i;
+            }
+
+            fieldNames[FIELDS] = "Aa";
+            fieldNames[FIELDS + 1] = "BB";
+
+            addListeners();
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package deors.core.sensible;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+import javax.swing.JCheckBox;
+import javax.swing.JTable;
+
+import org.junit.jupiter.api.Test;
+
+public class SensibleTableCellRendererTestCase {
+
+    @Test
+    public void testBoolean() {
+
+        SensibleTableCellRenderer renderer = new SensibleTableCellRenderer();
+        JTable table = new JTable();
+
+        Component c1 = renderer.getTableCellRendererComponent(
+            table, new SensibleBoolean(true), false, false, 0, 0);
+        assertTrue(c1 instanceof JCheckBox);
+        assertTrue(((JCheckBox) c1).isSelected());
+
+        Component c2 = renderer.getTableCellRendererComponent(
+            table, new SensibleBoolean(false), true, false, 1, 0);
+        assertSame(c1, c2);
+        assertFalse(((JCheckBox) c2).isSelected());
+        assertEquals(table.getSelectionBackground(), c2.getBackground());
+    }
+
+    @Test
+    public void testNumbers() {
+
+        SensibleTableCellRenderer renderer = new SensibleTableCellRenderer();
+        renderer.setGroupSeparator(',');
+        JTable table = new JTable();
+
+        assertEquals(',', renderer.getGroupSeparator());
+        assertEquals("1,234,567", render(renderer, table, new SensibleInteger(1234567)));
+        assertEquals("-1,000", render(renderer, table, new SensibleInteger(-1000)));
+        assertEquals("999", render(renderer, table, new SensibleInteger(999)));
+        assertEquals("0", render(renderer, table, new SensibleInteger(0)));
+        assertEquals("-9,223,372,036,854,775,808",
+            render(renderer, table, new SensibleLong(Long.MIN_VALUE)));
+        assertEquals("", render(renderer, table, new SensibleInteger()));
+
+        Component c1 = renderer.getTableCellRendererComponent(
+            table, new SensibleInteger(1), false, false, 0, 0);
+        Component c2 = renderer.getTableCellRendererComponent(
+            table, new SensibleLong(1L), false, false, 0, 0);
+        assertSame(c1, c2);
+    }
+
+    @Test
+    public void testDatesAndText() {
+
+        SensibleTableCellRenderer renderer = new SensibleTableCellRenderer();
+        JTable table = new JTable();
+        SensibleDate date = new SensibleDate(Calendar.getInstance());
+        SensibleTime time = new SensibleTime(Calendar.getInstance());
+
+        assertEquals(date.toString(), render(renderer, table, date));
+        assertEquals(time.toString(), render(renderer, table, time));
+        assertEquals("some text", render(renderer, table, new SensibleString("some text")));
+
+        Component c1 = renderer.getTableCellRendererComponent(
+            table, date, false, false, 0, 0);
+        Component c2 = renderer.getTableCellRendererComponent(
+            table, new SensibleString("x"), false, false, 0, 0);
+        assertFalse(c1 == c2);
+    }
+
+    @Test
+    public void testPaint() {
+
+        SensibleTableCellRenderer renderer = new SensibleTableCellRenderer();
+        JTable table = new JTable();
+        BufferedImage image = new BufferedImage(100, 20, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+
+        Component c = renderer.getTableCellRendererComponent(
+            table, new SensibleInteger(123456), false, false, 0, 0);
+        c.setBounds(0, 0, 100, 20);
+        c.paint(g);
+        g.dispose();
+
+        assertEquals(table.getBackground().getRGB(), image.getRGB(1, 1));
+    }
+
+    @Test
+    public void testNoAllocationInSteadyState() {
+
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        assumeTrue(threads.isThreadAllocatedMemorySupported()
+            && threads.isThreadAllocatedMemoryEnabled());
+
+        SensibleTableCellRenderer renderer = new SensibleTableCellRenderer();
+        JTable table = new JTable();
+        Object[] values = new Object[] {
+            new SensibleBoolean(true), new SensibleBoolean(false),
+            new SensibleInteger(123456), new SensibleLong(-9876543210L),
+            new SensibleBigDecimal(new BigDecimal("1234.5")), new SensibleDate(Calendar.getInstance()),
+            new SensibleTime(Calendar.getInstance()), new SensibleDateTime(Calendar.getInstance()),
+            new SensibleString("text")};
+
+        int calls = 200000;
+
+        // warm up so the measured loop runs in steady state
+        renderCells(renderer, table, values, calls);
+
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        renderCells(renderer, table, values, calls);
+        double allocatedPerCall =
+            (threads.getThreadAllocatedBytes(threadId) - before) / (double) calls;
+
+        // an object is at least 16 bytes, so less than a byte per call is far from one object
+        // per cell, and leaves room for the allocations of the measurement and the runtime
+        assertTrue(allocatedPerCall < 1, "bytes allocated per cell rendered: " + allocatedPerCall);
+    }
+
+    private static void renderCells(SensibleTableCellRenderer renderer, JTable table,
+                                    Object[] values, int calls) {
+
+        for (int i = 0; i < calls; i++) {
+            renderer.getTableCellRendererComponent(
+                table, values[i % values.length], (i & 1) == 0, (i & 7) == 0, i, 0);
+        }
+    }
+
+    private static String render(SensibleTableCellRenderer renderer, JTable table, Object value) {
+
+        Component c = renderer.getTableCellRendererComponent(table, value, false, false, 0, 0);
+        return ((SensibleTableCellRenderer.TextComponent) c).getText();
+    }
+}
@@ -4,11 +4,26 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
 
 import org.junit.jupiter.api.Test;
 
@@ -678,6 +693,1379 @@ public class SensibleTableTestCase {
         assertEquals(o2, st.getTableData().get(1));
     }
 
+    @Test
+    public void testRowProvider() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        CountingRowProvider provider = new CountingRowProvider(1000);
+
+        st.setRowProvider(provider, 10, 2);
+
+        assertEquals(provider, st.getRowProvider());
+        assertEquals(1000, st.getModel().getRowCount());
+        assertEquals(0, provider.fetches);
+
+        assertEquals("s5", st.getRecordAt(5).getSstring().getString());
+        assertEquals("s9", st.getModel().getValueAt(9, 0).toString());
+        assertEquals(1, provider.fetches);
+
+        assertEquals("s995", st.getRecordAt(995).getSstring().getString());
+        assertEquals("s500", st.getRecordAt(500).getSstring().getString());
+        assertEquals(3, provider.fetches);
+
+        // the first page was the least recently used and it was discarded
+        assertEquals("s0", st.getRecordAt(0).getSstring().getString());
+        assertEquals(4, provider.fetches);
+
+        st.setRowSelectionInterval(500, 500);
+        assertEquals("s500", st.getRecord().getSstring().getString());
+    }
+
+    @Test
+    public void testRowProviderRefresh() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        CountingRowProvider provider = new CountingRowProvider(50);
+
+        st.setRowProvider(provider);
+
+        assertEquals(50, st.getModel().getRowCount());
+
+        provider.size = 60;
+        assertEquals(50, st.getModel().getRowCount());
+
+        st.refreshRowProvider();
+        assertEquals(60, st.getModel().getRowCount());
+
+        st.setRowProvider(null);
+        assertNull(st.getRowProvider());
+        assertEquals(0, st.getModel().getRowCount());
+    }
+
+    @Test
+    public void testRowProviderReadOnly() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setRowProvider(new CountingRowProvider(10));
+
+        assertThrows(IllegalStateException.class, () -> st.addRecord(new AllTypesObject()));
+        assertThrows(IllegalStateException.class, () -> st.deleteRecord(0));
+        assertThrows(IllegalStateException.class, () -> st.updateRecord(0, new AllTypesObject()));
+        assertThrows(IllegalStateException.class,
+            () -> st.setTableData(new ArrayList<AllTypesObject>()));
+
+        // the rows read from the provider are discarded with their page, so they are not editable
+        st.setCellsEditableInTable(true);
+
+        assertFalse(st.getModel().isCellEditable(0, 0));
+        assertThrows(IllegalStateException.class,
+            () -> st.getModel().setValueAt(new SensibleString("edited"), 0, 0));
+    }
+
+    @Test
+    public void testRowWindowBound() {
+
+        CountingRowProvider provider = new CountingRowProvider(100);
+        SensibleTableRowWindow<AllTypesObject> window =
+            new SensibleTableRowWindow<AllTypesObject>(provider, 10, 2);
+
+        for (int row = 0; row < 100; row += 10) {
+            assertEquals("s" + row, window.getRow(row).getSstring().getString());
+            assertTrue(window.getCachedPageCount() <= 2);
+        }
+
+        assertEquals(10, provider.fetches);
+        assertEquals("s95", window.getRow(95).getSstring().getString());
+        assertEquals("s85", window.getRow(85).getSstring().getString());
+        assertEquals(10, provider.fetches);
+
+        // the least recently used page is discarded before the next page is fetched
+        assertEquals("s0", window.getRow(0).getSstring().getString());
+        assertEquals("s85", window.getRow(85).getSstring().getString());
+        assertEquals(11, provider.fetches);
+        assertEquals("s95", window.getRow(95).getSstring().getString());
+        assertEquals(12, provider.fetches);
+        assertEquals(2, window.getCachedPageCount());
+    }
+
+    @Test
+    public void testRowProviderInvalidWindow() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> st.setRowProvider(new CountingRowProvider(10), 0, 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> st.setRowProvider(new CountingRowProvider(10), 1, 0));
+    }
+
+    @Test
+    public void testFindRowByKey() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+
+        for (int i = 0; i < 100; i++) {
+            st.addRecord(createRecord("s" + i, i), SensibleTable.DONT_CLONE);
+        }
+
+        assertEquals(42, st.findRowByKey("s42", "42"));
+        assertEquals(-1, st.findRowByKey("s42", "43"));
+        assertEquals(7, st.findRowByKey(createRecord("s7", 7)));
+        assertThrows(IllegalArgumentException.class, () -> st.findRowByKey("s42"));
+
+        st.setKeyIndexed(true);
+
+        assertTrue(st.isKeyIndexed());
+        assertEquals(42, st.findRowByKey("s42", "42"));
+        assertEquals(-1, st.findRowByKey("s42", "43"));
+        assertEquals(7, st.findRowByKey(createRecord("s7", 7)));
+        assertThrows(IllegalArgumentException.class, () -> st.findRowByKey("s42"));
+
+        st.setKeyIndexed(false);
+
+        assertFalse(st.isKeyIndexed());
+    }
+
+    @Test
+    public void testKeyIndexMaintained() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setKeyIndexed(true);
+
+        List<AllTypesObject> l = new ArrayList<AllTypesObject>();
+        for (int i = 0; i < 10; i++) {
+            l.add(createRecord("s" + i, i));
+        }
+        st.setTableData(l);
+
+        assertEquals(5, st.findRowByKey("s5", "5"));
+
+        st.insertRecord(createRecord("new", 100), 2);
+
+        assertEquals(2, st.findRowByKey("new", "100"));
+        assertEquals(6, st.findRowByKey("s5", "5"));
+        assertEquals(10, st.findRowByKey("s9", "9"));
+
+        assertTrue(st.deleteRecord(createRecord("s1", 1)));
+
+        assertEquals(-1, st.findRowByKey("s1", "1"));
+        assertEquals(1, st.findRowByKey("new", "100"));
+        assertEquals(5, st.findRowByKey("s5", "5"));
+        assertFalse(st.deleteRecord(createRecord("s1", 1)));
+
+        assertTrue(st.updateRecord(createRecord("s5", 5), createRecord("upd", 55)));
+
+        assertEquals(-1, st.findRowByKey("s5", "5"));
+        assertEquals(5, st.findRowByKey("upd", "55"));
+
+        st.getModel().setValueAt(new SensibleString("edited"), 5, 0);
+
+        assertEquals(-1, st.findRowByKey("upd", "55"));
+        assertEquals(5, st.findRowByKey("edited", "55"));
+
+        // changes made directly on the records are picked when the index is refreshed
+        st.getTableData().get(0).setField(0, "direct");
+
+        assertEquals(-1, st.findRowByKey("s0", "0"));
+        st.refreshKeyIndex();
+        assertEquals(0, st.findRowByKey("direct", "0"));
+    }
+
+    @Test
+    public void testKeyIndexRenumbered() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setKeyIndexed(true);
+
+        List<AllTypesObject> l = new ArrayList<AllTypesObject>();
+        for (int i = 0; i < 10; i++) {
+            l.add(createRecord("s" + i, i));
+        }
+        st.setTableData(l);
+
+        st.insertRecord(createRecord("new", 100), 3);
+        assertEquals(3, st.deleteRecords(new int[] {1, 5, 7}));
+        assertTrue(st.deleteRecord(3));
+
+        // a key changed directly on a record is not found while the index is not rebuilt, so
+        // the rows below are found through the renumbered entries
+        st.getTableData().get(0).setField(0, "direct");
+
+        assertEquals(1, st.findRowByKey("s2", "2"));
+        assertEquals(2, st.findRowByKey("new", "100"));
+        assertEquals(3, st.findRowByKey("s5", "5"));
+        assertEquals(4, st.findRowByKey("s7", "7"));
+        assertEquals(6, st.findRowByKey("s9", "9"));
+        assertEquals(-1, st.findRowByKey("s6", "6"));
+        assertEquals(-1, st.findRowByKey("direct", "0"));
+    }
+
+    @Test
+    public void testKeyIndexDuplicatedKeys() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setKeyIndexed(true);
+
+        List<AllTypesObject> l = new ArrayList<AllTypesObject>();
+        for (int i = 0; i < 5; i++) {
+            l.add(createRecord("s" + i, i));
+        }
+        l.add(createRecord("s2", 2));
+        st.setTableData(l);
+
+        assertEquals(2, st.findRowByKey("s2", "2"));
+
+        // the first copy changes its key, so the other copy is now the first one
+        st.getModel().setValueAt(new SensibleString("edited"), 2, 0);
+
+        assertEquals(2, st.findRowByKey("edited", "2"));
+        assertEquals(5, st.findRowByKey("s2", "2"));
+
+        assertTrue(st.deleteRecord(createRecord("s2", 2)));
+
+        assertEquals(-1, st.findRowByKey("s2", "2"));
+        assertEquals(2, st.findRowByKey("edited", "2"));
+        assertEquals(5, st.getTableData().size());
+
+        // a key set back to a duplicated value is found on the first row that has it
+        st.addRecord(createRecord("s3", 3), SensibleTable.DONT_CLONE);
+        assertTrue(st.updateRecord(createRecord("s3", 3), createRecord("s4", 4)));
+
+        assertEquals(3, st.findRowByKey("s4", "4"));
+        assertEquals(5, st.findRowByKey("s3", "3"));
+
+        assertTrue(st.deleteRecord(createRecord("s4", 4)));
+
+        assertEquals(3, st.findRowByKey("s4", "4"));
+        assertEquals(4, st.findRowByKey("s3", "3"));
+    }
+
+    @Test
+    public void testKeyIndexEditedInTable() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setCellsEditableInTable(true);
+        st.setKeyIndexed(true);
+        for (int i = 0; i < 5; i++) {
+            st.addRecord(createRecord("s" + i, i), SensibleTable.DONT_CLONE);
+        }
+
+        // the editor changes a copy, so the row keeps its key until the editing stops
+        assertTrue(st.editCellAt(2, 1));
+        ((SensibleTextField) st.getEditorComponent()).setText("7");
+        assertEquals("2", st.getTableData().get(2).getField(1).getValue());
+        assertTrue(st.getCellEditor().stopCellEditing());
+
+        assertEquals("7", st.getTableData().get(2).getField(1).getValue());
+        assertEquals(2, st.findRowByKey("s2", "7"));
+        assertEquals(-1, st.findRowByKey("s2", "2"));
+        assertTrue(st.deleteRecord(createRecord("s2", 7)));
+        assertEquals(4, st.getTableData().size());
+    }
+
+    @Test
+    public void testAddRecordsCoalesced() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+
+        List<AllTypesObject> l = new ArrayList<AllTypesObject>();
+        for (int i = 0; i < 100; i++) {
+            l.add(createRecord("s" + i, i));
+        }
+        st.addRecords(l);
+
+        assertEquals(100, st.getTableData().size());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(99, events.get(0).getLastRow());
+        assertEquals(99, st.getSelectedRow());
+        assertEquals("s99", st.getRecord().getSstring().getString());
+        assertFalse(st.isBatchOpen());
+    }
+
+    @Test
+    public void testUpdateRecordsCoalesced() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 10; i++) {
+            st.addRecord(createRecord("s" + i, i));
+        }
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+
+        Map<Integer, AllTypesObject> updates = new LinkedHashMap<Integer, AllTypesObject>();
+        updates.put(3, createRecord("u3", 3));
+        updates.put(1, createRecord("u1", 1));
+        updates.put(7, createRecord("u7", 7));
+        updates.put(2, createRecord("u2", 2));
+        updates.put(-1, createRecord("ignored", 0));
+
+        assertEquals(4, st.updateRecords(updates));
+
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(3, events.get(0).getLastRow());
+        assertEquals(7, events.get(1).getFirstRow());
+        assertEquals(7, events.get(1).getLastRow());
+        assertEquals("u2", st.getTableData().get(2).getSstring().getString());
+        assertEquals(10, st.getTableData().size());
+        // the highest row updated is selected, not the last one in the map
+        assertEquals(7, st.getSelectedRow());
+        assertEquals("u7", st.getRecord().getSstring().getString());
+    }
+
+    @Test
+    public void testDeleteRecordsCoalesced() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 10; i++) {
+            st.addRecord(createRecord("s" + i, i));
+        }
+        st.setKeyIndexed(true);
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+
+        assertEquals(4, st.deleteRecords(new int[] {5, 1, 2, 8, -1, 2}));
+
+        assertEquals(6, st.getTableData().size());
+        assertEquals("s0", st.getTableData().get(0).getSstring().getString());
+        assertEquals("s3", st.getTableData().get(1).getSstring().getString());
+        assertEquals("s9", st.getTableData().get(5).getSstring().getString());
+        assertEquals(3, events.size());
+        assertEquals(8, events.get(0).getFirstRow());
+        assertEquals(5, events.get(1).getFirstRow());
+        assertEquals(1, events.get(2).getFirstRow());
+        assertEquals(2, events.get(2).getLastRow());
+        assertEquals(-1, st.getSelectedRow());
+        assertEquals(4, st.findRowByKey("s7", "7"));
+        assertEquals(-1, st.findRowByKey("s8", "8"));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> st.deleteRecords(new int[] {6}));
+    }
+
+    @Test
+    public void testBatchScope() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 10; i++) {
+            st.addRecord(createRecord("s" + i, i));
+        }
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+
+        st.beginBatch();
+        st.beginBatch();
+        st.deleteRecord(4);
+        st.deleteRecord(4);
+        st.deleteRecord(3);
+        st.endBatch();
+
+        assertTrue(st.isBatchOpen());
+        assertEquals(0, events.size());
+
+        st.insertRecord(createRecord("new", 100), 0);
+        st.endBatch();
+
+        assertFalse(st.isBatchOpen());
+        assertEquals(2, events.size());
+        assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+        assertEquals(3, events.get(0).getFirstRow());
+        assertEquals(5, events.get(0).getLastRow());
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+        assertEquals(0, events.get(1).getFirstRow());
+        assertEquals(8, st.getTableData().size());
+        assertEquals("s6", st.getTableData().get(4).getSstring().getString());
+        assertEquals(0, st.getSelectedRow());
+
+        assertThrows(IllegalStateException.class, st::endBatch);
+    }
+
+    @Test
+    public void testSortByColumn() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        int[] numbers = {5, 3, 9, 3, 1};
+        for (int i = 0; i < numbers.length; i++) {
+            st.addRecord(createRecord("s" + i, numbers[i]));
+        }
+        st.setSortable(true);
+
+        assertTrue(st.isSortable());
+        assertTrue(st.getRowSorter() instanceof SensibleTableRowSorter<?>);
+
+        st.getRowSorter().toggleSortOrder(1);
+
+        assertEquals(4, st.convertRowIndexToModel(0));
+        assertEquals(1, st.convertRowIndexToModel(1));
+        assertEquals(3, st.convertRowIndexToModel(2));
+        assertEquals(0, st.convertRowIndexToModel(3));
+        assertEquals(2, st.convertRowIndexToModel(4));
+        assertEquals("1", st.getValueAt(0, 1).toString());
+
+        st.getRowSorter().toggleSortOrder(1);
+
+        assertEquals(2, st.convertRowIndexToModel(0));
+        assertEquals(0, st.convertRowIndexToModel(1));
+        assertEquals(1, st.convertRowIndexToModel(2));
+        assertEquals(3, st.convertRowIndexToModel(3));
+        assertEquals(4, st.convertRowIndexToModel(4));
+
+        st.setRowSelectionInterval(0, 0);
+        assertEquals("s2", st.getRecord().getSstring().getString());
+
+        st.addRecord(createRecord("s5", 7));
+        assertEquals(1, st.getSelectedRow());
+        assertEquals("s5", st.getRecord().getSstring().getString());
+
+        st.setSortable(false);
+
+        assertFalse(st.isSortable());
+        assertNull(st.getRowSorter());
+    }
+
+    @Test
+    public void testSortByStringAndUpdate() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        String[] names = {"delta", "alpha", "charlie", "bravo"};
+        for (int i = 0; i < names.length; i++) {
+            st.addRecord(createRecord(names[i], i));
+        }
+        st.setSortable(true);
+        st.getRowSorter().setSortKeys(
+            List.of(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
+
+        assertEquals("alpha", st.getValueAt(0, 0).toString());
+        assertEquals("delta", st.getValueAt(3, 0).toString());
+
+        st.updateRecord(1, createRecord("echo", 1));
+
+        assertEquals("bravo", st.getValueAt(0, 0).toString());
+        assertEquals("echo", st.getValueAt(3, 0).toString());
+
+        st.deleteRecord(0);
+
+        assertEquals(3, st.getRowCount());
+        assertEquals("echo", st.getValueAt(2, 0).toString());
+
+        assertThrows(IllegalArgumentException.class, () -> st.getRowSorter().setSortKeys(
+            List.of(new RowSorter.SortKey(20, SortOrder.ASCENDING))));
+    }
+
+    @Test
+    public void testSortLargeTable() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        List<AllTypesObject> l = new ArrayList<AllTypesObject>();
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 40000; i++) {
+            AllTypesObject record = new AllTypesObject();
+            record.changeField(2, Integer.toString(random.nextInt(1000000)));
+            l.add(record);
+        }
+        st.setTableData(l);
+        st.setSortable(true);
+        st.getRowSorter().setSortKeys(
+            List.of(new RowSorter.SortKey(2, SortOrder.DESCENDING)));
+
+        long previous = Long.MAX_VALUE;
+        for (int row = 0; row < st.getRowCount(); row++) {
+            long current = ((SensibleLong) st.getValueAt(row, 2)).longValue();
+            assertTrue(current <= previous);
+            previous = current;
+        }
+    }
+
+    @Test
+    public void testSortIncrementalMatchesSort() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < 200; i++) {
+            st.addRecord(createRecord("s" + random.nextInt(20), random.nextInt(50)));
+        }
+        st.setRowFilter(SensibleTableFilter.between(1, "10", "40"));
+        st.setSortable(true);
+        List<RowSorter.SortKey> keys = List.of(new RowSorter.SortKey(0, SortOrder.ASCENDING),
+            new RowSorter.SortKey(1, SortOrder.DESCENDING));
+        st.getRowSorter().setSortKeys(keys);
+
+        for (int i = 0; i < 300; i++) {
+            int row = random.nextInt(st.getTableData().size());
+            AllTypesObject record = createRecord("s" + random.nextInt(20), random.nextInt(50));
+
+            switch (i % 4) {
+                case 0:
+                    st.insertRecord(record, row);
+                    break;
+                case 1:
+                    st.updateRecord(row, record);
+                    break;
+                case 2:
+                    st.deleteRecord(row);
+                    break;
+                default:
+                    // a batch with several insertions and deletions is sorted once
+                    st.beginBatch();
+                    st.insertRecord(record, row);
+                    st.deleteRecord(random.nextInt(st.getTableData().size()));
+                    st.addRecord(createRecord("s" + i, 20));
+                    st.endBatch();
+                    break;
+            }
+
+            SensibleTableRowSorter<AllTypesObject> sorted =
+                new SensibleTableRowSorter<AllTypesObject>(st);
+            sorted.setSortKeys(keys);
+
+            assertEquals(sorted.getViewRowCount(), st.getRowSorter().getViewRowCount());
+            for (int view = 0; view < sorted.getViewRowCount(); view++) {
+                assertEquals(sorted.convertRowIndexToModel(view),
+                    st.getRowSorter().convertRowIndexToModel(view));
+            }
+            for (int model = 0; model < st.getTableData().size(); model++) {
+                assertEquals(sorted.convertRowIndexToView(model),
+                    st.getRowSorter().convertRowIndexToView(model));
+            }
+        }
+    }
+
+    @Test
+    public void testFilterByValue() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        int[] numbers = {5, 3, 9, 3, 1, 7};
+        for (int i = 0; i < numbers.length; i++) {
+            st.addRecord(createRecord("s" + i, numbers[i]));
+        }
+
+        st.setRowFilter(SensibleTableFilter.equalTo(1, "3"));
+
+        assertTrue(st.getRowSorter() instanceof SensibleTableRowSorter<?>);
+        assertEquals(2, st.getRowCount());
+        assertEquals(1, st.convertRowIndexToModel(0));
+        assertEquals(3, st.convertRowIndexToModel(1));
+        assertEquals(-1, st.convertRowIndexToView(0));
+
+        st.setRowFilter(SensibleTableFilter.between(1, "3", "7"));
+        assertEquals(List.of(0, 1, 3, 5), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.between(1, null, "4"));
+        assertEquals(List.of(1, 3, 4), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.not(SensibleTableFilter.between(1, "5", null)));
+        assertEquals(List.of(1, 3, 4), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.or(
+            SensibleTableFilter.equalTo(1, "1"), SensibleTableFilter.equalTo(0, "S5")));
+        assertEquals(List.of(4, 5), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.and(
+            SensibleTableFilter.between(1, "3", null), SensibleTableFilter.startsWith(0, "s")));
+        assertEquals(List.of(0, 1, 2, 3, 5), visibleRows(st));
+
+        // values not valid for the column type match no rows
+        st.setRowFilter(SensibleTableFilter.equalTo(1, "x"));
+        assertEquals(0, st.getRowCount());
+
+        st.setRowFilter(null);
+
+        assertNull(st.getRowFilter());
+        assertNull(st.getRowSorter());
+        assertEquals(6, st.getRowCount());
+    }
+
+    @Test
+    public void testFilterByText() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        String[] names = {"Alpha", "alphabet", "Bravo", "charlie", "", "delta alpha"};
+        for (int i = 0; i < names.length; i++) {
+            st.addRecord(createRecord(names[i], i * 10));
+        }
+
+        st.setRowFilter(SensibleTableFilter.startsWith(0, "ALP"));
+        assertEquals(List.of(0, 1), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.contains(0, "alph"));
+        assertEquals(List.of(0, 1, 5), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.contains(0, "ar"));
+        assertEquals(List.of(3), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.contains(0, "zzz"));
+        assertEquals(List.of(), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.equalTo(0, ""));
+        assertEquals(List.of(4), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.contains(1, "0"));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), visibleRows(st));
+
+        st.setRowFilter(SensibleTableFilter.startsWith(1, "2"));
+        assertEquals(List.of(2), visibleRows(st));
+    }
+
+    @Test
+    public void testFilterIncrementalUpdates() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 10; i++) {
+            st.addRecord(createRecord("row" + i, i));
+        }
+        st.setRowFilter(SensibleTableFilter.and(
+            SensibleTableFilter.between(1, "3", "6"), SensibleTableFilter.contains(0, "row")));
+
+        assertEquals(List.of(3, 4, 5, 6), visibleRows(st));
+
+        st.addRecord(createRecord("row10", 4));
+        assertEquals(List.of(3, 4, 5, 6, 10), visibleRows(st));
+        assertEquals("row10", st.getRecord().getSstring().getString());
+
+        st.insertRecord(createRecord("new", 5), 0);
+        assertEquals(List.of(4, 5, 6, 7, 11), visibleRows(st));
+
+        st.updateRecord(1, createRecord("row0", 3));
+        assertEquals(List.of(1, 4, 5, 6, 7, 11), visibleRows(st));
+
+        st.updateRecord(0, createRecord("row99", 5));
+        assertEquals(List.of(0, 1, 4, 5, 6, 7, 11), visibleRows(st));
+
+        st.deleteRecord(4);
+        assertEquals(List.of(0, 1, 4, 5, 6, 10), visibleRows(st));
+
+        st.deleteRecords(new int[] {0, 5, 9});
+        assertEquals(List.of(0, 3, 4, 7), visibleRows(st));
+
+        st.getModel().setValueAt("2", 3, 1);
+        assertEquals(List.of(0, 4, 7), visibleRows(st));
+    }
+
+    @Test
+    public void testFilterMatchesScan() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < 500; i++) {
+            st.addRecord(createRecord(randomName(random), random.nextInt(100)));
+        }
+        st.setRowFilter(SensibleTableFilter.or(
+            SensibleTableFilter.contains(0, "abc"),
+            SensibleTableFilter.and(SensibleTableFilter.between(1, "20", "40"),
+                SensibleTableFilter.startsWith(0, "b"))));
+
+        for (int i = 0; i < 300; i++) {
+            int rows = st.getTableData().size();
+            switch (random.nextInt(4)) {
+                case 0:
+                    st.insertRecord(createRecord(randomName(random), random.nextInt(100)),
+                        random.nextInt(rows + 1));
+                    break;
+                case 1:
+                    st.updateRecord(random.nextInt(rows),
+                        createRecord(randomName(random), random.nextInt(100)));
+                    break;
+                case 2:
+                    st.deleteRecord(random.nextInt(rows));
+                    break;
+                default:
+                    st.deleteRecords(new int[] {random.nextInt(rows), random.nextInt(rows)});
+                    break;
+            }
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int row = 0; row < st.getTableData().size(); row++) {
+                AllTypesObject record = st.getTableData().get(row);
+                String name = record.getSstring().getString().toLowerCase();
+                int number = record.getSinteger().intValue();
+                if (name.contains("abc") || number >= 20 && number <= 40 && name.startsWith("b")) {
+                    expected.add(row);
+                }
+            }
+            assertEquals(expected, visibleRows(st));
+        }
+    }
+
+    @Test
+    public void testFilterTextOnNumbersMatchesScan() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        java.util.Random random = new java.util.Random(11);
+        for (int i = 0; i < 300; i++) {
+            st.addRecord(createRecord(randomName(random), random.nextInt(1000)));
+        }
+        st.setRowFilter(SensibleTableFilter.or(
+            SensibleTableFilter.contains(1, "12"),
+            SensibleTableFilter.contains(1, "345"),
+            SensibleTableFilter.startsWith(1, "9"),
+            SensibleTableFilter.contains(0, "abc")));
+
+        // mostly insertions in the middle, so the trigram lists apply the log of rows inserted
+        for (int i = 0; i < 600; i++) {
+            int rows = st.getTableData().size();
+            switch (random.nextInt(5)) {
+                case 0:
+                    st.updateRecord(random.nextInt(rows),
+                        createRecord(randomName(random), random.nextInt(1000)));
+                    break;
+                case 1:
+                    st.deleteRecord(random.nextInt(rows));
+                    break;
+                default:
+                    st.insertRecord(createRecord(randomName(random), random.nextInt(1000)),
+                        random.nextInt(rows + 1));
+                    break;
+            }
+
+            if (i % 10 != 0) {
+                continue;
+            }
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int row = 0; row < st.getTableData().size(); row++) {
+                AllTypesObject record = st.getTableData().get(row);
+                String name = record.getSstring().getString().toLowerCase();
+                String number = record.getSinteger().toString();
+                if (number.contains("12") || number.contains("345") || number.startsWith("9")
+                    || name.contains("abc")) {
+                    expected.add(row);
+                }
+            }
+            assertEquals(expected, visibleRows(st));
+        }
+    }
+
+    @Test
+    public void testFilterWithSortAndErrors() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        int[] numbers = {5, 3, 9, 3, 1, 7};
+        for (int i = 0; i < numbers.length; i++) {
+            st.addRecord(createRecord("s" + i, numbers[i]));
+        }
+        st.setSortable(true);
+        st.getRowSorter().toggleSortOrder(1);
+        st.setRowFilter(SensibleTableFilter.between(1, "3", null));
+
+        assertEquals(5, st.getRowCount());
+        assertEquals("3", st.getValueAt(0, 1).toString());
+        assertEquals("9", st.getValueAt(4, 1).toString());
+
+        st.setSortable(false);
+
+        assertTrue(st.getRowSorter() instanceof SensibleTableRowSorter<?>);
+        assertTrue(st.getRowSorter().getSortKeys().isEmpty());
+        assertEquals(List.of(0, 1, 2, 3, 5), visibleRows(st));
+
+        st.getRowSorter().toggleSortOrder(1);
+        assertTrue(st.getRowSorter().getSortKeys().isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> st.setRowFilter(SensibleTableFilter.equalTo(20, "1")));
+        assertThrows(IllegalArgumentException.class,
+            () -> SensibleTableFilter.contains(0, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> SensibleTableFilter.and(SensibleTableFilter.equalTo(0, "a"), null));
+    }
+
+    @Test
+    public void testCursorMode() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 5; i++) {
+            st.addRecord(createRecord("s" + i, i));
+        }
+        st.setRowSelectionInterval(1, 1);
+        st.setCursorMode(true);
+
+        assertTrue(st.isCursorMode());
+        assertEquals(1, st.getCursorRow());
+        assertTrue(st.hasRowSelected());
+        assertEquals("s1", o.getSstring().getString());
+
+        List<java.beans.PropertyChangeEvent> events = new ArrayList<java.beans.PropertyChangeEvent>();
+        st.addPropertyChangeListener(events::add);
+        List<java.beans.PropertyChangeEvent> recordEvents = new ArrayList<java.beans.PropertyChangeEvent>();
+        o.addPropertyChangeListener(recordEvents::add);
+        recordEvents.clear();
+
+        st.setRowSelectionInterval(3, 3);
+
+        assertEquals(1, events.size());
+        assertEquals("cursorRow", events.get(0).getPropertyName());
+        assertEquals(1, events.get(0).getOldValue());
+        assertEquals(3, events.get(0).getNewValue());
+        assertTrue(recordEvents.isEmpty());
+        assertEquals("s3", o.getSstring().getString());
+        assertTrue(o.getSstring() == st.getTableData().get(3).getSstring());
+
+        st.updateRecord(3, createRecord("t3", 3));
+
+        assertEquals("t3", o.getSstring().getString());
+
+        st.clearSelection();
+
+        assertEquals(-1, st.getCursorRow());
+        assertFalse(st.hasRowSelected());
+        assertTrue(o.getSstring().isClear());
+        assertEquals("t3", st.getTableData().get(3).getSstring().getString());
+
+        st.setRowSelectionInterval(2, 2);
+        st.setCursorMode(false);
+
+        assertFalse(st.isCursorMode());
+        assertEquals(-1, st.getCursorRow());
+        assertEquals("s2", o.getSstring().getString());
+        assertFalse(o.getSstring() == st.getTableData().get(2).getSstring());
+    }
+
+    @Test
+    public void testLoadRecordsFromStream() throws InterruptedException {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.addRecord(createRecord("first", 0));
+        st.setRowSelectionInterval(0, 0);
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+        AtomicBoolean closed = new AtomicBoolean();
+
+        SensibleTableLoader<AllTypesObject> loader = st.loadRecords(
+            IntStream.range(0, 20000)
+                .mapToObj(i -> createRecord("s" + i, i % 1000))
+                .onClose(() -> closed.set(true)));
+        awaitDone(loader);
+
+        assertFalse(loader.isCancelled());
+        assertNull(loader.getFailure());
+        assertEquals(20000, loader.getLoadedRows());
+        assertEquals(20001, st.getTableData().size());
+        assertEquals("s0", st.getTableData().get(1).getSstring().getString());
+        assertEquals("s19999", st.getTableData().get(20000).getSstring().getString());
+        assertTrue(closed.get());
+        assertTrue(events.size() > 1);
+        assertTrue(events.size() < 20000);
+        assertEquals(0, st.getSelectedRow());
+        assertEquals("first", o.getSstring().getString());
+    }
+
+    @Test
+    public void testLoadRecordsFromPublisher() throws InterruptedException {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+
+        SensibleTableLoader<AllTypesObject> loader;
+        try (SubmissionPublisher<AllTypesObject> publisher =
+                 new SubmissionPublisher<AllTypesObject>()) {
+            loader = st.loadRecords(publisher);
+            for (int i = 0; i < 3000; i++) {
+                publisher.submit(createRecord("s" + i, i % 1000));
+            }
+        }
+        awaitDone(loader);
+
+        assertNull(loader.getFailure());
+        assertEquals(3000, st.getTableData().size());
+        assertEquals("s2999", st.getTableData().get(2999).getSstring().getString());
+    }
+
+    @Test
+    public void testLoadRecordsCancelAndFailure() throws InterruptedException {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+
+        SensibleTableLoader<AllTypesObject> endless = st.loadRecords(
+            Stream.generate(() -> createRecord("s", 1)).iterator());
+        endless.addPropertyChangeListener("loadedRows", e -> endless.cancel());
+        awaitDone(endless);
+
+        assertTrue(endless.isCancelled());
+        assertTrue(endless.getLoadedRows() > 0);
+        assertEquals(endless.getLoadedRows(), st.getTableData().size());
+
+        Iterator<AllTypesObject> failing = new Iterator<AllTypesObject>() {
+            int count;
+            public boolean hasNext() {
+                return true;
+            }
+            public AllTypesObject next() {
+                if (count == 100) {
+                    throw new IllegalStateException("source failed");
+                }
+                return createRecord("f" + count++, 1);
+            }
+        };
+        SensibleTable<AllTypesObject> st2 = new SensibleTable<AllTypesObject>(new AllTypesObject());
+        SensibleTableLoader<AllTypesObject> loader = st2.loadRecords(failing);
+        awaitDone(loader);
+
+        assertTrue(loader.getFailure() instanceof IllegalStateException);
+        assertEquals(100, loader.getLoadedRows());
+        assertEquals(100, st2.getTableData().size());
+
+        st2.setRowProvider(new CountingRowProvider(10));
+        assertThrows(IllegalStateException.class,
+            () -> st2.loadRecords(List.of(createRecord("x", 1)).iterator()));
+    }
+
+    @Test
+    public void testColumnAggregates() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        int[] numbers = {5, 3, 9, 3, 1};
+        for (int i = 0; i < numbers.length; i++) {
+            AllTypesObject record = createRecord("s" + i, numbers[i]);
+            record.setField(4, numbers[i] + ",25");
+            st.addRecord(record);
+        }
+        st.addRecord(createRecord("empty", 2));
+
+        SensibleTableColumnAggregate integers = st.getColumnAggregate(1);
+        SensibleTableColumnAggregate decimals = st.getColumnAggregate(4);
+
+        assertEquals(6, integers.getCount());
+        assertEquals(new BigDecimal("23"), integers.getSum());
+        assertEquals(new BigDecimal("1"), integers.getMin());
+        assertEquals(new BigDecimal("9"), integers.getMax());
+        assertEquals(6, decimals.getCount());
+        assertEquals(new BigDecimal("22.25"), decimals.getSum());
+        assertEquals(new BigDecimal("0.00"), decimals.getMin());
+        assertEquals(new BigDecimal("9.25"), decimals.getMax());
+
+        st.deleteRecord(2);
+        st.updateRecord(3, createRecord("s4", 7));
+        st.setValueAt("8", 0, 1);
+
+        assertEquals(5, integers.getCount());
+        assertEquals(new BigDecimal("23"), integers.getSum());
+        assertEquals(new BigDecimal("2"), integers.getMin());
+        assertEquals(new BigDecimal("8"), integers.getMax());
+        assertEquals(5, decimals.getCount());
+        assertEquals(new BigDecimal("11.75"), decimals.getSum());
+        assertEquals(new BigDecimal("5.25"), decimals.getMax());
+
+        st.beginBatch();
+        st.deleteRecords(new int[] {0, 1});
+        st.addRecord(createRecord("s9", 100));
+        st.endBatch();
+
+        assertEquals(4, integers.getCount());
+        assertEquals(new BigDecimal("112"), integers.getSum());
+        assertEquals(new BigDecimal("100"), integers.getMax());
+
+        st.setTableData(new ArrayList<AllTypesObject>());
+
+        assertEquals(0, integers.getCount());
+        assertEquals(BigDecimal.ZERO, integers.getSum());
+        assertNull(integers.getMin());
+
+        assertThrows(IllegalArgumentException.class, () -> st.getColumnAggregate(0));
+        assertThrows(IllegalArgumentException.class, () -> st.getColumnAggregate(20));
+    }
+
+    @Test
+    public void testAggregatesEditedInTable() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setCellsEditableInTable(true);
+        for (int i = 0; i < 4; i++) {
+            st.addRecord(createRecord("s" + i, i * 10), SensibleTable.DONT_CLONE);
+        }
+        SensibleTableColumnAggregate integers = st.getColumnAggregate(1);
+        st.setSortable(true);
+        st.getRowSorter().setSortKeys(
+            List.of(new RowSorter.SortKey(1, SortOrder.ASCENDING)));
+        st.setRowFilter(SensibleTableFilter.between(1, "5", "25"));
+
+        assertEquals(new BigDecimal("60"), integers.getSum());
+        assertEquals(List.of(1, 2), visibleRows(st));
+
+        // the rows are given as view indexes, as the editor gets them
+        editCell(st, 0, 1, "15");
+        assertEquals(new BigDecimal("65"), integers.getSum());
+        assertEquals(List.of(1, 2), visibleRows(st));
+
+        editCell(st, 1, 1, "12");
+        assertEquals(new BigDecimal("57"), integers.getSum());
+        assertEquals(List.of(2, 1), visibleRows(st));
+
+        editCell(st, 0, 1, "50");
+        assertEquals(new BigDecimal("95"), integers.getSum());
+        assertEquals(new BigDecimal("50"), integers.getMax());
+        assertEquals(List.of(1), visibleRows(st));
+    }
+
+    @Test
+    public void testColumnAggregatesMatchScan() {
+
+        SensibleTable<AmountObject> st = new SensibleTable<AmountObject>(new AmountObject());
+        java.util.Random random = new java.util.Random(11);
+        SensibleTableColumnAggregate longs = st.getColumnAggregate(0);
+        SensibleTableColumnAggregate decimals = st.getColumnAggregate(1);
+
+        for (int step = 0; step < 3000; step++) {
+            int size = st.getTableData().size();
+            int action = random.nextInt(10);
+            if (size == 0 || action < 5) {
+                st.insertRecord(randomAmount(random), size == 0 ? 0 : random.nextInt(size + 1));
+            } else if (action < 8) {
+                st.updateRecord(random.nextInt(size), randomAmount(random));
+            } else {
+                st.deleteRecord(random.nextInt(size));
+            }
+
+            if (step % 100 == 0 || step == 2999) {
+                assertAggregate(st, 0, longs);
+                assertAggregate(st, 1, decimals);
+            }
+        }
+
+        st.setTableData(new ArrayList<AmountObject>());
+        for (int i = 0; i < 3; i++) {
+            AmountObject amount = new AmountObject();
+            amount.setField(0, Long.toString(Long.MAX_VALUE));
+            st.addRecord(amount);
+        }
+
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(3)),
+            longs.getSum());
+
+        st.deleteRecord(0);
+        st.deleteRecord(0);
+
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE), longs.getSum());
+    }
+
+    @Test
+    public void testSetTableDataByKey() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 10; i++) {
+            st.addRecord(createRecord("s" + i, i), SensibleTable.DONT_CLONE);
+        }
+        st.setKeyIndexed(true);
+        st.setRowSelectionInterval(5, 5);
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+
+        List<AllTypesObject> l = new ArrayList<AllTypesObject>();
+        for (int i = 0; i < 10; i++) {
+            if (i != 2) {
+                l.add(createRecord("s" + i, i));
+            }
+        }
+        l.get(6).setField(2, "77");
+        l.add(createRecord("new", 100));
+        st.setTableData(l, SensibleTable.DiffMode.BY_KEY);
+
+        assertEquals(3, events.size());
+        assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+        assertEquals(2, events.get(0).getFirstRow());
+        assertEquals(2, events.get(0).getLastRow());
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+        assertEquals(9, events.get(1).getFirstRow());
+        assertEquals(TableModelEvent.UPDATE, events.get(2).getType());
+        assertEquals(6, events.get(2).getFirstRow());
+        assertEquals(6, events.get(2).getLastRow());
+        assertEquals(4, st.getSelectedRow());
+        assertEquals("s5", o.getSstring().getString());
+        assertEquals(8, st.findRowByKey("s9", "9"));
+        assertEquals(9, st.findRowByKey("new", "100"));
+
+        // a moved row is deleted from its old position and inserted in the new one
+        events.clear();
+        l = new ArrayList<AllTypesObject>(l);
+        l.add(0, l.remove(7));
+        st.setTableData(l, SensibleTable.DiffMode.BY_KEY);
+
+        assertEquals(2, events.size());
+        assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+        assertEquals(7, events.get(0).getFirstRow());
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+        assertEquals(0, events.get(1).getFirstRow());
+        assertEquals(5, st.getSelectedRow());
+        assertEquals(0, st.findRowByKey("s8", "8"));
+
+        // the same rows do not fire any event
+        events.clear();
+        l = new ArrayList<AllTypesObject>(l);
+        st.setTableData(l, SensibleTable.DiffMode.BY_KEY);
+
+        assertTrue(events.isEmpty());
+        assertEquals(5, st.getSelectedRow());
+
+        // rows with the same key cannot be matched, so all the rows are replaced
+        l = new ArrayList<AllTypesObject>(l);
+        l.add(createRecord("s0", 0));
+        st.setTableData(l, SensibleTable.DiffMode.BY_KEY);
+
+        assertEquals(1, events.size());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+        assertEquals(11, st.getTableData().size());
+    }
+
+    @Test
+    public void testJournal() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        for (int i = 0; i < 5; i++) {
+            st.addRecord(createRecord("s" + i, i), SensibleTable.DONT_CLONE);
+        }
+        st.setKeyIndexed(true);
+        List<AllTypesObject> original = new ArrayList<AllTypesObject>(st.getTableData());
+        SensibleJournal journal = new SensibleJournal();
+        st.setJournal(journal);
+        assertEquals(journal, st.getJournal());
+
+        st.insertRecord(createRecord("new", 50), 1, SensibleTable.DONT_CLONE);
+        st.deleteRecords(new int[] {0, 3, 5});
+        st.getModel().setValueAt("9", 1, 1);
+        st.updateRecord(0, createRecord("upd", 60), SensibleTable.DONT_CLONE);
+        List<AllTypesObject> changed = new ArrayList<AllTypesObject>(st.getTableData());
+
+        assertEquals("[upd, s1, s3]", names(st));
+        assertEquals(6, journal.getDeltaCount());
+
+        // the records are put back, not copies of them, in a batch for each group
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        st.getModel().addTableModelListener(events::add);
+        assertTrue(journal.undo());
+        assertEquals("[new, s1, s3]", names(st));
+        assertEquals("9", st.getTableData().get(1).getField(1).getValue());
+        assertTrue(journal.undo());
+        assertEquals("1", st.getTableData().get(1).getField(1).getValue());
+        events.clear();
+        assertTrue(journal.undo());
+        assertEquals(3, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+        assertEquals("[s0, new, s1, s2, s3, s4]", names(st));
+        assertEquals("2", st.getTableData().get(3).getField(1).getValue());
+        assertTrue(journal.undo());
+        assertFalse(journal.undo());
+        assertEquals(original, st.getTableData());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(original.get(i) == st.getTableData().get(i));
+        }
+        assertEquals(4, st.findRowByKey("s4", "4"));
+
+        while (journal.redo()) {
+            // redo all the changes
+        }
+        assertEquals(changed, st.getTableData());
+        assertEquals("9", st.getTableData().get(1).getField(1).getValue());
+        assertEquals(1, st.findRowByKey("s1", "9"));
+
+        // the records loaded are not recorded and the new table data clears the journal
+        st.appendRecords(List.of(createRecord("loaded", 70)));
+        assertEquals(6, journal.getDeltaCount());
+        st.setTableData(new ArrayList<AllTypesObject>(original));
+        assertFalse(journal.canUndo());
+        assertEquals(0, journal.getMemoryUsage());
+    }
+
+    @Test
+    public void testJournalEditedInTable() {
+
+        AllTypesObject o = new AllTypesObject();
+        SensibleTable<AllTypesObject> st = new SensibleTable<AllTypesObject>(o);
+        st.setCellsEditableInTable(true);
+        for (int i = 0; i < 3; i++) {
+            st.addRecord(createRecord("s" + i, i), SensibleTable.DONT_CLONE);
+        }
+        SensibleJournal journal = new SensibleJournal();
+        st.setJournal(journal);
+
+        editCell(st, 0, 0, "edited");
+        editCell(st, 1, 1, "15");
+
+        assertTrue(journal.canUndo());
+        assertEquals(2, journal.getDeltaCount());
+
+        assertTrue(journal.undo());
+        assertEquals("1", st.getTableData().get(1).getField(1).getValue());
+        assertTrue(journal.undo());
+        assertEquals("s0", st.getTableData().get(0).getField(0).getValue());
+        assertFalse(journal.canUndo());
+
+        assertTrue(journal.redo());
+        assertEquals("edited", st.getTableData().get(0).getField(0).getValue());
+    }
+
+    private static String names(SensibleTable<AllTypesObject> st) {
+
+        List<String> names = new ArrayList<String>();
+        for (AllTypesObject record : st.getTableData()) {
+            names.add(record.getSstring().getString());
+        }
+        return names.toString();
+    }
+
+    private static void assertAggregate(SensibleTable<AmountObject> st, int column,
+                                        SensibleTableColumnAggregate aggregate) {
+
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal min = null;
+        BigDecimal max = null;
+        int count = 0;
+        for (AmountObject amount : st.getTableData()) {
+            SensibleDataType field = amount.getField(column);
+            if (field.getValue().length() > 0) {
+                BigDecimal value = column == 0
+                    ? BigDecimal.valueOf(((SensibleLong) field).longValue())
+                    : ((SensibleBigDecimal) field).getNumber();
+                count++;
+                sum = sum.add(value);
+                min = min == null || value.compareTo(min) < 0 ? value : min;
+                max = max == null || value.compareTo(max) > 0 ? value : max;
+            }
+        }
+
+        assertEquals(count, aggregate.getCount());
+        assertEquals(0, sum.compareTo(aggregate.getSum()));
+        if (count == 0) {
+            assertNull(aggregate.getMin());
+        } else {
+            assertEquals(0, min.compareTo(aggregate.getMin()));
+            assertEquals(0, max.compareTo(aggregate.getMax()));
+        }
+    }
+
+    private static AmountObject randomAmount(java.util.Random random) {
+
+        AmountObject amount = new AmountObject();
+        if (random.nextInt(8) > 0) {
+            amount.setField(0, Long.toString(random.nextInt(2000) - 1000));
+        }
+        if (random.nextInt(8) > 0) {
+            amount.setField(1, (random.nextInt(2000) - 1000) + "," + random.nextInt(100));
+        }
+        return amount;
+    }
+
+    private static void awaitDone(SensibleTableLoader<?> loader) throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        loader.addPropertyChangeListener("done", e -> latch.countDown());
+        if (!loader.isDone()) {
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        }
+    }
+
+    private static List<Integer> visibleRows(SensibleTable<?> st) {
+
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int row = 0; row < st.getRowCount(); row++) {
+            rows.add(st.convertRowIndexToModel(row));
+        }
+        return rows;
+    }
+
+    private static String randomName(java.util.Random random) {
+
+        char[] chars = new char[1 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(4));
+        }
+        return new String(chars);
+    }
+
+    private static void editCell(SensibleTable<?> st, int row, int column, String text) {
+
+        assertTrue(st.editCellAt(row, column));
+        ((SensibleTextField) st.getEditorComponent()).setText(text);
+        assertTrue(st.getCellEditor().stopCellEditing());
+    }
+
+    private static AllTypesObject createRecord(String sstring, int sinteger) {
+
+        AllTypesObject record = new AllTypesObject();
+        record.setField(0, sstring);
+        record.setField(1, Integer.toString(sinteger));
+        return record;
+    }
+
+    static class CountingRowProvider
+        implements SensibleTableRowProvider<AllTypesObject> {
+
+        int size;
+
+        int fetches;
+
+        CountingRowProvider(int size) {
+
+            this.size = size;
+        }
+
+        public int getRowCount() {
+
+            return size;
+        }
+
+        public List<AllTypesObject> getRows(int fromIndex, int toIndex) {
+
+            fetches++;
+
+            List<AllTypesObject> rows = new ArrayList<AllTypesObject>();
+            for (int i = fromIndex; i < toIndex; i++) {
+                AllTypesObject row = new AllTypesObject();
+                row.changeField(0, "s" + i);
+                rows.add(row);
+            }
+
+            return rows;
+        }
+    }
+
+    public static class AmountObject
+        extends SensibleObject {
+
+        private static final long serialVersionUID = -2604407328385212787L;
+
+        public AmountObject() {
+
+            super();
+
+            fields = new SensibleDataType[] {new SensibleLong(), new SensibleBigDecimal()};
+            fieldNames = new String[] {"quantity", "amount"};
+
+            addListeners();
+        }
+    }
+
     public static class AllTypesObject
         extends SensibleObject {
 